@@ -56,6 +56,7 @@
 #include "joynr/system/RoutingTypes/BrowserAddress.h"
 #include "joynr/system/RoutingTypes/ChannelAddress.h"
 #include "joynr/system/RoutingTypes/MqttAddress.h"
+#include "joynr/system/RoutingTypes/ShmAddress.h"
 #include "joynr/system/RoutingTypes/UdsAddress.h"
 #include "joynr/system/RoutingTypes/UdsClientAddress.h"
 #include "joynr/system/RoutingTypes/WebSocketAddress.h"
@@ -718,6 +719,27 @@ void CcMessageRouter::addNextHop(
                std::move(onSuccess));
 }
 
+// inherited from joynr::system::RoutingProvider
+void CcMessageRouter::addNextHop(
+        const std::string& participantId,
+        const system::RoutingTypes::ShmAddress& shmAddress,
+        const bool& isGloballyVisible,
+        std::function<void()> onSuccess,
+        std::function<void(const joynr::exceptions::ProviderRuntimeException&)> onError)
+{
+    std::ignore = participantId;
+    std::ignore = shmAddress;
+    std::ignore = isGloballyVisible;
+    std::ignore = onSuccess;
+    const std::string errorMessage =
+            "unable to addNextHop using ShmAddress, as it is not supported in C++";
+
+    JOYNR_LOG_ERROR(logger(), errorMessage);
+    if (onError) {
+        onError(exceptions::ProviderRuntimeException(errorMessage));
+    }
+}
+
 void CcMessageRouter::resolveNextHop(
         const std::string& participantId,
         std::function<void(const bool& resolved)> onSuccess,
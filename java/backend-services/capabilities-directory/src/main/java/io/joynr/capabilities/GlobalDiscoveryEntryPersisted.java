@@ -25,7 +25,9 @@ import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -36,7 +38,13 @@ import joynr.types.Version;
 
 @Entity
 @IdClass(GlobalDiscoveryEntryPersistedKey.class)
-@Table(name = "discovery_entries")
+@Table(name = "discovery_entries", indexes = {
+        // lookup by domain and interface, optionally restricted to GBIDs
+        @Index(name = "discovery_entries_domain_interface_gbid", columnList = "domain, interfaceName, gbid"),
+        // lookup and remove by participantId: the primary key does not necessarily start with participantId
+        @Index(name = "discovery_entries_participantid", columnList = "participantId"),
+        // touch and removeStale of the entries of a cluster controller
+        @Index(name = "discovery_entries_ccid_lastseen", columnList = "clusterControllerId, lastSeenDateMs") })
 @Access(AccessType.PROPERTY)
 public class GlobalDiscoveryEntryPersisted extends GlobalDiscoveryEntry {
     private static final long serialVersionUID = 1L;
@@ -126,6 +134,13 @@ public class GlobalDiscoveryEntryPersisted extends GlobalDiscoveryEntry {
         super.setQos(new ProviderQos(providerQosPersisted));
     }
 
+    // the custom parameters are loaded after the properties have been set, see setCustomParameterList
+    @PostLoad
+    void updateQosWithLoadedCustomParameters() {
+        providerQosPersisted.updateCustomParameters();
+        super.setQos(new ProviderQos(providerQosPersisted));
+    }
+
     @Override
     @Column
     public Long getLastSeenDateMs() {
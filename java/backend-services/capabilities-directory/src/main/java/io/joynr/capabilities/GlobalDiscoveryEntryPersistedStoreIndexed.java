@@ -0,0 +1,386 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.capabilities;
+
+import static io.joynr.messaging.ConfigurableMessagingSettings.PROPERTY_DISCOVERY_PROVIDER_DEFAULT_EXPIRY_TIME_MS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+/**
+ * Write-through in-memory index in front of the {@link GlobalDiscoveryEntryPersistedStorePersisted}. All
+ * modifications are written to the database first and applied to the index afterwards, lookups are served from
+ * the index only and may be performed concurrently.
+ */
+@Singleton
+public class GlobalDiscoveryEntryPersistedStoreIndexed
+        implements GlobalDiscoveryEntryStore<GlobalDiscoveryEntryPersisted> {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalDiscoveryEntryPersistedStoreIndexed.class);
+
+    private final GlobalDiscoveryEntryPersistedStorePersisted persistedStore;
+    private final long defaultExpiryTimeMs;
+
+    // serializes the modifications of the database and the index so that both apply them in the same order
+    private final Object writeLock = new Object();
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    // participantId -> gbid -> entry
+    private final Map<String, Map<String, GlobalDiscoveryEntryPersisted>> participantIdToEntries = new HashMap<>();
+    // domain|interfaceName -> participantIds
+    private final Map<String, Set<String>> domainInterfaceToParticipantIds = new HashMap<>();
+    // clusterControllerId -> participantIds
+    private final Map<String, Set<String>> clusterControllerIdToParticipantIds = new HashMap<>();
+
+    @Inject
+    public GlobalDiscoveryEntryPersistedStoreIndexed(GlobalDiscoveryEntryPersistedStorePersisted persistedStore,
+                                                     @Named(PROPERTY_DISCOVERY_PROVIDER_DEFAULT_EXPIRY_TIME_MS) String defaultExpiryTimeMs) {
+        this.persistedStore = persistedStore;
+        this.defaultExpiryTimeMs = Long.parseLong(defaultExpiryTimeMs);
+        Set<GlobalDiscoveryEntryPersisted> allEntries = persistedStore.getAllDiscoveryEntries();
+        for (GlobalDiscoveryEntryPersisted entry : allEntries) {
+            putInIndex(entry);
+        }
+        logger.info("Loaded {} discovery entries into the in-memory index", allEntries.size());
+    }
+
+    private static String getDomainInterfaceKey(String domain, String interfaceName) {
+        return domain + "|" + interfaceName;
+    }
+
+    private static GlobalDiscoveryEntryPersisted copy(GlobalDiscoveryEntryPersisted entry) {
+        return new GlobalDiscoveryEntryPersisted(entry, entry.getClusterControllerId(), entry.getGbid());
+    }
+
+    private void putInIndex(GlobalDiscoveryEntryPersisted entry) {
+        GlobalDiscoveryEntryPersisted copiedEntry = copy(entry);
+        String participantId = copiedEntry.getParticipantId();
+        Map<String, GlobalDiscoveryEntryPersisted> entries = participantIdToEntries.computeIfAbsent(participantId,
+                                                                                                    k -> new HashMap<>());
+        GlobalDiscoveryEntryPersisted oldEntry = entries.put(copiedEntry.getGbid(), copiedEntry);
+        if (oldEntry != null) {
+            removeFromSecondaryIndexes(oldEntry, entries);
+        }
+        domainInterfaceToParticipantIds.computeIfAbsent(getDomainInterfaceKey(copiedEntry.getDomain(),
+                                                                              copiedEntry.getInterfaceName()),
+                                                        k -> new HashSet<>())
+                                       .add(participantId);
+        clusterControllerIdToParticipantIds.computeIfAbsent(copiedEntry.getClusterControllerId(),
+                                                            k -> new HashSet<>())
+                                           .add(participantId);
+    }
+
+    private void removeFromIndex(GlobalDiscoveryEntryPersisted entry) {
+        Map<String, GlobalDiscoveryEntryPersisted> entries = participantIdToEntries.get(entry.getParticipantId());
+        if (entries == null || entries.remove(entry.getGbid()) == null) {
+            return;
+        }
+        removeFromSecondaryIndexes(entry, entries);
+        if (entries.isEmpty()) {
+            participantIdToEntries.remove(entry.getParticipantId());
+        }
+    }
+
+    /**
+     * Removes the participantId of the given entry from the secondary indexes unless one of the remaining entries
+     * of the same participantId still refers to the same key.
+     */
+    private void removeFromSecondaryIndexes(GlobalDiscoveryEntryPersisted entry,
+                                            Map<String, GlobalDiscoveryEntryPersisted> remainingEntries) {
+        String participantId = entry.getParticipantId();
+        String domainInterfaceKey = getDomainInterfaceKey(entry.getDomain(), entry.getInterfaceName());
+        boolean domainInterfaceInUse = false;
+        boolean clusterControllerIdInUse = false;
+        for (GlobalDiscoveryEntryPersisted remainingEntry : remainingEntries.values()) {
+            domainInterfaceInUse |= domainInterfaceKey.equals(getDomainInterfaceKey(remainingEntry.getDomain(),
+                                                                                    remainingEntry.getInterfaceName()));
+            clusterControllerIdInUse |= entry.getClusterControllerId().equals(remainingEntry.getClusterControllerId());
+        }
+        if (!domainInterfaceInUse) {
+            removeFromMapping(domainInterfaceToParticipantIds, domainInterfaceKey, participantId);
+        }
+        if (!clusterControllerIdInUse) {
+            removeFromMapping(clusterControllerIdToParticipantIds, entry.getClusterControllerId(), participantId);
+        }
+    }
+
+    private static void removeFromMapping(Map<String, Set<String>> mapping, String key, String participantId) {
+        Set<String> participantIds = mapping.get(key);
+        if (participantIds != null) {
+            participantIds.remove(participantId);
+            if (participantIds.isEmpty()) {
+                mapping.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Reloads the entries of the given participantIds from the database, e.g. after an add which replaced the
+     * address of the entries per GBID.
+     */
+    private void reloadFromPersistedStore(Collection<String> participantIds) {
+        Map<String, Collection<GlobalDiscoveryEntryPersisted>> persistedEntries = new HashMap<>();
+        for (String participantId : participantIds) {
+            Optional<Collection<GlobalDiscoveryEntryPersisted>> entries = persistedStore.lookup(participantId);
+            persistedEntries.put(participantId, entries.isPresent() ? entries.get() : new ArrayList<>());
+        }
+        indexLock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Collection<GlobalDiscoveryEntryPersisted>> persisted : persistedEntries.entrySet()) {
+                Map<String, GlobalDiscoveryEntryPersisted> indexedEntries = participantIdToEntries.get(persisted.getKey());
+                if (indexedEntries != null) {
+                    for (GlobalDiscoveryEntryPersisted indexedEntry : new ArrayList<>(indexedEntries.values())) {
+                        removeFromIndex(indexedEntry);
+                    }
+                }
+                for (GlobalDiscoveryEntryPersisted entry : persisted.getValue()) {
+                    putInIndex(entry);
+                }
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(GlobalDiscoveryEntryPersisted globalDiscoveryEntry, String[] gbids) {
+        synchronized (writeLock) {
+            persistedStore.add(globalDiscoveryEntry, gbids);
+            reloadFromPersistedStore(Arrays.asList(globalDiscoveryEntry.getParticipantId()));
+        }
+    }
+
+    @Override
+    public void add(List<GlobalDiscoveryEntryPersisted> globalDiscoveryEntries, String[] gbids) {
+        synchronized (writeLock) {
+            persistedStore.add(globalDiscoveryEntries, gbids);
+            Set<String> participantIds = new HashSet<>();
+            for (GlobalDiscoveryEntryPersisted globalDiscoveryEntry : globalDiscoveryEntries) {
+                participantIds.add(globalDiscoveryEntry.getParticipantId());
+            }
+            reloadFromPersistedStore(participantIds);
+        }
+    }
+
+    @Override
+    public int remove(String participantId, String[] gbids) {
+        synchronized (writeLock) {
+            int deletedCount = persistedStore.remove(participantId, gbids);
+            if (deletedCount > 0) {
+                indexLock.writeLock().lock();
+                try {
+                    Map<String, GlobalDiscoveryEntryPersisted> entries = participantIdToEntries.get(participantId);
+                    if (entries != null) {
+                        for (String gbid : gbids) {
+                            GlobalDiscoveryEntryPersisted entry = entries.get(gbid);
+                            if (entry != null) {
+                                removeFromIndex(entry);
+                            }
+                        }
+                    }
+                } finally {
+                    indexLock.writeLock().unlock();
+                }
+            }
+            return deletedCount;
+        }
+    }
+
+    @Override
+    public Collection<GlobalDiscoveryEntryPersisted> lookup(String[] domains, String interfaceName) {
+        return lookup(domains, interfaceName, null);
+    }
+
+    @Override
+    public Collection<GlobalDiscoveryEntryPersisted> lookup(String[] domains, String interfaceName, String[] gbids) {
+        Set<String> gbidSet = gbids == null ? null : new HashSet<>(Arrays.asList(gbids));
+        List<GlobalDiscoveryEntryPersisted> result = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            for (String domain : new HashSet<>(Arrays.asList(domains))) {
+                Set<String> participantIds = domainInterfaceToParticipantIds.get(getDomainInterfaceKey(domain,
+                                                                                                       interfaceName));
+                if (participantIds == null) {
+                    continue;
+                }
+                for (String participantId : participantIds) {
+                    for (GlobalDiscoveryEntryPersisted entry : participantIdToEntries.get(participantId).values()) {
+                        if (domain.equals(entry.getDomain()) && interfaceName.equals(entry.getInterfaceName())
+                                && (gbidSet == null || gbidSet.contains(entry.getGbid()))) {
+                            result.add(copy(entry));
+                        }
+                    }
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        result.sort(Comparator.comparing(GlobalDiscoveryEntryPersisted::getParticipantId));
+        return result;
+    }
+
+    @Override
+    public Optional<Collection<GlobalDiscoveryEntryPersisted>> lookup(String participantId) {
+        Collection<GlobalDiscoveryEntryPersisted> result = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            Map<String, GlobalDiscoveryEntryPersisted> entries = participantIdToEntries.get(participantId);
+            if (entries != null) {
+                for (GlobalDiscoveryEntryPersisted entry : entries.values()) {
+                    result.add(copy(entry));
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return Optional.of(result);
+    }
+
+    @Override
+    public Set<GlobalDiscoveryEntryPersisted> getAllDiscoveryEntries() {
+        Set<GlobalDiscoveryEntryPersisted> result = new HashSet<>();
+        indexLock.readLock().lock();
+        try {
+            for (Map<String, GlobalDiscoveryEntryPersisted> entries : participantIdToEntries.values()) {
+                for (GlobalDiscoveryEntryPersisted entry : entries.values()) {
+                    result.add(copy(entry));
+                }
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public void touch(String clusterControllerId) {
+        synchronized (writeLock) {
+            persistedStore.touch(clusterControllerId);
+            indexLock.writeLock().lock();
+            try {
+                Set<String> participantIds = clusterControllerIdToParticipantIds.get(clusterControllerId);
+                if (participantIds != null) {
+                    touchEntries(clusterControllerId, participantIds);
+                }
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void touch(String clusterControllerId, String[] participantIds) {
+        synchronized (writeLock) {
+            persistedStore.touch(clusterControllerId, participantIds);
+            indexLock.writeLock().lock();
+            try {
+                touchEntries(clusterControllerId, Arrays.asList(participantIds));
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies the same update of the last seen date and the expiry date as
+     * {@link GlobalDiscoveryEntryPersistedStorePersisted}.
+     */
+    private void touchEntries(String clusterControllerId, Collection<String> participantIds) {
+        long now = System.currentTimeMillis();
+        for (String participantId : participantIds) {
+            Map<String, GlobalDiscoveryEntryPersisted> entries = participantIdToEntries.get(participantId);
+            if (entries == null) {
+                continue;
+            }
+            for (GlobalDiscoveryEntryPersisted entry : entries.values()) {
+                if (clusterControllerId.equals(entry.getClusterControllerId())) {
+                    entry.setLastSeenDateMs(now);
+                    entry.setExpiryDateMs(now + defaultExpiryTimeMs);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Collection<GlobalDiscoveryEntryPersisted> lookupStale(String clusterControllerId, Long maxLastSeenDateMs) {
+        Collection<GlobalDiscoveryEntryPersisted> result = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            for (GlobalDiscoveryEntryPersisted entry : getStaleEntries(clusterControllerId, maxLastSeenDateMs)) {
+                result.add(copy(entry));
+            }
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // must be called with the index lock held
+    private List<GlobalDiscoveryEntryPersisted> getStaleEntries(String clusterControllerId, Long maxLastSeenDateMs) {
+        List<GlobalDiscoveryEntryPersisted> staleEntries = new ArrayList<>();
+        Set<String> participantIds = clusterControllerIdToParticipantIds.get(clusterControllerId);
+        if (participantIds != null) {
+            for (Iterator<String> it = participantIds.iterator(); it.hasNext();) {
+                for (GlobalDiscoveryEntryPersisted entry : participantIdToEntries.get(it.next()).values()) {
+                    if (clusterControllerId.equals(entry.getClusterControllerId())
+                            && entry.getLastSeenDateMs() < maxLastSeenDateMs) {
+                        staleEntries.add(entry);
+                    }
+                }
+            }
+        }
+        return staleEntries;
+    }
+
+    @Override
+    public int removeStale(String clusterControllerId, Long maxLastSeenDateMs) {
+        synchronized (writeLock) {
+            int deletedCount = persistedStore.removeStale(clusterControllerId, maxLastSeenDateMs);
+            indexLock.writeLock().lock();
+            try {
+                getStaleEntries(clusterControllerId, maxLastSeenDateMs).forEach(this::removeFromIndex);
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+            return deletedCount;
+        }
+    }
+
+    @Override
+    public boolean hasDiscoveryEntry(GlobalDiscoveryEntryPersisted discoveryEntry) {
+        return persistedStore.hasDiscoveryEntry(discoveryEntry);
+    }
+}
@@ -39,6 +39,7 @@ import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.google.inject.persist.PersistService;
 
+import io.joynr.capabilities.directory.util.GcdUtilities;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
 import joynr.system.RoutingTypes.RoutingTypesUtil;
@@ -71,33 +72,11 @@ public class GlobalDiscoveryEntryPersistedStorePersisted
     public synchronized void add(GlobalDiscoveryEntryPersisted globalDiscoveryEntry, String[] gbids) {
         logger.debug("Adding discovery entry: {}", globalDiscoveryEntry);
 
-        Address address = CapabilityUtils.getAddressFromGlobalDiscoveryEntry(globalDiscoveryEntry);
         String participantId = globalDiscoveryEntry.getParticipantId();
         EntityTransaction transaction = entityManager.getTransaction();
         try {
             transaction.begin();
-            for (String gbid : gbids) {
-                GlobalDiscoveryEntryPersistedKey key = new GlobalDiscoveryEntryPersistedKey();
-                key.setGbid(gbid);
-                key.setParticipantId(participantId);
-                GlobalDiscoveryEntryPersisted oldEntity = entityManager.find(GlobalDiscoveryEntryPersisted.class, key);
-
-                GlobalDiscoveryEntryPersisted entity = new GlobalDiscoveryEntryPersisted(globalDiscoveryEntry,
-                                                                                         globalDiscoveryEntry.getClusterControllerId(),
-                                                                                         gbid);
-                if (address instanceof MqttAddress) {
-                    ((MqttAddress) address).setBrokerUri(gbid);
-                    entity.setAddress(RoutingTypesUtil.toAddressString(address));
-                }
-
-                if (oldEntity == null) {
-                    logger.trace("Adding new discoveryEntry {} to the persisted entries.", globalDiscoveryEntry);
-                    entityManager.persist(entity);
-                } else {
-                    logger.trace("Merging discoveryEntry {} to the persisted entries.", globalDiscoveryEntry);
-                    entityManager.merge(entity);
-                }
-            }
+            addInTransaction(globalDiscoveryEntry, gbids);
             transaction.commit();
             logger.trace("Add({}) committed successfully", participantId);
         } catch (Exception e) {
@@ -111,6 +90,59 @@ public class GlobalDiscoveryEntryPersistedStorePersisted
         }
     }
 
+    /**
+     * Adds all discovery entries in a single transaction, i.e. either all or none of them are stored.
+     */
+    @Override
+    public synchronized void add(List<GlobalDiscoveryEntryPersisted> globalDiscoveryEntries, String[] gbids) {
+        logger.debug("Adding {} discovery entries", globalDiscoveryEntries.size());
+
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            for (GlobalDiscoveryEntryPersisted globalDiscoveryEntry : globalDiscoveryEntries) {
+                addInTransaction(globalDiscoveryEntry, gbids);
+            }
+            transaction.commit();
+            logger.trace("Add of {} discovery entries committed successfully", globalDiscoveryEntries.size());
+        } catch (Exception e) {
+            logger.error("Add of {} discovery entries failed: ", globalDiscoveryEntries.size(), e);
+            throw e;
+        } finally {
+            if (transaction.isActive()) {
+                logger.error("Add of {} discovery entries: rollback.", globalDiscoveryEntries.size());
+                transaction.rollback();
+            }
+        }
+    }
+
+    private void addInTransaction(GlobalDiscoveryEntryPersisted globalDiscoveryEntry, String[] gbids) {
+        Address address = CapabilityUtils.getAddressFromGlobalDiscoveryEntry(globalDiscoveryEntry);
+        String participantId = globalDiscoveryEntry.getParticipantId();
+        for (String gbid : gbids) {
+            GlobalDiscoveryEntryPersistedKey key = new GlobalDiscoveryEntryPersistedKey();
+            key.setGbid(gbid);
+            key.setParticipantId(participantId);
+            GlobalDiscoveryEntryPersisted oldEntity = entityManager.find(GlobalDiscoveryEntryPersisted.class, key);
+
+            GlobalDiscoveryEntryPersisted entity = new GlobalDiscoveryEntryPersisted(globalDiscoveryEntry,
+                                                                                     globalDiscoveryEntry.getClusterControllerId(),
+                                                                                     gbid);
+            if (address instanceof MqttAddress) {
+                ((MqttAddress) address).setBrokerUri(gbid);
+                entity.setAddress(RoutingTypesUtil.toAddressString(address));
+            }
+
+            if (oldEntity == null) {
+                logger.trace("Adding new discoveryEntry {} to the persisted entries.", globalDiscoveryEntry);
+                entityManager.persist(entity);
+            } else {
+                logger.trace("Merging discoveryEntry {} to the persisted entries.", globalDiscoveryEntry);
+                entityManager.merge(entity);
+            }
+        }
+    }
+
     @Override
     public synchronized int remove(String participantId, String[] gbids) {
         int deletedCount = 0;
@@ -160,7 +192,8 @@ public class GlobalDiscoveryEntryPersistedStorePersisted
     @Override
     public synchronized Collection<GlobalDiscoveryEntryPersisted> lookup(final String[] domains,
                                                                          final String interfaceName) {
-        String queryString = "FROM GlobalDiscoveryEntryPersisted gdep "
+        String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList "
                 + "WHERE gdep.domain IN :domains AND gdep.interfaceName = :interfaceName "
                 + "ORDER BY gdep.participantId";
         List<GlobalDiscoveryEntryPersisted> queryResult = entityManager.createQuery(queryString,
@@ -169,23 +202,45 @@ public class GlobalDiscoveryEntryPersistedStorePersisted
                                                                                      new HashSet<String>(Arrays.asList(domains)))
                                                                        .setParameter("interfaceName", interfaceName)
                                                                        .getResultList();
-        return queryResult;
+        return GcdUtilities.removeDuplicatesOfFetchJoin(queryResult);
+    }
+
+    @Override
+    public synchronized Collection<GlobalDiscoveryEntryPersisted> lookup(final String[] domains,
+                                                                         final String interfaceName,
+                                                                         final String[] gbids) {
+        String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList "
+                + "WHERE gdep.domain IN :domains AND gdep.interfaceName = :interfaceName AND gdep.gbid IN :gbids "
+                + "ORDER BY gdep.participantId";
+        List<GlobalDiscoveryEntryPersisted> queryResult = entityManager.createQuery(queryString,
+                                                                                    GlobalDiscoveryEntryPersisted.class)
+                                                                       .setParameter("domains",
+                                                                                     new HashSet<String>(Arrays.asList(domains)))
+                                                                       .setParameter("interfaceName", interfaceName)
+                                                                       .setParameter("gbids",
+                                                                                     new HashSet<String>(Arrays.asList(gbids)))
+                                                                       .getResultList();
+        return GcdUtilities.removeDuplicatesOfFetchJoin(queryResult);
     }
 
     @Override
     public synchronized Optional<Collection<GlobalDiscoveryEntryPersisted>> lookup(String participantId) {
-        String queryString = "FROM GlobalDiscoveryEntryPersisted gdep WHERE " + "gdep.participantId = :participantId";
-        Collection<GlobalDiscoveryEntryPersisted> queryResult = entityManager.createQuery(queryString,
-                                                                                          GlobalDiscoveryEntryPersisted.class)
-                                                                             .setParameter("participantId",
-                                                                                           participantId)
-                                                                             .getResultList();
-        return Optional.ofNullable(queryResult);
+        String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList "
+                + "WHERE gdep.participantId = :participantId";
+        List<GlobalDiscoveryEntryPersisted> queryResult = entityManager.createQuery(queryString,
+                                                                                    GlobalDiscoveryEntryPersisted.class)
+                                                                       .setParameter("participantId", participantId)
+                                                                       .getResultList();
+        return Optional.of(GcdUtilities.removeDuplicatesOfFetchJoin(queryResult));
     }
 
     @Override
     public Set<GlobalDiscoveryEntryPersisted> getAllDiscoveryEntries() {
-        List<GlobalDiscoveryEntryPersisted> allCapabilityEntries = entityManager.createQuery("FROM GlobalDiscoveryEntryPersisted gdep",
+        String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList";
+        List<GlobalDiscoveryEntryPersisted> allCapabilityEntries = entityManager.createQuery(queryString,
                                                                                              GlobalDiscoveryEntryPersisted.class)
                                                                                 .getResultList();
         Set<GlobalDiscoveryEntryPersisted> result = new HashSet<>(allCapabilityEntries);
@@ -297,6 +352,22 @@ public class GlobalDiscoveryEntryPersistedStorePersisted
 
     }
 
+    @Override
+    public synchronized Collection<GlobalDiscoveryEntryPersisted> lookupStale(String clusterControllerId,
+                                                                              Long maxLastSeenDateMs) {
+        String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList "
+                + "WHERE gdep.clusterControllerId = :clusterControllerId AND gdep.lastSeenDateMs < :maxLastSeenDateMs";
+        List<GlobalDiscoveryEntryPersisted> queryResult = entityManager.createQuery(queryString,
+                                                                                    GlobalDiscoveryEntryPersisted.class)
+                                                                       .setParameter("clusterControllerId",
+                                                                                     clusterControllerId)
+                                                                       .setParameter("maxLastSeenDateMs",
+                                                                                     maxLastSeenDateMs)
+                                                                       .getResultList();
+        return GcdUtilities.removeDuplicatesOfFetchJoin(queryResult);
+    }
+
     @Override
     public synchronized int removeStale(String clusterControllerId, Long maxLastSeenDateMs) {
         int deletedCount = 0;
@@ -19,6 +19,7 @@
 package io.joynr.capabilities;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -28,10 +29,14 @@ public interface GlobalDiscoveryEntryStore<T extends GlobalDiscoveryEntry> {
 
     public abstract void add(T discoveryEntry, String[] gbids);
 
+    public abstract void add(List<T> discoveryEntries, String[] gbids);
+
     public abstract int remove(String participantId, String[] gbids);
 
     public abstract Collection<T> lookup(String[] domain, String interfaceName);
 
+    public abstract Collection<T> lookup(String[] domains, String interfaceName, String[] gbids);
+
     public abstract Optional<Collection<T>> lookup(String participantId);
 
     public abstract Set<T> getAllDiscoveryEntries();
@@ -40,6 +45,8 @@ public interface GlobalDiscoveryEntryStore<T extends GlobalDiscoveryEntry> {
 
     public abstract void touch(String clusterControllerId, String[] participantIds);
 
+    public abstract Collection<T> lookupStale(String clusterControllerId, Long maxLastSeenDateMs);
+
     public int removeStale(String clusterControllerId, Long maxLastSeenDateMs);
 
     public abstract boolean hasDiscoveryEntry(GlobalDiscoveryEntryPersisted discoveryEntry);
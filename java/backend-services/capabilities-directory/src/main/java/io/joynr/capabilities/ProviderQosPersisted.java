@@ -53,8 +53,20 @@ public class ProviderQosPersisted extends ProviderQos implements Serializable {
         return customParameterList;
     }
 
+    /**
+     * Does not access the elements of the list, since the list might still be loaded by a fetch join when this
+     * setter is called. Call {@link #updateCustomParameters()} afterwards.
+     *
+     * @param customParameterList the persisted custom parameters
+     */
     public void setCustomParameterList(List<CustomParameterPersisted> customParameterList) {
         this.customParameterList = customParameterList;
+    }
+
+    /**
+     * Sets the custom parameters of the ProviderQos to the persisted custom parameters.
+     */
+    void updateCustomParameters() {
         super.setCustomParameters(customParameterList.toArray(new CustomParameter[customParameterList.size()]));
     }
 
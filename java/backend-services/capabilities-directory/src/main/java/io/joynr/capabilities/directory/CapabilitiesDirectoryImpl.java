@@ -20,9 +20,13 @@ package io.joynr.capabilities.directory;
 
 import static java.lang.String.format;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -47,6 +51,7 @@ import joynr.exceptions.ProviderRuntimeException;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryAbstractProvider;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
+import joynr.types.ChangeType;
 import joynr.types.DiscoveryError;
 import joynr.types.GlobalDiscoveryEntry;
 
@@ -59,6 +64,7 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
     public static final String PROPERTY_PREFIX = "joynr.gcd.";
     public static final String GCD_GBID = PROPERTY_PREFIX + "gbid";
     public static final String VALID_GBIDS = PROPERTY_PREFIX + "valid.gbids";
+    public static final String IN_MEMORY_INDEX = PROPERTY_PREFIX + "inmemoryindex";
 
     private GlobalDiscoveryEntryStore<GlobalDiscoveryEntryPersisted> discoveryEntryStore;
     private String gcdGbid;
@@ -88,10 +94,28 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
                 return new Promise<DeferredVoid>(deferred);
             }
         }
-        for (GlobalDiscoveryEntry globalDiscoveryEntry : globalDiscoveryEntries) {
-            add(globalDiscoveryEntry);
+        logger.info("Adding {} global discovery entries to own gbid {}", globalDiscoveryEntries.length, gcdGbid);
+        try {
+            List<GlobalDiscoveryEntryPersisted> gdeps = new ArrayList<>(globalDiscoveryEntries.length);
+            for (GlobalDiscoveryEntry globalDiscoveryEntry : globalDiscoveryEntries) {
+                gdeps.add(createGlobalDiscoveryEntryPersisted(globalDiscoveryEntry));
+            }
+            // gbid will be set correctly in discoveryEntryStore
+            discoveryEntryStore.add(gdeps, new String[]{ gcdGbid });
+            deferred.resolve();
+            Set<String> participantIds = new HashSet<>();
+            for (GlobalDiscoveryEntry globalDiscoveryEntry : globalDiscoveryEntries) {
+                if (participantIds.add(globalDiscoveryEntry.getParticipantId())) {
+                    publishGlobalDiscoveryEntryChanged(globalDiscoveryEntry.getParticipantId(), Optional.empty());
+                }
+            }
+        } catch (ProviderRuntimeException e) {
+            deferred.reject(e);
+        } catch (Exception e) {
+            logger.error("Error adding {} discoveryEntries for gbid {}:", globalDiscoveryEntries.length, gcdGbid, e);
+            deferred.reject(new ProviderRuntimeException(DiscoveryError.INTERNAL_ERROR.name()
+                    + ": Unable to add DiscoveryEntries"));
         }
-        deferred.resolve();
         return new Promise<DeferredVoid>(deferred);
     }
 
@@ -122,6 +146,59 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
                 return gbid;
             }
         }).toArray(String[]::new);
+
+        GlobalDiscoveryEntryPersisted gdep = createGlobalDiscoveryEntryPersisted(globalDiscoveryEntry);
+        try {
+            // gbid will be set correctly in discoveryEntryStore
+            discoveryEntryStore.add(gdep, gbids);
+        } catch (Exception e) {
+            logger.error("Error adding discoveryEntry for {} and gbids {}:",
+                         globalDiscoveryEntry.getParticipantId(),
+                         Arrays.toString(gbids),
+                         e);
+            throw new ApplicationException(DiscoveryError.INTERNAL_ERROR);
+        }
+        publishGlobalDiscoveryEntryChanged(globalDiscoveryEntry.getParticipantId(), Optional.empty());
+    }
+
+    /**
+     * Publishes the change of the entries of the given participantId as multicast with the partitions
+     * &lt;domain&gt;/&lt;interface&gt;, see
+     * {@link CapabilityUtils#getGlobalDiscoveryEntryChangedPartitions(String, String)}. Cluster controllers subscribe
+     * to these multicasts in order to keep their cached entries up to date.
+     * <p>
+     * If the participantId is still registered in any GBID, the entry which a lookup would return is published as
+     * ADD. Otherwise, one of the removed entries is published as REMOVE.
+     *
+     * @param participantId the participantId whose entries have been changed
+     * @param removedEntries the entries of the participantId before they have been removed, if any
+     */
+    private void publishGlobalDiscoveryEntryChanged(String participantId,
+                                                    Optional<Collection<GlobalDiscoveryEntryPersisted>> removedEntries) {
+        try {
+            Optional<Collection<GlobalDiscoveryEntryPersisted>> remainingEntries = discoveryEntryStore.lookup(participantId);
+            if (remainingEntries.isPresent() && !remainingEntries.get().isEmpty()) {
+                publishGlobalDiscoveryEntryChanged(ChangeType.ADD,
+                                                   GcdUtilities.chooseOneGlobalDiscoveryEntry(remainingEntries.get(),
+                                                                                              gcdGbid));
+            } else if (removedEntries.isPresent() && !removedEntries.get().isEmpty()) {
+                publishGlobalDiscoveryEntryChanged(ChangeType.REMOVE,
+                                                   GcdUtilities.chooseOneGlobalDiscoveryEntry(removedEntries.get(),
+                                                                                              gcdGbid));
+            }
+        } catch (Exception e) {
+            logger.warn("Error publishing change of discoveryEntry for {}:", participantId, e);
+        }
+    }
+
+    private void publishGlobalDiscoveryEntryChanged(ChangeType typeOfChange, GlobalDiscoveryEntry globalDiscoveryEntry) {
+        fireGlobalDiscoveryEntryChanged(typeOfChange,
+                                        globalDiscoveryEntry,
+                                        CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions(globalDiscoveryEntry.getDomain(),
+                                                                                                 globalDiscoveryEntry.getInterfaceName()));
+    }
+
+    private GlobalDiscoveryEntryPersisted createGlobalDiscoveryEntryPersisted(GlobalDiscoveryEntry globalDiscoveryEntry) {
         if (globalDiscoveryEntry.getDomain() == null || globalDiscoveryEntry.getInterfaceName() == null
                 || globalDiscoveryEntry.getParticipantId() == null || globalDiscoveryEntry.getAddress() == null) {
             String message = format("DiscoveryEntry being registered is incomplete: %s", globalDiscoveryEntry);
@@ -141,20 +218,7 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
                     + globalDiscoveryEntry.getParticipantId() + ". Unknown address type: "
                     + globalDiscoveryEntry.getAddress());
         }
-
-        try {
-            // gbid will be set correctly in discoveryEntryStore
-            GlobalDiscoveryEntryPersisted gdep = new GlobalDiscoveryEntryPersisted(globalDiscoveryEntry,
-                                                                                   clusterControllerId,
-                                                                                   gcdGbid);
-            discoveryEntryStore.add(gdep, gbids);
-        } catch (Exception e) {
-            logger.error("Error adding discoveryEntry for {} and gbids {}:",
-                         globalDiscoveryEntry.getParticipantId(),
-                         Arrays.toString(gbids),
-                         e);
-            throw new ApplicationException(DiscoveryError.INTERNAL_ERROR);
-        }
+        return new GlobalDiscoveryEntryPersisted(globalDiscoveryEntry, clusterControllerId, gcdGbid);
     }
 
     @Override
@@ -210,7 +274,12 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
                          gcdGbid);
             gbids = new String[]{ gcdGbid };
         }
-        return discoveryEntryStore.remove(participantId, gbids);
+        Optional<Collection<GlobalDiscoveryEntryPersisted>> removedEntries = discoveryEntryStore.lookup(participantId);
+        int deletedCount = discoveryEntryStore.remove(participantId, gbids);
+        if (deletedCount > 0) {
+            publishGlobalDiscoveryEntryChanged(participantId, removedEntries);
+        }
+        return deletedCount;
     }
 
     @Override
@@ -342,19 +411,19 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
             }).toArray(String[]::new);
             try {
                 Collection<GlobalDiscoveryEntryPersisted> lookupResult = discoveryEntryStore.lookup(domains,
-                                                                                                    interfaceName);
+                                                                                                    interfaceName,
+                                                                                                    gbids);
                 if (lookupResult.isEmpty()) {
-                    deferred.resolve(new GlobalDiscoveryEntryPersisted[0]);
+                    // only query all backends to distinguish between no entry at all and no entry in the selected ones
+                    if (!discoveryEntryStore.lookup(domains, interfaceName).isEmpty()) {
+                        deferred.reject(DiscoveryError.NO_ENTRY_FOR_SELECTED_BACKENDS);
+                    } else {
+                        deferred.resolve(new GlobalDiscoveryEntryPersisted[0]);
+                    }
                     return promise;
                 }
 
-                Collection<GlobalDiscoveryEntryPersisted> filteredResult = filterByGbids(lookupResult, gbids);
-                if (filteredResult.isEmpty()) {
-                    deferred.reject(DiscoveryError.NO_ENTRY_FOR_SELECTED_BACKENDS);
-                    return promise;
-                }
-
-                GlobalDiscoveryEntry[] globalDiscoveryEntriesArray = GcdUtilities.chooseOneGlobalDiscoveryEntryPerParticipantId(filteredResult,
+                GlobalDiscoveryEntry[] globalDiscoveryEntriesArray = GcdUtilities.chooseOneGlobalDiscoveryEntryPerParticipantId(lookupResult,
                                                                                                                                 gcdGbid);
                 deferred.resolve(globalDiscoveryEntriesArray);
             } catch (Exception e) {
@@ -494,12 +563,24 @@ public class CapabilitiesDirectoryImpl extends GlobalCapabilitiesDirectoryAbstra
         logger.trace("RemoveStale(ccId={}, maxLastSeenDateMs={}) called.", clusterControllerId, maxLastSeenDateMs);
         DeferredVoid deferred = new DeferredVoid();
         try {
+            Collection<GlobalDiscoveryEntryPersisted> staleEntries = discoveryEntryStore.lookupStale(clusterControllerId,
+                                                                                                    maxLastSeenDateMs);
             int deletedCount = discoveryEntryStore.removeStale(clusterControllerId, maxLastSeenDateMs);
             logger.info("RemoveStale(ccId={}, maxLastSeenDateMs={}) deleted {} stale entries.",
                         clusterControllerId,
                         maxLastSeenDateMs,
                         deletedCount);
             deferred.resolve();
+            if (deletedCount > 0) {
+                Map<String, Collection<GlobalDiscoveryEntryPersisted>> staleEntriesByParticipantId = new HashMap<>();
+                for (GlobalDiscoveryEntryPersisted staleEntry : staleEntries) {
+                    staleEntriesByParticipantId.computeIfAbsent(staleEntry.getParticipantId(), k -> new ArrayList<>())
+                                               .add(staleEntry);
+                }
+                for (Map.Entry<String, Collection<GlobalDiscoveryEntryPersisted>> entry : staleEntriesByParticipantId.entrySet()) {
+                    publishGlobalDiscoveryEntryChanged(entry.getKey(), Optional.of(entry.getValue()));
+                }
+            }
         } catch (Exception e) {
             logger.error("RemoveStale(ccId={}, maxLastSeenDateMs={}) failed.",
                          clusterControllerId,
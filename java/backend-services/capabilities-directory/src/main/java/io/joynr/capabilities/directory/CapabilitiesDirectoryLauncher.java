@@ -73,6 +73,14 @@ public class CapabilitiesDirectoryLauncher extends AbstractJoynrApplication {
         }
         joynrConfig.put(CapabilitiesDirectoryImpl.VALID_GBIDS, validGbidsString);
 
+        String inMemoryIndex = PropertyLoader.getPropertiesWithPattern(userProperties,
+                                                                       CapabilitiesDirectoryImpl.IN_MEMORY_INDEX)
+                                             .getProperty(CapabilitiesDirectoryImpl.IN_MEMORY_INDEX);
+        if (inMemoryIndex == null || inMemoryIndex.isEmpty()) {
+            inMemoryIndex = "false";
+        }
+        joynrConfig.put(CapabilitiesDirectoryImpl.IN_MEMORY_INDEX, inMemoryIndex);
+
         return Modules.override(new JpaPersistModule("CapabilitiesDirectory"), new CCInProcessRuntimeModule())
                       .with(new HivemqMqttClientModule(), new CapabilitiesDirectoryModule());
     }
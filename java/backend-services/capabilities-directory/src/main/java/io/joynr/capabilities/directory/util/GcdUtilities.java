@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -105,6 +106,24 @@ public class GcdUtilities {
         return ValidateGBIDsEnum.OK;
     }
 
+    /**
+     * A query which fetches the custom parameters of the entries with a LEFT JOIN FETCH returns an entry once per
+     * custom parameter. DISTINCT is not used in such queries since the address is a LOB column.
+     *
+     * @param queryResult result of a query with a fetch join
+     * @return the entries of the query result without duplicates, in the order of the query result
+     */
+    public static List<GlobalDiscoveryEntryPersisted> removeDuplicatesOfFetchJoin(List<GlobalDiscoveryEntryPersisted> queryResult) {
+        Map<GlobalDiscoveryEntryPersisted, Boolean> distinctEntries = new IdentityHashMap<>();
+        List<GlobalDiscoveryEntryPersisted> result = new ArrayList<>(queryResult.size());
+        for (GlobalDiscoveryEntryPersisted entry : queryResult) {
+            if (distinctEntries.put(entry, Boolean.TRUE) == null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
     public static GlobalDiscoveryEntry[] chooseOneGlobalDiscoveryEntryPerParticipantId(Collection<GlobalDiscoveryEntryPersisted> queryResult,
                                                                                        String preferredGbid) {
         Map<String, List<GlobalDiscoveryEntryPersisted>> gdepGrouped = queryResult.stream()
@@ -0,0 +1,275 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.capabilities;
+
+import static io.joynr.messaging.ConfigurableMessagingSettings.PROPERTY_DISCOVERY_PROVIDER_DEFAULT_EXPIRY_TIME_MS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import com.google.inject.persist.PersistService;
+import com.google.inject.persist.jpa.JpaPersistModule;
+
+import io.joynr.util.ObjectMapper;
+import joynr.system.RoutingTypes.Address;
+import joynr.system.RoutingTypes.MqttAddress;
+import joynr.system.RoutingTypes.RoutingTypesUtil;
+import joynr.types.ProviderQos;
+import joynr.types.Version;
+
+public class GlobalDiscoveryEntryPersistedStoreIndexedTest {
+
+    private PersistService service;
+    private GlobalDiscoveryEntryPersistedStorePersisted persistedStore;
+    private GlobalDiscoveryEntryPersistedStoreIndexed store;
+    private String defaultGbid = "joynrdefaultgbid";
+    private String[] gbids = { defaultGbid, "joynrtestgbid2" };
+    private String clusterControllerId = "clusterControllerId";
+    static final long DEFAULT_EXPIRY_INTERVAL_MS = 60000;
+
+    @Before
+    public void setUp() throws Exception {
+        Injector injector = Guice.createInjector(new JpaPersistModule("CapabilitiesDirectory"), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(String.class).annotatedWith(Names.named(PROPERTY_DISCOVERY_PROVIDER_DEFAULT_EXPIRY_TIME_MS))
+                                  .toInstance(String.valueOf(DEFAULT_EXPIRY_INTERVAL_MS));
+                bind(CapabilitiesProvisioning.class).to(TestCapabilitiesProvisioning.class);
+                requestStaticInjection(CapabilityUtils.class, RoutingTypesUtil.class);
+            }
+        });
+        service = injector.getInstance(PersistService.class);
+        persistedStore = injector.getInstance(GlobalDiscoveryEntryPersistedStorePersisted.class);
+        store = injector.getInstance(GlobalDiscoveryEntryPersistedStoreIndexed.class);
+    }
+
+    @After
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    public void existingEntriesAreIndexedAtConstruction() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
+        persistedStore.add(discoveryEntry, gbids);
+
+        GlobalDiscoveryEntryPersistedStoreIndexed newStore = new GlobalDiscoveryEntryPersistedStoreIndexed(persistedStore,
+                                                                                                            String.valueOf(DEFAULT_EXPIRY_INTERVAL_MS));
+
+        assertSameAsPersisted(newStore.lookup(new String[]{ "domain" }, "interfaceName"),
+                              persistedStore.lookup(new String[]{ "domain" }, "interfaceName"));
+        assertSameAsPersisted(newStore.lookup("participantId").get(), persistedStore.lookup("participantId").get());
+        assertEquals(persistedStore.getAllDiscoveryEntries(), newStore.getAllDiscoveryEntries());
+    }
+
+    @Test
+    public void add_lookupReturnsPersistedEntries() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry1 = createDiscoveryEntry("domain1",
+                                                                             "interfaceName",
+                                                                             "participantId1");
+        GlobalDiscoveryEntryPersisted discoveryEntry2 = createDiscoveryEntry("domain2",
+                                                                             "interfaceName",
+                                                                             "participantId2");
+        GlobalDiscoveryEntryPersisted discoveryEntry3 = createDiscoveryEntry("domain1",
+                                                                             "otherInterfaceName",
+                                                                             "participantId3");
+
+        store.add(discoveryEntry1, gbids);
+        store.add(Arrays.asList(discoveryEntry2, discoveryEntry3), new String[]{ defaultGbid });
+
+        String[] domains = new String[]{ "domain1", "domain2" };
+        Collection<GlobalDiscoveryEntryPersisted> result = store.lookup(domains, "interfaceName");
+        assertEquals(3, result.size());
+        assertSameAsPersisted(result, persistedStore.lookup(domains, "interfaceName"));
+        assertSameAsPersisted(store.lookup(domains, "otherInterfaceName"),
+                              persistedStore.lookup(domains, "otherInterfaceName"));
+        assertSameAsPersisted(store.lookup("participantId1").get(), persistedStore.lookup("participantId1").get());
+        assertEquals(persistedStore.getAllDiscoveryEntries(), store.getAllDiscoveryEntries());
+    }
+
+    @Test
+    public void lookupWithGbids_returnsOnlyEntriesOfSelectedGbids() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry1 = createDiscoveryEntry("domain1",
+                                                                             "interfaceName",
+                                                                             "participantId1");
+        GlobalDiscoveryEntryPersisted discoveryEntry2 = createDiscoveryEntry("domain2",
+                                                                             "interfaceName",
+                                                                             "participantId2");
+        store.add(discoveryEntry1, gbids);
+        store.add(discoveryEntry2, new String[]{ gbids[1] });
+
+        String[] domains = new String[]{ "domain1", "domain2" };
+        for (String[] selectedGbids : Arrays.asList(new String[]{ defaultGbid }, new String[]{ gbids[1] }, gbids)) {
+            assertSameAsPersisted(store.lookup(domains, "interfaceName", selectedGbids),
+                                  persistedStore.lookup(domains, "interfaceName", selectedGbids));
+        }
+    }
+
+    @Test
+    public void add_replacesExistingEntry() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
+        store.add(discoveryEntry, new String[]{ defaultGbid });
+
+        GlobalDiscoveryEntryPersisted movedEntry = createDiscoveryEntry("otherDomain",
+                                                                        "interfaceName",
+                                                                        "participantId");
+        store.add(movedEntry, new String[]{ defaultGbid });
+
+        assertTrue(store.lookup(new String[]{ "domain" }, "interfaceName").isEmpty());
+        assertSameAsPersisted(store.lookup(new String[]{ "otherDomain" }, "interfaceName"),
+                              persistedStore.lookup(new String[]{ "otherDomain" }, "interfaceName"));
+    }
+
+    @Test
+    public void remove_removesOnlySelectedGbids() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
+        store.add(discoveryEntry, gbids);
+
+        int deletedCount = store.remove("participantId", new String[]{ gbids[1] });
+
+        assertEquals(1, deletedCount);
+        Collection<GlobalDiscoveryEntryPersisted> result = store.lookup("participantId").get();
+        assertEquals(1, result.size());
+        assertEquals(defaultGbid, result.iterator().next().getGbid());
+        assertSameAsPersisted(store.lookup(new String[]{ "domain" }, "interfaceName"),
+                              persistedStore.lookup(new String[]{ "domain" }, "interfaceName"));
+
+        deletedCount = store.remove("participantId", new String[]{ defaultGbid });
+
+        assertEquals(1, deletedCount);
+        assertTrue(store.lookup("participantId").get().isEmpty());
+        assertTrue(store.lookup(new String[]{ "domain" }, "interfaceName").isEmpty());
+    }
+
+    @Test
+    public void touch_updatesIndexedEntries() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry1 = createDiscoveryEntry("domain",
+                                                                             "interfaceName",
+                                                                             "participantId1");
+        GlobalDiscoveryEntryPersisted discoveryEntry2 = createDiscoveryEntry("domain",
+                                                                             "interfaceName",
+                                                                             "participantId2");
+        store.add(discoveryEntry1, gbids);
+        store.add(discoveryEntry2, gbids);
+
+        long timeBeforeTouch = System.currentTimeMillis();
+        store.touch(clusterControllerId, new String[]{ "participantId1" });
+
+        for (GlobalDiscoveryEntryPersisted entry : store.lookup("participantId1").get()) {
+            assertTrue(entry.getLastSeenDateMs() >= timeBeforeTouch);
+            assertTrue(entry.getExpiryDateMs() >= timeBeforeTouch + DEFAULT_EXPIRY_INTERVAL_MS);
+        }
+        for (GlobalDiscoveryEntryPersisted entry : store.lookup("participantId2").get()) {
+            assertEquals(discoveryEntry2.getLastSeenDateMs(), entry.getLastSeenDateMs());
+        }
+
+        store.touch(clusterControllerId);
+
+        for (GlobalDiscoveryEntryPersisted entry : store.lookup("participantId2").get()) {
+            assertTrue(entry.getLastSeenDateMs() >= timeBeforeTouch);
+            assertTrue(entry.getExpiryDateMs() >= timeBeforeTouch + DEFAULT_EXPIRY_INTERVAL_MS);
+        }
+    }
+
+    @Test
+    public void removeStale_removesStaleEntriesFromIndex() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry1 = createDiscoveryEntry("domain",
+                                                                             "interfaceName",
+                                                                             "participantId1");
+        long maxLastSeenDate = System.currentTimeMillis() - 1001;
+        discoveryEntry1.setLastSeenDateMs(maxLastSeenDate - 1);
+        GlobalDiscoveryEntryPersisted discoveryEntry2 = createDiscoveryEntry("domain",
+                                                                             "interfaceName",
+                                                                             "participantId2");
+        discoveryEntry2.setLastSeenDateMs(maxLastSeenDate + 1000);
+        store.add(discoveryEntry1, gbids);
+        store.add(discoveryEntry2, gbids);
+
+        assertSameAsPersisted(store.lookupStale(clusterControllerId, maxLastSeenDate),
+                              persistedStore.lookupStale(clusterControllerId, maxLastSeenDate));
+        assertEquals(gbids.length, store.lookupStale(clusterControllerId, maxLastSeenDate).size());
+
+        int deletedCount = store.removeStale(clusterControllerId, maxLastSeenDate);
+
+        assertEquals(gbids.length, deletedCount);
+        assertTrue(store.lookupStale(clusterControllerId, maxLastSeenDate).isEmpty());
+        assertTrue(store.lookup("participantId1").get().isEmpty());
+        assertEquals(gbids.length, store.lookup("participantId2").get().size());
+        assertSameAsPersisted(store.lookup(new String[]{ "domain" }, "interfaceName"),
+                              persistedStore.lookup(new String[]{ "domain" }, "interfaceName"));
+    }
+
+    @Test
+    public void lookup_returnsCopies() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
+        store.add(discoveryEntry, new String[]{ defaultGbid });
+
+        store.lookup("participantId").get().iterator().next().setLastSeenDateMs(42L);
+
+        assertSameAsPersisted(store.lookup("participantId").get(), persistedStore.lookup("participantId").get());
+    }
+
+    private void assertSameAsPersisted(Collection<GlobalDiscoveryEntryPersisted> indexedEntries,
+                                       Collection<GlobalDiscoveryEntryPersisted> persistedEntries) {
+        assertEquals(persistedEntries.size(), indexedEntries.size());
+        assertEquals(new HashSet<>(persistedEntries), new HashSet<>(indexedEntries));
+        List<String> persistedParticipantIds = persistedEntries.stream()
+                                                               .map(GlobalDiscoveryEntryPersisted::getParticipantId)
+                                                               .collect(Collectors.toList());
+        List<String> indexedParticipantIds = new ArrayList<>();
+        indexedEntries.forEach(entry -> indexedParticipantIds.add(entry.getParticipantId()));
+        assertEquals(persistedParticipantIds, indexedParticipantIds);
+    }
+
+    private GlobalDiscoveryEntryPersisted createDiscoveryEntry(String domain,
+                                                               String interfaceName,
+                                                               String participantId) throws Exception {
+        ProviderQos qos = new ProviderQos();
+        long lastSeenDateMs = 123L;
+        long expiryDateMs = Long.MAX_VALUE;
+        String publicKeyId = "publicKeyId";
+        Address address = new MqttAddress("brokerUri", "topic");
+        String addressSerialized = new ObjectMapper().writeValueAsString(address);
+        return new GlobalDiscoveryEntryPersisted(new Version(47, 11),
+                                                 domain,
+                                                 interfaceName,
+                                                 participantId,
+                                                 qos,
+                                                 lastSeenDateMs,
+                                                 expiryDateMs,
+                                                 publicKeyId,
+                                                 addressSerialized,
+                                                 clusterControllerId,
+                                                 defaultGbid);
+    }
+}
@@ -27,14 +27,19 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.sql.ResultSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -53,8 +58,10 @@ import io.joynr.util.ObjectMapper;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
 import joynr.system.RoutingTypes.RoutingTypesUtil;
+import joynr.types.CustomParameter;
 import joynr.types.DiscoveryEntry;
 import joynr.types.ProviderQos;
+import joynr.types.ProviderScope;
 import joynr.types.Version;
 
 public class GlobalDiscoveryEntryPersistedStorePersistedTest {
@@ -164,6 +171,93 @@ public class GlobalDiscoveryEntryPersistedStorePersistedTest {
                      persistedEntry.getProviderVersion().getMinorVersion());
     }
 
+    @Test
+    public void lookupByDomainInterfaceWithGbids_returnsOnlyEntriesOfSelectedGbids() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry1 = createDiscoveryEntry("domain1",
+                                                                             "interfaceName",
+                                                                             "participantId1");
+        GlobalDiscoveryEntryPersisted discoveryEntry2 = createDiscoveryEntry("domain2",
+                                                                             "interfaceName",
+                                                                             "participantId2");
+        GlobalDiscoveryEntryPersisted discoveryEntry3 = createDiscoveryEntry("domain3",
+                                                                             "interfaceName",
+                                                                             "participantId3");
+        store.add(discoveryEntry1, gbids);
+        store.add(discoveryEntry2, new String[]{ gbids[1] });
+        store.add(discoveryEntry3, gbids);
+        entityManager.clear();
+
+        Collection<GlobalDiscoveryEntryPersisted> result = store.lookup(new String[]{ "domain1", "domain2" },
+                                                                        "interfaceName",
+                                                                        new String[]{ defaultGbid });
+        assertEquals(1, result.size());
+        GlobalDiscoveryEntryPersisted entry = result.iterator().next();
+        assertEquals("participantId1", entry.getParticipantId());
+        assertEquals(defaultGbid, entry.getGbid());
+
+        result = store.lookup(new String[]{ "domain1", "domain2" }, "interfaceName", gbids);
+        assertEquals(3, result.size());
+        assertEquals(Arrays.asList("participantId1", "participantId1", "participantId2"),
+                     result.stream().map(GlobalDiscoveryEntryPersisted::getParticipantId).collect(Collectors.toList()));
+
+        result = store.lookup(new String[]{ "domain2" }, "interfaceName", new String[]{ defaultGbid });
+        assertTrue(result.isEmpty());
+    }
+
+    private Set<String> getIndexNames(String tableName) {
+        Set<String> indexNames = new HashSet<>();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (ResultSet indexInfo = connection.getMetaData().getIndexInfo(null, null, tableName, false, false)) {
+                while (indexInfo.next()) {
+                    String indexName = indexInfo.getString("INDEX_NAME");
+                    if (indexName != null) {
+                        indexNames.add(indexName.toLowerCase());
+                    }
+                }
+            }
+        });
+        return indexNames;
+    }
+
+    @Test
+    public void schemaContainsIndexesForLookupTouchAndRemoveStale() {
+        Set<String> indexNames = getIndexNames("DISCOVERY_ENTRIES");
+        assertTrue(indexNames.toString(), indexNames.contains("discovery_entries_domain_interface_gbid"));
+        assertTrue(indexNames.toString(), indexNames.contains("discovery_entries_participantid"));
+        assertTrue(indexNames.toString(), indexNames.contains("discovery_entries_ccid_lastseen"));
+    }
+
+    @Test
+    public void customParametersPersistedAndRetrieved() throws Exception {
+        GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
+        CustomParameter[] customParameters = new CustomParameter[]{ new CustomParameter("name1", "value1"),
+                new CustomParameter("name2", "value2") };
+        discoveryEntry.setProviderQosPersisted(new ProviderQosPersisted(new ProviderQos(customParameters,
+                                                                                        1L,
+                                                                                        ProviderScope.GLOBAL,
+                                                                                        false)));
+
+        store.add(discoveryEntry, gbids);
+        entityManager.clear();
+        Statistics statistics = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        Collection<GlobalDiscoveryEntryPersisted> result = store.lookup(new String[]{ "domain" },
+                                                                        "interfaceName",
+                                                                        gbids);
+        // the custom parameters are fetched by the lookup query itself, not by a separate query per entry
+        assertEquals(1, statistics.getPrepareStatementCount());
+        statistics.setStatisticsEnabled(false);
+        assertEquals(gbids.length, result.size());
+        for (GlobalDiscoveryEntryPersisted entry : result) {
+            assertEquals(Arrays.asList(customParameters),
+                         Arrays.stream(entry.getQos().getCustomParameters())
+                               .map(CustomParameter::new)
+                               .collect(Collectors.toList()));
+        }
+    }
+
     private void testRemove(String[] selectedGbids, String[] removedGbids) throws Exception {
         GlobalDiscoveryEntryPersisted discoveryEntry = createDiscoveryEntry("domain", "interfaceName", "participantId");
         String[] remainingGbids = Arrays.stream(gbids)
@@ -614,6 +708,13 @@ public class GlobalDiscoveryEntryPersistedStorePersistedTest {
         assertContains(discoveryEntry2, gbids);
         assertContains(discoveryEntry3, gbids);
 
+        Collection<GlobalDiscoveryEntryPersisted> staleEntries = store.lookupStale(clusterControllerId,
+                                                                                   maxLastSeenDate);
+        assertEquals(gbids.length * 2, staleEntries.size());
+        for (GlobalDiscoveryEntryPersisted staleEntry : staleEntries) {
+            assertNotEquals(discoveryEntry2.getParticipantId(), staleEntry.getParticipantId());
+        }
+
         int deletedCount = store.removeStale(clusterControllerId, maxLastSeenDate);
         assertEquals(gbids.length * 2, deletedCount);
         entityManager.clear();
@@ -25,18 +25,23 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -56,6 +61,7 @@ import io.joynr.provider.PromiseListener;
 import io.joynr.util.ObjectMapper;
 import joynr.exceptions.ApplicationException;
 import joynr.exceptions.ProviderRuntimeException;
+import joynr.infrastructure.GlobalCapabilitiesDirectorySubscriptionPublisher;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryProvider.Add1Deferred;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryProvider.Lookup1Deferred;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryProvider.Lookup2Deferred;
@@ -63,6 +69,7 @@ import joynr.infrastructure.GlobalCapabilitiesDirectoryProvider.Lookup3Deferred;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryProvider.Lookup4Deferred;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryProvider.Remove1Deferred;
 import joynr.system.RoutingTypes.MqttAddress;
+import joynr.types.ChangeType;
 import joynr.types.DiscoveryError;
 import joynr.types.GlobalDiscoveryEntry;
 import joynr.types.ProviderQos;
@@ -86,6 +93,9 @@ public class CapabilitiesDirectoryTest {
     @Mock
     private GlobalDiscoveryEntryStore<GlobalDiscoveryEntryPersisted> discoveryEntryStoreMock;
 
+    @Mock
+    private GlobalCapabilitiesDirectorySubscriptionPublisher subscriptionPublisherMock;
+
     @Captor
     private ArgumentCaptor<GlobalDiscoveryEntryPersisted> gdepCaptor;
 
@@ -98,6 +108,8 @@ public class CapabilitiesDirectoryTest {
                            .toArray(String[]::new);
 
         subject = new CapabilitiesDirectoryImpl(discoveryEntryStoreMock, GCD_GBID, VALID_GBIDS_STRING);
+        subject.setSubscriptionPublisher(subscriptionPublisherMock);
+        doReturn(Optional.empty()).when(discoveryEntryStoreMock).lookup(anyString());
 
         Field field = CapabilityUtils.class.getDeclaredField("objectMapper");
         field.setAccessible(true);
@@ -203,6 +215,15 @@ public class CapabilitiesDirectoryTest {
         assertTrue("promise exception timeout", countDownLatch.await(1000, TimeUnit.MILLISECONDS));
     }
 
+    // the store returns all entries for a lookup without gbids and only the entries of the selected gbids otherwise
+    private void mockLookupByDomainInterface(List<GlobalDiscoveryEntryPersisted> entries) {
+        doReturn(entries).when(discoveryEntryStoreMock).lookup(any(String[].class), anyString());
+        doAnswer(invocation -> {
+            List<String> gbids = Arrays.asList((String[]) invocation.getArguments()[2]);
+            return entries.stream().filter(entry -> gbids.contains(entry.getGbid())).collect(Collectors.toList());
+        }).when(discoveryEntryStoreMock).lookup(any(String[].class), anyString(), any(String[].class));
+    }
+
     @Test
     public void add_callsStore() throws InterruptedException {
         Promise<DeferredVoid> promise = subject.add(testGlobalDiscoveryEntry);
@@ -320,6 +341,132 @@ public class CapabilitiesDirectoryTest {
         checkPromiseSuccess(promise);
     }
 
+    @Test
+    public void add_publishesGlobalDiscoveryEntryChanged() throws InterruptedException {
+        GlobalDiscoveryEntryPersisted gdep = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                               TOPIC_NAME,
+                                                                               GCD_GBID);
+        doReturn(Optional.of(Arrays.asList(gdep))).when(discoveryEntryStoreMock).lookup(PARTICIPANT_ID);
+
+        Promise<DeferredVoid> promise = subject.add(testGlobalDiscoveryEntry);
+        checkPromiseSuccess(promise);
+
+        String[] expectedPartitions = CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions(DOMAIN, INTERFACE_NAME);
+        verify(subscriptionPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                          eq(new GlobalDiscoveryEntry(gdep)),
+                                                                          eq(expectedPartitions[0]),
+                                                                          eq(expectedPartitions[1]));
+    }
+
+    @Test
+    public void addWithGbids_multipleGbids_publishesEntryOfGcdGbidOnce() throws InterruptedException {
+        String[] selectedGbids = new String[]{ validGbids[0], GCD_GBID };
+        GlobalDiscoveryEntryPersisted gdep1 = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                                TOPIC_NAME,
+                                                                                validGbids[0]);
+        GlobalDiscoveryEntryPersisted gdep2 = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                                TOPIC_NAME,
+                                                                                GCD_GBID);
+        gdep2.setAddress(CapabilityUtils.serializeAddress(new MqttAddress(GCD_GBID, TOPIC_NAME)));
+        doReturn(Optional.of(Arrays.asList(gdep1, gdep2))).when(discoveryEntryStoreMock).lookup(PARTICIPANT_ID);
+
+        Promise<Add1Deferred> promise = subject.add(testGlobalDiscoveryEntry, selectedGbids);
+        checkPromiseSuccess(promise);
+
+        verify(subscriptionPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                          any(GlobalDiscoveryEntry.class),
+                                                                          anyVararg());
+        verify(subscriptionPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                          eq(new GlobalDiscoveryEntry(gdep2)),
+                                                                          anyVararg());
+    }
+
+    @Test
+    public void addMultipleEntries_publishesOncePerParticipantId() throws InterruptedException {
+        GlobalDiscoveryEntryPersisted gdep = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                               TOPIC_NAME,
+                                                                               GCD_GBID);
+        doReturn(Optional.of(Arrays.asList(gdep))).when(discoveryEntryStoreMock).lookup(PARTICIPANT_ID);
+
+        Promise<DeferredVoid> promise = subject.add(new GlobalDiscoveryEntry[]{ testGlobalDiscoveryEntry,
+                new GlobalDiscoveryEntry(testGlobalDiscoveryEntry) });
+        checkPromiseSuccess(promise);
+
+        verify(subscriptionPublisherMock, times(1)).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                                    eq(new GlobalDiscoveryEntry(gdep)),
+                                                                                    anyVararg());
+    }
+
+    @Test
+    public void add_internalError_doesNotPublishGlobalDiscoveryEntryChanged() throws InterruptedException {
+        doThrow(new RuntimeException("error in DiscoveryEntryStore")).when(discoveryEntryStoreMock)
+                                                                     .add(any(GlobalDiscoveryEntryPersisted.class),
+                                                                          any(String[].class));
+        subject.add(testGlobalDiscoveryEntry);
+
+        verify(subscriptionPublisherMock, never()).fireGlobalDiscoveryEntryChanged(any(ChangeType.class),
+                                                                                   any(GlobalDiscoveryEntry.class),
+                                                                                   anyVararg());
+    }
+
+    @Test
+    public void removeWithGbids_publishesGlobalDiscoveryEntryChanged() throws InterruptedException {
+        String[] selectedGbids = new String[]{ validGbids[1] };
+        GlobalDiscoveryEntryPersisted gdep = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                               TOPIC_NAME,
+                                                                               validGbids[1]);
+        doReturn(Optional.of(Arrays.asList(gdep))).doReturn(Optional.empty())
+                                                  .when(discoveryEntryStoreMock)
+                                                  .lookup(PARTICIPANT_ID);
+        doReturn(1).when(discoveryEntryStoreMock).remove(anyString(), any(String[].class));
+
+        Promise<Remove1Deferred> promise = subject.remove(PARTICIPANT_ID, selectedGbids);
+        checkPromiseSuccess(promise);
+
+        String[] expectedPartitions = CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions(DOMAIN, INTERFACE_NAME);
+        verify(subscriptionPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.REMOVE),
+                                                                          eq(new GlobalDiscoveryEntry(gdep)),
+                                                                          eq(expectedPartitions[0]),
+                                                                          eq(expectedPartitions[1]));
+    }
+
+    @Test
+    public void removeWithGbids_entryRemainsInOtherGbid_publishesRemainingEntryAsAdd() throws InterruptedException {
+        String[] selectedGbids = new String[]{ validGbids[1] };
+        GlobalDiscoveryEntryPersisted removedGdep = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                                      TOPIC_NAME,
+                                                                                      validGbids[1]);
+        GlobalDiscoveryEntryPersisted remainingGdep = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                                        TOPIC_NAME,
+                                                                                        validGbids[0]);
+        remainingGdep.setAddress(CapabilityUtils.serializeAddress(new MqttAddress(validGbids[0], TOPIC_NAME)));
+        doReturn(Optional.of(Arrays.asList(removedGdep, remainingGdep))).doReturn(Optional.of(Arrays.asList(remainingGdep)))
+                                                                        .when(discoveryEntryStoreMock)
+                                                                        .lookup(PARTICIPANT_ID);
+        doReturn(1).when(discoveryEntryStoreMock).remove(anyString(), any(String[].class));
+
+        Promise<Remove1Deferred> promise = subject.remove(PARTICIPANT_ID, selectedGbids);
+        checkPromiseSuccess(promise);
+
+        verify(subscriptionPublisherMock, never()).fireGlobalDiscoveryEntryChanged(eq(ChangeType.REMOVE),
+                                                                                   any(GlobalDiscoveryEntry.class),
+                                                                                   anyVararg());
+        verify(subscriptionPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                          eq(new GlobalDiscoveryEntry(remainingGdep)),
+                                                                          anyVararg());
+    }
+
+    @Test
+    public void removeWithGbids_noEntry_doesNotPublishGlobalDiscoveryEntryChanged() throws InterruptedException {
+        doReturn(0).when(discoveryEntryStoreMock).remove(anyString(), any(String[].class));
+
+        subject.remove(PARTICIPANT_ID, new String[]{ validGbids[1] });
+
+        verify(subscriptionPublisherMock, never()).fireGlobalDiscoveryEntryChanged(any(ChangeType.class),
+                                                                                   any(GlobalDiscoveryEntry.class),
+                                                                                   anyVararg());
+    }
+
     @Test
     public void removeWithGbids_multipleGbids_callsStore() throws InterruptedException {
         String[] selectedGbids = new String[]{ validGbids[2], validGbids[1] };
@@ -431,12 +578,11 @@ public class CapabilitiesDirectoryTest {
                                                                                 validGbids[2]);
         gdep3.setParticipantId(gdep3.getGbid());
         GlobalDiscoveryEntry expectedEntry = new GlobalDiscoveryEntry(gdep3);
-        doReturn(Arrays.asList(gdep1, gdep2, gdep3)).when(discoveryEntryStoreMock)
-                                                    .lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep1, gdep2, gdep3));
 
         Promise<Lookup1Deferred> promise = subject.lookup(DOMAINS.clone(), INTERFACE_NAME);
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(1, result.length);
@@ -459,14 +605,13 @@ public class CapabilitiesDirectoryTest {
         gdep3.setParticipantId(gdep3.getGbid());
         GlobalDiscoveryEntry expectedEntry1 = new GlobalDiscoveryEntry(gdep1);
         GlobalDiscoveryEntry expectedEntry2 = new GlobalDiscoveryEntry(gdep3);
-        doReturn(Arrays.asList(gdep1, gdep2, gdep3)).when(discoveryEntryStoreMock)
-                                                    .lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep1, gdep2, gdep3));
 
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(),
                                                           INTERFACE_NAME,
                                                           new String[]{ validGbids[2], validGbids[0] });
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(2, result.length);
@@ -496,14 +641,13 @@ public class CapabilitiesDirectoryTest {
                                                                                 TOPIC_NAME,
                                                                                 validGbids[1]);
         gdep2.setParticipantId(participantId2);
-        doReturn(Arrays.asList(gdep1_1, gdep1_2, gdep1_3, gdep2)).when(discoveryEntryStoreMock)
-                                                                 .lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep1_1, gdep1_2, gdep1_3, gdep2));
 
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(),
                                                           INTERFACE_NAME,
                                                           new String[]{ validGbids[0], validGbids[1] });
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(2, result.length);
@@ -528,12 +672,11 @@ public class CapabilitiesDirectoryTest {
                                                                                 validGbids[2]);
         gdep3.setParticipantId(gdep3.getGbid());
         GlobalDiscoveryEntry expectedEntry = new GlobalDiscoveryEntry(gdep3);
-        doReturn(Arrays.asList(gdep1, gdep2, gdep3)).when(discoveryEntryStoreMock)
-                                                    .lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep1, gdep2, gdep3));
 
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(), INTERFACE_NAME, new String[]{ "" });
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(1, result.length);
@@ -556,14 +699,13 @@ public class CapabilitiesDirectoryTest {
         gdep3.setParticipantId(gdep3.getGbid());
         GlobalDiscoveryEntry expectedEntry2 = new GlobalDiscoveryEntry(gdep2);
         GlobalDiscoveryEntry expectedEntry3 = new GlobalDiscoveryEntry(gdep3);
-        doReturn(Arrays.asList(gdep1, gdep2, gdep3)).when(discoveryEntryStoreMock)
-                                                    .lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep1, gdep2, gdep3));
 
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(),
                                                           INTERFACE_NAME,
                                                           new String[]{ "", validGbids[1] });
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(2, result.length);
@@ -591,14 +733,13 @@ public class CapabilitiesDirectoryTest {
                                                                                 validGbids[2]);
         gdep3.setParticipantId(gdep3.getGbid());
         GlobalDiscoveryEntry expectedEntry = new GlobalDiscoveryEntry(gdep3);
-        doReturn(Arrays.asList(gdep1, gdep2, gdep3)).when(discoveryEntryStoreMock)
-                                                    .lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep1, gdep2, gdep3));
 
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(),
                                                           INTERFACE_NAME,
                                                           new String[]{ GCD_GBID, "" });
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(1, result.length);
@@ -742,6 +883,7 @@ public class CapabilitiesDirectoryTest {
                                                                      DiscoveryError expectedError) throws InterruptedException {
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(), INTERFACE_NAME, gbids);
         checkPromiseError(promise, expectedError);
+        verify(discoveryEntryStoreMock, times(0)).lookup(any(String[].class), anyString(), any(String[].class));
         verify(discoveryEntryStoreMock, times(0)).lookup(any(String[].class), anyString());
     }
 
@@ -815,10 +957,10 @@ public class CapabilitiesDirectoryTest {
     @Test
     public void lookupByDomainInterfaceWithGbids_internalError() throws InterruptedException {
         doThrow(new RuntimeException("error in DiscoveryEntryStore")).when(discoveryEntryStoreMock)
-                                                                     .lookup(any(String[].class), anyString());
+                                                                     .lookup(any(String[].class), anyString(), any(String[].class));
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(), INTERFACE_NAME, validGbids);
         checkPromiseError(promise, DiscoveryError.INTERNAL_ERROR);
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
     }
 
     @Test
@@ -832,10 +974,10 @@ public class CapabilitiesDirectoryTest {
     @Test
     public void lookupByDomainInterface_internalError() throws InterruptedException {
         doThrow(new RuntimeException("error in DiscoveryEntryStore")).when(discoveryEntryStoreMock)
-                                                                     .lookup(any(String[].class), anyString());
+                                                                     .lookup(any(String[].class), anyString(), any(String[].class));
         Promise<Lookup1Deferred> promise = subject.lookup(DOMAINS.clone(), INTERFACE_NAME);
         checkPromiseException(promise, ProviderRuntimeException.class, DiscoveryError.INTERNAL_ERROR.name());
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
     }
 
     @Test
@@ -848,13 +990,13 @@ public class CapabilitiesDirectoryTest {
 
     @Test
     public void lookupByDomainInterfaceWithGbids_noMatchingEntry() throws InterruptedException {
-        doReturn(new ArrayList<>()).when(discoveryEntryStoreMock).lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(new ArrayList<>());
 
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(),
                                                           INTERFACE_NAME,
                                                           new String[]{ validGbids[1] });
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(0, result.length);
@@ -866,13 +1008,13 @@ public class CapabilitiesDirectoryTest {
                                                                                TOPIC_NAME,
                                                                                validGbids[0]);
         gdep.setAddress(CapabilityUtils.serializeAddress(new MqttAddress(validGbids[0], TOPIC_NAME)));
-        doReturn(Arrays.asList(gdep)).when(discoveryEntryStoreMock).lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep));
 
         Promise<Lookup2Deferred> promise = subject.lookup(DOMAINS.clone(),
                                                           INTERFACE_NAME,
                                                           new String[]{ validGbids[1] });
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         checkPromiseError(promise, DiscoveryError.NO_ENTRY_FOR_SELECTED_BACKENDS);
     }
 
@@ -902,11 +1044,11 @@ public class CapabilitiesDirectoryTest {
 
     @Test
     public void lookupByDomainInterface_noMatchingEntry() throws InterruptedException {
-        doReturn(new ArrayList<>()).when(discoveryEntryStoreMock).lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(new ArrayList<>());
 
         Promise<Lookup1Deferred> promise = subject.lookup(DOMAINS.clone(), INTERFACE_NAME);
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         Object[] values = checkPromiseSuccess(promise);
         GlobalDiscoveryEntry[] result = (GlobalDiscoveryEntry[]) values[0];
         assertEquals(0, result.length);
@@ -918,11 +1060,11 @@ public class CapabilitiesDirectoryTest {
                                                                                TOPIC_NAME,
                                                                                validGbids[0]);
         gdep.setAddress(CapabilityUtils.serializeAddress(new MqttAddress(validGbids[0], TOPIC_NAME)));
-        doReturn(Arrays.asList(gdep)).when(discoveryEntryStoreMock).lookup(any(String[].class), anyString());
+        mockLookupByDomainInterface(Arrays.asList(gdep));
 
         Promise<Lookup1Deferred> promise = subject.lookup(DOMAINS.clone(), INTERFACE_NAME);
 
-        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME));
+        verify(discoveryEntryStoreMock).lookup(eq(DOMAINS), eq(INTERFACE_NAME), any(String[].class));
         checkPromiseException(promise,
                               ProviderRuntimeException.class,
                               DiscoveryError.NO_ENTRY_FOR_SELECTED_BACKENDS.name());
@@ -1015,4 +1157,39 @@ public class CapabilitiesDirectoryTest {
         checkPromiseException(promise, ProviderRuntimeException.class, "RemoveStale failed: " + testException);
     }
 
+    @Test
+    public void removeStale_publishesRemoveOfStaleEntries() throws InterruptedException {
+        final String ccId = "testCcId-" + System.currentTimeMillis();
+        final long maxLastSeen = System.currentTimeMillis();
+        GlobalDiscoveryEntryPersisted gdep = new GlobalDiscoveryEntryPersisted(testGlobalDiscoveryEntry,
+                                                                               TOPIC_NAME,
+                                                                               GCD_GBID);
+        doReturn(Arrays.asList(gdep)).when(discoveryEntryStoreMock).lookupStale(ccId, maxLastSeen);
+        doReturn(1).when(discoveryEntryStoreMock).removeStale(ccId, maxLastSeen);
+        doReturn(Optional.empty()).when(discoveryEntryStoreMock).lookup(PARTICIPANT_ID);
+
+        Promise<DeferredVoid> promise = subject.removeStale(ccId, maxLastSeen);
+        checkPromiseSuccess(promise);
+
+        String[] expectedPartitions = CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions(DOMAIN, INTERFACE_NAME);
+        verify(subscriptionPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.REMOVE),
+                                                                          eq(new GlobalDiscoveryEntry(gdep)),
+                                                                          eq(expectedPartitions[0]),
+                                                                          eq(expectedPartitions[1]));
+    }
+
+    @Test
+    public void removeStale_nothingDeleted_doesNotPublishGlobalDiscoveryEntryChanged() throws InterruptedException {
+        final String ccId = "testCcId-" + System.currentTimeMillis();
+        final long maxLastSeen = System.currentTimeMillis();
+        doReturn(0).when(discoveryEntryStoreMock).removeStale(ccId, maxLastSeen);
+
+        Promise<DeferredVoid> promise = subject.removeStale(ccId, maxLastSeen);
+        checkPromiseSuccess(promise);
+
+        verify(subscriptionPublisherMock, never()).fireGlobalDiscoveryEntryChanged(any(ChangeType.class),
+                                                                                   any(GlobalDiscoveryEntry.class),
+                                                                                   anyVararg());
+    }
+
 }
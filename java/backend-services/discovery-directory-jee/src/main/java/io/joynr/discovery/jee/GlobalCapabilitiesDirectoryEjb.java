@@ -22,11 +22,17 @@ import static io.joynr.capabilities.directory.CapabilitiesDirectoryImpl.GCD_GBID
 import static io.joynr.capabilities.directory.CapabilitiesDirectoryImpl.VALID_GBIDS;
 import static io.joynr.messaging.ConfigurableMessagingSettings.PROPERTY_DISCOVERY_PROVIDER_DEFAULT_EXPIRY_TIME_MS;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import javax.annotation.Resource;
 import javax.ejb.ConcurrencyManagement;
 import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Lock;
@@ -37,6 +43,9 @@ import javax.inject.Named;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
 import javax.transaction.Transactional;
 
 import org.slf4j.Logger;
@@ -55,6 +64,7 @@ import joynr.infrastructure.GlobalCapabilitiesDirectorySync;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
 import joynr.system.RoutingTypes.RoutingTypesUtil;
+import joynr.types.ChangeType;
 import joynr.types.DiscoveryError;
 import joynr.types.GlobalDiscoveryEntry;
 
@@ -74,7 +84,8 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
     private static final Logger logger = LoggerFactory.getLogger(GlobalCapabilitiesDirectoryEjb.class);
     @PersistenceContext(unitName = "joynr-discovery-directory")
     private EntityManager entityManager;
-    @SuppressWarnings("unused")
+    @Resource
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
     private GlobalCapabilitiesDirectorySubscriptionPublisher gcdSubPublisher;
 
     private String gcdGbid;
@@ -94,13 +105,42 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
 
     @Override
     public void add(GlobalDiscoveryEntry[] globalDiscoveryEntries) {
+        entityManager.clear();
+        Map<String, GlobalDiscoveryEntryPersisted> entities = new HashMap<>();
         for (GlobalDiscoveryEntry entry : globalDiscoveryEntries) {
             if (entry != null) {
-                add(entry);
+                MqttAddress mqttAddress = getValidatedMqttAddress(entry);
+                mqttAddress.setBrokerUri(gcdGbid);
+                entry.setAddress(RoutingTypesUtil.toAddressString(mqttAddress));
+                entities.put(entry.getParticipantId(),
+                             new GlobalDiscoveryEntryPersisted(entry, mqttAddress.getTopic(), gcdGbid));
             } else {
                 logger.trace("Ignoring null entry passed in as part of array.");
             }
         }
+        if (entities.isEmpty()) {
+            return;
+        }
+        logger.debug("Adding {} global discovery entries to own gbid {}", entities.size(), gcdGbid);
+
+        // look up the already registered entries with a single query instead of one query per entry
+        String queryString = "SELECT gdep.participantId FROM GlobalDiscoveryEntryPersisted gdep WHERE gdep.participantId IN :participantIds AND gdep.gbid = :gbid";
+        Set<String> registeredParticipantIds = new HashSet<>(entityManager.createQuery(queryString, String.class)
+                                                                          .setParameter("participantIds",
+                                                                                        entities.keySet())
+                                                                          .setParameter("gbid", gcdGbid)
+                                                                          .getResultList());
+        for (GlobalDiscoveryEntryPersisted entity : entities.values()) {
+            if (registeredParticipantIds.contains(entity.getParticipantId())) {
+                logger.trace("Merging discoveryEntry {} to the persisted entries.", entity);
+                entityManager.merge(entity);
+            } else {
+                logger.trace("Adding new discoveryEntry {} to the persisted entries.", entity);
+                entityManager.persist(entity);
+            }
+        }
+        entityManager.flush();
+        publishGlobalDiscoveryEntriesChangedAfterCommit(entities.keySet(), new ArrayList<>());
     }
 
     @Override
@@ -114,25 +154,10 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
 
     private boolean addInternal(GlobalDiscoveryEntry globalDiscoveryEntry, String... gbids) {
         entityManager.clear();
-        if (globalDiscoveryEntry.getDomain() == null || globalDiscoveryEntry.getInterfaceName() == null
-                || globalDiscoveryEntry.getParticipantId() == null || globalDiscoveryEntry.getAddress() == null) {
-            final String msg = String.format("DiscoveryEntry being registered is incomplete: %s", globalDiscoveryEntry);
-            logger.error(msg);
-            throw new ProviderRuntimeException(msg);
-        }
-
-        Address address = CapabilityUtils.getAddressFromGlobalDiscoveryEntry(globalDiscoveryEntry);
-        if (!(address instanceof MqttAddress)) {
-            logger.error("Error adding DiscoveryEntry for participantId {}. Unknown address type: {}",
-                         globalDiscoveryEntry.getParticipantId(),
-                         globalDiscoveryEntry.getAddress());
-            throw new ProviderRuntimeException("Unable to add DiscoveryEntry for participantId "
-                    + globalDiscoveryEntry.getParticipantId() + ". Unknown address type: "
-                    + globalDiscoveryEntry.getAddress());
-        }
-        MqttAddress mqttAddress = (MqttAddress) address;
+        MqttAddress mqttAddress = getValidatedMqttAddress(globalDiscoveryEntry);
         String clusterControllerId = mqttAddress.getTopic();
         String participantId = globalDiscoveryEntry.getParticipantId();
+
         String queryString = "FROM GlobalDiscoveryEntryPersisted gdep WHERE gdep.participantId = :participantId AND gdep.gbid = :gbid";
 
         try {
@@ -174,6 +199,7 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
                 }
                 entityManager.flush();
             }
+            publishGlobalDiscoveryEntriesChangedAfterCommit(Arrays.asList(participantId), new ArrayList<>());
         } catch (Exception e) {
             logger.error("Error adding discoveryEntry for participantId {} and gbids {}:",
                          participantId,
@@ -184,6 +210,26 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
         return true;
     }
 
+    private MqttAddress getValidatedMqttAddress(GlobalDiscoveryEntry globalDiscoveryEntry) {
+        if (globalDiscoveryEntry.getDomain() == null || globalDiscoveryEntry.getInterfaceName() == null
+                || globalDiscoveryEntry.getParticipantId() == null || globalDiscoveryEntry.getAddress() == null) {
+            final String msg = String.format("DiscoveryEntry being registered is incomplete: %s", globalDiscoveryEntry);
+            logger.error(msg);
+            throw new ProviderRuntimeException(msg);
+        }
+
+        Address address = CapabilityUtils.getAddressFromGlobalDiscoveryEntry(globalDiscoveryEntry);
+        if (!(address instanceof MqttAddress)) {
+            logger.error("Error adding DiscoveryEntry for participantId {}. Unknown address type: {}",
+                         globalDiscoveryEntry.getParticipantId(),
+                         globalDiscoveryEntry.getAddress());
+            throw new ProviderRuntimeException("Unable to add DiscoveryEntry for participantId "
+                    + globalDiscoveryEntry.getParticipantId() + ". Unknown address type: "
+                    + globalDiscoveryEntry.getAddress());
+        }
+        return (MqttAddress) address;
+    }
+
     @Override
     public void add(GlobalDiscoveryEntry globalDiscoveryEntry, String[] gbids) throws ApplicationException {
         logger.debug("Adding global discovery entry to {}: {}", Arrays.toString(gbids), globalDiscoveryEntry);
@@ -202,9 +248,79 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
         }
     }
 
-    @Override
-    public void fireGlobalDiscoveryEntryChanged() {
-        throw new UnsupportedOperationException("Not implemented yet");
+    /**
+     * Publishes the changes of the entries of the given participantIds once the current transaction has been
+     * committed, nothing is published if it is rolled back.
+     * <p>
+     * For every participantId which is still registered in any GBID, the entry which a lookup would return is
+     * published as ADD. For the other participantIds, one of their removed entries is published as REMOVE.
+     *
+     * @param participantIds the participantIds whose entries have been changed
+     * @param removedEntries the entries which have been removed in the current transaction
+     */
+    private void publishGlobalDiscoveryEntriesChangedAfterCommit(Collection<String> participantIds,
+                                                                 Collection<GlobalDiscoveryEntryPersisted> removedEntries) {
+        String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList "
+                + "WHERE gdep.participantId IN :participantIds";
+        List<GlobalDiscoveryEntryPersisted> remainingEntries = entityManager.createQuery(queryString,
+                                                                                         GlobalDiscoveryEntryPersisted.class)
+                                                                            .setParameter("participantIds",
+                                                                                          new HashSet<String>(participantIds))
+                                                                            .getResultList();
+        remainingEntries = GcdUtilities.removeDuplicatesOfFetchJoin(remainingEntries);
+        Set<String> remainingParticipantIds = remainingEntries.stream()
+                                                              .map(GlobalDiscoveryEntryPersisted::getParticipantId)
+                                                              .collect(Collectors.toSet());
+        List<GlobalDiscoveryEntryPersisted> finallyRemovedEntries = removedEntries.stream()
+                                                                                  .filter(removedEntry -> !remainingParticipantIds.contains(removedEntry.getParticipantId()))
+                                                                                  .collect(Collectors.toList());
+        // copies are created while the transaction is active, the entities are detached after the commit
+        GlobalDiscoveryEntry[] addedEntries = GcdUtilities.chooseOneGlobalDiscoveryEntryPerParticipantId(remainingEntries,
+                                                                                                         gcdGbid);
+        GlobalDiscoveryEntry[] finallyRemovedEntriesToPublish = GcdUtilities.chooseOneGlobalDiscoveryEntryPerParticipantId(finallyRemovedEntries,
+                                                                                                                           gcdGbid);
+        if (addedEntries.length == 0 && finallyRemovedEntriesToPublish.length == 0) {
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    logger.debug("Transaction not committed (status {}), not publishing changes of discoveryEntries",
+                                 status);
+                    return;
+                }
+                for (GlobalDiscoveryEntry addedEntry : addedEntries) {
+                    publishGlobalDiscoveryEntryChanged(ChangeType.ADD, addedEntry);
+                }
+                for (GlobalDiscoveryEntry removedEntry : finallyRemovedEntriesToPublish) {
+                    publishGlobalDiscoveryEntryChanged(ChangeType.REMOVE, removedEntry);
+                }
+            }
+        });
+    }
+
+    /**
+     * Publishes the change of the given entry as multicast with the partitions &lt;domain&gt;/&lt;interface&gt;, see
+     * {@link CapabilityUtils#getGlobalDiscoveryEntryChangedPartitions(String, String)}.
+     */
+    private void publishGlobalDiscoveryEntryChanged(ChangeType typeOfChange, GlobalDiscoveryEntry globalDiscoveryEntry) {
+        try {
+            gcdSubPublisher.fireGlobalDiscoveryEntryChanged(typeOfChange,
+                                                            globalDiscoveryEntry,
+                                                            CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions(globalDiscoveryEntry.getDomain(),
+                                                                                                                     globalDiscoveryEntry.getInterfaceName()));
+        } catch (Exception e) {
+            logger.warn("Error publishing {} of discoveryEntry for participantId {}:",
+                        typeOfChange,
+                        globalDiscoveryEntry.getParticipantId(),
+                        e);
+        }
     }
 
     @Override
@@ -261,7 +377,8 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
             }
         }
 
-        String queryString = "FROM GlobalDiscoveryEntryPersisted gdep "
+        String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList "
                 + "WHERE gdep.domain IN :domains AND gdep.interfaceName = :interfaceName AND gdep.gbid IN :gbids "
                 + "ORDER BY gdep.participantId";
         try {
@@ -273,6 +390,7 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
                                                                            .setParameter("gbids",
                                                                                          Arrays.asList(adaptedGbidArray))
                                                                            .getResultList();
+            queryResult = GcdUtilities.removeDuplicatesOfFetchJoin(queryResult);
 
             if (queryResult.isEmpty()) {
                 String queryCountString = "SELECT count(gdep) FROM GlobalDiscoveryEntryPersisted gdep " + "WHERE "
@@ -346,7 +464,8 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
         }
 
         try {
-            String queryString = "FROM GlobalDiscoveryEntryPersisted gdep WHERE "
+            String queryString = "SELECT gdep FROM GlobalDiscoveryEntryPersisted gdep "
+                    + "LEFT JOIN FETCH gdep.providerQosPersisted.customParameterList WHERE "
                     + "gdep.participantId = :participantId AND " + "gdep.gbid IN :gbids";
 
             List<GlobalDiscoveryEntryPersisted> queryResult = entityManager.createQuery(queryString,
@@ -355,6 +474,7 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
                                                                            .setParameter("gbids",
                                                                                          Arrays.asList(addaptedGbidArray))
                                                                            .getResultList();
+            queryResult = GcdUtilities.removeDuplicatesOfFetchJoin(queryResult);
 
             if (queryResult.isEmpty()) {
                 String queryCountString = "SELECT count(gdep) FROM GlobalDiscoveryEntryPersisted gdep " + "WHERE "
@@ -402,6 +522,16 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
             }
         }
 
+        Set<String> gbidSet = new HashSet<String>(gbids.length > 0 ? Arrays.asList(addaptedGbidArray)
+                : Arrays.asList(gcdGbid));
+        String selectQueryString = "FROM GlobalDiscoveryEntryPersisted gdep WHERE gdep.participantId IN :participantIds AND gdep.gbid IN :gbids";
+        List<GlobalDiscoveryEntryPersisted> removedEntries = entityManager.createQuery(selectQueryString,
+                                                                                       GlobalDiscoveryEntryPersisted.class)
+                                                                          .setParameter("participantIds",
+                                                                                        new HashSet<String>(Arrays.asList(participantIds)))
+                                                                          .setParameter("gbids", gbidSet)
+                                                                          .getResultList();
+
         if (gbids.length > 0) {
             logger.debug("Removing global discovery entries with participantIds {} from gbids {}",
                          Arrays.toString(participantIds),
@@ -425,6 +555,12 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
         }
         entityManager.flush();
 
+        if (!removedEntries.isEmpty()) {
+            Set<String> removedParticipantIds = removedEntries.stream()
+                                                              .map(GlobalDiscoveryEntryPersisted::getParticipantId)
+                                                              .collect(Collectors.toSet());
+            publishGlobalDiscoveryEntriesChangedAfterCommit(removedParticipantIds, removedEntries);
+        }
         return deletedCount;
     }
 
@@ -537,14 +673,29 @@ public class GlobalCapabilitiesDirectoryEjb implements GlobalCapabilitiesDirecto
         logger.debug("RemoveStale called. Removing stale entries for ccId={}, maxLastSeenDateMs={}.",
                      clusterControllerId,
                      maxLastSeenDateMs);
+        String selectQueryString = "FROM GlobalDiscoveryEntryPersisted gdep "
+                + "WHERE gdep.clusterControllerId = :clusterControllerId AND gdep.lastSeenDateMs < :maxLastSeenDateMs";
         String queryString = "DELETE FROM GlobalDiscoveryEntryPersisted gdep "
                 + "WHERE gdep.clusterControllerId = :clusterControllerId AND gdep.lastSeenDateMs < :maxLastSeenDateMs";
         try {
+            List<GlobalDiscoveryEntryPersisted> removedEntries = entityManager.createQuery(selectQueryString,
+                                                                                           GlobalDiscoveryEntryPersisted.class)
+                                                                              .setParameter("clusterControllerId",
+                                                                                            clusterControllerId)
+                                                                              .setParameter("maxLastSeenDateMs",
+                                                                                            maxLastSeenDateMs)
+                                                                              .getResultList();
             int deletedCount = entityManager.createQuery(queryString, GlobalDiscoveryEntryPersisted.class)
                                             .setParameter("clusterControllerId", clusterControllerId)
                                             .setParameter("maxLastSeenDateMs", maxLastSeenDateMs)
                                             .executeUpdate();
             entityManager.flush();
+            if (!removedEntries.isEmpty()) {
+                Set<String> removedParticipantIds = removedEntries.stream()
+                                                                  .map(GlobalDiscoveryEntryPersisted::getParticipantId)
+                                                                  .collect(Collectors.toSet());
+                publishGlobalDiscoveryEntriesChangedAfterCommit(removedParticipantIds, removedEntries);
+            }
             logger.info("Deleted {} stale entries for ccId={}, maxLastSeenDateMs={}.",
                         deletedCount,
                         clusterControllerId,
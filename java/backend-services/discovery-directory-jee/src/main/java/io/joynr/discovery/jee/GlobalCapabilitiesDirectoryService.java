@@ -21,5 +21,4 @@ package io.joynr.discovery.jee;
 import joynr.infrastructure.GlobalCapabilitiesDirectorySync;
 
 public interface GlobalCapabilitiesDirectoryService extends GlobalCapabilitiesDirectorySync {
-    void fireGlobalDiscoveryEntryChanged();
 }
@@ -0,0 +1,275 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2020 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.discovery.jee;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import io.joynr.capabilities.CapabilityUtils;
+import io.joynr.capabilities.GlobalDiscoveryEntryPersisted;
+import io.joynr.util.ObjectMapper;
+import joynr.infrastructure.GlobalCapabilitiesDirectorySubscriptionPublisher;
+import joynr.system.RoutingTypes.MqttAddress;
+import joynr.types.ChangeType;
+import joynr.types.GlobalDiscoveryEntry;
+import joynr.types.ProviderQos;
+import joynr.types.Version;
+
+/**
+ * Tests the publication of GlobalDiscoveryEntryChanged broadcasts without a container, the transaction is
+ * simulated with a mocked TransactionSynchronizationRegistry.
+ */
+public class GlobalCapabilitiesDirectoryEjbPublishTest {
+    private static final String GCD_GBID = "joynrdefaultgbid";
+    private static final String OTHER_GBID = "othergbid";
+    private static final String TOPIC_NAME = "my/topic";
+    private static final String DOMAIN = "com";
+    private static final String INTERFACE_NAME = "interfaceName";
+    private static final String PARTICIPANT_ID = "participantId";
+
+    @Mock
+    private GlobalCapabilitiesDirectorySubscriptionPublisher gcdSubPublisherMock;
+    @Mock
+    private EntityManager entityManagerMock;
+    @Mock
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistryMock;
+
+    private GlobalCapabilitiesDirectoryEjb subject;
+    private GlobalDiscoveryEntry testGlobalDiscoveryEntry;
+    private GlobalDiscoveryEntryPersisted gdepOfGcdGbid;
+    private GlobalDiscoveryEntryPersisted gdepOfOtherGbid;
+    private String[] expectedPartitions;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        Field objectMapperField = CapabilityUtils.class.getDeclaredField("objectMapper");
+        objectMapperField.setAccessible(true);
+        objectMapperField.set(CapabilityUtils.class, new ObjectMapper());
+
+        subject = new GlobalCapabilitiesDirectoryEjb(gcdSubPublisherMock,
+                                                     GCD_GBID,
+                                                     GCD_GBID + "," + OTHER_GBID,
+                                                     1000L);
+        setField("entityManager", entityManagerMock);
+        setField("transactionSynchronizationRegistry", transactionSynchronizationRegistryMock);
+
+        testGlobalDiscoveryEntry = CapabilityUtils.newGlobalDiscoveryEntry(new Version(0, 1),
+                                                                           DOMAIN,
+                                                                           INTERFACE_NAME,
+                                                                           PARTICIPANT_ID,
+                                                                           new ProviderQos(),
+                                                                           System.currentTimeMillis(),
+                                                                           System.currentTimeMillis() + 1000L,
+                                                                           "public key ID",
+                                                                           new MqttAddress("tcp://mqttbroker:1883",
+                                                                                           TOPIC_NAME));
+        gdepOfGcdGbid = createGdep(GCD_GBID);
+        gdepOfOtherGbid = createGdep(OTHER_GBID);
+        expectedPartitions = CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions(DOMAIN, INTERFACE_NAME);
+
+        TypedQuery<String> participantIdQueryMock = mockTypedQuery(new ArrayList<String>());
+        doReturn(participantIdQueryMock).when(entityManagerMock).createQuery(anyString(), eq(String.class));
+        // lookup of an already registered entry in addInternal
+        TypedQuery<GlobalDiscoveryEntryPersisted> existingEntryQueryMock = mockTypedQuery(new ArrayList<GlobalDiscoveryEntryPersisted>());
+        doReturn(existingEntryQueryMock).when(entityManagerMock)
+                                        .createQuery(startsWith("FROM"), eq(GlobalDiscoveryEntryPersisted.class));
+    }
+
+    private void setField(String fieldName, Object value) throws Exception {
+        Field field = GlobalCapabilitiesDirectoryEjb.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(subject, value);
+    }
+
+    private GlobalDiscoveryEntryPersisted createGdep(String gbid) {
+        GlobalDiscoveryEntry globalDiscoveryEntry = new GlobalDiscoveryEntry(testGlobalDiscoveryEntry);
+        globalDiscoveryEntry.setAddress(CapabilityUtils.serializeAddress(new MqttAddress(gbid, TOPIC_NAME)));
+        return new GlobalDiscoveryEntryPersisted(globalDiscoveryEntry, TOPIC_NAME, gbid);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TypedQuery<T> mockTypedQuery(List<T> resultList) {
+        TypedQuery<T> queryMock = mock(TypedQuery.class);
+        doReturn(queryMock).when(queryMock).setParameter(anyString(), any());
+        doReturn(resultList).when(queryMock).getResultList();
+        return queryMock;
+    }
+
+    private void mockRemainingEntries(GlobalDiscoveryEntryPersisted... remainingEntries) {
+        TypedQuery<GlobalDiscoveryEntryPersisted> remainingEntriesQueryMock = mockTypedQuery(Arrays.asList(remainingEntries));
+        doReturn(remainingEntriesQueryMock).when(entityManagerMock)
+                                           .createQuery(startsWith("SELECT gdep"),
+                                                        eq(GlobalDiscoveryEntryPersisted.class));
+    }
+
+    private void mockRemovedEntries(GlobalDiscoveryEntryPersisted... removedEntries) {
+        TypedQuery<GlobalDiscoveryEntryPersisted> removedEntriesQueryMock = mockTypedQuery(Arrays.asList(removedEntries));
+        doReturn(removedEntriesQueryMock).when(entityManagerMock)
+                                         .createQuery(startsWith("FROM"), eq(GlobalDiscoveryEntryPersisted.class));
+        TypedQuery<GlobalDiscoveryEntryPersisted> deleteQueryMock = mockTypedQuery(new ArrayList<GlobalDiscoveryEntryPersisted>());
+        doReturn(removedEntries.length).when(deleteQueryMock).executeUpdate();
+        doReturn(deleteQueryMock).when(entityManagerMock)
+                                 .createQuery(startsWith("DELETE"), eq(GlobalDiscoveryEntryPersisted.class));
+    }
+
+    private Synchronization captureSynchronization() {
+        ArgumentCaptor<Synchronization> synchronizationCaptor = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionSynchronizationRegistryMock).registerInterposedSynchronization(synchronizationCaptor.capture());
+        return synchronizationCaptor.getValue();
+    }
+
+    private void verifyNothingPublished() {
+        verify(gcdSubPublisherMock, never()).fireGlobalDiscoveryEntryChanged(any(ChangeType.class),
+                                                                             any(GlobalDiscoveryEntry.class),
+                                                                             anyVararg());
+    }
+
+    @Test
+    public void addWithGbids_publishesEntryOfGcdGbidOnceAfterCommit() throws Exception {
+        mockRemainingEntries(gdepOfOtherGbid, gdepOfGcdGbid);
+
+        subject.add(testGlobalDiscoveryEntry, new String[]{ OTHER_GBID, GCD_GBID });
+
+        Synchronization synchronization = captureSynchronization();
+        verifyNothingPublished();
+
+        synchronization.beforeCompletion();
+        verifyNothingPublished();
+
+        synchronization.afterCompletion(Status.STATUS_COMMITTED);
+        verify(gcdSubPublisherMock, times(1)).fireGlobalDiscoveryEntryChanged(any(ChangeType.class),
+                                                                              any(GlobalDiscoveryEntry.class),
+                                                                              anyVararg());
+        verify(gcdSubPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                    eq(new GlobalDiscoveryEntry(gdepOfGcdGbid)),
+                                                                    eq(expectedPartitions[0]),
+                                                                    eq(expectedPartitions[1]));
+    }
+
+    @Test
+    public void addMultipleEntries_publishesOncePerParticipantIdAfterCommit() throws Exception {
+        mockRemainingEntries(gdepOfGcdGbid);
+
+        subject.add(new GlobalDiscoveryEntry[]{ testGlobalDiscoveryEntry,
+                new GlobalDiscoveryEntry(testGlobalDiscoveryEntry) });
+
+        Synchronization synchronization = captureSynchronization();
+        verifyNothingPublished();
+
+        synchronization.afterCompletion(Status.STATUS_COMMITTED);
+        verify(gcdSubPublisherMock, times(1)).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                              eq(new GlobalDiscoveryEntry(gdepOfGcdGbid)),
+                                                                              anyVararg());
+    }
+
+    @Test
+    public void add_rolledBack_doesNotPublish() throws Exception {
+        mockRemainingEntries(gdepOfGcdGbid);
+
+        subject.add(testGlobalDiscoveryEntry);
+
+        captureSynchronization().afterCompletion(Status.STATUS_ROLLEDBACK);
+        verifyNothingPublished();
+    }
+
+    @Test
+    public void removeWithGbids_entryRemainsInOtherGbid_publishesRemainingEntryAsAdd() throws Exception {
+        mockRemovedEntries(gdepOfGcdGbid);
+        mockRemainingEntries(gdepOfOtherGbid);
+
+        subject.remove(PARTICIPANT_ID, new String[]{ GCD_GBID });
+
+        captureSynchronization().afterCompletion(Status.STATUS_COMMITTED);
+        verify(gcdSubPublisherMock, never()).fireGlobalDiscoveryEntryChanged(eq(ChangeType.REMOVE),
+                                                                             any(GlobalDiscoveryEntry.class),
+                                                                             anyVararg());
+        verify(gcdSubPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.ADD),
+                                                                    eq(new GlobalDiscoveryEntry(gdepOfOtherGbid)),
+                                                                    anyVararg());
+    }
+
+    @Test
+    public void removeWithGbids_lastGbid_publishesRemoveAfterCommit() throws Exception {
+        mockRemovedEntries(gdepOfGcdGbid);
+        mockRemainingEntries();
+
+        subject.remove(PARTICIPANT_ID, new String[]{ GCD_GBID });
+
+        Synchronization synchronization = captureSynchronization();
+        verifyNothingPublished();
+
+        synchronization.afterCompletion(Status.STATUS_COMMITTED);
+        verify(gcdSubPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.REMOVE),
+                                                                    eq(new GlobalDiscoveryEntry(gdepOfGcdGbid)),
+                                                                    eq(expectedPartitions[0]),
+                                                                    eq(expectedPartitions[1]));
+    }
+
+    @Test
+    public void removeStale_publishesRemoveOfStaleEntriesAfterCommit() throws Exception {
+        mockRemovedEntries(gdepOfGcdGbid);
+        mockRemainingEntries();
+
+        subject.removeStale(TOPIC_NAME, System.currentTimeMillis());
+
+        Synchronization synchronization = captureSynchronization();
+        verifyNothingPublished();
+
+        synchronization.afterCompletion(Status.STATUS_COMMITTED);
+        verify(gcdSubPublisherMock).fireGlobalDiscoveryEntryChanged(eq(ChangeType.REMOVE),
+                                                                    eq(new GlobalDiscoveryEntry(gdepOfGcdGbid)),
+                                                                    eq(expectedPartitions[0]),
+                                                                    eq(expectedPartitions[1]));
+    }
+
+    @Test
+    public void removeStale_noStaleEntries_doesNotRegisterSynchronization() throws Exception {
+        mockRemovedEntries();
+
+        subject.removeStale(TOPIC_NAME, System.currentTimeMillis());
+
+        verify(transactionSynchronizationRegistryMock, never()).registerInterposedSynchronization(any(Synchronization.class));
+    }
+}
@@ -21,6 +21,7 @@ package io.joynr.capabilities;
 import static java.lang.String.format;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -175,4 +176,22 @@ public class CapabilityUtils {
         }
         return entriesWithMetaInfo;
     }
+
+    /**
+     * Returns the multicast partitions of the globalDiscoveryEntryChanged broadcast of the GlobalCapabilitiesDirectory
+     * for the given domain and interface name. Partitions may only contain alphanumeric characters, hence domain and
+     * interface name are hex encoded.
+     */
+    public static String[] getGlobalDiscoveryEntryChangedPartitions(String domain, String interfaceName) {
+        return new String[]{ toHexPartition(domain), toHexPartition(interfaceName) };
+    }
+
+    private static String toHexPartition(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder partition = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            partition.append(String.format("%02x", b));
+        }
+        return partition.toString();
+    }
 }
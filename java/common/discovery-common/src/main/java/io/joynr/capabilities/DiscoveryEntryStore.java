@@ -48,6 +48,20 @@ public interface DiscoveryEntryStore<T extends DiscoveryEntry> {
 
     public abstract boolean hasDiscoveryEntry(T discoveryEntry);
 
+    /**
+     * Get the discovery entries which have expired, i.e. whose expiry date is before the given date.
+     * @param nowMs - the current date in milliseconds
+     * @return the expired discovery entries saved in this store
+     */
+    public abstract Set<T> getExpiredDiscoveryEntries(long nowMs);
+
+    /**
+     * Get the date at which the next discovery entry saved in this store expires.
+     * @param nowMs - the current date in milliseconds, entries which have already expired are not taken into account
+     * @return the earliest expiry date in milliseconds which is not before nowMs, or Long.MAX_VALUE if there is none
+     */
+    public abstract long getNextExpiryDateMs(long nowMs);
+
     /**
      * Update last seen date and expiry date of every discovery entry saved in this store.
      * @param lastSeenDateMs - last seen date in milliseconds to set
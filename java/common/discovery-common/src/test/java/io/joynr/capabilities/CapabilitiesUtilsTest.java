@@ -18,6 +18,7 @@
  */
 package io.joynr.capabilities;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -286,4 +287,15 @@ public class CapabilitiesUtilsTest {
         Set<DiscoveryEntry> convertedEntries = CapabilityUtils.convertToDiscoveryEntrySet(discoveryEntries);
         compareCollectionOfDiscoveryEntries(convertedEntries, discoveryEntries);
     }
+
+    @Test
+    public void testGetGlobalDiscoveryEntryChangedPartitions() {
+        String[] partitions = CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions("io.joynr",
+                                                                                       "vehicle/Radio");
+
+        assertArrayEquals(new String[]{ "696f2e6a6f796e72", "76656869636c652f526164696f" }, partitions);
+        for (String partition : partitions) {
+            assertTrue(partition.matches("^[a-zA-Z0-9]+$"));
+        }
+    }
 }
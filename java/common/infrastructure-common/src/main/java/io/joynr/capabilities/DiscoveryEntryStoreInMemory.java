@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.slf4j.Logger;
@@ -57,6 +58,11 @@ public class DiscoveryEntryStoreInMemory<T extends DiscoveryEntry> implements Di
     TreeMap<Long, String> queueIdToParticipantIdMapping = new TreeMap<>();
     // maps participiantId -> queueId
     Map<String, Long> participantIdToQueueIdMapping = new HashMap<String, Long>();
+    // maps expiryDateMs -> discoveryEntryIds, ordered; the expiry date of an entry may have been extended after it
+    // has been indexed, such entries are indexed again when they are checked for expiry
+    TreeMap<Long, Set<String>> expiryDateToCapabilityMapping = new TreeMap<>();
+    // maps discoveryEntryId -> indexed expiryDateMs
+    Map<String, Long> capabilityToExpiryDateMapping = new HashMap<String, Long>();
     private long counter = 0;
     private int maximumNumberOfNonStickyEntries;
 
@@ -137,6 +143,9 @@ public class DiscoveryEntryStoreInMemory<T extends DiscoveryEntry> implements Di
             // update time mapping
             registeredCapabilitiesTime.put(discoveryEntryId, System.currentTimeMillis());
 
+            // update expiry date mapping
+            indexExpiryDate(discoveryEntryId, discoveryEntry.getExpiryDateMs());
+
             // update interfaceDomain to capability mapping
             String domainInterfaceId = domainInterfaceKey(discoveryEntry.getDomain(),
                                                           discoveryEntry.getInterfaceName());
@@ -201,6 +210,9 @@ public class DiscoveryEntryStoreInMemory<T extends DiscoveryEntry> implements Di
         // update time mapping
         registeredCapabilitiesTime.remove(discoveryEntryId);
 
+        // update expiry date mapping
+        removeExpiryDateIndex(discoveryEntryId);
+
         // update interfaceDomain to capability mapping
         List<String> mapping = interfaceAddressToCapabilityMapping.get(domainInterfaceId);
         if (mapping != null) {
@@ -242,6 +254,34 @@ public class DiscoveryEntryStoreInMemory<T extends DiscoveryEntry> implements Di
         return true;
     }
 
+    private void indexExpiryDate(String discoveryEntryId, long expiryDateMs) {
+        Long indexedExpiryDateMs = capabilityToExpiryDateMapping.put(discoveryEntryId, expiryDateMs);
+        if (indexedExpiryDateMs != null) {
+            if (indexedExpiryDateMs == expiryDateMs) {
+                return;
+            }
+            removeFromExpiryDateMapping(indexedExpiryDateMs, discoveryEntryId);
+        }
+        expiryDateToCapabilityMapping.computeIfAbsent(expiryDateMs, k -> new HashSet<String>()).add(discoveryEntryId);
+    }
+
+    private void removeExpiryDateIndex(String discoveryEntryId) {
+        Long indexedExpiryDateMs = capabilityToExpiryDateMapping.remove(discoveryEntryId);
+        if (indexedExpiryDateMs != null) {
+            removeFromExpiryDateMapping(indexedExpiryDateMs, discoveryEntryId);
+        }
+    }
+
+    private void removeFromExpiryDateMapping(long expiryDateMs, String discoveryEntryId) {
+        Set<String> discoveryEntryIds = expiryDateToCapabilityMapping.get(expiryDateMs);
+        if (discoveryEntryIds != null) {
+            discoveryEntryIds.remove(discoveryEntryId);
+            if (discoveryEntryIds.isEmpty()) {
+                expiryDateToCapabilityMapping.remove(expiryDateMs);
+            }
+        }
+    }
+
     @Override
     public void remove(Collection<String> participantIds) {
         for (String participantId : participantIds) {
@@ -336,6 +376,38 @@ public class DiscoveryEntryStoreInMemory<T extends DiscoveryEntry> implements Di
         return allGlobalEntries;
     }
 
+    @Override
+    public HashSet<T> getExpiredDiscoveryEntries(long nowMs) {
+        HashSet<T> expiredDiscoveryEntries = new HashSet<T>();
+        synchronized (storeLock) {
+            // only the entries indexed with an expiry date before nowMs are checked
+            List<String> discoveryEntryIds = new ArrayList<String>();
+            for (Set<String> indexedDiscoveryEntryIds : expiryDateToCapabilityMapping.headMap(nowMs, false).values()) {
+                discoveryEntryIds.addAll(indexedDiscoveryEntryIds);
+            }
+            for (String discoveryEntryId : discoveryEntryIds) {
+                T discoveryEntry = capabilityKeyToCapabilityMapping.get(discoveryEntryId);
+                if (discoveryEntry == null) {
+                    removeExpiryDateIndex(discoveryEntryId);
+                } else if (discoveryEntry.getExpiryDateMs() < nowMs) {
+                    expiredDiscoveryEntries.add(discoveryEntry);
+                } else {
+                    // the expiry date has been extended in the meantime
+                    indexExpiryDate(discoveryEntryId, discoveryEntry.getExpiryDateMs());
+                }
+            }
+        }
+        return expiredDiscoveryEntries;
+    }
+
+    @Override
+    public long getNextExpiryDateMs(long nowMs) {
+        synchronized (storeLock) {
+            Long nextExpiryDateMs = expiryDateToCapabilityMapping.ceilingKey(nowMs);
+            return nextExpiryDateMs == null ? Long.MAX_VALUE : nextExpiryDateMs;
+        }
+    }
+
     @Override
     public boolean hasDiscoveryEntry(DiscoveryEntry discoveryEntry) {
         synchronized (storeLock) {
@@ -392,6 +464,7 @@ public class DiscoveryEntryStoreInMemory<T extends DiscoveryEntry> implements Di
                 }
                 foundDiscoveryEntry.setLastSeenDateMs(lastSeenDateMs);
                 foundDiscoveryEntry.setExpiryDateMs(expiryDateMs);
+                indexExpiryDate(discoveryEntryId, expiryDateMs);
             }
         }
     }
@@ -112,6 +112,36 @@ public class DiscoveryEntryStoreInMemoryTest {
         assertEquals(globalParticipantId, actualParticipantIds[0]);
     }
 
+    @Test
+    public void getExpiredDiscoveryEntriesReturnsOnlyExpiredEntries() {
+        globalEntry.setExpiryDateMs(LAST_SEEN_DATE_MS - 1);
+        discoveryEntryStore.add(localEntry);
+        discoveryEntryStore.add(globalEntry);
+
+        Set<DiscoveryEntry> expiredEntries = discoveryEntryStore.getExpiredDiscoveryEntries(LAST_SEEN_DATE_MS);
+        assertEquals(1, expiredEntries.size());
+        assertTrue(expiredEntries.contains(globalEntry));
+        assertEquals(EXPIRY_DATE_MS, discoveryEntryStore.getNextExpiryDateMs(LAST_SEEN_DATE_MS));
+
+        discoveryEntryStore.remove(globalParticipantId);
+        assertTrue(discoveryEntryStore.getExpiredDiscoveryEntries(LAST_SEEN_DATE_MS).isEmpty());
+        assertEquals(Long.MAX_VALUE, discoveryEntryStore.getNextExpiryDateMs(EXPIRY_DATE_MS + 1));
+    }
+
+    @Test
+    public void getExpiredDiscoveryEntriesTakesExtendedExpiryDateIntoAccount() {
+        discoveryEntryStore.add(localEntry);
+        final long newExpiryDateMs = EXPIRY_DATE_MS + 10000;
+        discoveryEntryStore.touchDiscoveryEntries(LAST_SEEN_DATE_MS, newExpiryDateMs);
+
+        assertTrue(discoveryEntryStore.getExpiredDiscoveryEntries(EXPIRY_DATE_MS + 1).isEmpty());
+        assertEquals(newExpiryDateMs, discoveryEntryStore.getNextExpiryDateMs(EXPIRY_DATE_MS + 1));
+
+        Set<DiscoveryEntry> expiredEntries = discoveryEntryStore.getExpiredDiscoveryEntries(newExpiryDateMs + 1);
+        assertEquals(1, expiredEntries.size());
+        assertTrue(expiredEntries.contains(localEntry));
+    }
+
     @Test
     public void lookupGlobalEntries() {
         String[] domains = { "TEST_DOMAIN" };
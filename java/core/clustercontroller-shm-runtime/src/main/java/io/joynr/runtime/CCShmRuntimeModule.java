@@ -0,0 +1,58 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.runtime;
+
+import javax.inject.Named;
+
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.name.Names;
+
+import io.joynr.messaging.inprocess.InProcessAddress;
+import io.joynr.messaging.shm.ShmMessagingSkeletonFactory;
+import io.joynr.messaging.shm.ShmMessagingStubFactory;
+import io.joynr.messaging.shm.ShmModule;
+import joynr.system.RoutingTypes.Address;
+import joynr.system.RoutingTypes.ShmAddress;
+
+/**
+ * Use this module if you want to start a cluster controller which serves a libjoynr instance on the same host by
+ * shared memory
+ */
+public class CCShmRuntimeModule extends ClusterControllerRuntimeModule {
+    @Override
+    protected void configure() {
+        super.configure();
+        install(new ShmModule());
+        bind(JoynrRuntime.class).to(ClusterControllerRuntime.class);
+        bind(ClusterControllerRuntime.class).in(Singleton.class);
+        bind(Boolean.class).annotatedWith(Names.named(ShmModule.SHM_IS_CLUSTER_CONTROLLER)).toInstance(Boolean.TRUE);
+
+        messagingSkeletonFactory.addBinding(ShmAddress.class).to(ShmMessagingSkeletonFactory.class);
+        messagingStubFactory.addBinding(ShmAddress.class).to(ShmMessagingStubFactory.class);
+    }
+
+    @Provides
+    @Singleton
+    @Named(SystemServicesSettings.PROPERTY_CC_MESSAGING_ADDRESS)
+    Address provideCCMessagingAddress() {
+        return new InProcessAddress();
+    }
+
+}
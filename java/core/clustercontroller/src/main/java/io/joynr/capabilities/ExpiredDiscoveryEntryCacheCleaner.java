@@ -40,18 +40,19 @@ import io.joynr.runtime.ShutdownNotifier;
 import joynr.types.DiscoveryEntry;
 
 /**
- * Use this class to periodically check a {@link DiscoveryEntryStore} for expired entries and clean them out by calling
- * the provided {@link CleanupAction clean-up action callback}.
+ * Use this class to check {@link DiscoveryEntryStore DiscoveryEntryStores} for expired entries and clean them out by
+ * calling the provided {@link CleanupAction clean-up action callback}.
  * <p>
  * This implementation uses the {@link ScheduledExecutorService} configured under {@link JoynrInjectionConstants#JOYNR_SCHEDULER_CLEANUP}
- * in order to schedule the cleanup tasks. The interval in which discovery entries are cleaned up can be configured
- * using the {@link io.joynr.common.JoynrPropertiesModule joynr property} {@link #DISCOVERY_ENTRY_CACHE_CLEANUP_INTERVAL},
- * which allows specifying the interval in minutes. The default value is set in the <code>defaultMessaging.properties</code>
+ * in order to schedule the cleanup tasks. A cleanup task is scheduled for the time at which the next discovery entry
+ * of the stores expires, but at the latest after the interval which can be configured using the
+ * {@link io.joynr.common.JoynrPropertiesModule joynr property} {@link #DISCOVERY_ENTRY_CACHE_CLEANUP_INTERVAL}, which
+ * allows specifying the interval in minutes. The default value is set in the <code>defaultMessaging.properties</code>
  * file.
  * </p>
  * <p>
- *     Call the {@link #scheduleCleanUpForCaches(CleanupAction, DiscoveryEntryStore[])} method with the stores to be cleaned up at regular
- *     intervals to start the process.
+ *     Call the {@link #scheduleCleanUpForCaches(CleanupAction, DiscoveryEntryStore[])} method with the stores to be cleaned up
+ *     to start the process.
  * </p>
  */
 @Singleton
@@ -61,6 +62,7 @@ public class ExpiredDiscoveryEntryCacheCleaner implements ShutdownListener {
 
     public static final String DISCOVERY_ENTRY_CACHE_CLEANUP_INTERVAL = "joynr.cc.discovery.entry.cache.cleanup.interval";
     private ScheduledFuture<?> scheduledFuture;
+    private boolean isShutdown = false;
 
     /**
      * Implementations of this are registered with {@link #scheduleCleanUpForCaches(CleanupAction, DiscoveryEntryStore...)} to be
@@ -71,7 +73,7 @@ public class ExpiredDiscoveryEntryCacheCleaner implements ShutdownListener {
     }
 
     private ScheduledExecutorService scheduledExecutorService;
-    private int cacheCleanupIntervalInMinutes;
+    private long cacheCleanupIntervalMs;
     private final ShutdownNotifier shutdownNotifier;
 
     @Inject
@@ -79,45 +81,69 @@ public class ExpiredDiscoveryEntryCacheCleaner implements ShutdownListener {
                                              @Named(DISCOVERY_ENTRY_CACHE_CLEANUP_INTERVAL) int cacheCleanupIntervalInMinutes,
                                              ShutdownNotifier shutdownNotifier) {
         this.scheduledExecutorService = scheduledExecutorService;
-        this.cacheCleanupIntervalInMinutes = cacheCleanupIntervalInMinutes;
+        this.cacheCleanupIntervalMs = TimeUnit.MINUTES.toMillis(cacheCleanupIntervalInMinutes);
         this.shutdownNotifier = shutdownNotifier;
         shutdownNotifier.registerForShutdown(this);
     }
 
-    public void shutdown() {
+    public synchronized void shutdown() {
         logger.info("shutdown invoked");
-        scheduledFuture.cancel(true);
+        isShutdown = true;
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(true);
+        }
         logger.info("shutdown finished");
     }
 
     public void scheduleCleanUpForCaches(final CleanupAction cleanupAction, final DiscoveryEntryStore<?>... caches) {
-        scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+        scheduleCleanUp(cleanupAction, getNextExpiryDateMs(System.currentTimeMillis(), caches), caches);
+    }
+
+    private synchronized void scheduleCleanUp(final CleanupAction cleanupAction,
+                                              long nextExpiryDateMs,
+                                              final DiscoveryEntryStore<?>... caches) {
+        if (isShutdown) {
+            return;
+        }
+        // an entry has expired when its expiry date is in the past
+        long delayMs = Math.min(cacheCleanupIntervalMs,
+                                Math.max(0, nextExpiryDateMs - System.currentTimeMillis() + 1));
+        scheduledFuture = scheduledExecutorService.schedule(new Runnable() {
             @Override
             public void run() {
+                long nextExpiryDateMs = Long.MAX_VALUE;
                 try {
-                    doCleanupFor(cleanupAction, caches);
+                    nextExpiryDateMs = doCleanupFor(cleanupAction, caches);
                 } catch (Exception e) {
                     logger.error("Problem encountered while cleaning up expired discovery entries on cache {}",
                                  caches,
                                  e);
                 }
+                scheduleCleanUp(cleanupAction, nextExpiryDateMs, caches);
             }
-        }, cacheCleanupIntervalInMinutes, cacheCleanupIntervalInMinutes, TimeUnit.MINUTES);
+        }, delayMs, TimeUnit.MILLISECONDS);
     }
 
-    private void doCleanupFor(CleanupAction cleanupAction, DiscoveryEntryStore<?>... caches) {
+    private long getNextExpiryDateMs(long now, DiscoveryEntryStore<?>... caches) {
+        long nextExpiryDateMs = Long.MAX_VALUE;
+        for (DiscoveryEntryStore<? extends DiscoveryEntry> cache : caches) {
+            nextExpiryDateMs = Math.min(nextExpiryDateMs, cache.getNextExpiryDateMs(now));
+        }
+        return nextExpiryDateMs;
+    }
+
+    private long doCleanupFor(CleanupAction cleanupAction, DiscoveryEntryStore<?>... caches) {
         Set<DiscoveryEntry> expiredDiscoveryEntries = new HashSet<>();
         long now = System.currentTimeMillis();
         for (DiscoveryEntryStore<? extends DiscoveryEntry> cache : caches) {
-            for (DiscoveryEntry discoveryEntry : cache.getAllDiscoveryEntries()) {
-                if (discoveryEntry.getExpiryDateMs() < now) {
-                    expiredDiscoveryEntries.add(discoveryEntry);
-                }
-            }
+            expiredDiscoveryEntries.addAll(cache.getExpiredDiscoveryEntries(now));
+        }
+        if (!expiredDiscoveryEntries.isEmpty()) {
+            logger.debug("The following expired participant IDs will be cleaned from the caches {}: {}",
+                         Arrays.toString(caches),
+                         expiredDiscoveryEntries);
+            cleanupAction.cleanup(expiredDiscoveryEntries);
         }
-        logger.debug("The following expired participant IDs will be cleaned from the caches {}: {}",
-                     Arrays.toString(caches),
-                     expiredDiscoveryEntries);
-        cleanupAction.cleanup(expiredDiscoveryEntries);
+        return getNextExpiryDateMs(now, caches);
     }
 }
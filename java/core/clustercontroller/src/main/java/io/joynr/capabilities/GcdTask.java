@@ -49,7 +49,7 @@ public class GcdTask {
                                         String[] gbids,
                                         boolean doRetry) {
 
-        String participantId = "";
+        String participantId = globalDiscoveryEntry.getParticipantId();
         return new GcdTask(MODE.ADD, callback, participantId, globalDiscoveryEntry, gbids, expiryDateMs, doRetry);
     }
 
@@ -41,6 +41,8 @@ import io.joynr.proxy.CallbackWithModeledError;
 import io.joynr.proxy.ProxyBuilder;
 import io.joynr.proxy.ProxyBuilderFactory;
 import joynr.Message;
+import joynr.MulticastSubscriptionQos;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastListener;
 import joynr.infrastructure.GlobalCapabilitiesDirectoryProxy;
 import joynr.types.DiscoveryError;
 import joynr.types.GlobalDiscoveryEntry;
@@ -99,6 +101,13 @@ public class GlobalCapabilitiesDirectoryClient {
         getGcdProxy().add(callbackWithModeledError, globalDiscoveryEntry, gbids, qosWithGbidCustomHeader);
     }
 
+    // the entries are registered in the GBID of the GCD which receives the call
+    public void add(Callback<Void> callback, GlobalDiscoveryEntry[] globalDiscoveryEntries, long ttlMs, String gbid) {
+        MessagingQos qosWithGbidCustomHeader = new MessagingQos(ttlMs);
+        qosWithGbidCustomHeader.putCustomMessageHeader(Message.CUSTOM_HEADER_GBID_KEY, gbid);
+        getGcdProxy().add(callback, globalDiscoveryEntries, qosWithGbidCustomHeader);
+    }
+
     // remove methods
     public void remove(CallbackWithModeledError<Void, DiscoveryError> callback,
                        String participantId,
@@ -163,6 +172,27 @@ public class GlobalCapabilitiesDirectoryClient {
         getGcdProxy().touch(callback, localChannelId, participantIds, messagingQos);
     }
 
+    // Touch all providers registered with this cluster controller id
+    public void touch(Callback<Void> callback, String targetGbid) {
+        MessagingQos messagingQos = new MessagingQos(freshnessUpdateIntervalMs);
+        messagingQos.putCustomMessageHeader(Message.CUSTOM_HEADER_GBID_KEY, targetGbid);
+        getGcdProxy().touch(callback, localChannelId, messagingQos);
+    }
+
+    // Subscribe to the entries of the given domain and interface which are added to or removed from the GCD
+    public void subscribeToGlobalDiscoveryEntryChanged(GlobalDiscoveryEntryChangedBroadcastListener listener,
+                                                       String providerDomain,
+                                                       String interfaceName) {
+        getGcdProxy().subscribeToGlobalDiscoveryEntryChangedBroadcast(listener,
+                                                                      new MulticastSubscriptionQos(),
+                                                                      CapabilityUtils.getGlobalDiscoveryEntryChangedPartitions(providerDomain,
+                                                                                                                               interfaceName));
+    }
+
+    public void unsubscribeFromGlobalDiscoveryEntryChanged(String subscriptionId) {
+        getGcdProxy().unsubscribeFromGlobalDiscoveryEntryChangedBroadcast(subscriptionId);
+    }
+
     // Remove stale providers (registered with the same cluster controller id in a previous lifecycle)
     public void removeStale(Callback<Void> callback, long maxLastSeenDateMs, String gbid) {
         long removeStaleTtl = 60 * 60 * 1000L;
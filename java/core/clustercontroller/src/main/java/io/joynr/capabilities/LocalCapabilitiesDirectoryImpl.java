@@ -18,25 +18,31 @@
  */
 package io.joynr.capabilities;
 
+import static io.joynr.runtime.SystemServicesSettings.PROPERTY_CAPABILITIES_CACHE_PUSH_UPDATES;
+import static io.joynr.runtime.SystemServicesSettings.PROPERTY_CAPABILITIES_CACHE_PUSH_UPDATES_MAX_AGE_MS;
+import static io.joynr.runtime.SystemServicesSettings.PROPERTY_CAPABILITIES_CACHE_STALE_GRACE_PERIOD_MS;
+import static io.joynr.runtime.SystemServicesSettings.PROPERTY_CAPABILITIES_CC_LEVEL_FRESHNESS_UPDATE;
 import static io.joynr.runtime.SystemServicesSettings.PROPERTY_CAPABILITIES_FRESHNESS_UPDATE_INTERVAL_MS;
+import static io.joynr.runtime.SystemServicesSettings.PROPERTY_CAPABILITIES_MAX_GLOBAL_ADD_BATCH_SIZE;
+import static io.joynr.runtime.SystemServicesSettings.PROPERTY_CAPABILITIES_MAX_IN_FLIGHT_GCD_TASKS;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -53,6 +59,7 @@ import io.joynr.exceptions.JoynrException;
 import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.exceptions.JoynrTimeoutException;
+import io.joynr.exceptions.SubscriptionException;
 import io.joynr.messaging.ConfigurableMessagingSettings;
 import io.joynr.messaging.MessagingPropertyKeys;
 import io.joynr.messaging.MessagingQos;
@@ -68,8 +75,10 @@ import io.joynr.runtime.ShutdownNotifier;
 import joynr.exceptions.ApplicationException;
 import joynr.exceptions.ProviderRuntimeException;
 import joynr.infrastructure.GlobalCapabilitiesDirectory;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastAdapter;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
+import joynr.types.ChangeType;
 import joynr.types.DiscoveryEntry;
 import joynr.types.DiscoveryEntryWithMetaInfo;
 import joynr.types.DiscoveryError;
@@ -99,6 +108,8 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
     }
 
     private static final long READD_INTERVAL_DAYS = 7L;
+    private static final int DEFAULT_MAX_IN_FLIGHT_GCD_TASKS = 10;
+    private static final int DEFAULT_MAX_GLOBAL_ADD_BATCH_SIZE = 1;
 
     private ScheduledExecutorService scheduler;
     private ScheduledFuture<?> freshnessUpdateScheduledFuture;
@@ -108,6 +119,17 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
     private GlobalCapabilitiesDirectoryClient globalCapabilitiesDirectoryClient;
     private DiscoveryEntryStore<GlobalDiscoveryEntry> globalDiscoveryEntryCache;
     private final Map<String, List<String>> globalProviderParticipantIdToGbidListMap;
+    // participantIds of the globally registered local providers per GBID in which they are touched, mapped to the
+    // expiry date known to the GCD; protected by the lock of globalDiscoveryEntryCache
+    private final Map<String, Map<String, Long>> gbidToTouchedParticipantIdExpiryDateMap;
+    private volatile boolean clusterControllerLevelFreshnessUpdate = false;
+    private volatile long cacheStaleGracePeriodMs = 0;
+    // keys of the lookups which are currently performed to refresh stale entries of the globalDiscoveryEntryCache
+    private final Set<String> pendingCacheRefreshes = ConcurrentHashMap.newKeySet();
+    private volatile boolean cachePushUpdates = false;
+    private volatile long cachePushUpdatesMaxAgeMs = 3600000;
+    // subscriptions to the changes of the global discovery entries published by the GCD per domain and interface
+    private final Map<String, GlobalDiscoveryEntryChangedListener> globalDiscoveryEntryChangedListeners = new ConcurrentHashMap<>();
     private GcdTaskSequencer gcdTaskSequencer;
 
     private RoutingTable routingTable;
@@ -176,6 +198,7 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
         // set up current date as the start time of the cluster controller
         this.ccStartUpDateInMs = System.currentTimeMillis();
         globalProviderParticipantIdToGbidListMap = new HashMap<>();
+        gbidToTouchedParticipantIdExpiryDateMap = new HashMap<>();
         gcdTaskSequencer = new GcdTaskSequencer();
         this.globalAddressProvider = globalAddressProvider;
         // CHECKSTYLE:ON
@@ -212,6 +235,36 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
         shutdownNotifier.registerForShutdown(this);
     }
 
+    @Inject(optional = true)
+    void setMaxInFlightGcdTasks(@Named(PROPERTY_CAPABILITIES_MAX_IN_FLIGHT_GCD_TASKS) int maxInFlightGcdTasks) {
+        gcdTaskSequencer.setMaxInFlightTasks(maxInFlightGcdTasks);
+    }
+
+    @Inject(optional = true)
+    void setMaxGlobalAddBatchSize(@Named(PROPERTY_CAPABILITIES_MAX_GLOBAL_ADD_BATCH_SIZE) int maxGlobalAddBatchSize) {
+        gcdTaskSequencer.setMaxAddBatchSize(maxGlobalAddBatchSize);
+    }
+
+    @Inject(optional = true)
+    void setClusterControllerLevelFreshnessUpdate(@Named(PROPERTY_CAPABILITIES_CC_LEVEL_FRESHNESS_UPDATE) boolean clusterControllerLevelFreshnessUpdate) {
+        this.clusterControllerLevelFreshnessUpdate = clusterControllerLevelFreshnessUpdate;
+    }
+
+    @Inject(optional = true)
+    void setCacheStaleGracePeriodMs(@Named(PROPERTY_CAPABILITIES_CACHE_STALE_GRACE_PERIOD_MS) long cacheStaleGracePeriodMs) {
+        this.cacheStaleGracePeriodMs = cacheStaleGracePeriodMs;
+    }
+
+    @Inject(optional = true)
+    void setCachePushUpdates(@Named(PROPERTY_CAPABILITIES_CACHE_PUSH_UPDATES) boolean cachePushUpdates) {
+        this.cachePushUpdates = cachePushUpdates;
+    }
+
+    @Inject(optional = true)
+    void setCachePushUpdatesMaxAgeMs(@Named(PROPERTY_CAPABILITIES_CACHE_PUSH_UPDATES_MAX_AGE_MS) long cachePushUpdatesMaxAgeMs) {
+        this.cachePushUpdatesMaxAgeMs = cachePushUpdatesMaxAgeMs;
+    }
+
     private String[] getGbids(Address address) {
         String[] gbids;
         if (address instanceof MqttAddress) {
@@ -236,85 +289,78 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
         globalProviderParticipantIdToGbidListMap.put(participantId, newGbidsList);
     }
 
+    // requires the lock of globalDiscoveryEntryCache
+    private void addTouchedParticipantId(String participantId, long expiryDateMs) {
+        // the provider is touched in the first of its GBIDs
+        String gbid = globalProviderParticipantIdToGbidListMap.get(participantId).get(0);
+        gbidToTouchedParticipantIdExpiryDateMap.computeIfAbsent(gbid, k -> new LinkedHashMap<>())
+                                               .put(participantId, expiryDateMs);
+    }
+
+    // requires the lock of globalDiscoveryEntryCache
+    private void removeTouchedParticipantId(String participantId) {
+        List<String> gbids = globalProviderParticipantIdToGbidListMap.get(participantId);
+        if (gbids == null || gbids.isEmpty()) {
+            return;
+        }
+        Map<String, Long> participantIdToExpiryDateMap = gbidToTouchedParticipantIdExpiryDateMap.get(gbids.get(0));
+        if (participantIdToExpiryDateMap != null) {
+            participantIdToExpiryDateMap.remove(participantId);
+            if (participantIdToExpiryDateMap.isEmpty()) {
+                gbidToTouchedParticipantIdExpiryDateMap.remove(gbids.get(0));
+            }
+        }
+    }
+
+    // requires the lock of globalDiscoveryEntryCache
+    private void removeGlobalProviderParticipantId(String participantId) {
+        removeTouchedParticipantId(participantId);
+        globalProviderParticipantIdToGbidListMap.remove(participantId);
+    }
+
     private void setUpPeriodicFreshnessUpdate(final long freshnessUpdateIntervalMs) {
         logger.trace("Setting up periodic freshness update with interval {}", freshnessUpdateIntervalMs);
+        // providers are touched in the GCD only when they would expire within this time
+        final long touchThresholdMs = Math.max(2 * freshnessUpdateIntervalMs, defaultExpiryTimeMs / 2);
         Runnable command = new Runnable() {
             @Override
             public void run() {
                 long lastSeenDateMs = System.currentTimeMillis();
                 long expiryDateMs = lastSeenDateMs + defaultExpiryTimeMs;
 
-                // Touches all discovery entries, but only returns the participantIds of global ones 
-                String[] participantIds = localDiscoveryEntryStore.touchDiscoveryEntries(lastSeenDateMs, expiryDateMs);
-                // update globalDiscoveryEntryCache
-                globalDiscoveryEntryCache.touchDiscoveryEntries(participantIds, lastSeenDateMs, expiryDateMs);
-
-                if (participantIds == null || participantIds.length == 0) {
-                    logger.debug("touch has not been called, because there are no providers to touch");
-                    return;
-                }
-
-                final Map<String, List<String>> gbidToParticipantIdsListMap = new HashMap<>();
-                for (String gbid : knownGbids) {
-                    gbidToParticipantIdsListMap.put(gbid, Collections.emptyList());
-                }
+                // keeps all local entries alive, including the ones of providers with local scope
+                localDiscoveryEntryStore.touchDiscoveryEntries(lastSeenDateMs, expiryDateMs);
 
+                final Map<String, String[]> gbidToParticipantIdsToTouchMap = new HashMap<>();
+                List<String> allParticipantIdsToTouch = new ArrayList<>();
                 synchronized (globalDiscoveryEntryCache) {
-                    for (String participantIdToTouch : participantIds) {
-                        List<String> gbids = globalProviderParticipantIdToGbidListMap.get(participantIdToTouch);
-
-                        if (gbids == null || gbids.isEmpty()) {
-                            logger.warn("touch cannot be called for provider with participantId {}, no GBID found.",
-                                        participantIdToTouch);
-                            break;
+                    long maxExpiryDateToTouchMs = lastSeenDateMs + touchThresholdMs;
+                    for (Map.Entry<String, Map<String, Long>> entry : gbidToTouchedParticipantIdExpiryDateMap.entrySet()) {
+                        List<String> participantIdsToTouch = new ArrayList<>();
+                        for (Map.Entry<String, Long> participantIdExpiryDate : entry.getValue().entrySet()) {
+                            if (participantIdExpiryDate.getValue() <= maxExpiryDateToTouchMs) {
+                                participantIdsToTouch.add(participantIdExpiryDate.getKey());
+                            }
                         }
-
-                        String gbidToTouch = gbids.get(0);
-                        if (!gbidToParticipantIdsListMap.containsKey(gbidToTouch)) {
-                            logger.error("touch: found GBID {} for particpantId {} is unknown.",
-                                         gbidToTouch,
-                                         participantIdToTouch);
-                            continue;
+                        if (!participantIdsToTouch.isEmpty()) {
+                            gbidToParticipantIdsToTouchMap.put(entry.getKey(),
+                                                               participantIdsToTouch.toArray(new String[participantIdsToTouch.size()]));
+                            allParticipantIdsToTouch.addAll(participantIdsToTouch);
                         }
-                        List<String> participantIdsToTouch = new ArrayList<String>(gbidToParticipantIdsListMap.get(gbidToTouch));
-                        participantIdsToTouch.add(participantIdToTouch);
-                        gbidToParticipantIdsListMap.put(gbidToTouch, participantIdsToTouch);
                     }
                 }
 
-                for (Map.Entry<String, List<String>> entry : gbidToParticipantIdsListMap.entrySet()) {
-                    String gbid = entry.getKey();
-                    List<String> participantIdsToTouch = entry.getValue();
-
-                    if (participantIdsToTouch.isEmpty()) {
-                        logger.debug("touch(gbid={}) has not been called because there are no providers to touch for it.",
-                                     gbid);
-                        continue;
-                    }
-
-                    Callback<Void> callback = new Callback<Void>() {
-                        @Override
-                        public void onSuccess(Void result) {
-                            if (logger.isTraceEnabled()) {
-                                String participantIdsStr = String.join(",", participantIdsToTouch);
-                                logger.trace("touch(participantIds={}, gbid={}) succeeded.", participantIdsStr, gbid);
-                            } else {
-                                logger.debug("touch(gbid={}) succeeded.", gbid);
-                            }
-                        }
+                if (allParticipantIdsToTouch.isEmpty()) {
+                    logger.debug("touch has not been called, because there are no providers to touch");
+                    return;
+                }
+                // update globalDiscoveryEntryCache
+                globalDiscoveryEntryCache.touchDiscoveryEntries(allParticipantIdsToTouch.toArray(new String[allParticipantIdsToTouch.size()]),
+                                                                lastSeenDateMs,
+                                                                expiryDateMs);
 
-                        @Override
-                        public void onFailure(JoynrRuntimeException error) {
-                            String participantIdsStr = String.join(",", participantIdsToTouch);
-                            logger.error("touch(participantIds={}, gbid={}) failed: {}",
-                                         participantIdsStr,
-                                         gbid,
-                                         error.toString());
-                        }
-                    };
-                    globalCapabilitiesDirectoryClient.touch(callback,
-                                                            participantIdsToTouch.toArray(new String[participantIdsToTouch.size()]),
-                                                            gbid);
+                for (Map.Entry<String, String[]> entry : gbidToParticipantIdsToTouchMap.entrySet()) {
+                    touch(entry.getKey(), entry.getValue(), expiryDateMs);
                 }
             }
         };
@@ -324,6 +370,52 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                                                        TimeUnit.MILLISECONDS);
     }
 
+    private void touch(String gbid, String[] participantIdsToTouch, long expiryDateMs) {
+        final boolean touchClusterController = clusterControllerLevelFreshnessUpdate;
+        Callback<Void> callback = new Callback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                if (logger.isTraceEnabled()) {
+                    String participantIdsStr = String.join(",", participantIdsToTouch);
+                    logger.trace("touch(participantIds={}, gbid={}) succeeded.", participantIdsStr, gbid);
+                } else {
+                    logger.debug("touch(gbid={}) succeeded.", gbid);
+                }
+                synchronized (globalDiscoveryEntryCache) {
+                    Map<String, Long> participantIdToExpiryDateMap = gbidToTouchedParticipantIdExpiryDateMap.get(gbid);
+                    if (participantIdToExpiryDateMap == null) {
+                        return;
+                    }
+                    if (touchClusterController) {
+                        // all providers of the cluster controller have been touched
+                        participantIdToExpiryDateMap.replaceAll((participantId,
+                                                                 oldExpiryDateMs) -> Math.max(oldExpiryDateMs,
+                                                                                              expiryDateMs));
+                        return;
+                    }
+                    for (String participantId : participantIdsToTouch) {
+                        participantIdToExpiryDateMap.computeIfPresent(participantId,
+                                                                      (key,
+                                                                       oldExpiryDateMs) -> Math.max(oldExpiryDateMs,
+                                                                                                    expiryDateMs));
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(JoynrRuntimeException error) {
+                // the expiry dates are not updated, the providers are touched again in the next freshness update
+                String participantIdsStr = String.join(",", participantIdsToTouch);
+                logger.error("touch(participantIds={}, gbid={}) failed: {}", participantIdsStr, gbid, error.toString());
+            }
+        };
+        if (touchClusterController) {
+            globalCapabilitiesDirectoryClient.touch(callback, gbid);
+        } else {
+            globalCapabilitiesDirectoryClient.touch(callback, participantIdsToTouch, gbid);
+        }
+    }
+
     /**
      * Adds local capability to local and (depending on SCOPE) the global directory
      */
@@ -423,7 +515,11 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                 globalDiscoveryEntryCache.remove(discoveryEntry.getParticipantId());
             }
             if (discoveryEntry.getQos().getScope().equals(ProviderScope.GLOBAL)) {
+                removeTouchedParticipantId(discoveryEntry.getParticipantId());
                 mapGbidsToGlobalProviderParticipantId(discoveryEntry.getParticipantId(), gbids);
+                addTouchedParticipantId(discoveryEntry.getParticipantId(), discoveryEntry.getExpiryDateMs());
+            } else {
+                removeTouchedParticipantId(discoveryEntry.getParticipantId());
             }
             localDiscoveryEntryStore.add(discoveryEntry);
         }
@@ -515,7 +611,7 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                 globalDiscoveryEntry.getDomain(),
                                 globalDiscoveryEntry.getInterfaceName(),
                                 globalDiscoveryEntry.getProviderVersion());
-                    gcdTaskSequencer.taskFinished();
+                    gcdTaskSequencer.taskFinished(this);
                     deferred.resolve();
                 }
 
@@ -528,7 +624,7 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                     globalDiscoveryEntry.getInterfaceName(),
                                     globalDiscoveryEntry.getProviderVersion(),
                                     exception);
-                        gcdTaskSequencer.retryTask();
+                        gcdTaskSequencer.retryTask(this);
                     } else {
                         logger.error("Global provider registration failed: participantId {}, domain {}, interface {}, {}",
                                      globalDiscoveryEntry.getParticipantId(),
@@ -537,10 +633,12 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                      globalDiscoveryEntry.getProviderVersion(),
                                      exception);
                         if (awaitGlobalRegistration == true) {
-                            globalProviderParticipantIdToGbidListMap.remove(globalDiscoveryEntry.getParticipantId());
-                            localDiscoveryEntryStore.remove(globalDiscoveryEntry.getParticipantId());
+                            synchronized (globalDiscoveryEntryCache) {
+                                removeGlobalProviderParticipantId(globalDiscoveryEntry.getParticipantId());
+                                localDiscoveryEntryStore.remove(globalDiscoveryEntry.getParticipantId());
+                            }
                         }
-                        gcdTaskSequencer.taskFinished();
+                        gcdTaskSequencer.taskFinished(this);
                         deferred.reject(new ProviderRuntimeException(exception.toString()));
                     }
                 }
@@ -553,10 +651,12 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                  globalDiscoveryEntry.getInterfaceName(),
                                  globalDiscoveryEntry.getProviderVersion());
                     if (awaitGlobalRegistration == true) {
-                        globalProviderParticipantIdToGbidListMap.remove(globalDiscoveryEntry.getParticipantId());
-                        localDiscoveryEntryStore.remove(globalDiscoveryEntry.getParticipantId());
+                        synchronized (globalDiscoveryEntryCache) {
+                            removeGlobalProviderParticipantId(globalDiscoveryEntry.getParticipantId());
+                            localDiscoveryEntryStore.remove(globalDiscoveryEntry.getParticipantId());
+                        }
                     }
-                    gcdTaskSequencer.taskFinished();
+                    gcdTaskSequencer.taskFinished(this);
                     deferred.reject(errorEnum);
                 }
             };
@@ -596,11 +696,11 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                 @Override
                 public void onSuccess(Void result) {
                     synchronized (globalDiscoveryEntryCache) {
-                        globalProviderParticipantIdToGbidListMap.remove(participantId);
+                        removeGlobalProviderParticipantId(participantId);
                         localDiscoveryEntryStore.remove(participantId);
                     }
                     logger.info("Removed globally registered participantId {}", participantId);
-                    gcdTaskSequencer.taskFinished();
+                    gcdTaskSequencer.taskFinished(this);
                 }
 
                 @Override
@@ -608,10 +708,10 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                     //check for instance of JoynrTimeoutException for retrying
                     if (error instanceof JoynrTimeoutException) {
                         logger.warn("Failed to remove participantId {} due to timeout, retrying", participantId, error);
-                        gcdTaskSequencer.retryTask();
+                        gcdTaskSequencer.retryTask(this);
                     } else {
                         logger.warn("Failed to remove participantId {}: {}", participantId, error);
-                        gcdTaskSequencer.taskFinished();
+                        gcdTaskSequencer.taskFinished(this);
                     }
                 }
 
@@ -625,7 +725,7 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                     participantId,
                                     errorEnum);
                         synchronized (globalDiscoveryEntryCache) {
-                            globalProviderParticipantIdToGbidListMap.remove(participantId);
+                            removeGlobalProviderParticipantId(participantId);
                             localDiscoveryEntryStore.remove(participantId);
                         }
                         break;
@@ -636,7 +736,7 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                         // do nothing
                         logger.warn("Failed to remove participantId {}: {}", participantId, errorEnum);
                     }
-                    gcdTaskSequencer.taskFinished();
+                    gcdTaskSequencer.taskFinished(this);
                 }
             };
             GcdTask removeTask = GcdTask.createRemoveTask(callback, participantId);
@@ -773,7 +873,9 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                                                              gbids,
                                                                              domains,
                                                                              interfaceName,
-                                                                             discoveryQos.getCacheMaxAge());
+                                                                             getGlobalCacheMaxAge(domains,
+                                                                                                  interfaceName,
+                                                                                                  discoveryQos));
         switch (discoveryScope) {
         case LOCAL_ONLY:
             handleLocalOnly(capabilitiesCallback, localEntries);
@@ -836,9 +938,29 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
         }
 
         // If there still some missing domains, search in the globalCache
+        Set<GlobalDiscoveryEntry> cachedEntries = globalDiscoveryEntries;
         if (!missingDomains.isEmpty()) {
             globalEntriesAdded = true;
-            globalDiscoveryEntries.forEach((entry) -> {
+            if (cacheStaleGracePeriodMs > 0 && !containsAllDomains(cachedEntries, missingDomains)) {
+                // stale-while-revalidate: return entries exceeding the cacheMaxAge by less than the grace period
+                // immediately and refresh them in the background
+                long staleCacheMaxAge = discoveryQos.getCacheMaxAge() > Long.MAX_VALUE - cacheStaleGracePeriodMs
+                        ? Long.MAX_VALUE
+                        : discoveryQos.getCacheMaxAge() + cacheStaleGracePeriodMs;
+                Set<GlobalDiscoveryEntry> staleCachedEntries = getCachedEntriesIfRequired(discoveryQos.getDiscoveryScope(),
+                                                                                          gbids,
+                                                                                          domains,
+                                                                                          interfaceName,
+                                                                                          staleCacheMaxAge);
+                if (containsAllDomains(staleCachedEntries, missingDomains)) {
+                    logger.debug("Returning stale cached entries for domains {} and interface {}, refreshing them.",
+                                 Arrays.toString(domains),
+                                 interfaceName);
+                    cachedEntries = staleCachedEntries;
+                    refreshGlobalDiscoveryEntryCache(domains, interfaceName, discoveryQos, gbids);
+                }
+            }
+            cachedEntries.forEach((entry) -> {
                 result.add(CapabilityUtils.convertToDiscoveryEntryWithMetaInfo(false, entry));
                 missingDomains.remove(entry.getDomain());
             });
@@ -847,7 +969,7 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
         if (missingDomains.isEmpty()) {
             localDiscoveryEntries.forEach((entry) -> routingTable.incrementReferenceCount(entry.getParticipantId()));
             if (globalEntriesAdded) {
-                globalDiscoveryEntries.forEach((entry) -> addToRoutingTable(entry));
+                cachedEntries.forEach((entry) -> addToRoutingTable(entry));
             }
             capabilitiesCallback.processCapabilitiesReceived(Optional.of(result));
         } else {
@@ -855,6 +977,82 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
         }
     }
 
+    private boolean containsAllDomains(Set<GlobalDiscoveryEntry> entries, Set<String> domains) {
+        Set<String> entryDomains = new HashSet<>();
+        for (GlobalDiscoveryEntry entry : entries) {
+            entryDomains.add(entry.getDomain());
+        }
+        return entryDomains.containsAll(domains);
+    }
+
+    /**
+     * Looks up the given domains and interface at the GCD in order to update the globalDiscoveryEntryCache. Only a
+     * single lookup is performed at the same time for the same domains, interface and GBIDs.
+     */
+    private void refreshGlobalDiscoveryEntryCache(final String[] domains,
+                                                  final String interfaceName,
+                                                  DiscoveryQos discoveryQos,
+                                                  final String[] gbids) {
+        String[] sortedDomains = domains.clone();
+        Arrays.sort(sortedDomains);
+        final String refreshKey = String.join(",", sortedDomains) + "|" + interfaceName + "|"
+                + String.join(",", gbids);
+        if (!pendingCacheRefreshes.add(refreshKey)) {
+            logger.trace("Refresh of cached entries for domains {} and interface {} already pending.",
+                         Arrays.toString(domains),
+                         interfaceName);
+            return;
+        }
+        try {
+            globalCapabilitiesDirectoryClient.lookup(new CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>() {
+
+                @Override
+                public void onSuccess(List<GlobalDiscoveryEntry> globalDiscoveryEntries) {
+                    if (globalDiscoveryEntries != null) {
+                        synchronized (globalDiscoveryEntryCache) {
+                            for (GlobalDiscoveryEntry entry : globalDiscoveryEntries) {
+                                // local providers are never cached, see asyncGetGlobalCapabilities
+                                if (!localDiscoveryEntryStore.lookup(entry.getParticipantId(), Long.MAX_VALUE)
+                                                             .isPresent()) {
+                                    globalDiscoveryEntryCache.add(entry);
+                                }
+                            }
+                        }
+                    }
+                    pendingCacheRefreshes.remove(refreshKey);
+                    logger.debug("Refreshed cached entries for domains {} and interface {}.",
+                                 Arrays.toString(domains),
+                                 interfaceName);
+                }
+
+                @Override
+                public void onFailure(DiscoveryError errorEnum) {
+                    pendingCacheRefreshes.remove(refreshKey);
+                    logger.debug("Refresh of cached entries for domains {} and interface {} failed with DiscoveryError: {}",
+                                 Arrays.toString(domains),
+                                 interfaceName,
+                                 errorEnum);
+                }
+
+                @Override
+                public void onFailure(JoynrRuntimeException exception) {
+                    pendingCacheRefreshes.remove(refreshKey);
+                    logger.debug("Refresh of cached entries for domains {} and interface {} failed with exception: {}",
+                                 Arrays.toString(domains),
+                                 interfaceName,
+                                 exception);
+                }
+            }, domains, interfaceName, discoveryQos.getDiscoveryTimeout(), gbids);
+        } catch (RuntimeException e) {
+            // the callback is not called if the lookup throws synchronously
+            pendingCacheRefreshes.remove(refreshKey);
+            logger.debug("Refresh of cached entries for domains {} and interface {} failed with exception: {}",
+                         Arrays.toString(domains),
+                         interfaceName,
+                         e);
+        }
+    }
+
     private void handleLocalAndGlobal(String[] domains,
                                       String interfaceName,
                                       DiscoveryQos discoveryQos,
@@ -909,6 +1107,158 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
         }
     }
 
+    /**
+     * Entries which have been cached after the subscriptions to their changes have been established are kept up to
+     * date by the GCD, hence they are used regardless of the cacheMaxAge of the DiscoveryQos. Multicasts might get
+     * lost, e.g. while the connection to the broker is re-established, so such entries are used only up to
+     * cachePushUpdatesMaxAgeMs, older entries are looked up again.
+     */
+    private long getGlobalCacheMaxAge(String[] domains, String interfaceName, DiscoveryQos discoveryQos) {
+        long cacheMaxAge = discoveryQos.getCacheMaxAge();
+        if (!cachePushUpdates) {
+            return cacheMaxAge;
+        }
+        long subscribedSinceMs = 0;
+        for (String domain : domains) {
+            GlobalDiscoveryEntryChangedListener listener = globalDiscoveryEntryChangedListeners.get(getGlobalDiscoveryEntryChangedKey(domain,
+                                                                                                                                      interfaceName));
+            if (listener == null || listener.getSubscribedSinceMs() == 0) {
+                return cacheMaxAge;
+            }
+            subscribedSinceMs = Math.max(subscribedSinceMs, listener.getSubscribedSinceMs());
+        }
+        long pushUpdatedMaxAge = Math.min(System.currentTimeMillis() - subscribedSinceMs, cachePushUpdatesMaxAgeMs);
+        return Math.max(cacheMaxAge, pushUpdatedMaxAge);
+    }
+
+    private static String getGlobalDiscoveryEntryChangedKey(String domain, String interfaceName) {
+        return domain + "|" + interfaceName;
+    }
+
+    private void subscribeToGlobalDiscoveryEntryChanges(String[] domains, String interfaceName) {
+        for (String domain : domains) {
+            String key = getGlobalDiscoveryEntryChangedKey(domain, interfaceName);
+            GlobalDiscoveryEntryChangedListener listener = new GlobalDiscoveryEntryChangedListener(key);
+            if (globalDiscoveryEntryChangedListeners.putIfAbsent(key, listener) != null) {
+                continue;
+            }
+            try {
+                globalCapabilitiesDirectoryClient.subscribeToGlobalDiscoveryEntryChanged(listener,
+                                                                                        domain,
+                                                                                        interfaceName);
+            } catch (JoynrRuntimeException e) {
+                logger.warn("Subscription to changes of global discovery entries for domain {} and interface {} failed.",
+                            domain,
+                            interfaceName,
+                            e);
+                globalDiscoveryEntryChangedListeners.remove(key, listener);
+            }
+        }
+    }
+
+    private void handleGlobalDiscoveryEntryChanged(ChangeType typeOfChange, GlobalDiscoveryEntry globalDiscoveryEntry) {
+        String participantId = globalDiscoveryEntry.getParticipantId();
+        synchronized (globalDiscoveryEntryCache) {
+            // local providers are never cached, see asyncGetGlobalCapabilities
+            if (localDiscoveryEntryStore.lookup(participantId, Long.MAX_VALUE).isPresent()) {
+                return;
+            }
+            if (typeOfChange == ChangeType.REMOVE) {
+                globalDiscoveryEntryCache.remove(participantId);
+            } else {
+                globalDiscoveryEntryCache.add(globalDiscoveryEntry);
+            }
+        }
+        logger.debug("Applied {} of global discovery entry for participantId {} to the cache.",
+                     typeOfChange,
+                     participantId);
+        if (typeOfChange == ChangeType.REMOVE) {
+            unsubscribeFromUncachedGlobalDiscoveryEntryChanges(Arrays.asList(globalDiscoveryEntry));
+        }
+    }
+
+    /**
+     * Unsubscribes from the changes of the domains and interfaces of the given removed entries for which no entry
+     * is cached anymore. The next global lookup for them subscribes again. Subscriptions which have not been
+     * established yet are kept, they cannot be unsubscribed without a subscriptionId.
+     */
+    private void unsubscribeFromUncachedGlobalDiscoveryEntryChanges(Collection<? extends DiscoveryEntry> removedEntries) {
+        if (!cachePushUpdates || globalDiscoveryEntryChangedListeners.isEmpty()) {
+            return;
+        }
+        List<GlobalDiscoveryEntryChangedListener> unusedListeners = new ArrayList<>();
+        synchronized (globalDiscoveryEntryCache) {
+            for (DiscoveryEntry removedEntry : removedEntries) {
+                String key = getGlobalDiscoveryEntryChangedKey(removedEntry.getDomain(),
+                                                               removedEntry.getInterfaceName());
+                GlobalDiscoveryEntryChangedListener listener = globalDiscoveryEntryChangedListeners.get(key);
+                if (listener == null || listener.getSubscriptionId() == null
+                        || !globalDiscoveryEntryCache.lookup(new String[]{ removedEntry.getDomain() },
+                                                             removedEntry.getInterfaceName())
+                                                     .isEmpty()) {
+                    continue;
+                }
+                if (globalDiscoveryEntryChangedListeners.remove(key, listener)) {
+                    unusedListeners.add(listener);
+                }
+            }
+        }
+        for (GlobalDiscoveryEntryChangedListener listener : unusedListeners) {
+            logger.debug("Unsubscribing {} from changes of global discovery entries for {}, no entries are cached.",
+                         listener.getSubscriptionId(),
+                         listener.getKey());
+            try {
+                globalCapabilitiesDirectoryClient.unsubscribeFromGlobalDiscoveryEntryChanged(listener.getSubscriptionId());
+            } catch (JoynrRuntimeException e) {
+                logger.debug("Error unsubscribing from changes of global discovery entries", e);
+            }
+        }
+    }
+
+    private class GlobalDiscoveryEntryChangedListener extends GlobalDiscoveryEntryChangedBroadcastAdapter {
+        private final String key;
+        private volatile String subscriptionId;
+        // 0 until the subscription has been established
+        private volatile long subscribedSinceMs = 0;
+
+        GlobalDiscoveryEntryChangedListener(String key) {
+            this.key = key;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        String getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        long getSubscribedSinceMs() {
+            return subscribedSinceMs;
+        }
+
+        @Override
+        public void onSubscribed(String subscriptionId) {
+            this.subscriptionId = subscriptionId;
+            this.subscribedSinceMs = System.currentTimeMillis();
+        }
+
+        @Override
+        public void onError(SubscriptionException error) {
+            logger.warn("Subscription {} to changes of global discovery entries for {} failed.",
+                        subscriptionId,
+                        key,
+                        error);
+            // subscribe again with the next global lookup
+            globalDiscoveryEntryChangedListeners.remove(key, this);
+        }
+
+        @Override
+        public void onReceive(ChangeType typeOfChange, GlobalDiscoveryEntry globalDiscoveryEntry) {
+            handleGlobalDiscoveryEntryChanged(typeOfChange, globalDiscoveryEntry);
+        }
+    }
+
     private Set<GlobalDiscoveryEntry> getCachedEntriesIfRequired(DiscoveryScope discoveryScope,
                                                                  String[] gbids,
                                                                  String[] domains,
@@ -1230,6 +1580,9 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                         }
                     }
                     capabilitiesCallback.processCapabilitiesReceived(Optional.of(allDiscoveryEntries));
+                    if (cachePushUpdates) {
+                        subscribeToGlobalDiscoveryEntryChanges(domains, interfaceName);
+                    }
                 } else {
                     capabilitiesCallback.onError(new NullPointerException("Received capabilities are null"));
                 }
@@ -1268,6 +1621,17 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
             reAddAllGlobalEntriesScheduledFuture.cancel(false);
         }
 
+        for (GlobalDiscoveryEntryChangedListener listener : globalDiscoveryEntryChangedListeners.values()) {
+            if (listener.getSubscriptionId() != null) {
+                try {
+                    globalCapabilitiesDirectoryClient.unsubscribeFromGlobalDiscoveryEntryChanged(listener.getSubscriptionId());
+                } catch (JoynrRuntimeException e) {
+                    logger.debug("Error unsubscribing from changes of global discovery entries", e);
+                }
+            }
+        }
+        globalDiscoveryEntryChangedListeners.clear();
+
         if (unregisterAllRegisteredCapabilities) {
             Set<DiscoveryEntry> allDiscoveryEntries = localDiscoveryEntryStore.getAllDiscoveryEntries();
 
@@ -1378,137 +1742,211 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                                                                              TimeUnit.DAYS);
     }
 
+    /**
+     * Performs the global add, remove and re-add operations. Up to maxInFlightTasks add and remove operations are
+     * in flight at the same time, operations for the same participantId are performed in the order in which they
+     * have been added. A re-add is performed only when no other operation is in flight.
+     */
     public class GcdTaskSequencer implements Runnable {
 
         private Logger logger = LoggerFactory.getLogger(GcdTaskSequencer.class);
         private volatile boolean isStopped = false;
-        private volatile GcdTask task;
-        private final ConcurrentLinkedQueue<GcdTask> taskQueue;
-        private Semaphore queueSemaphore;
-        private Semaphore workerSemaphore;
+        private volatile int maxInFlightTasks = DEFAULT_MAX_IN_FLIGHT_GCD_TASKS;
+        private volatile int maxAddBatchSize = DEFAULT_MAX_GLOBAL_ADD_BATCH_SIZE;
+        // the following members are protected by the monitor of the GcdTaskSequencer
+        private final LinkedList<GcdTask> taskQueue;
+        private final List<GcdTask> inFlightTasks;
+        private final LinkedList<GcdTask> tasksToRetry;
 
         public GcdTaskSequencer() {
-            workerSemaphore = new Semaphore(1);
-            queueSemaphore = new Semaphore(0);
-            taskQueue = new ConcurrentLinkedQueue<>();
+            taskQueue = new LinkedList<>();
+            inFlightTasks = new ArrayList<>();
+            tasksToRetry = new LinkedList<>();
+        }
+
+        public synchronized void setMaxInFlightTasks(int maxInFlightTasks) {
+            this.maxInFlightTasks = Math.max(1, maxInFlightTasks);
+            notifyAll();
         }
 
-        public void stop() {
+        public void setMaxAddBatchSize(int maxAddBatchSize) {
+            this.maxAddBatchSize = Math.max(1, maxAddBatchSize);
+        }
+
+        public synchronized void stop() {
             isStopped = true;
             taskQueue.clear();
-            queueSemaphore.release();
-            workerSemaphore.release();
+            tasksToRetry.clear();
+            notifyAll();
         }
 
-        public void addTask(GcdTask task) {
+        public synchronized void addTask(GcdTask task) {
             taskQueue.add(task);
-            queueSemaphore.release();
+            notifyAll();
         }
 
-        public void retryTask() {
-            workerSemaphore.release();
+        /**
+         * Performs the in-flight task with the given callback again.
+         */
+        public synchronized void retryTask(CallbackWithModeledError<Void, DiscoveryError> callback) {
+            GcdTask task = getInFlightTask(callback);
+            if (task != null) {
+                tasksToRetry.add(task);
+                notifyAll();
+            }
         }
 
-        public void taskFinished() {
-            task = null;
-            workerSemaphore.release();
+        /**
+         * Marks the in-flight task with the given callback as finished. Calls for tasks which are not in flight,
+         * e.g. because they expired while waiting in the queue, are ignored.
+         */
+        public synchronized void taskFinished(CallbackWithModeledError<Void, DiscoveryError> callback) {
+            GcdTask task = getInFlightTask(callback);
+            if (task != null) {
+                inFlightTasks.remove(task);
+                notifyAll();
+            }
         }
 
-        private long removeExpiredAndGetNextWaitTime() {
+        private GcdTask getInFlightTask(CallbackWithModeledError<Void, DiscoveryError> callback) {
+            for (GcdTask task : inFlightTasks) {
+                if (task.callback == callback) {
+                    return task;
+                }
+            }
+            return null;
+        }
+
+        // requires the monitor of the GcdTaskSequencer
+        private long removeExpiredAndGetNextWaitTime(List<GcdTask> expiredTasks) {
             long timeTillNextExpiration = defaultTtlAddAndRemove;
-            while (true) {
-                GcdTask expiredTask = null;
-                boolean foundExpiredEntry = false;
-                for (GcdTask task : taskQueue) {
-                    if (task.mode == GcdTask.MODE.ADD) {
-                        timeTillNextExpiration = task.expiryDateMs - System.currentTimeMillis();
-                        if ((task.expiryDateMs) <= System.currentTimeMillis()) {
-                            expiredTask = task;
-                            foundExpiredEntry = true;
-                            break;
-                        }
-                        if (timeTillNextExpiration > defaultExpiryTimeMs) {
-                            timeTillNextExpiration = defaultExpiryTimeMs;
-                        }
-                        break;
+            long now = System.currentTimeMillis();
+            Iterator<GcdTask> iterator = taskQueue.iterator();
+            while (iterator.hasNext()) {
+                GcdTask task = iterator.next();
+                if (task.mode != GcdTask.MODE.ADD) {
+                    continue;
+                }
+                if (task.expiryDateMs <= now) {
+                    iterator.remove();
+                    expiredTasks.add(task);
+                } else {
+                    timeTillNextExpiration = Math.min(timeTillNextExpiration, task.expiryDateMs - now);
+                }
+            }
+            return timeTillNextExpiration;
+        }
+
+        // requires the monitor of the GcdTaskSequencer
+        private List<GcdTask> pollNextTasks() {
+            List<GcdTask> nextTasks = new ArrayList<>();
+            if (!tasksToRetry.isEmpty()) {
+                nextTasks.add(tasksToRetry.poll());
+                return nextTasks;
+            }
+            if (inFlightTasks.size() >= maxInFlightTasks) {
+                return nextTasks;
+            }
+            Set<String> busyParticipantIds = new HashSet<>();
+            for (GcdTask task : inFlightTasks) {
+                busyParticipantIds.add(task.participantId);
+            }
+            Iterator<GcdTask> iterator = taskQueue.iterator();
+            while (iterator.hasNext()) {
+                GcdTask task = iterator.next();
+                if (task.mode == GcdTask.MODE.READD) {
+                    // the re-add covers all participantIds, it must not overtake or run in parallel to other tasks
+                    if (nextTasks.isEmpty() && inFlightTasks.isEmpty()) {
+                        iterator.remove();
+                        nextTasks.add(task);
                     }
+                    break;
                 }
-                if (foundExpiredEntry) {
-                    queueSemaphore.acquireUninterruptibly();
-                    expiredTask.callback.onFailure(new JoynrRuntimeException("Failed to process global registration in time, please try again"));
-                    workerSemaphore.acquireUninterruptibly();
-                    taskQueue.remove(expiredTask);
+                if (!busyParticipantIds.add(task.participantId)) {
                     continue;
                 }
-                break;
+                if (nextTasks.isEmpty() || canBeAddedInBatch(nextTasks.get(0), task)) {
+                    iterator.remove();
+                    inFlightTasks.add(task);
+                    nextTasks.add(task);
+                    if (nextTasks.size() >= maxAddBatchSize || !canBeAddedInBatch(task, task)) {
+                        break;
+                    }
+                }
             }
-            return timeTillNextExpiration;
+            return nextTasks;
+        }
+
+        // The GCD registers the entries of a batch add in its own GBID, which is assumed to be the GBID of the
+        // default backend. Registrations for other GBIDs are therefore never batched.
+        private boolean canBeAddedInBatch(GcdTask firstTask, GcdTask task) {
+            return task.mode == GcdTask.MODE.ADD && task.gbids != null && task.gbids.length == 1
+                    && knownGbids[0].equals(task.gbids[0]) && firstTask.gbids[0].equals(task.gbids[0]);
         }
 
         @Override
         public void run() {
             while (!isStopped) {
-                long timeTillNextExpiration = removeExpiredAndGetNextWaitTime();
-
-                try {
-                    if (!workerSemaphore.tryAcquire(timeTillNextExpiration, TimeUnit.MILLISECONDS)) {
+                List<GcdTask> expiredTasks = new ArrayList<>();
+                List<GcdTask> tasks;
+                synchronized (this) {
+                    long timeTillNextExpiration = removeExpiredAndGetNextWaitTime(expiredTasks);
+                    tasks = pollNextTasks();
+                    if (tasks.isEmpty() && expiredTasks.isEmpty()) {
+                        try {
+                            wait(timeTillNextExpiration);
+                        } catch (InterruptedException e) {
+                            logger.error("Waiting for the next task interrupted", e);
+                        }
                         continue;
                     }
-                } catch (InterruptedException e) {
-                    logger.error("workerSemaphore.acquire() interrupted", e);
+                }
+
+                for (GcdTask expiredTask : expiredTasks) {
+                    expiredTask.callback.onFailure(new JoynrRuntimeException("Failed to process global registration in time, please try again"));
+                }
+                if (tasks.isEmpty()) {
                     continue;
                 }
                 if (isStopped) {
                     break;
                 }
 
-                if (task == null) {
-                    // get new task, else: retry previous task
-                    try {
-                        queueSemaphore.acquire();
-                    } catch (InterruptedException e) {
-                        logger.error("queueSemaphore.acquire() interrupted", e);
-                        workerSemaphore.release();
-                        continue;
-                    }
-                    if (isStopped) {
-                        break;
-                    }
-                    task = taskQueue.poll();
-                    if (task == null) {
-                        logger.debug("Retrieved addRemoveQueueEntry is null. Skipping and continuing.");
-                        workerSemaphore.release();
-                        continue;
-                    }
+                if (tasks.size() > 1) {
+                    performAddBatch(tasks);
+                } else {
+                    performTask(tasks.get(0));
                 }
+            }
+        }
 
-                switch (task.mode) {
-                case ADD:
-                    if (task.doRetry) {
-                        performAdd(defaultTtlAddAndRemove);
-                        break;
-                    }
-                    long remainingTtl = task.expiryDateMs - System.currentTimeMillis();
-                    if (task.expiryDateMs < System.currentTimeMillis()) {
-                        task.callback.onFailure(new JoynrRuntimeException("Failed to process global registration in time, please try again"));
-                        continue;
-                    }
-                    performAdd(remainingTtl);
-                    break;
-                case READD:
-                    performReAdd();
+        private void performTask(GcdTask task) {
+            switch (task.mode) {
+            case ADD:
+                if (task.doRetry) {
+                    performAdd(task, defaultTtlAddAndRemove);
                     break;
-                case REMOVE:
-                    performRemove();
+                }
+                long remainingTtl = task.expiryDateMs - System.currentTimeMillis();
+                if (task.expiryDateMs < System.currentTimeMillis()) {
+                    task.callback.onFailure(new JoynrRuntimeException("Failed to process global registration in time, please try again"));
                     break;
-                default:
-                    logger.error("Unknown operation in GlobalAddRemoveQueue.");
-                    taskFinished();
                 }
+                performAdd(task, remainingTtl);
+                break;
+            case READD:
+                performReAdd();
+                break;
+            case REMOVE:
+                performRemove(task);
+                break;
+            default:
+                logger.error("Unknown operation in GlobalAddRemoveQueue.");
+                taskFinished(task.callback);
             }
         }
 
-        private void performAdd(long ttlMs) {
+        private void performAdd(GcdTask task, long ttlMs) {
             logger.debug("Global provider registration started: participantId {}, domain {}, interface {}, {}",
                          task.globalDiscoveryEntry.getParticipantId(),
                          task.globalDiscoveryEntry.getDomain(),
@@ -1526,6 +1964,50 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
             }
         }
 
+        /**
+         * Registers several providers for the same single GBID with one call to the GCD. If the call fails, the
+         * providers are registered one by one so that every add task gets its own error handling and retries.
+         */
+        private void performAddBatch(List<GcdTask> tasks) {
+            String gbid = tasks.get(0).gbids[0];
+            GlobalDiscoveryEntry[] globalDiscoveryEntries = new GlobalDiscoveryEntry[tasks.size()];
+            long ttlMs = defaultTtlAddAndRemove;
+            for (int i = 0; i < tasks.size(); i++) {
+                GcdTask task = tasks.get(i);
+                globalDiscoveryEntries[i] = task.globalDiscoveryEntry;
+                if (!task.doRetry) {
+                    ttlMs = Math.min(ttlMs, task.expiryDateMs - System.currentTimeMillis());
+                }
+            }
+            logger.debug("Global provider registration of {} providers for GBID {} started.", tasks.size(), gbid);
+
+            Callback<Void> callback = new Callback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    for (GcdTask task : tasks) {
+                        task.callback.onSuccess(null);
+                    }
+                }
+
+                @Override
+                public void onFailure(JoynrRuntimeException error) {
+                    logger.warn("Global provider registration of {} providers for GBID {} failed, registering them one by one.",
+                                tasks.size(),
+                                gbid,
+                                error);
+                    synchronized (GcdTaskSequencer.this) {
+                        tasksToRetry.addAll(tasks);
+                        GcdTaskSequencer.this.notifyAll();
+                    }
+                }
+            };
+            try {
+                globalCapabilitiesDirectoryClient.add(callback, globalDiscoveryEntries, Math.max(1, ttlMs), gbid);
+            } catch (Exception exception) {
+                callback.onFailure(new JoynrRuntimeException("Global registration failed: " + exception.toString()));
+            }
+        }
+
         private void performReAdd() {
             logger.info("Re-Add started.");
             Set<DiscoveryEntry> discoveryEntries;
@@ -1535,7 +2017,6 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
 
             if (discoveryEntries == null || discoveryEntries.isEmpty()) {
                 logger.debug("Re-Add: no globally registered providers found.");
-                taskFinished();
                 return;
             }
 
@@ -1607,10 +2088,9 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
             } catch (InterruptedException e) {
                 logger.error("Re-Add: interrupted while waiting for completion.", e);
             }
-            taskFinished();
         }
 
-        private void performRemove() {
+        private void performRemove(GcdTask task) {
             synchronized (globalDiscoveryEntryCache) {
                 if (globalProviderParticipantIdToGbidListMap.containsKey(task.participantId)) {
                     List<String> gbidsToRemove = globalProviderParticipantIdToGbidListMap.get(task.participantId);
@@ -1631,7 +2111,7 @@ public class LocalCapabilitiesDirectoryImpl extends AbstractLocalCapabilitiesDir
                     }
                 } else {
                     logger.warn("Participant {} is not registered globally and cannot be removed!", task.participantId);
-                    taskFinished();
+                    taskFinished(task.callback);
                 }
             }
         }
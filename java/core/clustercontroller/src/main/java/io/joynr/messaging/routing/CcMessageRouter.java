@@ -128,8 +128,14 @@ public class CcMessageRouter extends AbstractMessageRouter {
     protected ImmutableMessage createReplyMessageWithError(ImmutableMessage requestMessage,
                                                            JoynrRuntimeException error) {
         try {
-            String deserializedPayload = new String(requestMessage.getUnencryptedBody(), StandardCharsets.UTF_8);
-            final Request request = objectMapper.readValue(deserializedPayload, Request.class);
+            final Request request;
+            if (requestMessage.getPayloadObject() instanceof Request) {
+                // the request has been passed by reference, its serialized payload is empty
+                request = (Request) requestMessage.getPayloadObject();
+            } else {
+                String deserializedPayload = new String(requestMessage.getUnencryptedBody(), StandardCharsets.UTF_8);
+                request = objectMapper.readValue(deserializedPayload, Request.class);
+            }
             String requestReplyId = request.getRequestReplyId();
 
             MutableMessage replyMessage = new MutableMessage();
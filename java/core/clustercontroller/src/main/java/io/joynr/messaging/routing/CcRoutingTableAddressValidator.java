@@ -35,6 +35,7 @@ import io.joynr.runtime.GlobalAddressProvider;
 import io.joynr.runtime.ReplyToAddressProvider;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
+import joynr.system.RoutingTypes.ShmAddress;
 import joynr.system.RoutingTypes.UdsAddress;
 import joynr.system.RoutingTypes.UdsClientAddress;
 import joynr.system.RoutingTypes.WebSocketAddress;
@@ -106,15 +107,17 @@ public class CcRoutingTableAddressValidator implements RoutingTableAddressValida
 
     @Override
     public boolean allowUpdate(final RoutingEntry oldEntry, final RoutingEntry newEntry) {
-        // precedence: InProcessAddress > WebSocketClientAddress/UdsClientAddress > MqttAddress > WebSocketAddress/UdsAddress
+        // precedence: InProcessAddress > WebSocketClientAddress/UdsClientAddress/ShmAddress > MqttAddress > WebSocketAddress/UdsAddress
         if (newEntry.address instanceof InProcessAddress) {
             return true;
         }
         if (!(oldEntry.getAddress() instanceof InProcessAddress)) {
-            if (newEntry.address instanceof WebSocketClientAddress || newEntry.address instanceof UdsClientAddress) {
+            if (newEntry.address instanceof WebSocketClientAddress || newEntry.address instanceof UdsClientAddress
+                    || newEntry.address instanceof ShmAddress) {
                 return true;
             } else if (!(oldEntry.getAddress() instanceof WebSocketClientAddress)
-                    && !(oldEntry.getAddress() instanceof UdsClientAddress)) {
+                    && !(oldEntry.getAddress() instanceof UdsClientAddress)
+                    && !(oldEntry.getAddress() instanceof ShmAddress)) {
                 // old address is MqttAddress or WebSocketAddress or UdsAddress
                 if (newEntry.address instanceof MqttAddress) {
                     return true;
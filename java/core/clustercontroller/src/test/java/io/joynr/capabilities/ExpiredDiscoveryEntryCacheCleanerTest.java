@@ -19,9 +19,12 @@
 package io.joynr.capabilities;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.longThat;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,6 +38,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
@@ -83,35 +87,51 @@ public class ExpiredDiscoveryEntryCacheCleanerTest {
 
     @Test
     public void testScheduleCacheForCleanup() {
+        when(cache.getNextExpiryDateMs(anyLong())).thenReturn(Long.MAX_VALUE);
         subject.scheduleCleanUpForCaches(cleanupAction, cache);
-        verify(scheduledExecutorService).scheduleAtFixedRate(any(Runnable.class), eq(1L), eq(1L), eq(TimeUnit.MINUTES));
+        verify(scheduledExecutorService).schedule(any(Runnable.class),
+                                                  eq(TimeUnit.MINUTES.toMillis(1)),
+                                                  eq(TimeUnit.MILLISECONDS));
     }
 
     @Test
-    public void testExpiredEntriesCleanedUp() {
-        Set<DiscoveryEntry> allEntries = new HashSet<>();
-
-        DiscoveryEntry liveEntry = mock(DiscoveryEntry.class);
-        when(liveEntry.getExpiryDateMs()).thenReturn(System.currentTimeMillis() + 1000L);
-        allEntries.add(liveEntry);
+    public void testCleanupScheduledForNextExpiryDate() {
+        when(cache.getNextExpiryDateMs(anyLong())).thenReturn(System.currentTimeMillis() + 10000L);
+        subject.scheduleCleanUpForCaches(cleanupAction, cache);
+        verify(scheduledExecutorService).schedule(any(Runnable.class),
+                                                  longThat(new ArgumentMatcher<Long>() {
+                                                      @Override
+                                                      public boolean matches(Object argument) {
+                                                          long delayMs = (Long) argument;
+                                                          return delayMs > 9000L && delayMs <= 10001L;
+                                                      }
+                                                  }),
+                                                  eq(TimeUnit.MILLISECONDS));
+    }
 
+    @Test
+    public void testExpiredEntriesCleanedUp() {
         final String expiredParticipantId = "expiredParticipantId";
         DiscoveryEntry expiredEntry = mock(DiscoveryEntry.class);
         when(expiredEntry.getExpiryDateMs()).thenReturn(System.currentTimeMillis() - 1000L);
         when(expiredEntry.getParticipantId()).thenReturn(expiredParticipantId);
-        allEntries.add(expiredEntry);
+        Set<DiscoveryEntry> expiredEntries = new HashSet<>(Arrays.asList(expiredEntry));
 
-        when(cache.getAllDiscoveryEntries()).thenReturn(allEntries);
+        when(cache.getExpiredDiscoveryEntries(anyLong())).thenReturn(expiredEntries);
+        when(cache.getNextExpiryDateMs(anyLong())).thenReturn(Long.MAX_VALUE);
 
         subject.scheduleCleanUpForCaches(cleanupAction, cache);
 
-        verify(scheduledExecutorService).scheduleAtFixedRate(runnableArgumentCaptor.capture(),
-                                                             eq(1L),
-                                                             eq(1L),
-                                                             eq(TimeUnit.MINUTES));
+        verify(scheduledExecutorService).schedule(runnableArgumentCaptor.capture(),
+                                                  eq(TimeUnit.MINUTES.toMillis(1)),
+                                                  eq(TimeUnit.MILLISECONDS));
         Runnable cleanupTask = runnableArgumentCaptor.getValue();
         cleanupTask.run();
-        verify(cache).getAllDiscoveryEntries();
+        verify(cache).getExpiredDiscoveryEntries(anyLong());
         verify(cleanupAction).cleanup(new HashSet<DiscoveryEntry>(Arrays.asList(expiredEntry)));
+        // the next cleanup is scheduled after the current one
+        verify(scheduledExecutorService, times(2)).schedule(any(Runnable.class),
+                                                            eq(TimeUnit.MINUTES.toMillis(1)),
+                                                            eq(TimeUnit.MILLISECONDS));
     }
 }
@@ -32,6 +32,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -96,6 +97,7 @@ import io.joynr.util.ObjectMapper;
 import joynr.exceptions.ApplicationException;
 import joynr.exceptions.ProviderRuntimeException;
 import joynr.infrastructure.GlobalCapabilitiesDirectory;
+import joynr.infrastructure.GlobalCapabilitiesDirectoryBroadcastInterface.GlobalDiscoveryEntryChangedBroadcastListener;
 import joynr.system.DiscoveryProvider.Add1Deferred;
 import joynr.system.DiscoveryProvider.AddToAllDeferred;
 import joynr.system.DiscoveryProvider.Lookup1Deferred;
@@ -104,6 +106,7 @@ import joynr.system.DiscoveryProvider.Lookup3Deferred;
 import joynr.system.DiscoveryProvider.Lookup4Deferred;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.MqttAddress;
+import joynr.types.ChangeType;
 import joynr.types.CustomParameter;
 import joynr.types.DiscoveryEntry;
 import joynr.types.DiscoveryEntryWithMetaInfo;
@@ -772,8 +775,14 @@ public class LocalCapabilitiesDirectoryTest {
         checkPromiseSuccess(promise, "add failed");
     }
 
+    private void performGcdTasksSequentially() {
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setMaxInFlightGcdTasks(1);
+    }
+
     private void globalAddUsesCorrectRemainingTtl(boolean awaitGlobalRegistration) throws InterruptedException {
         int defaultTtl = MessagingQos.DEFAULT_TTL;
+        // the second add has to wait for the first one
+        performGcdTasksSequentially();
 
         DiscoveryEntry discoveryEntry1 = new DiscoveryEntry(discoveryEntry);
         discoveryEntry1.setParticipantId("participantId1");
@@ -2762,6 +2771,274 @@ public class LocalCapabilitiesDirectoryTest {
                                            anyLong());
     }
 
+    @Test(timeout = TEST_TIMEOUT)
+    public void lookup_localThenGlobal_staleCachedEntryWithinGracePeriod_returnsCachedEntryAndRefreshesOnce() throws InterruptedException {
+        final long gracePeriodMs = 60000L;
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCacheStaleGracePeriodMs(gracePeriodMs);
+        String[] domains = new String[]{ "domain1" };
+        String interfaceName = "interface1";
+        DiscoveryQos discoveryQos = new DiscoveryQos();
+        discoveryQos.setDiscoveryScope(DiscoveryScope.LOCAL_THEN_GLOBAL);
+        discoveryQos.setCacheMaxAge(ONE_DAY_IN_MS);
+
+        GlobalDiscoveryEntry globalEntry = new GlobalDiscoveryEntry();
+        globalEntry.setParticipantId("participantIdCached");
+        globalEntry.setInterfaceName(interfaceName);
+        globalEntry.setDomain(domains[0]);
+        globalEntry.setAddress(globalAddress1Serialized);
+        doReturn(new ArrayList<GlobalDiscoveryEntry>()).when(globalDiscoveryEntryCacheMock)
+                                                       .lookup(eq(domains),
+                                                               eq(interfaceName),
+                                                               eq(discoveryQos.getCacheMaxAge()));
+        doReturn(Arrays.asList(globalEntry)).when(globalDiscoveryEntryCacheMock)
+                                            .lookup(eq(domains),
+                                                    eq(interfaceName),
+                                                    eq(discoveryQos.getCacheMaxAge() + gracePeriodMs));
+
+        Promise<Lookup1Deferred> promise1 = localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos);
+        Promise<Lookup1Deferred> promise2 = localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos);
+
+        for (Promise<Lookup1Deferred> promise : Arrays.asList(promise1, promise2)) {
+            Object[] values = checkPromiseSuccess(promise, "lookup failed");
+            DiscoveryEntryWithMetaInfo[] captured = (DiscoveryEntryWithMetaInfo[]) values[0];
+            assertEquals(1, captured.length);
+            assertEquals(globalEntry.getParticipantId(), captured[0].getParticipantId());
+        }
+        // the refresh of the first lookup is still pending
+        verify(globalCapabilitiesDirectoryClient, times(1)).lookup(Matchers.<CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>> any(),
+                                                                   eq(domains),
+                                                                   eq(interfaceName),
+                                                                   eq(discoveryQos.getDiscoveryTimeout()),
+                                                                   eq(knownGbids));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void lookup_localThenGlobal_staleCachedEntry_refreshThrows_nextLookupRefreshesAgain() throws InterruptedException {
+        final long gracePeriodMs = 60000L;
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCacheStaleGracePeriodMs(gracePeriodMs);
+        String[] domains = new String[]{ "domain1" };
+        String interfaceName = "interface1";
+        DiscoveryQos discoveryQos = new DiscoveryQos();
+        discoveryQos.setDiscoveryScope(DiscoveryScope.LOCAL_THEN_GLOBAL);
+        discoveryQos.setCacheMaxAge(ONE_DAY_IN_MS);
+
+        GlobalDiscoveryEntry globalEntry = new GlobalDiscoveryEntry();
+        globalEntry.setParticipantId("participantIdCached");
+        globalEntry.setInterfaceName(interfaceName);
+        globalEntry.setDomain(domains[0]);
+        globalEntry.setAddress(globalAddress1Serialized);
+        doReturn(new ArrayList<GlobalDiscoveryEntry>()).when(globalDiscoveryEntryCacheMock)
+                                                       .lookup(eq(domains),
+                                                               eq(interfaceName),
+                                                               eq(discoveryQos.getCacheMaxAge()));
+        doReturn(Arrays.asList(globalEntry)).when(globalDiscoveryEntryCacheMock)
+                                            .lookup(eq(domains),
+                                                    eq(interfaceName),
+                                                    eq(discoveryQos.getCacheMaxAge() + gracePeriodMs));
+        doThrow(new JoynrRuntimeException("lookup failed")).when(globalCapabilitiesDirectoryClient)
+                                                           .lookup(Matchers.<CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>> any(),
+                                                                   eq(domains),
+                                                                   eq(interfaceName),
+                                                                   eq(discoveryQos.getDiscoveryTimeout()),
+                                                                   eq(knownGbids));
+
+        Promise<Lookup1Deferred> promise1 = localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos);
+        Promise<Lookup1Deferred> promise2 = localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos);
+
+        for (Promise<Lookup1Deferred> promise : Arrays.asList(promise1, promise2)) {
+            Object[] values = checkPromiseSuccess(promise, "lookup failed");
+            DiscoveryEntryWithMetaInfo[] captured = (DiscoveryEntryWithMetaInfo[]) values[0];
+            assertEquals(1, captured.length);
+            assertEquals(globalEntry.getParticipantId(), captured[0].getParticipantId());
+        }
+        // the failed refresh of the first lookup is no longer pending
+        verify(globalCapabilitiesDirectoryClient, times(2)).lookup(Matchers.<CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>> any(),
+                                                                   eq(domains),
+                                                                   eq(interfaceName),
+                                                                   eq(discoveryQos.getDiscoveryTimeout()),
+                                                                   eq(knownGbids));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void lookup_cachePushUpdates_subscribesOnceAndUpdatesCacheInPlace() throws InterruptedException {
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCachePushUpdates(true);
+        String[] domains = new String[]{ "domain1" };
+        String interfaceName = "interface1";
+        DiscoveryQos discoveryQos = new DiscoveryQos(30000L, 1000L, DiscoveryScope.GLOBAL_ONLY, false);
+
+        GlobalDiscoveryEntry globalEntry = new GlobalDiscoveryEntry();
+        globalEntry.setParticipantId("participantIdGlobal");
+        globalEntry.setInterfaceName(interfaceName);
+        globalEntry.setDomain(domains[0]);
+        globalEntry.setLastSeenDateMs(System.currentTimeMillis());
+        globalEntry.setAddress(globalAddress1Serialized);
+        doReturn(new ArrayList<GlobalDiscoveryEntry>()).when(globalDiscoveryEntryCacheMock)
+                                                       .lookup(eq(domains), eq(interfaceName), anyLong());
+        doAnswer(createLookupAnswer(Arrays.asList(globalEntry))).when(globalCapabilitiesDirectoryClient)
+                                                                .lookup(Matchers.<CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>> any(),
+                                                                        eq(domains),
+                                                                        eq(interfaceName),
+                                                                        eq(discoveryQos.getDiscoveryTimeout()),
+                                                                        eq(knownGbids));
+
+        checkPromiseSuccess(localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos), "lookup failed");
+        checkPromiseSuccess(localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos), "lookup failed");
+
+        ArgumentCaptor<GlobalDiscoveryEntryChangedBroadcastListener> listenerCaptor = ArgumentCaptor.forClass(GlobalDiscoveryEntryChangedBroadcastListener.class);
+        verify(globalCapabilitiesDirectoryClient, times(1)).subscribeToGlobalDiscoveryEntryChanged(listenerCaptor.capture(),
+                                                                                                   eq(domains[0]),
+                                                                                                   eq(interfaceName));
+        GlobalDiscoveryEntryChangedBroadcastListener listener = listenerCaptor.getValue();
+        listener.onSubscribed("subscriptionId");
+
+        GlobalDiscoveryEntry updatedEntry = new GlobalDiscoveryEntry(globalEntry);
+        updatedEntry.setLastSeenDateMs(globalEntry.getLastSeenDateMs() + 1);
+        listener.onReceive(ChangeType.ADD, updatedEntry);
+        verify(globalDiscoveryEntryCacheMock).add(eq(updatedEntry));
+
+        listener.onReceive(ChangeType.REMOVE, updatedEntry);
+        verify(globalDiscoveryEntryCacheMock).remove(eq(globalEntry.getParticipantId()));
+
+        localCapabilitiesDirectory.shutdown(false);
+        verify(globalCapabilitiesDirectoryClient).unsubscribeFromGlobalDiscoveryEntryChanged(eq("subscriptionId"));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void lookup_cachePushUpdates_cacheMaxAgeIsLimitedByPushUpdatesMaxAge() throws InterruptedException {
+        final long cachePushUpdatesMaxAgeMs = 5;
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCachePushUpdates(true);
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCachePushUpdatesMaxAgeMs(cachePushUpdatesMaxAgeMs);
+        String[] domains = new String[]{ "domain1" };
+        String interfaceName = "interface1";
+        DiscoveryQos discoveryQos = new DiscoveryQos(30000L, 1000L, DiscoveryScope.GLOBAL_ONLY, false);
+        discoveryQos.setCacheMaxAge(0L);
+
+        doReturn(new ArrayList<GlobalDiscoveryEntry>()).when(globalDiscoveryEntryCacheMock)
+                                                       .lookup(eq(domains), eq(interfaceName), anyLong());
+        doAnswer(createLookupAnswer(new ArrayList<GlobalDiscoveryEntry>())).when(globalCapabilitiesDirectoryClient)
+                                                                           .lookup(Matchers.<CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>> any(),
+                                                                                   eq(domains),
+                                                                                   eq(interfaceName),
+                                                                                   eq(discoveryQos.getDiscoveryTimeout()),
+                                                                                   eq(knownGbids));
+        checkPromiseSuccess(localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos), "lookup failed");
+
+        ArgumentCaptor<GlobalDiscoveryEntryChangedBroadcastListener> listenerCaptor = ArgumentCaptor.forClass(GlobalDiscoveryEntryChangedBroadcastListener.class);
+        verify(globalCapabilitiesDirectoryClient).subscribeToGlobalDiscoveryEntryChanged(listenerCaptor.capture(),
+                                                                                         eq(domains[0]),
+                                                                                         eq(interfaceName));
+        listenerCaptor.getValue().onSubscribed("subscriptionId");
+        Thread.sleep(4 * cachePushUpdatesMaxAgeMs);
+
+        checkPromiseSuccess(localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos), "lookup failed");
+        verify(globalDiscoveryEntryCacheMock).lookup(eq(domains), eq(interfaceName), eq(cachePushUpdatesMaxAgeMs));
+    }
+
+    private GlobalDiscoveryEntryChangedBroadcastListener lookupAndCaptureGlobalDiscoveryEntryChangedListener(String[] domains,
+                                                                                                           String interfaceName,
+                                                                                                           GlobalDiscoveryEntry globalEntry) throws InterruptedException {
+        DiscoveryQos discoveryQos = new DiscoveryQos(30000L, 1000L, DiscoveryScope.GLOBAL_ONLY, false);
+        doReturn(new ArrayList<GlobalDiscoveryEntry>()).when(globalDiscoveryEntryCacheMock)
+                                                       .lookup(eq(domains), eq(interfaceName), anyLong());
+        doAnswer(createLookupAnswer(Arrays.asList(globalEntry))).when(globalCapabilitiesDirectoryClient)
+                                                                .lookup(Matchers.<CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>> any(),
+                                                                        eq(domains),
+                                                                        eq(interfaceName),
+                                                                        eq(discoveryQos.getDiscoveryTimeout()),
+                                                                        eq(knownGbids));
+        checkPromiseSuccess(localCapabilitiesDirectory.lookup(domains, interfaceName, discoveryQos), "lookup failed");
+
+        ArgumentCaptor<GlobalDiscoveryEntryChangedBroadcastListener> listenerCaptor = ArgumentCaptor.forClass(GlobalDiscoveryEntryChangedBroadcastListener.class);
+        verify(globalCapabilitiesDirectoryClient, atLeast(1)).subscribeToGlobalDiscoveryEntryChanged(listenerCaptor.capture(),
+                                                                                                        eq(domains[0]),
+                                                                                                        eq(interfaceName));
+        return listenerCaptor.getValue();
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void globalDiscoveryEntryChanged_removeOfLastCachedEntry_unsubscribesAndLookupSubscribesAgain() throws InterruptedException {
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCachePushUpdates(true);
+        String[] domains = new String[]{ "domain1" };
+        String interfaceName = "interface1";
+        GlobalDiscoveryEntry globalEntry = new GlobalDiscoveryEntry();
+        globalEntry.setParticipantId("participantIdGlobal");
+        globalEntry.setInterfaceName(interfaceName);
+        globalEntry.setDomain(domains[0]);
+        globalEntry.setLastSeenDateMs(System.currentTimeMillis());
+        globalEntry.setAddress(globalAddress1Serialized);
+        GlobalDiscoveryEntryChangedBroadcastListener listener = lookupAndCaptureGlobalDiscoveryEntryChangedListener(domains,
+                                                                                                                    interfaceName,
+                                                                                                                    globalEntry);
+        listener.onSubscribed("subscriptionId");
+        doReturn(new ArrayList<GlobalDiscoveryEntry>()).when(globalDiscoveryEntryCacheMock)
+                                                       .lookup(eq(domains), eq(interfaceName));
+
+        listener.onReceive(ChangeType.REMOVE, globalEntry);
+
+        verify(globalDiscoveryEntryCacheMock).remove(eq(globalEntry.getParticipantId()));
+        verify(globalCapabilitiesDirectoryClient).unsubscribeFromGlobalDiscoveryEntryChanged(eq("subscriptionId"));
+
+        lookupAndCaptureGlobalDiscoveryEntryChangedListener(domains, interfaceName, globalEntry);
+        verify(globalCapabilitiesDirectoryClient, times(2)).subscribeToGlobalDiscoveryEntryChanged(any(GlobalDiscoveryEntryChangedBroadcastListener.class),
+                                                                                                   eq(domains[0]),
+                                                                                                   eq(interfaceName));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void globalDiscoveryEntryChanged_removeWhileOtherEntriesCached_keepsSubscription() throws InterruptedException {
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCachePushUpdates(true);
+        String[] domains = new String[]{ "domain1" };
+        String interfaceName = "interface1";
+        GlobalDiscoveryEntry globalEntry = new GlobalDiscoveryEntry();
+        globalEntry.setParticipantId("participantIdGlobal");
+        globalEntry.setInterfaceName(interfaceName);
+        globalEntry.setDomain(domains[0]);
+        globalEntry.setLastSeenDateMs(System.currentTimeMillis());
+        globalEntry.setAddress(globalAddress1Serialized);
+        GlobalDiscoveryEntry otherGlobalEntry = new GlobalDiscoveryEntry(globalEntry);
+        otherGlobalEntry.setParticipantId("otherParticipantIdGlobal");
+        GlobalDiscoveryEntryChangedBroadcastListener listener = lookupAndCaptureGlobalDiscoveryEntryChangedListener(domains,
+                                                                                                                    interfaceName,
+                                                                                                                    globalEntry);
+        listener.onSubscribed("subscriptionId");
+        doReturn(Arrays.asList(otherGlobalEntry)).when(globalDiscoveryEntryCacheMock)
+                                                 .lookup(eq(domains), eq(interfaceName));
+
+        listener.onReceive(ChangeType.REMOVE, globalEntry);
+
+        verify(globalDiscoveryEntryCacheMock).remove(eq(globalEntry.getParticipantId()));
+        verify(globalCapabilitiesDirectoryClient, never()).unsubscribeFromGlobalDiscoveryEntryChanged(anyString());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void globalDiscoveryEntryChanged_localProvider_cacheNotUpdated() throws InterruptedException {
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setCachePushUpdates(true);
+        String[] domains = new String[]{ globalDiscoveryEntry.getDomain() };
+        DiscoveryQos discoveryQos = new DiscoveryQos(30000L, 1000L, DiscoveryScope.GLOBAL_ONLY, false);
+        doReturn(new ArrayList<GlobalDiscoveryEntry>()).when(globalDiscoveryEntryCacheMock)
+                                                       .lookup(eq(domains), eq(INTERFACE_NAME), anyLong());
+        doAnswer(createLookupAnswer(new ArrayList<GlobalDiscoveryEntry>())).when(globalCapabilitiesDirectoryClient)
+                                                                           .lookup(Matchers.<CallbackWithModeledError<List<GlobalDiscoveryEntry>, DiscoveryError>> any(),
+                                                                                   eq(domains),
+                                                                                   eq(INTERFACE_NAME),
+                                                                                   eq(discoveryQos.getDiscoveryTimeout()),
+                                                                                   eq(knownGbids));
+        checkPromiseSuccess(localCapabilitiesDirectory.lookup(domains, INTERFACE_NAME, discoveryQos), "lookup failed");
+
+        ArgumentCaptor<GlobalDiscoveryEntryChangedBroadcastListener> listenerCaptor = ArgumentCaptor.forClass(GlobalDiscoveryEntryChangedBroadcastListener.class);
+        verify(globalCapabilitiesDirectoryClient).subscribeToGlobalDiscoveryEntryChanged(listenerCaptor.capture(),
+                                                                                         eq(domains[0]),
+                                                                                         eq(INTERFACE_NAME));
+        doReturn(Optional.of(discoveryEntry)).when(localDiscoveryEntryStoreMock)
+                                             .lookup(eq(globalDiscoveryEntry.getParticipantId()), eq(Long.MAX_VALUE));
+
+        listenerCaptor.getValue().onReceive(ChangeType.ADD, globalDiscoveryEntry);
+        listenerCaptor.getValue().onReceive(ChangeType.REMOVE, globalDiscoveryEntry);
+
+        verify(globalDiscoveryEntryCacheMock, never()).add(any(GlobalDiscoveryEntry.class));
+        verify(globalDiscoveryEntryCacheMock, never()).remove(anyString());
+    }
+
     @Test(timeout = TEST_TIMEOUT)
     public void lookupMultipleDomains_localThenGlobal_oneLocalAllCachedDomains_returnsLocalAndCachedEntries() throws InterruptedException {
         String[] domains = new String[]{ "domain1", "domain2" };
@@ -4330,6 +4607,80 @@ public class LocalCapabilitiesDirectoryTest {
                                                                   eq(gbid2));
     }
 
+    @Test
+    public void touchNotCalledForProvidersWhichDoNotExpireSoon() throws InterruptedException {
+        String participantId1 = "participantId1";
+        String participantId2 = "participantId2";
+
+        GlobalDiscoveryEntry entry1 = new GlobalDiscoveryEntry(globalDiscoveryEntry);
+        entry1.getQos().setScope(ProviderScope.GLOBAL);
+        entry1.setParticipantId(participantId1);
+        entry1.setExpiryDateMs(0l);
+
+        GlobalDiscoveryEntry entry2 = new GlobalDiscoveryEntry(entry1);
+        entry2.setParticipantId(participantId2);
+        entry2.setExpiryDateMs(System.currentTimeMillis() + DEFAULT_EXPIRY_TIME_MS);
+
+        Promise<DeferredVoid> promiseAdd1 = localCapabilitiesDirectory.add(entry1, true);
+        Promise<DeferredVoid> promiseAdd2 = localCapabilitiesDirectory.add(entry2, true);
+        checkPromiseSuccess(promiseAdd1, "add failed");
+        checkPromiseSuccess(promiseAdd2, "add failed");
+
+        verify(capabilitiesFreshnessUpdateExecutor).scheduleAtFixedRate(runnableCaptor.capture(),
+                                                                        eq(freshnessUpdateIntervalMs),
+                                                                        eq(freshnessUpdateIntervalMs),
+                                                                        eq(TimeUnit.MILLISECONDS));
+        doAnswer(createAnswerWithSuccess()).when(globalCapabilitiesDirectoryClient)
+                                           .touch(Matchers.<Callback<Void>> any(),
+                                                  Matchers.<String[]> any(),
+                                                  anyString());
+        Runnable runnable = runnableCaptor.getValue();
+        runnable.run();
+
+        verify(localDiscoveryEntryStoreMock).touchDiscoveryEntries(anyLong(), anyLong());
+        verify(globalCapabilitiesDirectoryClient, times(1)).touch(Matchers.<Callback<Void>> any(),
+                                                                  eq(new String[]{ participantId1 }),
+                                                                  eq(knownGbids[0]));
+
+        // the successfully touched provider does not expire soon anymore
+        runnable.run();
+        verify(globalCapabilitiesDirectoryClient, times(1)).touch(Matchers.<Callback<Void>> any(),
+                                                                  Matchers.<String[]> any(),
+                                                                  anyString());
+    }
+
+    @Test
+    public void clusterControllerLevelTouchCalledOncePerGbid() throws InterruptedException {
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setClusterControllerLevelFreshnessUpdate(true);
+        String participantId1 = "participantId1";
+        String participantId2 = "participantId2";
+
+        GlobalDiscoveryEntry entry1 = new GlobalDiscoveryEntry(globalDiscoveryEntry);
+        entry1.getQos().setScope(ProviderScope.GLOBAL);
+        entry1.setParticipantId(participantId1);
+        entry1.setExpiryDateMs(0l);
+
+        GlobalDiscoveryEntry entry2 = new GlobalDiscoveryEntry(entry1);
+        entry2.setParticipantId(participantId2);
+
+        Promise<DeferredVoid> promiseAdd1 = localCapabilitiesDirectory.add(entry1, true);
+        Promise<DeferredVoid> promiseAdd2 = localCapabilitiesDirectory.add(entry2, true);
+        checkPromiseSuccess(promiseAdd1, "add failed");
+        checkPromiseSuccess(promiseAdd2, "add failed");
+
+        verify(capabilitiesFreshnessUpdateExecutor).scheduleAtFixedRate(runnableCaptor.capture(),
+                                                                        eq(freshnessUpdateIntervalMs),
+                                                                        eq(freshnessUpdateIntervalMs),
+                                                                        eq(TimeUnit.MILLISECONDS));
+        Runnable runnable = runnableCaptor.getValue();
+        runnable.run();
+
+        verify(globalCapabilitiesDirectoryClient, times(1)).touch(Matchers.<Callback<Void>> any(), eq(knownGbids[0]));
+        verify(globalCapabilitiesDirectoryClient, times(0)).touch(Matchers.<Callback<Void>> any(),
+                                                                  Matchers.<String[]> any(),
+                                                                  anyString());
+    }
+
     @Test
     public void removeStaleProvidersOfClusterController_invokesGcdClient() {
         // Test whether removeStale() of GlobalCapabiltiesDirectoryClient is called once for all known backends
@@ -4514,6 +4865,8 @@ public class LocalCapabilitiesDirectoryTest {
 
         // defaultTtlAddAndRemove = 60000ms (MessagingQos.DEFAULT_TTL) is too long, we reduce it to 1000ms for the test
         setNewDefaultTtlAddAndRemove(1000);
+        // the second add has to wait for the first one
+        performGcdTasksSequentially();
 
         final String participantId1 = "participantId1";
         final String participantId2 = "participantId2";
@@ -4586,6 +4939,192 @@ public class LocalCapabilitiesDirectoryTest {
                              any(String[].class));
     }
 
+    @Test(timeout = TEST_TIMEOUT)
+    public void gcdTasksForDifferentParticipantsAreInFlightConcurrently() throws Exception {
+        reset(globalCapabilitiesDirectoryClient);
+
+        final String participantId1 = "participantId1";
+        final String participantId2 = "participantId2";
+
+        DiscoveryEntry discoveryEntry1 = new DiscoveryEntry(discoveryEntry);
+        discoveryEntry1.getQos().setScope(ProviderScope.GLOBAL);
+        discoveryEntry1.setParticipantId(participantId1);
+
+        DiscoveryEntry discoveryEntry2 = new DiscoveryEntry(discoveryEntry1);
+        discoveryEntry2.setParticipantId(participantId2);
+
+        GlobalDiscoveryEntry globalDiscoveryEntry1 = CapabilityUtils.discoveryEntry2GlobalDiscoveryEntry(discoveryEntry1,
+                                                                                                         globalAddress1);
+        GlobalDiscoveryEntry globalDiscoveryEntry2 = CapabilityUtils.discoveryEntry2GlobalDiscoveryEntry(discoveryEntry2,
+                                                                                                         globalAddress1);
+
+        CountDownLatch cdlAdd1Started = new CountDownLatch(1);
+        CountDownLatch cdlAdd1Done = new CountDownLatch(1);
+        doAnswer(createAnswerWithDelayedSuccess(cdlAdd1Started,
+                                                cdlAdd1Done,
+                                                1000)).when(globalCapabilitiesDirectoryClient)
+                                                      .add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                           argThat(new GlobalDiscoveryEntryWithParticipantIdMatcher(globalDiscoveryEntry1)),
+                                                           anyLong(),
+                                                           any(String[].class));
+
+        CountDownLatch cdlAdd2 = new CountDownLatch(1);
+        doAnswer(createAnswerWithSuccess(cdlAdd2)).when(globalCapabilitiesDirectoryClient)
+                                                  .add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                       argThat(new GlobalDiscoveryEntryWithParticipantIdMatcher(globalDiscoveryEntry2)),
+                                                       anyLong(),
+                                                       any(String[].class));
+
+        CountDownLatch cdlRemove1 = new CountDownLatch(1);
+        doAnswer(createAnswerWithSuccess(cdlRemove1)).when(globalCapabilitiesDirectoryClient)
+                                                     .remove(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                             eq(participantId1),
+                                                             any(String[].class));
+
+        final boolean awaitGlobalRegistration = true;
+        Promise<DeferredVoid> promiseAdd1 = localCapabilitiesDirectory.add(discoveryEntry1, awaitGlobalRegistration);
+        localCapabilitiesDirectory.remove(participantId1);
+        Promise<DeferredVoid> promiseAdd2 = localCapabilitiesDirectory.add(discoveryEntry2, awaitGlobalRegistration);
+
+        // the second add overtakes the first one, the remove waits for the add of the same participant
+        checkPromiseSuccess(promiseAdd2, "add failed");
+        assertTrue(cdlAdd1Started.await(DEFAULT_WAIT_TIME_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, cdlAdd1Done.getCount());
+        assertEquals(1, cdlRemove1.getCount());
+
+        checkPromiseSuccess(promiseAdd1, "add failed");
+        assertTrue(cdlRemove1.await(DEFAULT_WAIT_TIME_MS, TimeUnit.MILLISECONDS));
+
+        InOrder inOrder = inOrder(globalCapabilitiesDirectoryClient);
+        inOrder.verify(globalCapabilitiesDirectoryClient)
+               .add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                    argThat(new GlobalDiscoveryEntryWithParticipantIdMatcher(globalDiscoveryEntry1)),
+                    anyLong(),
+                    any(String[].class));
+        inOrder.verify(globalCapabilitiesDirectoryClient)
+               .remove(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                       eq(participantId1),
+                       any(String[].class));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void queuedGlobalAddsForSameGbidAreBatched() throws Exception {
+        reset(globalCapabilitiesDirectoryClient);
+        performGcdTasksSequentially();
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setMaxGlobalAddBatchSize(3);
+
+        DiscoveryEntry discoveryEntry1 = new DiscoveryEntry(discoveryEntry);
+        discoveryEntry1.getQos().setScope(ProviderScope.GLOBAL);
+        discoveryEntry1.setParticipantId("participantId1");
+        DiscoveryEntry discoveryEntry2 = new DiscoveryEntry(discoveryEntry1);
+        discoveryEntry2.setParticipantId("participantId2");
+        DiscoveryEntry discoveryEntry3 = new DiscoveryEntry(discoveryEntry1);
+        discoveryEntry3.setParticipantId("participantId3");
+
+        GlobalDiscoveryEntry globalDiscoveryEntry1 = CapabilityUtils.discoveryEntry2GlobalDiscoveryEntry(discoveryEntry1,
+                                                                                                         globalAddress1);
+
+        CountDownLatch cdlAdd1Started = new CountDownLatch(1);
+        CountDownLatch cdlAdd1Done = new CountDownLatch(1);
+        doAnswer(createAnswerWithDelayedSuccess(cdlAdd1Started,
+                                                cdlAdd1Done,
+                                                500)).when(globalCapabilitiesDirectoryClient)
+                                                     .add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                          argThat(new GlobalDiscoveryEntryWithParticipantIdMatcher(globalDiscoveryEntry1)),
+                                                          anyLong(),
+                                                          any(String[].class));
+        CountDownLatch cdlBatchAdd = new CountDownLatch(1);
+        doAnswer(createAnswerWithSuccess(cdlBatchAdd)).when(globalCapabilitiesDirectoryClient)
+                                                      .add(Matchers.<Callback<Void>> any(),
+                                                           any(GlobalDiscoveryEntry[].class),
+                                                           anyLong(),
+                                                           anyString());
+
+        final boolean awaitGlobalRegistration = true;
+        Promise<DeferredVoid> promiseAdd1 = localCapabilitiesDirectory.add(discoveryEntry1, awaitGlobalRegistration);
+        assertTrue(cdlAdd1Started.await(DEFAULT_WAIT_TIME_MS, TimeUnit.MILLISECONDS));
+        Promise<DeferredVoid> promiseAdd2 = localCapabilitiesDirectory.add(discoveryEntry2, awaitGlobalRegistration);
+        Promise<DeferredVoid> promiseAdd3 = localCapabilitiesDirectory.add(discoveryEntry3, awaitGlobalRegistration);
+
+        checkPromiseSuccess(promiseAdd1, "add failed");
+        checkPromiseSuccess(promiseAdd2, "add failed");
+        checkPromiseSuccess(promiseAdd3, "add failed");
+        assertTrue(cdlBatchAdd.await(DEFAULT_WAIT_TIME_MS, TimeUnit.MILLISECONDS));
+
+        ArgumentCaptor<GlobalDiscoveryEntry[]> entriesCaptor = ArgumentCaptor.forClass(GlobalDiscoveryEntry[].class);
+        verify(globalCapabilitiesDirectoryClient).add(Matchers.<Callback<Void>> any(),
+                                                      entriesCaptor.capture(),
+                                                      anyLong(),
+                                                      eq(knownGbids[0]));
+        assertEquals(2, entriesCaptor.getValue().length);
+        assertEquals(discoveryEntry2.getParticipantId(), entriesCaptor.getValue()[0].getParticipantId());
+        assertEquals(discoveryEntry3.getParticipantId(), entriesCaptor.getValue()[1].getParticipantId());
+        verify(globalCapabilitiesDirectoryClient, times(1)).add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                                any(GlobalDiscoveryEntry.class),
+                                                                anyLong(),
+                                                                any(String[].class));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void queuedGlobalAddsForNonDefaultGbidAreNotBatched() throws Exception {
+        reset(globalCapabilitiesDirectoryClient);
+        performGcdTasksSequentially();
+        ((LocalCapabilitiesDirectoryImpl) localCapabilitiesDirectory).setMaxGlobalAddBatchSize(3);
+        String[] gbids = new String[]{ knownGbids[1] };
+
+        DiscoveryEntry discoveryEntry1 = new DiscoveryEntry(discoveryEntry);
+        discoveryEntry1.getQos().setScope(ProviderScope.GLOBAL);
+        discoveryEntry1.setParticipantId("participantId1");
+        DiscoveryEntry discoveryEntry2 = new DiscoveryEntry(discoveryEntry1);
+        discoveryEntry2.setParticipantId("participantId2");
+        DiscoveryEntry discoveryEntry3 = new DiscoveryEntry(discoveryEntry1);
+        discoveryEntry3.setParticipantId("participantId3");
+
+        GlobalDiscoveryEntry globalDiscoveryEntry1 = CapabilityUtils.discoveryEntry2GlobalDiscoveryEntry(discoveryEntry1,
+                                                                                                         globalAddress1);
+
+        doAnswer(createAnswerWithSuccess()).when(globalCapabilitiesDirectoryClient)
+                                           .add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                any(GlobalDiscoveryEntry.class),
+                                                anyLong(),
+                                                any(String[].class));
+        CountDownLatch cdlAdd1Started = new CountDownLatch(1);
+        CountDownLatch cdlAdd1Done = new CountDownLatch(1);
+        doAnswer(createAnswerWithDelayedSuccess(cdlAdd1Started,
+                                                cdlAdd1Done,
+                                                500)).when(globalCapabilitiesDirectoryClient)
+                                                     .add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                          argThat(new GlobalDiscoveryEntryWithParticipantIdMatcher(globalDiscoveryEntry1)),
+                                                          anyLong(),
+                                                          any(String[].class));
+
+        final boolean awaitGlobalRegistration = true;
+        Promise<Add1Deferred> promiseAdd1 = localCapabilitiesDirectory.add(discoveryEntry1,
+                                                                           awaitGlobalRegistration,
+                                                                           gbids);
+        assertTrue(cdlAdd1Started.await(DEFAULT_WAIT_TIME_MS, TimeUnit.MILLISECONDS));
+        Promise<Add1Deferred> promiseAdd2 = localCapabilitiesDirectory.add(discoveryEntry2,
+                                                                           awaitGlobalRegistration,
+                                                                           gbids);
+        Promise<Add1Deferred> promiseAdd3 = localCapabilitiesDirectory.add(discoveryEntry3,
+                                                                           awaitGlobalRegistration,
+                                                                           gbids);
+
+        checkPromiseSuccess(promiseAdd1, "add failed");
+        checkPromiseSuccess(promiseAdd2, "add failed");
+        checkPromiseSuccess(promiseAdd3, "add failed");
+
+        // the GCD would register the entries of a batch in its own GBID instead of the selected one
+        verify(globalCapabilitiesDirectoryClient, never()).add(Matchers.<Callback<Void>> any(),
+                                                               any(GlobalDiscoveryEntry[].class),
+                                                               anyLong(),
+                                                               anyString());
+        verify(globalCapabilitiesDirectoryClient, times(3)).add(Matchers.<CallbackWithModeledError<Void, DiscoveryError>> any(),
+                                                                any(GlobalDiscoveryEntry.class),
+                                                                anyLong(),
+                                                                eq(gbids));
+    }
+
     @Test(timeout = TEST_TIMEOUT)
     public void testReAddAllGlobalDiscoveryEntriesPeriodically() throws InterruptedException {
         final String participantId1 = "participantId1";
@@ -19,11 +19,14 @@
 package io.joynr.messaging;
 
 import static io.joynr.util.JoynrUtil.createUuidString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,11 +41,13 @@ import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import io.joynr.common.ExpiryDate;
 import io.joynr.exceptions.JoynrIllegalStateException;
+import io.joynr.exceptions.JoynrMessageNotSentException;
 import io.joynr.messaging.inprocess.InProcessAddress;
 import io.joynr.messaging.persistence.MessagePersister;
 import io.joynr.messaging.routing.AddressManager;
@@ -56,6 +61,8 @@ import io.joynr.runtime.ShutdownNotifier;
 import io.joynr.util.JoynrThreadFactory;
 import joynr.ImmutableMessage;
 import joynr.Message;
+import joynr.Reply;
+import joynr.Request;
 import joynr.exceptions.ProviderRuntimeException;
 import joynr.system.RoutingProxy;
 import joynr.system.RoutingTypes.Address;
@@ -183,6 +190,47 @@ public class LibJoynrMessageRouterTest {
         verify(messageRouterParent).addNextHop(eq(unknownParticipantId), eq(incomingAddress), eq(isGloballyVisible));
     }
 
+    @Test
+    public void removeNextHopReleasesLocalReferencesBeforeParentReference() {
+        final String providerParticipantId = "providerParticipantId";
+        messageRouter.addNextHopReference(providerParticipantId);
+        messageRouter.addNextHopReference(providerParticipantId);
+
+        messageRouter.removeNextHop(providerParticipantId);
+        messageRouter.removeNextHop(providerParticipantId);
+        verify(messageRouterParent, times(0)).removeNextHop(providerParticipantId);
+
+        messageRouter.removeNextHop(providerParticipantId);
+        verify(messageRouterParent, times(1)).removeNextHop(providerParticipantId);
+    }
+
+    @Test
+    public void requestPassedByReferenceIsAnsweredWithErrorIfNotDeliveredInProcess() throws Exception {
+        final InProcessAddress inProcessAddress = mock(InProcessAddress.class);
+        final Request request = new Request("method", new Object[0], new String[0], "requestReplyId");
+        when(message.getPayloadObject()).thenReturn(request);
+        // the provider has been unregistered after the request was created, its next hop is the parent now
+        when(addressManager.getAddressForDelayableImmutableMessage(any(DelayableImmutableMessage.class))).thenAnswer(invocation -> {
+            DelayableImmutableMessage delayableMessage = (DelayableImmutableMessage) invocation.getArguments()[0];
+            return delayableMessage.getMessage() == message ? Optional.of(parentAddress)
+                    : Optional.of(inProcessAddress);
+        });
+
+        messageRouter.route(message);
+
+        ArgumentCaptor<ImmutableMessage> replyCaptor = ArgumentCaptor.forClass(ImmutableMessage.class);
+        verify(messagingStub, timeout(1000)).transmit(replyCaptor.capture(),
+                                                      any(SuccessAction.class),
+                                                      any(FailureAction.class));
+        verify(messagingStubFactory, times(0)).create(parentAddress);
+        ImmutableMessage replyMessage = replyCaptor.getValue();
+        assertEquals(Message.MessageType.VALUE_MESSAGE_TYPE_REPLY, replyMessage.getType());
+        assertEquals(unknownSenderParticipantId, replyMessage.getRecipient());
+        Reply reply = (Reply) replyMessage.getPayloadObject();
+        assertEquals(request.getRequestReplyId(), reply.getRequestReplyId());
+        assertTrue(reply.getError() instanceof JoynrMessageNotSentException);
+    }
+
     @Test(expected = ProviderRuntimeException.class)
     public void setParentRouter_UdsClientAddress_throws() {
         // throws because UdsClientAddress is not supported in Java
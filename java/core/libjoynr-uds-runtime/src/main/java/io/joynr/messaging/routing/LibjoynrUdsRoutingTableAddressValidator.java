@@ -0,0 +1,52 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.joynr.messaging.inprocess.InProcessAddress;
+import joynr.system.RoutingTypes.Address;
+import joynr.system.RoutingTypes.UdsAddress;
+
+public class LibjoynrUdsRoutingTableAddressValidator implements RoutingTableAddressValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LibjoynrUdsRoutingTableAddressValidator.class);
+
+    @Override
+    public boolean isValidForRoutingTable(final Address address) {
+        if (address instanceof UdsAddress || address instanceof InProcessAddress) {
+            return true;
+        }
+        logger.error("The address {} of type {} will not be used for libjoynr Routing Table",
+                     address,
+                     address.getClass().getSimpleName());
+        return false;
+    }
+
+    @Override
+    public boolean allowUpdate(final RoutingEntry oldEntry, final RoutingEntry newEntry) {
+        // precedence: InProcessAddress > UdsAddress
+        if (newEntry.getAddress() instanceof InProcessAddress) {
+            return true;
+        }
+        return !(oldEntry.getAddress() instanceof InProcessAddress) && newEntry.getAddress() instanceof UdsAddress;
+    }
+
+}
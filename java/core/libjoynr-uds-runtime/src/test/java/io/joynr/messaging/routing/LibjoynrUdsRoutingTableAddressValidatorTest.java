@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.routing;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.joynr.messaging.inprocess.InProcessAddress;
+import io.joynr.messaging.inprocess.InProcessMessagingSkeleton;
+import joynr.system.RoutingTypes.MqttAddress;
+import joynr.system.RoutingTypes.UdsAddress;
+import joynr.system.RoutingTypes.UdsClientAddress;
+import joynr.system.RoutingTypes.WebSocketAddress;
+
+public class LibjoynrUdsRoutingTableAddressValidatorTest {
+
+    private LibjoynrUdsRoutingTableAddressValidator validator;
+
+    @Before
+    public void setup() {
+        validator = new LibjoynrUdsRoutingTableAddressValidator();
+    }
+
+    @Test
+    public void inProcessAndUdsAddressTypesAreValid() {
+        assertTrue(validator.isValidForRoutingTable(new InProcessAddress()));
+        assertTrue(validator.isValidForRoutingTable(new UdsAddress()));
+    }
+
+    @Test
+    public void otherAddressTypesAreNotValid() {
+        assertFalse(validator.isValidForRoutingTable(new MqttAddress()));
+        assertFalse(validator.isValidForRoutingTable(new UdsClientAddress()));
+        assertFalse(validator.isValidForRoutingTable(new WebSocketAddress()));
+    }
+
+    @Test
+    public void allowUpdateOfInProcessAddress() {
+        final RoutingEntry oldEntry = new RoutingEntry(new InProcessAddress(mock(InProcessMessagingSkeleton.class)),
+                                                       true,
+                                                       Long.MAX_VALUE,
+                                                       false);
+
+        final RoutingEntry newEntry = new RoutingEntry(new UdsAddress("path"), true, Long.MAX_VALUE, false);
+        assertFalse(validator.allowUpdate(oldEntry, newEntry));
+
+        newEntry.setAddress(new InProcessAddress());
+        assertTrue(validator.allowUpdate(oldEntry, newEntry));
+    }
+
+    @Test
+    public void allowUpdateOfUdsAddress() {
+        final RoutingEntry oldEntry = new RoutingEntry(new UdsAddress("oldPath"), true, Long.MAX_VALUE, false);
+
+        final RoutingEntry newEntry = new RoutingEntry(new UdsAddress("path"), true, Long.MAX_VALUE, false);
+        assertTrue(validator.allowUpdate(oldEntry, newEntry));
+
+        newEntry.setAddress(new InProcessAddress());
+        assertTrue(validator.allowUpdate(oldEntry, newEntry));
+    }
+
+}
@@ -18,12 +18,17 @@
  */
 package io.joynr.discovery;
 
+import static io.joynr.messaging.ConfigurableMessagingSettings.PROPERTY_DISCOVERY_LOOKUP_CACHE_TTL_MS;
 import static io.joynr.util.VersionUtil.getVersionFromAnnotation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -34,6 +39,7 @@ import com.google.inject.name.Named;
 
 import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.MessagingQos;
+import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.proxy.Callback;
 import io.joynr.proxy.CallbackWithModeledError;
 import io.joynr.proxy.Future;
@@ -66,12 +72,41 @@ public class LocalDiscoveryAggregator implements DiscoveryAsync {
     private DiscoveryProxy discoveryProxy;
     private ProxyBuilderFactory proxyBuilderFactory;
     private String systemServiceDomain;
+    private MessageRouter messageRouter;
+
+    // 0 disables the lookup cache
+    private long lookupCacheTtlMs = 0;
+    // lookup results received from the cluster controller and lookups in progress, guarded by lookupCache
+    private final Map<String, CachedLookupResult> lookupCache = new HashMap<>();
+    private final Map<String, PendingLookup> pendingLookups = new HashMap<>();
+    // incremented whenever the cache is cleared, results of lookups started before are not cached
+    private long lookupCacheGeneration = 0;
+
+    private static class CachedLookupResult {
+        private final DiscoveryEntryWithMetaInfo[] entries;
+        private final long receivedDateMs;
+
+        CachedLookupResult(DiscoveryEntryWithMetaInfo[] entries, long receivedDateMs) {
+            this.entries = entries;
+            this.receivedDateMs = receivedDateMs;
+        }
+    }
+
+    private static class PendingLookup {
+        private final List<CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError>> callbacks = new ArrayList<>();
+        private final long cacheGeneration;
+
+        PendingLookup(long cacheGeneration) {
+            this.cacheGeneration = cacheGeneration;
+        }
+    }
 
     @Inject
     public LocalDiscoveryAggregator(@Named(SystemServicesSettings.PROPERTY_SYSTEM_SERVICES_DOMAIN) String systemServicesDomain,
                                     @Named(SystemServicesSettings.PROPERTY_CC_DISCOVERY_PROVIDER_PARTICIPANT_ID) String discoveryProviderParticipantId,
                                     @Named(SystemServicesSettings.PROPERTY_CC_ROUTING_PROVIDER_PARTICIPANT_ID) String routingProviderParticipantId,
-                                    ProxyBuilderFactory proxyBuilderFactory) {
+                                    ProxyBuilderFactory proxyBuilderFactory,
+                                    MessageRouter messageRouter) {
         ProviderQos providerQos = new ProviderQos();
         providerQos.setScope(ProviderScope.LOCAL);
         String defaultPublicKeyId = "";
@@ -99,15 +134,23 @@ public class LocalDiscoveryAggregator implements DiscoveryAsync {
 
         this.proxyBuilderFactory = proxyBuilderFactory;
         this.systemServiceDomain = systemServicesDomain;
+        this.messageRouter = messageRouter;
+    }
+
+    @Inject(optional = true)
+    void setLookupCacheTtlMs(@Named(PROPERTY_DISCOVERY_LOOKUP_CACHE_TTL_MS) long lookupCacheTtlMs) {
+        this.lookupCacheTtlMs = lookupCacheTtlMs;
     }
 
     @Override
     public Future<Void> add(Callback<Void> callback, DiscoveryEntry discoveryEntry) {
+        clearLookupCache();
         return getDefaultDiscoveryProxy().add(callback, discoveryEntry, false);
     }
 
     @Override
     public Future<Void> add(Callback<Void> callback, DiscoveryEntry discoveryEntry, Boolean awaitGlobalRegistration) {
+        clearLookupCache();
         return getDefaultDiscoveryProxy().add(callback, discoveryEntry, awaitGlobalRegistration);
     }
 
@@ -116,6 +159,7 @@ public class LocalDiscoveryAggregator implements DiscoveryAsync {
                             DiscoveryEntry discoveryEntry,
                             Boolean awaitGlobalRegistration,
                             String[] gbids) {
+        clearLookupCache();
         return getDefaultDiscoveryProxy().add(callback, discoveryEntry, awaitGlobalRegistration, gbids);
     }
 
@@ -123,6 +167,7 @@ public class LocalDiscoveryAggregator implements DiscoveryAsync {
     public Future<Void> addToAll(CallbackWithModeledError<Void, DiscoveryError> callback,
                                  DiscoveryEntry discoveryEntry,
                                  Boolean awaitGlobalRegistration) {
+        clearLookupCache();
         return getDefaultDiscoveryProxy().addToAll(callback, discoveryEntry, awaitGlobalRegistration);
     }
 
@@ -208,19 +253,150 @@ public class LocalDiscoveryAggregator implements DiscoveryAsync {
             String[] missingDomainsArray = new String[missingDomains.size()];
             missingDomains.toArray(missingDomainsArray);
 
-            MessagingQos messagingQos = new MessagingQos(discoveryQos.getDiscoveryTimeout() + epsilonMs);
-            getDefaultDiscoveryProxy().lookup(newCallback,
-                                              missingDomainsArray,
-                                              interfaceName,
-                                              discoveryQos,
-                                              gbids,
-                                              messagingQos);
+            lookupMissingDomains(newCallback, missingDomainsArray, interfaceName, discoveryQos, gbids);
         } else {
             resolveDiscoveryEntriesFutureWithEntries(discoveryEntryFuture, discoveryEntries, callback);
         }
         return discoveryEntryFuture;
     }
 
+    private void lookupMissingDomains(CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError> callback,
+                                      String[] domains,
+                                      String interfaceName,
+                                      DiscoveryQos discoveryQos,
+                                      String[] gbids) {
+        long maxAgeMs = Math.min(lookupCacheTtlMs,
+                                 discoveryQos.getCacheMaxAge() == null ? 0 : discoveryQos.getCacheMaxAge());
+        if (maxAgeMs <= 0) {
+            queryDiscoveryProxy(callback, domains, interfaceName, discoveryQos, gbids);
+            return;
+        }
+
+        String key = getLookupCacheKey(domains, interfaceName, discoveryQos, gbids);
+        // only lookups with the same freshness and timeout requirements share a request
+        String pendingLookupKey = key + "|" + discoveryQos.getCacheMaxAge() + "|" + discoveryQos.getDiscoveryTimeout();
+        DiscoveryEntryWithMetaInfo[] cachedEntries = null;
+        synchronized (lookupCache) {
+            CachedLookupResult cachedResult = lookupCache.get(key);
+            if (cachedResult != null && System.currentTimeMillis() - cachedResult.receivedDateMs <= maxAgeMs) {
+                cachedEntries = cachedResult.entries.clone();
+            } else {
+                PendingLookup pendingLookup = pendingLookups.get(pendingLookupKey);
+                if (pendingLookup != null) {
+                    // a lookup with the same parameters is in progress, its result is fresher than maxAgeMs
+                    pendingLookup.callbacks.add(callback);
+                    return;
+                }
+                pendingLookup = new PendingLookup(lookupCacheGeneration);
+                pendingLookup.callbacks.add(callback);
+                pendingLookups.put(pendingLookupKey, pendingLookup);
+            }
+        }
+        if (cachedEntries != null) {
+            logger.trace("Found cached lookup result for domains {} and interface {}",
+                         Arrays.toString(domains),
+                         interfaceName);
+            addNextHopReferences(cachedEntries);
+            callback.onSuccess(cachedEntries);
+            return;
+        }
+
+        CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError> sharedCallback = new CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError>() {
+            @Override
+            public void onFailure(JoynrRuntimeException error) {
+                completeLookup(key, pendingLookupKey, null).forEach(waitingCallback -> waitingCallback.onFailure(error));
+            }
+
+            @Override
+            public void onFailure(DiscoveryError error) {
+                completeLookup(key, pendingLookupKey, null).forEach(waitingCallback -> waitingCallback.onFailure(error));
+            }
+
+            @Override
+            public void onSuccess(DiscoveryEntryWithMetaInfo[] entries) {
+                List<CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError>> waitingCallbacks = completeLookup(key,
+                                                                                                                               pendingLookupKey,
+                                                                                                                               entries);
+                for (int i = 0; i < waitingCallbacks.size(); i++) {
+                    if (i > 0 && entries != null) {
+                        // the cluster controller has taken a reference for the first waiting lookup only
+                        addNextHopReferences(entries);
+                    }
+                    waitingCallbacks.get(i).onSuccess(entries == null ? null : entries.clone());
+                }
+            }
+        };
+        try {
+            queryDiscoveryProxy(sharedCallback, domains, interfaceName, discoveryQos, gbids);
+        } catch (JoynrRuntimeException e) {
+            sharedCallback.onFailure(e);
+        }
+    }
+
+    /**
+     * Removes the pending lookup and caches its result unless it failed, did not find any entry (so that the
+     * retries of the arbitration reach the cluster controller) or the cache has been cleared in the meantime.
+     *
+     * @return the callbacks waiting for the result of the lookup
+     */
+    private List<CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError>> completeLookup(String key,
+                                                                                                       String pendingLookupKey,
+                                                                                                       DiscoveryEntryWithMetaInfo[] entries) {
+        synchronized (lookupCache) {
+            PendingLookup pendingLookup = pendingLookups.remove(pendingLookupKey);
+            if (entries != null && entries.length > 0 && pendingLookup.cacheGeneration == lookupCacheGeneration) {
+                long now = System.currentTimeMillis();
+                Iterator<CachedLookupResult> it = lookupCache.values().iterator();
+                while (it.hasNext()) {
+                    if (now - it.next().receivedDateMs > lookupCacheTtlMs) {
+                        it.remove();
+                    }
+                }
+                lookupCache.put(key, new CachedLookupResult(entries.clone(), now));
+            }
+            return pendingLookup.callbacks;
+        }
+    }
+
+    /**
+     * The cluster controller takes one reference to the routing entry of every entry it returns, which is released
+     * when the proxy built from it is garbage collected or the entry is not selected by the arbitration. Entries
+     * which are returned without a lookup at the cluster controller need a reference of their own.
+     */
+    private void addNextHopReferences(DiscoveryEntryWithMetaInfo[] entries) {
+        for (DiscoveryEntryWithMetaInfo entry : entries) {
+            messageRouter.addNextHopReference(entry.getParticipantId());
+        }
+    }
+
+    private void clearLookupCache() {
+        synchronized (lookupCache) {
+            lookupCacheGeneration++;
+            lookupCache.clear();
+        }
+    }
+
+    private static String getLookupCacheKey(String[] domains,
+                                            String interfaceName,
+                                            DiscoveryQos discoveryQos,
+                                            String[] gbids) {
+        String[] sortedDomains = domains.clone();
+        Arrays.sort(sortedDomains);
+        String[] sortedGbids = gbids == null ? new String[0] : gbids.clone();
+        Arrays.sort(sortedGbids);
+        return Arrays.toString(sortedDomains) + "|" + interfaceName + "|" + discoveryQos.getDiscoveryScope() + "|"
+                + discoveryQos.getProviderMustSupportOnChange() + "|" + Arrays.toString(sortedGbids);
+    }
+
+    private void queryDiscoveryProxy(CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError> callback,
+                                     String[] domains,
+                                     String interfaceName,
+                                     DiscoveryQos discoveryQos,
+                                     String[] gbids) {
+        MessagingQos messagingQos = new MessagingQos(discoveryQos.getDiscoveryTimeout() + epsilonMs);
+        getDefaultDiscoveryProxy().lookup(callback, domains, interfaceName, discoveryQos, gbids, messagingQos);
+    }
+
     @Override
     public Future<DiscoveryEntryWithMetaInfo> lookup(Callback<DiscoveryEntryWithMetaInfo> callback,
                                                      String participantId) {
@@ -254,6 +430,7 @@ public class LocalDiscoveryAggregator implements DiscoveryAsync {
 
     @Override
     public Future<Void> remove(Callback<Void> callback, String participantId) {
+        clearLookupCache();
         return getDefaultDiscoveryProxy().remove(callback, participantId);
     }
 
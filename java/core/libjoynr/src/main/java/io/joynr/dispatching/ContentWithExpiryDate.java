@@ -38,6 +38,10 @@ public class ContentWithExpiryDate<T> {
         return content;
     }
 
+    long getExpiryDateMs() {
+        return expiryDate.getValue();
+    }
+
     boolean isExpired() {
         return (System.currentTimeMillis() > expiryDate.getValue());
     }
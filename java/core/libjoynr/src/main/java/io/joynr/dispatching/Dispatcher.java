@@ -45,6 +45,22 @@ public interface Dispatcher extends MessageArrivedListener {
                                             SubscriptionPublication publication,
                                             MessagingQos qosSettings);
 
+    /**
+     * Sends a publication to a single subscriber using the given message ID, so that the caller can correlate the
+     * message with {@link io.joynr.messaging.routing.MessageProcessedListener} callbacks.
+     *
+     * @param fromParticipantId participant ID of the provider
+     * @param toParticipantId participant ID of the subscriber
+     * @param publication the publication to be sent
+     * @param qosSettings the messaging QoS of the publication message
+     * @param messageId the unique ID of the publication message
+     */
+    void sendSubscriptionPublication(String fromParticipantId,
+                                     String toParticipantId,
+                                     SubscriptionPublication publication,
+                                     MessagingQos qosSettings,
+                                     String messageId);
+
     void sendSubscriptionReply(String fromParticipantId,
                                String toParticipantId,
                                SubscriptionReply subscriptionReply,
@@ -183,6 +183,20 @@ public class DispatcherImpl implements Dispatcher {
         }
     }
 
+    @Override
+    public void sendSubscriptionPublication(String fromParticipantId,
+                                            String toParticipantId,
+                                            SubscriptionPublication publication,
+                                            MessagingQos messagingQos,
+                                            String messageId) {
+        MutableMessage message = messageFactory.createPublication(fromParticipantId,
+                                                                  toParticipantId,
+                                                                  publication,
+                                                                  messagingQos);
+        message.setId(messageId);
+        messageSender.sendMessage(message);
+    }
+
     public void sendReply(final String fromParticipantId,
                           final String toParticipantId,
                           Reply reply,
@@ -190,6 +204,17 @@ public class DispatcherImpl implements Dispatcher {
                           Map<String, String> customHeaders,
                           final MessagingQosEffort effort,
                           boolean compress) throws IOException {
+        sendReply(fromParticipantId, toParticipantId, reply, expiryDateMs, customHeaders, effort, compress, false);
+    }
+
+    private void sendReply(final String fromParticipantId,
+                           final String toParticipantId,
+                           Reply reply,
+                           final long expiryDateMs,
+                           Map<String, String> customHeaders,
+                           final MessagingQosEffort effort,
+                           boolean compress,
+                           boolean passReplyObject) throws IOException {
         if (overrideCompress) {
             compress = true;
         }
@@ -197,7 +222,9 @@ public class DispatcherImpl implements Dispatcher {
                                                      effort,
                                                      customHeaders,
                                                      compress);
-        MutableMessage message = messageFactory.createReply(fromParticipantId, toParticipantId, reply, messagingQos);
+        MutableMessage message = passReplyObject
+                ? messageFactory.createReply(fromParticipantId, toParticipantId, reply, messagingQos, true)
+                : messageFactory.createReply(fromParticipantId, toParticipantId, reply, messagingQos);
         messageSender.sendMessage(message);
     }
 
@@ -247,23 +274,28 @@ public class DispatcherImpl implements Dispatcher {
             throw new JoynrMessageExpiredException("Reply message " + message + " expired!");
         }
 
-        String payload;
+        // requests and replies within the same runtime may be passed by reference instead of being serialized
+        final Object payloadObject = message.getPayloadObject();
+        String payload = null;
 
-        try {
-            payload = new String(message.getUnencryptedBody(), StandardCharsets.UTF_8);
-        } catch (EncodingException e) {
-            logger.error("Error reading SMRF message. msgId: {}. from: {} to: {}. Discarding joynr message. Error:",
-                         message.getId(),
-                         message.getSender(),
-                         message.getRecipient(),
-                         e);
-            return;
+        if (payloadObject == null) {
+            try {
+                payload = new String(message.getUnencryptedBody(), StandardCharsets.UTF_8);
+            } catch (EncodingException e) {
+                logger.error("Error reading SMRF message. msgId: {}. from: {} to: {}. Discarding joynr message. Error:",
+                             message.getId(),
+                             message.getSender(),
+                             message.getRecipient(),
+                             e);
+                return;
+            }
         }
 
         Message.MessageType type = message.getType();
         try {
             if (Message.MessageType.VALUE_MESSAGE_TYPE_REPLY.equals(type)) {
-                Reply reply = objectMapper.readValue(payload, Reply.class);
+                Reply reply = payloadObject instanceof Reply ? (Reply) payloadObject
+                        : objectMapper.readValue(payload, Reply.class);
                 if (reply.getRequestReplyId().contains(StatelessAsyncIdCalculator.REQUEST_REPLY_ID_SEPARATOR)) {
                     addStatelessCallback(message, reply);
                 }
@@ -275,7 +307,9 @@ public class DispatcherImpl implements Dispatcher {
                 handle(subscriptionReply);
             } else if (Message.MessageType.VALUE_MESSAGE_TYPE_REQUEST.equals(type)) {
                 MessagingQosEffort effort = getEffort(message);
-                final Request request = objectMapper.readValue(payload, Request.class);
+                final boolean passReplyObject = payloadObject instanceof Request;
+                final Request request = passReplyObject ? copyRequest((Request) payloadObject)
+                        : objectMapper.readValue(payload, Request.class);
                 request.setCreatorUserId(message.getCreatorUserId());
                 request.setContext(createMessageContext(message));
                 logger.trace("Parsed request from message payload: {}", payload);
@@ -285,7 +319,8 @@ public class DispatcherImpl implements Dispatcher {
                        expiryDate,
                        customHeaders,
                        effort,
-                       message.isCompressed());
+                       message.isCompressed(),
+                       passReplyObject);
             } else if (Message.MessageType.VALUE_MESSAGE_TYPE_ONE_WAY.equals(type)) {
                 OneWayRequest oneWayRequest = objectMapper.readValue(payload, OneWayRequest.class);
                 oneWayRequest.setCreatorUserId(message.getCreatorUserId());
@@ -328,6 +363,18 @@ public class DispatcherImpl implements Dispatcher {
         return result;
     }
 
+    /**
+     * The passed Request instance still belongs to the proxy, so the provider side must not modify it.
+     * Parameter values are not copied.
+     */
+    private static Request copyRequest(Request request) {
+        return new Request(request.getMethodName(),
+                           request.getParams(),
+                           request.getParamDatatypes(),
+                           request.getRequestReplyId(),
+                           request.getStatelessAsyncCallbackMethodId());
+    }
+
     private void addStatelessCallback(ImmutableMessage message, Reply reply) {
         String methodId = statelessAsyncIdCalculator.extractMethodIdFromRequestReplyId(reply.getRequestReplyId());
         reply.setStatelessAsyncCallbackMethodId(methodId);
@@ -341,12 +388,20 @@ public class DispatcherImpl implements Dispatcher {
                         final long expiryDate,
                         final Map<String, String> customHeaders,
                         final MessagingQosEffort effort,
-                        final boolean compress) {
+                        final boolean compress,
+                        final boolean passReplyObject) {
         requestReplyManager.handleRequest(new ProviderCallback<Reply>() {
             @Override
             public void onSuccess(Reply reply) {
                 try {
-                    sendReply(toParticipantId, fromParticipantId, reply, expiryDate, customHeaders, effort, compress);
+                    sendReply(toParticipantId,
+                              fromParticipantId,
+                              reply,
+                              expiryDate,
+                              customHeaders,
+                              effort,
+                              compress,
+                              passReplyObject);
                 } catch (Exception error) {
                     logger.error("Error processing reply {}: error:", reply, error);
                 }
@@ -360,7 +415,14 @@ public class DispatcherImpl implements Dispatcher {
                 }
                 Reply reply = new Reply(request.getRequestReplyId(), error);
                 try {
-                    sendReply(toParticipantId, fromParticipantId, reply, expiryDate, customHeaders, effort, compress);
+                    sendReply(toParticipantId,
+                              fromParticipantId,
+                              reply,
+                              expiryDate,
+                              customHeaders,
+                              effort,
+                              compress,
+                              passReplyObject);
                 } catch (Exception e) {
                     logger.error("Error sending error reply {}:", reply, e);
                 }
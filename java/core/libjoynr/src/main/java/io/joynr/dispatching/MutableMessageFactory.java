@@ -59,6 +59,7 @@ public class MutableMessageFactory {
     private long ttlUpliftMs = 0;
 
     private static final Logger logger = LoggerFactory.getLogger(MutableMessageFactory.class);
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
 
     @Inject
     public MutableMessageFactory(ObjectMapper objectMapper, Set<JoynrMessageProcessor> messageProcessors) {
@@ -71,7 +72,7 @@ public class MutableMessageFactory {
                                          String toParticipantId,
                                          Object payload,
                                          MessagingQos messagingQos) {
-        return createMessage(joynrMessageType, fromParticipantId, toParticipantId, payload, messagingQos, true);
+        return createMessage(joynrMessageType, fromParticipantId, toParticipantId, payload, messagingQos, true, false);
     }
 
     private MutableMessage createMessage(Message.MessageType joynrMessageType,
@@ -79,7 +80,8 @@ public class MutableMessageFactory {
                                          String toParticipantId,
                                          Object payload,
                                          MessagingQos messagingQos,
-                                         boolean upliftTtl) {
+                                         boolean upliftTtl,
+                                         boolean passPayloadObject) {
         ExpiryDate expiryDate;
         if (!upliftTtl) {
             expiryDate = DispatcherUtils.convertTtlToExpirationDate(messagingQos.getRoundTripTtl_ms());
@@ -97,7 +99,14 @@ public class MutableMessageFactory {
         message.setRecipient(toParticipantId);
         message.setTtlAbsolute(true);
         message.setTtlMs(expiryDate.getValue());
-        message.setPayload(serializePayload(payload));
+        // a message processor may replace the message and thereby drop the payload object, so the payload has to
+        // be serialized as soon as any message processor is bound
+        if (passPayloadObject && messageProcessors.isEmpty()) {
+            message.setPayload(EMPTY_PAYLOAD);
+            message.setPayloadObject(payload);
+        } else {
+            message.setPayload(serializePayload(payload));
+        }
         message.setCustomHeaders(messagingQos.getCustomMessageHeaders());
         message.setCompressed(messagingQos.getCompress());
         for (JoynrMessageProcessor processor : messageProcessors) {
@@ -124,11 +133,26 @@ public class MutableMessageFactory {
                                         final String toParticipantId,
                                         Request request,
                                         MessagingQos messagingQos) {
+        return createRequest(fromParticipantId, toParticipantId, request, messagingQos, false);
+    }
+
+    /**
+     * @param passPayloadObject if true, the request is not serialized but passed by reference unless a
+     *            {@link JoynrMessageProcessor} is bound. Must only be set if the provider is registered in the same
+     *            runtime.
+     */
+    public MutableMessage createRequest(final String fromParticipantId,
+                                        final String toParticipantId,
+                                        Request request,
+                                        MessagingQos messagingQos,
+                                        boolean passPayloadObject) {
         MutableMessage msg = createMessage(Message.MessageType.VALUE_MESSAGE_TYPE_REQUEST,
                                            fromParticipantId,
                                            toParticipantId,
                                            request,
-                                           messagingQos);
+                                           messagingQos,
+                                           true,
+                                           passPayloadObject);
         addRequestReplyIdCustomHeader(msg, request.getRequestReplyId());
         return msg;
     }
@@ -144,12 +168,26 @@ public class MutableMessageFactory {
                                       final String toParticipantId,
                                       Reply reply,
                                       MessagingQos messagingQos) {
+        return createReply(fromParticipantId, toParticipantId, reply, messagingQos, false);
+    }
+
+    /**
+     * @param passPayloadObject if true, the reply is not serialized but passed by reference unless a
+     *            {@link JoynrMessageProcessor} is bound. Must only be set if the request has been received from the
+     *            same runtime.
+     */
+    public MutableMessage createReply(final String fromParticipantId,
+                                      final String toParticipantId,
+                                      Reply reply,
+                                      MessagingQos messagingQos,
+                                      boolean passPayloadObject) {
         MutableMessage msg = createMessage(Message.MessageType.VALUE_MESSAGE_TYPE_REPLY,
                                            fromParticipantId,
                                            toParticipantId,
                                            reply,
                                            messagingQos,
-                                           false);
+                                           false,
+                                           passPayloadObject);
         addRequestReplyIdCustomHeader(msg, reply.getRequestReplyId());
         return msg;
     }
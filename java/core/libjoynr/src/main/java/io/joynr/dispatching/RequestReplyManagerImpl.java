@@ -20,10 +20,8 @@ package io.joynr.dispatching;
 
 import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
@@ -52,6 +50,7 @@ import io.joynr.exceptions.JoynrCommunicationException;
 import io.joynr.exceptions.JoynrIllegalStateException;
 import io.joynr.exceptions.JoynrRequestInterruptedException;
 import io.joynr.exceptions.JoynrShutdownException;
+import io.joynr.messaging.MessagingPropertyKeys;
 import io.joynr.messaging.MessagingQos;
 import io.joynr.messaging.sender.MessageSender;
 import io.joynr.provider.ProviderCallback;
@@ -71,23 +70,48 @@ public class RequestReplyManagerImpl
     private final StatelessAsyncRequestReplyIdManager statelessAsyncRequestReplyIdManager;
     private boolean shuttingDown = false;
 
-    private List<CompletableFuture<Reply>> outstandingRequestFutures = Collections.synchronizedList(new ArrayList<CompletableFuture<Reply>>());
-    private ConcurrentHashMap<String, ConcurrentLinkedQueue<ContentWithExpiryDate<Request>>> requestQueue = new ConcurrentHashMap<>();
+    // CompletableFuture does not override equals/hashCode, the futures are tracked by identity
+    private Set<CompletableFuture<Reply>> outstandingRequestFutures = ConcurrentHashMap.newKeySet();
+    private ConcurrentHashMap<String, ConcurrentLinkedQueue<ContentWithExpiryDate<QueuedRequest>>> requestQueue = new ConcurrentHashMap<>();
     private ConcurrentHashMap<String, ConcurrentLinkedQueue<ContentWithExpiryDate<OneWayRequest>>> oneWayRequestQueue = new ConcurrentHashMap<>();
-    private ConcurrentHashMap<Request, ProviderCallback<Reply>> replyCallbacks = new ConcurrentHashMap<Request, ProviderCallback<Reply>>();
 
     private ReplyCallerDirectory replyCallerDirectory;
     private ProviderDirectory providerDirectory;
     private RequestInterpreter requestInterpreter;
     private MessageSender messageSender;
     private MutableMessageFactory messageFactory;
-    // requestQueueLock protects requestQueue/oneWayRequestQueue, providerDirectory and replyCallbacks
+    // requestQueueLock protects requestQueue/oneWayRequestQueue, providerDirectory and cleanupSchedulerFuturesMap
     private Object requestQueueLock;
 
-    private ConcurrentMap<String, List<ScheduledFuture<?>>> cleanupSchedulerFuturesMap;
+    // at most one scheduled cleanup per provider participantId, see scheduleCleanup
+    private ConcurrentMap<String, ScheduledCleanup> cleanupSchedulerFuturesMap;
 
     private ScheduledExecutorService cleanupScheduler;
 
+    @Inject(optional = true)
+    @Named(MessagingPropertyKeys.PROPERTY_MESSAGING_INPROCESS_OBJECT_PASSING)
+    private boolean inProcessObjectPassing = false;
+
+    private static class QueuedRequest {
+        private final Request request;
+        private final ProviderCallback<Reply> replyCallback;
+
+        QueuedRequest(Request request, ProviderCallback<Reply> replyCallback) {
+            this.request = request;
+            this.replyCallback = replyCallback;
+        }
+    }
+
+    private static class ScheduledCleanup {
+        // set under requestQueueLock right after scheduling, the cleanup task itself only runs under this lock
+        private ScheduledFuture<?> future;
+        private final long expiryDateMs;
+
+        ScheduledCleanup(long expiryDateMs) {
+            this.expiryDateMs = expiryDateMs;
+        }
+    }
+
     @Inject
     // CHECKSTYLE:OFF
     public RequestReplyManagerImpl(MutableMessageFactory messageFactory,
@@ -125,10 +149,19 @@ public class RequestReplyManagerImpl
                             final DiscoveryEntryWithMetaInfo toDiscoveryEntry,
                             Request request,
                             MessagingQos messagingQos) {
-        MutableMessage message = messageFactory.createRequest(fromParticipantId,
-                                                              toDiscoveryEntry.getParticipantId(),
-                                                              request,
-                                                              messagingQos);
+        // requests to providers registered in this runtime do not need to be serialized
+        final boolean passRequestObject = inProcessObjectPassing
+                && providerDirectory.get(toDiscoveryEntry.getParticipantId()) != null;
+        MutableMessage message = passRequestObject
+                ? messageFactory.createRequest(fromParticipantId,
+                                               toDiscoveryEntry.getParticipantId(),
+                                               request,
+                                               messagingQos,
+                                               true)
+                : messageFactory.createRequest(fromParticipantId,
+                                               toDiscoveryEntry.getParticipantId(),
+                                               request,
+                                               messagingQos);
         message.setLocalMessage(toDiscoveryEntry.getIsLocal());
         message.setStatelessAsync(request.getStatelessAsyncCallbackMethodId() != null);
 
@@ -178,25 +211,25 @@ public class RequestReplyManagerImpl
         // saving all pending futures so that they can be cancelled at shutdown
         Reply response = null;
         outstandingRequestFutures.add(responseFuture);
-        if (!shuttingDown) {
-            try {
+        try {
+            if (!shuttingDown) {
                 response = responseFuture.get(messagingQos.getRoundTripTtl_ms(), TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-                throw new JoynrRequestInterruptedException("Request: " + request.getRequestReplyId()
-                        + " interrupted unexpectedly.");
-            } catch (ExecutionException e) {
-                throw new JoynrCommunicationException("Request: " + request.getRequestReplyId() + " failed: "
-                        + e.getMessage(), e);
-            } catch (TimeoutException e) {
-                throw new JoynrIllegalStateException("Request: " + request.getRequestReplyId()
-                        + " failed unexpectedly without response.");
-            } catch (CancellationException e) {
-                throw new JoynrShutdownException("Request: " + request.getRequestReplyId()
-                        + " interrupted by shutdown");
             }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            throw new JoynrRequestInterruptedException("Request: " + request.getRequestReplyId()
+                    + " interrupted unexpectedly.");
+        } catch (ExecutionException e) {
+            throw new JoynrCommunicationException("Request: " + request.getRequestReplyId() + " failed: "
+                    + e.getMessage(), e);
+        } catch (TimeoutException e) {
+            throw new JoynrIllegalStateException("Request: " + request.getRequestReplyId()
+                    + " failed unexpectedly without response.");
+        } catch (CancellationException e) {
+            throw new JoynrShutdownException("Request: " + request.getRequestReplyId() + " interrupted by shutdown");
+        } finally {
+            outstandingRequestFutures.remove(responseFuture);
         }
-        outstandingRequestFutures.remove(responseFuture);
 
         return response;
     }
@@ -239,31 +272,22 @@ public class RequestReplyManagerImpl
     @Override
     public void entryAdded(String participantId, ProviderContainer providerContainer) {
         RequestCaller requestCaller = providerContainer.getRequestCaller();
-        List<ScheduledFuture<?>> futuresList;
-        ConcurrentLinkedQueue<ContentWithExpiryDate<Request>> requestList;
-        LinkedList<ProviderCallback<Reply>> requestListCallbacks = new LinkedList<ProviderCallback<Reply>>();
+        ScheduledCleanup scheduledCleanup;
+        ConcurrentLinkedQueue<ContentWithExpiryDate<QueuedRequest>> requestList;
         ConcurrentLinkedQueue<ContentWithExpiryDate<OneWayRequest>> oneWayRequestList;
         synchronized (requestQueueLock) {
             requestList = requestQueue.remove(participantId);
-            if (requestList != null) {
-                for (ContentWithExpiryDate<Request> requestItem : requestList) {
-                    Request request = requestItem.getContent();
-                    requestListCallbacks.addLast(replyCallbacks.remove(request));
-                }
-            }
-
             oneWayRequestList = oneWayRequestQueue.remove(participantId);
-            futuresList = cleanupSchedulerFuturesMap.remove(participantId);
+            scheduledCleanup = cleanupSchedulerFuturesMap.remove(participantId);
         }
 
         if (requestList != null) {
-            for (ContentWithExpiryDate<Request> requestItem : requestList) {
-                ProviderCallback<Reply> callback = requestListCallbacks.removeFirst();
+            for (ContentWithExpiryDate<QueuedRequest> requestItem : requestList) {
+                QueuedRequest queuedRequest = requestItem.getContent();
                 if (!requestItem.isExpired()) {
-                    Request request = requestItem.getContent();
-                    handleRequest(callback, requestCaller, request);
+                    handleRequest(queuedRequest.replyCallback, requestCaller, queuedRequest.request);
                 } else {
-                    logger.warn("Request {} is expired. Not executing.", requestItem.getContent().getRequestReplyId());
+                    logger.warn("Request {} is expired. Not executing.", queuedRequest.request.getRequestReplyId());
                 }
             }
         }
@@ -279,10 +303,8 @@ public class RequestReplyManagerImpl
             }
         }
 
-        if (futuresList != null) {
-            for (ScheduledFuture<?> future : futuresList) {
-                future.cancel(false);
-            }
+        if (scheduledCleanup != null) {
+            scheduledCleanup.future.cancel(false);
         }
     }
 
@@ -332,35 +354,84 @@ public class RequestReplyManagerImpl
         final ContentWithExpiryDate<OneWayRequest> requestItem = new ContentWithExpiryDate<OneWayRequest>(oneWayRequest,
                                                                                                           expiryDate);
         oneWayRequestQueue.get(providerParticipantId).add(requestItem);
+        scheduleCleanup(providerParticipantId, expiryDate.getValue());
+    }
 
-        Runnable cleanupRunnable = new Runnable() {
-
-            @Override
-            public void run() {
-                synchronized (requestQueueLock) {
-                    ConcurrentLinkedQueue<ContentWithExpiryDate<OneWayRequest>> queue = oneWayRequestQueue.get(providerParticipantId);
-                    if (queue != null && queue.remove(requestItem)) {
-                        logger.warn("One-way request {} is expired. Not executing.", String.valueOf(oneWayRequest));
-                        if (queue.isEmpty()) {
-                            // cleanup
-                            oneWayRequestQueue.remove(providerParticipantId);
-                        }
+    /**
+     * Makes sure that the queues of the provider are cleaned up not later than the given expiry date.
+     * Only the cleanup for the earliest expiry date is scheduled, it removes all expired requests of the
+     * provider at once and then schedules itself for the next expiry date of the remaining requests.
+     */
+    // requires requestQueueLock
+    private void scheduleCleanup(final String providerParticipantId, long expiryDateMs) {
+        ScheduledCleanup scheduledCleanup = cleanupSchedulerFuturesMap.get(providerParticipantId);
+        if (scheduledCleanup != null) {
+            if (scheduledCleanup.expiryDateMs <= expiryDateMs) {
+                return;
+            }
+            scheduledCleanup.future.cancel(false);
+        }
+        // requests are expired only after their expiry date has passed, see ContentWithExpiryDate.isExpired
+        long delayMs = Math.max(0, expiryDateMs - System.currentTimeMillis()) + 1;
+        final ScheduledCleanup newCleanup = new ScheduledCleanup(expiryDateMs);
+        newCleanup.future = cleanupScheduler.schedule(() -> removeExpiredRequests(providerParticipantId, newCleanup),
+                                                      delayMs,
+                                                      TimeUnit.MILLISECONDS);
+        cleanupSchedulerFuturesMap.put(providerParticipantId, newCleanup);
+    }
+
+    private void removeExpiredRequests(final String providerParticipantId, final ScheduledCleanup thisCleanup) {
+        synchronized (requestQueueLock) {
+            if (!cleanupSchedulerFuturesMap.remove(providerParticipantId, thisCleanup)) {
+                // this cleanup was cancelled after it had already been started: it has been replaced by a cleanup
+                // for an earlier expiry date or the queues have been handed over to the registered provider
+                return;
+            }
+            long nextExpiryDateMs = Long.MAX_VALUE;
+
+            Queue<ContentWithExpiryDate<QueuedRequest>> requests = requestQueue.get(providerParticipantId);
+            if (requests != null) {
+                Iterator<ContentWithExpiryDate<QueuedRequest>> iterator = requests.iterator();
+                while (iterator.hasNext()) {
+                    ContentWithExpiryDate<QueuedRequest> requestItem = iterator.next();
+                    if (requestItem.isExpired()) {
+                        iterator.remove();
+                        Request request = requestItem.getContent().request;
+                        logger.warn("REQUEST expired and discarded: requestReplyId {}, providerParticipantId: {} request method: {}.",
+                                    request.getRequestReplyId(),
+                                    providerParticipantId,
+                                    request.getMethodName());
+                    } else {
+                        nextExpiryDateMs = Math.min(nextExpiryDateMs, requestItem.getExpiryDateMs());
                     }
                 }
+                if (requests.isEmpty()) {
+                    requestQueue.remove(providerParticipantId);
+                }
+            }
+
+            Queue<ContentWithExpiryDate<OneWayRequest>> oneWayRequests = oneWayRequestQueue.get(providerParticipantId);
+            if (oneWayRequests != null) {
+                Iterator<ContentWithExpiryDate<OneWayRequest>> iterator = oneWayRequests.iterator();
+                while (iterator.hasNext()) {
+                    ContentWithExpiryDate<OneWayRequest> requestItem = iterator.next();
+                    if (requestItem.isExpired()) {
+                        iterator.remove();
+                        logger.warn("One-way request {} is expired. Not executing.",
+                                    String.valueOf(requestItem.getContent()));
+                    } else {
+                        nextExpiryDateMs = Math.min(nextExpiryDateMs, requestItem.getExpiryDateMs());
+                    }
+                }
+                if (oneWayRequests.isEmpty()) {
+                    oneWayRequestQueue.remove(providerParticipantId);
+                }
             }
-        };
-        scheduleCleanup(providerParticipantId, cleanupRunnable, expiryDate);
-    }
 
-    private void scheduleCleanup(final String providerParticipantId, Runnable cleanupRunnable, ExpiryDate expiryDate) {
-        ScheduledFuture<?> cleanupSchedulerFuture = cleanupScheduler.schedule(cleanupRunnable,
-                                                                              expiryDate.getRelativeTtl(),
-                                                                              TimeUnit.MILLISECONDS);
-        if (!cleanupSchedulerFuturesMap.containsKey(providerParticipantId)) {
-            List<ScheduledFuture<?>> cleanupSchedulerFuturesList = new LinkedList<ScheduledFuture<?>>();
-            cleanupSchedulerFuturesMap.put(providerParticipantId, cleanupSchedulerFuturesList);
+            if (nextExpiryDateMs != Long.MAX_VALUE) {
+                scheduleCleanup(providerParticipantId, nextExpiryDateMs);
+            }
         }
-        cleanupSchedulerFuturesMap.get(providerParticipantId).add(cleanupSchedulerFuture);
     }
 
     @Override
@@ -395,36 +466,14 @@ public class RequestReplyManagerImpl
                               ExpiryDate expiryDate) {
 
         if (!requestQueue.containsKey(providerParticipantId)) {
-            ConcurrentLinkedQueue<ContentWithExpiryDate<Request>> newRequestList = new ConcurrentLinkedQueue<ContentWithExpiryDate<Request>>();
+            ConcurrentLinkedQueue<ContentWithExpiryDate<QueuedRequest>> newRequestList = new ConcurrentLinkedQueue<ContentWithExpiryDate<QueuedRequest>>();
             requestQueue.putIfAbsent(providerParticipantId, newRequestList);
         }
-        final ContentWithExpiryDate<Request> requestItem = new ContentWithExpiryDate<Request>(request, expiryDate);
+        final ContentWithExpiryDate<QueuedRequest> requestItem = new ContentWithExpiryDate<QueuedRequest>(new QueuedRequest(request,
+                                                                                                                            replyCallback),
+                                                                                                          expiryDate);
         requestQueue.get(providerParticipantId).add(requestItem);
-        replyCallbacks.put(request, replyCallback);
-
-        Runnable cleanupRunnable = new Runnable() {
-            @Override
-            public void run() {
-                synchronized (requestQueueLock) {
-                    ConcurrentLinkedQueue<ContentWithExpiryDate<Request>> queue = requestQueue.get(providerParticipantId);
-                    if (queue != null) {
-                        queue.remove(requestItem);
-                        if (queue.isEmpty()) {
-                            // cleanup
-                            oneWayRequestQueue.remove(providerParticipantId);
-                        }
-                    }
-                    replyCallbacks.remove(requestItem.getContent());
-                }
-                Request request = requestItem.getContent();
-                logger.warn("REQUEST expired and discarded: requestReplyId {}, providerParticipantId: {} request method: {}.",
-                            request.getRequestReplyId(),
-                            providerParticipantId,
-                            request.getMethodName());
-
-            }
-        };
-        scheduleCleanup(providerParticipantId, cleanupRunnable, expiryDate);
+        scheduleCleanup(providerParticipantId, expiryDate.getValue());
     }
 
     @Override
@@ -455,19 +504,16 @@ public class RequestReplyManagerImpl
 
     @Override
     public void shutdown() {
-        for (List<ScheduledFuture<?>> futuresList : cleanupSchedulerFuturesMap.values()) {
-            if (futuresList != null) {
-                for (ScheduledFuture<?> future : futuresList) {
-                    future.cancel(false);
-                }
+        synchronized (requestQueueLock) {
+            for (ScheduledCleanup scheduledCleanup : cleanupSchedulerFuturesMap.values()) {
+                scheduledCleanup.future.cancel(false);
             }
+            cleanupSchedulerFuturesMap.clear();
         }
         shuttingDown = true;
-        synchronized (outstandingRequestFutures) {
-            for (CompletableFuture<Reply> future : outstandingRequestFutures) {
-                logger.debug("Shutting down. Interrupting task: {}", future.toString());
-                future.cancel(true);
-            }
+        for (CompletableFuture<Reply> future : outstandingRequestFutures) {
+            logger.debug("Shutting down. Interrupting task: {}", future.toString());
+            future.cancel(true);
         }
         providerDirectory.removeListener(this);
     }
@@ -0,0 +1,112 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.dispatching.subscription;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import io.joynr.pubsub.publication.BroadcastFilter;
+
+/**
+ * Invokes the generated {@code filter} method of a broadcast filter. The method is looked up only once per filter
+ * class and bound to a {@link MethodHandle} which takes the broadcast values followed by the filter parameters.
+ */
+final class BroadcastFilterInvoker {
+
+    private static final BroadcastFilterInvoker NO_FILTER_METHOD = new BroadcastFilterInvoker(null, null);
+
+    private static final ClassValue<BroadcastFilterInvoker> INVOKERS = new ClassValue<BroadcastFilterInvoker>() {
+        @Override
+        protected BroadcastFilterInvoker computeValue(Class<?> filterClass) {
+            return create(filterClass);
+        }
+    };
+
+    // (BroadcastFilter, Object[])boolean
+    private final MethodHandle filterMethodHandle;
+    private final Class<?> filterParametersType;
+
+    private BroadcastFilterInvoker(MethodHandle filterMethodHandle, Class<?> filterParametersType) {
+        this.filterMethodHandle = filterMethodHandle;
+        this.filterParametersType = filterParametersType;
+    }
+
+    static BroadcastFilterInvoker forFilter(BroadcastFilter filter) {
+        return INVOKERS.get(filter.getClass());
+    }
+
+    private static BroadcastFilterInvoker create(Class<?> filterClass) {
+        Method filterMethod = null;
+        for (Method method : filterClass.getMethods()) {
+            if (method.getName().equals("filter")) {
+                filterMethod = method;
+                break;
+            }
+        }
+        if (filterMethod == null) {
+            return NO_FILTER_METHOD;
+        }
+        if (!filterMethod.isAccessible()) {
+            filterMethod.setAccessible(true);
+        }
+
+        int parameterCount = filterMethod.getParameterCount();
+        try {
+            MethodHandle methodHandle = MethodHandles.lookup()
+                                                     .unreflect(filterMethod)
+                                                     .asType(MethodType.genericMethodType(parameterCount + 1)
+                                                                       .changeParameterType(0, BroadcastFilter.class)
+                                                                       .changeReturnType(boolean.class));
+            return new BroadcastFilterInvoker(methodHandle.asSpreader(Object[].class, parameterCount),
+                                              filterMethod.getParameterTypes()[parameterCount - 1]);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access filter method of " + filterClass.getName(), e);
+        }
+    }
+
+    /**
+     * @return false if the filter class does not declare a filter method, i.e. the broadcast must not be filtered
+     */
+    boolean hasFilterMethod() {
+        return filterMethodHandle != null;
+    }
+
+    Class<?> getFilterParametersType() {
+        return filterParametersType;
+    }
+
+    /**
+     * @param filter the filter to be invoked
+     * @param args the broadcast values, the last element has to be set to the filter parameters
+     * @return the result of the filter method
+     * @throws Exception if the filter method throws an exception; errors are propagated unchanged
+     */
+    boolean invoke(BroadcastFilter filter, Object[] args) throws Exception {
+        try {
+            return (boolean) filterMethodHandle.invokeExact(filter, args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unexpected throwable in filter method of " + filter.getClass().getName(),
+                                            e);
+        }
+    }
+}
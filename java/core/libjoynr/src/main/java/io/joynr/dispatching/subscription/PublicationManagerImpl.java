@@ -19,9 +19,11 @@
 package io.joynr.dispatching.subscription;
 
 import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
+import static io.joynr.util.JoynrUtil.createUuidString;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -34,6 +36,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +58,8 @@ import io.joynr.exceptions.JoynrSendBufferFullException;
 import io.joynr.exceptions.SubscriptionException;
 import io.joynr.messaging.ConfigurableMessagingSettings;
 import io.joynr.messaging.MessagingQos;
+import io.joynr.messaging.routing.MessageProcessedListener;
+import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.messaging.routing.RoutingTable;
 import io.joynr.provider.Promise;
 import io.joynr.provider.PromiseListener;
@@ -82,8 +87,8 @@ import joynr.UnicastSubscriptionQos;
 import joynr.exceptions.ProviderRuntimeException;
 
 @Singleton
-public class PublicationManagerImpl
-        implements PublicationManager, DirectoryListener<ProviderContainer>, ShutdownListener {
+public class PublicationManagerImpl implements PublicationManager, DirectoryListener<ProviderContainer>,
+        ShutdownListener, MessageProcessedListener {
     private static final Logger logger = LoggerFactory.getLogger(PublicationManagerImpl.class);
     // Map ProviderId -> SubscriptionRequest
     private final MultiMap<String, PublicationInformation> queuedSubscriptionRequests;
@@ -99,18 +104,31 @@ public class PublicationManagerImpl
     private final ConcurrentMap<String, UnregisterBroadcastListener> unregisterBroadcastListeners;
     // Map provider participant ID -> MulticastListener
     private final ConcurrentMap<String, MulticastListener> multicastListeners;
+    // Map provider participant ID -> lock and subscription IDs of the provider's publications
+    private final ConcurrentMap<String, ProviderSubscriptions> providerSubscriptions;
+    // Map message ID -> PublicationInformation of outstanding publications of conflated subscriptions
+    private final ConcurrentMap<String, PublicationInformation> outstandingConflatedPublications;
 
     private AttributePollInterpreter attributePollInterpreter;
     private ScheduledExecutorService cleanupScheduler;
     private Dispatcher dispatcher;
     private ProviderDirectory providerDirectory;
     private RoutingTable routingTable;
-
-    // protect the maps (see members above) and providerDirectory during add and remove of subscriptions or providers
-    // to avoid race conditions, e.g. race conditions between providerDirectory and queuedSubscriptionRequests
+    // optional to keep the constructor stable, publications are not conflated without it
+    private MessageRouter messageRouter;
+    private volatile boolean messageProcessedListenerRegistered = false;
+
+    // The entries of the maps (see members above) which belong to a subscription are protected by the provider lock
+    // of the subscription's provider (see ProviderSubscriptions) during add and remove of subscriptions or providers
+    // to avoid race conditions, e.g. race conditions between providerDirectory and queuedSubscriptionRequests.
+    // Subscriptions of different providers can be added and removed concurrently.
     // protected members: subscriptionId2PublicationInformation, queuedSubscriptionRequests, publicationTimers,
     // subscriptionEndFutures, unregisterAttributeListeners, unregisterBroadcastListeners
-    private Object addRemoveLock;
+    // Lock order: the provider directory calls entryAdded and entryRemoved while holding its monitor, so its monitor
+    // has to be acquired before a provider lock. No code path holding a provider lock must call into the provider
+    // directory (see getProviderContainer), and a provider lock must not be acquired while holding another one.
+    // The monitor is never held while blocking on a provider lock (see addSubscriptionRequest), so a busy provider
+    // does not delay the registration of other providers.
 
     @Inject(optional = true)
     @Named(ConfigurableMessagingSettings.PROPERTY_TTL_UPLIFT_MS)
@@ -124,6 +142,12 @@ public class PublicationManagerImpl
         private String proxyParticipantId;
         private SubscriptionRequest subscriptionRequest;
         private PubSubState pubState;
+        // Map filter parameters type -> filter parameters of a broadcast subscription, created on first use
+        private final ConcurrentMap<Class<?>, BroadcastFilterParameters> derivedFilterParameters = new ConcurrentHashMap<>();
+        // state of conflated subscriptions, guarded by this
+        private String outstandingPublicationMessageId;
+        private long outstandingPublicationSentMs;
+        private SubscriptionPublication pendingPublication;
 
         PublicationInformation(String providerParticipantId,
                                String proxyParticipantId,
@@ -194,6 +218,30 @@ public class PublicationManagerImpl
         public String getSubscribedToName() {
             return subscriptionRequest.getSubscribedToName();
         }
+
+        BroadcastFilterParameters getDerivedFilterParameters(Class<?> filterParametersType) throws ReflectiveOperationException {
+            BroadcastFilterParameters filterParameters = derivedFilterParameters.get(filterParametersType);
+            if (filterParameters == null) {
+                filterParameters = (BroadcastFilterParameters) filterParametersType.newInstance();
+                filterParameters.setFilterParameters(((BroadcastSubscriptionRequest) subscriptionRequest).getFilterParameters()
+                                                                                                        .getFilterParameters());
+                BroadcastFilterParameters previous = derivedFilterParameters.putIfAbsent(filterParametersType,
+                                                                                         filterParameters);
+                if (previous != null) {
+                    filterParameters = previous;
+                }
+            }
+            return filterParameters;
+        }
+    }
+
+    // Lock and index of the publications of a single provider
+    private static class ProviderSubscriptions {
+        private final ReentrantLock lock = new ReentrantLock();
+        // subscription IDs of all entries of subscriptionId2PublicationInformation which belong to the provider
+        private final Set<String> subscriptionIds = new HashSet<>();
+        // set when the entry has been removed from providerSubscriptions, a new entry has to be created then
+        private boolean retired = false;
     }
 
     // CHECKSTYLE:OFF
@@ -210,7 +258,6 @@ public class PublicationManagerImpl
         this.dispatcher = dispatcher;
         this.providerDirectory = providerDirectory;
         this.routingTable = routingTable;
-        this.addRemoveLock = new Object();
         this.cleanupScheduler = cleanupScheduler;
         this.subscriptionRequestStorage = subscriptionRequestStorage;
         this.queuedSubscriptionRequests = new MultiMap<>();
@@ -220,6 +267,8 @@ public class PublicationManagerImpl
         this.unregisterAttributeListeners = new ConcurrentHashMap<>();
         this.unregisterBroadcastListeners = new ConcurrentHashMap<>();
         this.multicastListeners = new ConcurrentHashMap<>();
+        this.providerSubscriptions = new ConcurrentHashMap<>();
+        this.outstandingConflatedPublications = new ConcurrentHashMap<>();
         this.attributePollInterpreter = attributePollInterpreter;
         this.subscriptionRequestPersistency = subscriptionRequestPersistency;
         providerDirectory.addListener(this);
@@ -231,6 +280,64 @@ public class PublicationManagerImpl
     }
     // CHECKSTYLE:ON
 
+    @Inject(optional = true)
+    void setMessageRouter(MessageRouter messageRouter) {
+        this.messageRouter = messageRouter;
+    }
+
+    private ProviderSubscriptions lockProviderSubscriptions(String providerParticipantId) {
+        while (true) {
+            ProviderSubscriptions subscriptions = providerSubscriptions.computeIfAbsent(providerParticipantId,
+                                                                                        k -> new ProviderSubscriptions());
+            subscriptions.lock.lock();
+            if (!subscriptions.retired) {
+                return subscriptions;
+            }
+            subscriptions.lock.unlock();
+        }
+    }
+
+    private boolean isAnyProviderLockHeldByCurrentThread() {
+        for (ProviderSubscriptions subscriptions : providerSubscriptions.values()) {
+            if (subscriptions.lock.isHeldByCurrentThread()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ProviderContainer getProviderContainer(String providerParticipantId) {
+        assert !isAnyProviderLockHeldByCurrentThread() : "Provider directory called while holding a provider lock";
+        return providerDirectory.get(providerParticipantId);
+    }
+
+    private void unlockProviderSubscriptions(String providerParticipantId, ProviderSubscriptions subscriptions) {
+        if (subscriptions.subscriptionIds.isEmpty()) {
+            subscriptions.retired = true;
+            providerSubscriptions.remove(providerParticipantId, subscriptions);
+        }
+        subscriptions.lock.unlock();
+    }
+
+    // requires provider lock
+    private void putPublicationInformation(ProviderSubscriptions subscriptions,
+                                           PublicationInformation publicationInformation) {
+        subscriptionId2PublicationInformation.put(publicationInformation.getSubscriptionId(), publicationInformation);
+        subscriptions.subscriptionIds.add(publicationInformation.getSubscriptionId());
+    }
+
+    // requires provider lock
+    private PublicationInformation removePublicationInformation(String subscriptionId) {
+        PublicationInformation publicationInformation = subscriptionId2PublicationInformation.remove(subscriptionId);
+        if (publicationInformation != null) {
+            ProviderSubscriptions subscriptions = providerSubscriptions.get(publicationInformation.getProviderParticipantId());
+            if (subscriptions != null) {
+                subscriptions.subscriptionIds.remove(subscriptionId);
+            }
+        }
+        return publicationInformation;
+    }
+
     private void queueSavedSubscriptionRequests() {
 
         MultiMap<String, PersistedSubscriptionRequest> persistedSubscriptionRequests = subscriptionRequestStorage.getSavedSubscriptionRequests();
@@ -252,7 +359,7 @@ public class PublicationManagerImpl
         }
     }
 
-    // requires addRemoveLock: publicationTimers, handleOnChangeSubscription
+    // requires provider lock: publicationTimers, handleOnChangeSubscription
     private void handleSubscriptionRequest(PublicationInformation publicationInformation,
                                            SubscriptionRequest subscriptionRequest,
                                            ProviderContainer providerContainer) {
@@ -274,7 +381,8 @@ public class PublicationManagerImpl
                                                                     method,
                                                                     providerContainer,
                                                                     this,
-                                                                    attributePollInterpreter);
+                                                                    attributePollInterpreter,
+                                                                    cleanupScheduler);
 
                 timer.startTimer();
                 publicationTimers.put(subscriptionId, timer);
@@ -307,7 +415,7 @@ public class PublicationManagerImpl
         return messagingQos;
     }
 
-    // requires addRemoveLock: unregisterAttributeListeners
+    // requires provider lock: unregisterAttributeListeners
     private void handleOnChangeSubscription(SubscriptionRequest subscriptionRequest,
                                             ProviderContainer providerContainer,
                                             String subscriptionId) {
@@ -321,7 +429,7 @@ public class PublicationManagerImpl
                                                                          attributeListener));
     }
 
-    // requires addRemoveLock: unregisterBroadcastListeners
+    // requires provider lock: unregisterBroadcastListeners
     private void handleBroadcastSubscriptionRequest(String proxyParticipantId,
                                                     String providerParticipantId,
                                                     BroadcastSubscriptionRequest subscriptionRequest,
@@ -360,7 +468,7 @@ public class PublicationManagerImpl
                                          createMessagingQos(subscriptionRequest.getQos()));
     }
 
-    // requires addRemoveLock: handleSubscriptionRequest, handleBroadcastSubscriptionRequest,
+    // requires provider lock: handleSubscriptionRequest, handleBroadcastSubscriptionRequest,
     // subscriptionId2PublicationInformation, addSubscriptionCleanupIfNecessary
     private void addSubscriptionRequestInternal(PublicationInformation publicationInformation,
                                                 ProviderContainer providerContainer) {
@@ -399,7 +507,7 @@ public class PublicationManagerImpl
                                          messagingQos);
     }
 
-    // requires addRemoveLock: subscriptionEndFutures
+    // requires provider lock: subscriptionEndFutures
     private void updateSubscriptionCleanupIfNecessary(SubscriptionRequest subscriptionRequest,
                                                       long subscriptionEndDelay) {
         ScheduledFuture<?> future = subscriptionEndFutures.remove(subscriptionRequest.getSubscriptionId());
@@ -416,9 +524,7 @@ public class PublicationManagerImpl
                 @Override
                 public void run() {
                     logger.trace("Publication with Id {} expired...", subscriptionId);
-                    synchronized (addRemoveLock) {
-                        removePublication(subscriptionId);
-                    }
+                    lockProviderAndRemovePublication(subscriptionId);
                 }
 
             }, subscriptionEndDelay, TimeUnit.MILLISECONDS);
@@ -459,56 +565,90 @@ public class PublicationManagerImpl
                                                                   subscriptionRequest);
         }
 
-        synchronized (providerDirectory) {
-            synchronized (addRemoveLock) {
-                PublicationInformation publicationInformation = new PublicationInformation(providerParticipantId,
-                                                                                           proxyParticipantId,
-                                                                                           subscriptionRequest);
-                try {
-                    final boolean isMulticastSubscriptionRequest = subscriptionRequest instanceof MulticastSubscriptionRequest;
-                    boolean isMulticastQueued = false;
-                    if (!isMulticastSubscriptionRequest) {
-                        routingTable.incrementReferenceCount(proxyParticipantId);
+        ProviderContainer providerContainer;
+        ProviderSubscriptions subscriptions;
+        while (true) {
+            ProviderSubscriptions candidate = providerSubscriptions.computeIfAbsent(providerParticipantId,
+                                                                                    k -> new ProviderSubscriptions());
+            subscriptions = null;
+            // the provider directory calls entryAdded and entryRemoved while holding its monitor, hence the provider
+            // lock has to be acquired while holding the monitor as well to avoid lock order inversion. The monitor
+            // is only held for the lookup of the provider, a busy provider lock is waited for outside of it.
+            synchronized (providerDirectory) {
+                providerContainer = getProviderContainer(providerParticipantId);
+                if (candidate.lock.tryLock()) {
+                    if (candidate.retired) {
+                        candidate.lock.unlock();
+                    } else {
+                        subscriptions = candidate;
                     }
+                }
+            }
+            if (subscriptions == null) {
+                candidate.lock.lock();
+                candidate.lock.unlock();
+                continue;
+            }
+            // an update of an existing subscription which moves it to another provider has to remove the old
+            // publication under the lock of the old provider. The check is done under the lock of the new provider,
+            // which is released before, since two provider locks must not be held at the same time.
+            PublicationInformation existingEntry = subscriptionId2PublicationInformation.get(subscriptionRequest.getSubscriptionId());
+            if (existingEntry == null || existingEntry.getProviderParticipantId().equals(providerParticipantId)) {
+                break;
+            }
+            unlockProviderSubscriptions(providerParticipantId, subscriptions);
+            lockProviderAndRemovePublication(subscriptionRequest.getSubscriptionId());
+        }
+        try {
+            PublicationInformation publicationInformation = new PublicationInformation(providerParticipantId,
+                                                                                       proxyParticipantId,
+                                                                                       subscriptionRequest);
+            try {
+                final boolean isMulticastSubscriptionRequest = subscriptionRequest instanceof MulticastSubscriptionRequest;
+                boolean isMulticastQueued = false;
+                if (!isMulticastSubscriptionRequest) {
+                    routingTable.incrementReferenceCount(proxyParticipantId);
+                }
 
-                    long subscriptionEndDelay = validateAndGetSubscriptionEndDelay(subscriptionRequest);
-                    ProviderContainer providerContainer = providerDirectory.get(providerParticipantId);
-                    if (providerContainer != null) {
-                        addSubscriptionRequestInternal(publicationInformation, providerContainer);
-                        logger.trace("Publication added: {}", subscriptionRequest.toString());
-                    } else {
+                long subscriptionEndDelay = validateAndGetSubscriptionEndDelay(subscriptionRequest);
+                if (providerContainer != null) {
+                    addSubscriptionRequestInternal(publicationInformation, providerContainer);
+                    logger.trace("Publication added: {}", subscriptionRequest.toString());
+                } else {
+                    synchronized (queuedSubscriptionRequests) {
                         queuedSubscriptionRequests.put(providerParticipantId, publicationInformation);
-                        if (isMulticastSubscriptionRequest) {
-                            isMulticastQueued = true;
-                        }
-                        logger.trace("Added subscription request for non existing provider to queue.");
                     }
-
-                    PublicationInformation oldEntry = subscriptionId2PublicationInformation.remove(subscriptionRequest.getSubscriptionId());
-                    if (oldEntry != null && !(oldEntry.subscriptionRequest instanceof MulticastSubscriptionRequest)) {
-                        routingTable.remove(proxyParticipantId);
+                    if (isMulticastSubscriptionRequest) {
+                        isMulticastQueued = true;
                     }
+                    logger.trace("Added subscription request for non existing provider to queue.");
+                }
 
-                    if (!isMulticastSubscriptionRequest || isMulticastQueued) {
-                        subscriptionId2PublicationInformation.put(subscriptionRequest.getSubscriptionId(),
-                                                                  publicationInformation);
-                    }
-                    updateSubscriptionCleanupIfNecessary(subscriptionRequest, subscriptionEndDelay);
-
-                } catch (SubscriptionException e) {
-                    sendSubscriptionReplyWithError(e, publicationInformation, subscriptionRequest);
-                } catch (JoynrIllegalStateException e) {
-                    logger.error("Proxy participant ID {} unknown to routing table.", proxyParticipantId);
-                    sendSubscriptionReplyWithError(new SubscriptionException(subscriptionRequest.getSubscriptionId(),
-                                                                             e.getMessage()),
-                                                   publicationInformation,
-                                                   subscriptionRequest);
+                PublicationInformation oldEntry = removePublicationInformation(subscriptionRequest.getSubscriptionId());
+                if (oldEntry != null && !(oldEntry.subscriptionRequest instanceof MulticastSubscriptionRequest)) {
+                    routingTable.remove(proxyParticipantId);
+                }
+
+                if (!isMulticastSubscriptionRequest || isMulticastQueued) {
+                    putPublicationInformation(subscriptions, publicationInformation);
                 }
+                updateSubscriptionCleanupIfNecessary(subscriptionRequest, subscriptionEndDelay);
+
+            } catch (SubscriptionException e) {
+                sendSubscriptionReplyWithError(e, publicationInformation, subscriptionRequest);
+            } catch (JoynrIllegalStateException e) {
+                logger.error("Proxy participant ID {} unknown to routing table.", proxyParticipantId);
+                sendSubscriptionReplyWithError(new SubscriptionException(subscriptionRequest.getSubscriptionId(),
+                                                                         e.getMessage()),
+                                               publicationInformation,
+                                               subscriptionRequest);
             }
+        } finally {
+            unlockProviderSubscriptions(providerParticipantId, subscriptions);
         }
     }
 
-    // requires requestQueueLock: subscriptionId2PublicationInformation, queuedSubscriptionRequests, publicationTimers,
+    // requires provider lock: subscriptionId2PublicationInformation, queuedSubscriptionRequests, publicationTimers,
     // subscriptionEndFutures, unregisterAttributeListeners, unregisterBroadcastListeners
     private void removePublication(String subscriptionId) {
         if (!cancelQueuedAndOngoingPublication(subscriptionId)) {
@@ -518,13 +658,42 @@ public class PublicationManagerImpl
         if (future != null) {
             future.cancel(true);
         }
-        PublicationInformation publicationInformation = subscriptionId2PublicationInformation.remove(subscriptionId);
+        PublicationInformation publicationInformation = removePublicationInformation(subscriptionId);
         if (!(publicationInformation.getSubscriptionRequest() instanceof MulticastSubscriptionRequest)) {
             routingTable.remove(publicationInformation.getProxyParticipantId());
         }
+        synchronized (publicationInformation) {
+            if (publicationInformation.outstandingPublicationMessageId != null) {
+                outstandingConflatedPublications.remove(publicationInformation.outstandingPublicationMessageId);
+            }
+            publicationInformation.pendingPublication = null;
+        }
     }
 
-    // requires addRemoveLock
+    /**
+     * Removes the publication while holding the lock of its provider
+     *
+     * @param subscriptionId subscription ID of the publication to be removed
+     */
+    private void lockProviderAndRemovePublication(String subscriptionId) {
+        PublicationInformation publicationInformation;
+        while ((publicationInformation = subscriptionId2PublicationInformation.get(subscriptionId)) != null) {
+            String providerParticipantId = publicationInformation.getProviderParticipantId();
+            ProviderSubscriptions subscriptions = lockProviderSubscriptions(providerParticipantId);
+            try {
+                // the subscription might have been updated for another provider in the meantime
+                PublicationInformation current = subscriptionId2PublicationInformation.get(subscriptionId);
+                if (current == null || current.getProviderParticipantId().equals(providerParticipantId)) {
+                    removePublication(subscriptionId);
+                    return;
+                }
+            } finally {
+                unlockProviderSubscriptions(providerParticipantId, subscriptions);
+            }
+        }
+    }
+
+    // requires provider lock
     private boolean cancelQueuedAndOngoingPublication(String subscriptionId) {
         PublicationInformation publicationInformation = subscriptionId2PublicationInformation.get(subscriptionId);
         if (publicationInformation == null) {
@@ -532,7 +701,10 @@ public class PublicationManagerImpl
         }
 
         // Remove (eventually) queued subcriptionRequest
-        queuedSubscriptionRequests.remove(publicationInformation.getProviderParticipantId(), publicationInformation);
+        synchronized (queuedSubscriptionRequests) {
+            queuedSubscriptionRequests.remove(publicationInformation.getProviderParticipantId(),
+                                              publicationInformation);
+        }
 
         PublicationTimer publicationTimer = publicationTimers.remove(subscriptionId);
         if (publicationTimer != null) {
@@ -596,9 +768,7 @@ public class PublicationManagerImpl
             return;
         }
         try {
-            synchronized (addRemoveLock) {
-                removePublication(subscriptionId);
-            }
+            lockProviderAndRemovePublication(subscriptionId);
         } catch (Exception e) {
             JoynrRuntimeException error = new JoynrRuntimeException("Error stopping subscription " + subscriptionId
                     + ": " + e);
@@ -606,20 +776,19 @@ public class PublicationManagerImpl
         }
     }
 
-    // requires addRemoveLock: subscriptionId2PublicationInformation, removePublication, queuedSubscriptionRequests
+    // requires provider lock: subscriptionId2PublicationInformation, removePublication, queuedSubscriptionRequests
     /**
      * Stops all publications for a provider
      *
      * @param providerParticipantId provider for which all publication should be stopped
+     * @param subscriptions the locked subscriptions of the provider
      */
-    private void stopPublicationByProviderId(String providerParticipantId) {
-        for (PublicationInformation publicationInformation : subscriptionId2PublicationInformation.values()) {
-            if (publicationInformation.getProviderParticipantId().equals(providerParticipantId)) {
-                removePublication(publicationInformation.getSubscriptionId());
-            }
+    private void stopPublicationByProviderId(String providerParticipantId, ProviderSubscriptions subscriptions) {
+        for (String subscriptionId : new ArrayList<>(subscriptions.subscriptionIds)) {
+            removePublication(subscriptionId);
         }
 
-        if (providerParticipantId != null && queuedSubscriptionRequests.containsKey(providerParticipantId)) {
+        synchronized (queuedSubscriptionRequests) {
             queuedSubscriptionRequests.removeAll(providerParticipantId);
         }
     }
@@ -639,9 +808,13 @@ public class PublicationManagerImpl
      * @param providerContainer provider container
      */
     private void restoreQueuedSubscription(String providerId, ProviderContainer providerContainer) {
-        synchronized (addRemoveLock) {
+        ProviderSubscriptions subscriptions = lockProviderSubscriptions(providerId);
+        try {
             // After the provider is registered, the queued requests must be subsequently removed
-            Collection<PublicationInformation> queuedRequests = queuedSubscriptionRequests.getAndRemoveAll(providerId);
+            Collection<PublicationInformation> queuedRequests;
+            synchronized (queuedSubscriptionRequests) {
+                queuedRequests = queuedSubscriptionRequests.getAndRemoveAll(providerId);
+            }
             Iterator<PublicationInformation> queuedRequestsIterator = queuedRequests.iterator();
             while (queuedRequestsIterator.hasNext()) {
                 PublicationInformation publicationInformation = queuedRequestsIterator.next();
@@ -649,7 +822,7 @@ public class PublicationManagerImpl
                     try {
                         addSubscriptionRequestInternal(publicationInformation, providerContainer);
                         if (publicationInformation.getSubscriptionRequest() instanceof MulticastSubscriptionRequest) {
-                            subscriptionId2PublicationInformation.remove(publicationInformation.getSubscriptionId());
+                            removePublicationInformation(publicationInformation.getSubscriptionId());
                         }
                     } catch (SubscriptionException e) {
                         removePublication(publicationInformation.getSubscriptionId());
@@ -660,6 +833,8 @@ public class PublicationManagerImpl
 
                 }
             }
+        } finally {
+            unlockProviderSubscriptions(providerId, subscriptions);
         }
     }
 
@@ -669,9 +844,7 @@ public class PublicationManagerImpl
         PublicationInformation publicationInformation = subscriptionId2PublicationInformation.get(subscriptionId);
         if (publicationInformation != null) {
             if (isExpired(publicationInformation)) {
-                synchronized (addRemoveLock) {
-                    removePublication(subscriptionId);
-                }
+                lockProviderAndRemovePublication(subscriptionId);
             } else {
                 // no lock for publicationTimers
                 PublicationTimer publicationTimer = publicationTimers.get(subscriptionId);
@@ -722,35 +895,19 @@ public class PublicationManagerImpl
                                        Object[] values) {
 
         if (filters != null && filters.size() > 0) {
-            BroadcastSubscriptionRequest subscriptionRequest = (BroadcastSubscriptionRequest) publicationInformation.subscriptionRequest;
-            BroadcastFilterParameters filterParameters = subscriptionRequest.getFilterParameters();
+            Object[] args = Arrays.copyOf(values, values.length + 1);
 
             for (BroadcastFilter filter : filters) {
-                Method filterMethod = null;
                 try {
-                    Method[] methodsOfFilterClass = filter.getClass().getMethods();
-                    for (Method method : methodsOfFilterClass) {
-                        if (method.getName().equals("filter")) {
-                            filterMethod = method;
-                            break;
-                        }
-                    }
-                    if (filterMethod == null) {
+                    BroadcastFilterInvoker filterInvoker = BroadcastFilterInvoker.forFilter(filter);
+                    if (!filterInvoker.hasFilterMethod()) {
                         // no filtering
                         return true;
                     }
 
-                    if (!filterMethod.isAccessible()) {
-                        filterMethod.setAccessible(true);
-                    }
-
-                    Class<?> filterParametersType = filterMethod.getParameterTypes()[values.length];
-                    BroadcastFilterParameters filterParametersDerived = (BroadcastFilterParameters) filterParametersType.newInstance();
-                    filterParametersDerived.setFilterParameters(filterParameters.getFilterParameters());
-                    Object[] args = Arrays.copyOf(values, values.length + 1);
-                    args[args.length - 1] = filterParametersDerived;
+                    args[args.length - 1] = publicationInformation.getDerivedFilterParameters(filterInvoker.getFilterParametersType());
 
-                    if ((Boolean) filterMethod.invoke(filter, args) == false) {
+                    if (!filterInvoker.invoke(filter, args)) {
                         return false;
                     }
                 } catch (Exception e) {
@@ -837,6 +994,10 @@ public class PublicationManagerImpl
         MessagingQos messagingQos = new MessagingQos();
         // TTL uplift will be done in JoynrMessageFactory
         messagingQos.setTtl_ms(publicationInformation.getQos().getPublicationTtlMs());
+        if (isConflated(publicationInformation)) {
+            sendConflatedPublication(publication, publicationInformation, messagingQos);
+            return;
+        }
         Set<String> toParticipantIds = new HashSet<>();
         toParticipantIds.add(publicationInformation.proxyParticipantId);
         dispatcher.sendSubscriptionPublication(publicationInformation.providerParticipantId,
@@ -846,6 +1007,82 @@ public class PublicationManagerImpl
         publicationInformation.getState().updateTimeOfLastPublication();
     }
 
+    private boolean isConflated(PublicationInformation publicationInformation) {
+        SubscriptionQos qos = publicationInformation.subscriptionRequest.getQos();
+        return messageRouter != null && qos instanceof OnChangeSubscriptionQos
+                && ((OnChangeSubscriptionQos) qos).getConflatePublications();
+    }
+
+    /**
+     * Sends the publication if no other publication of the subscription is outstanding. Otherwise the publication
+     * replaces the pending one which is sent as soon as the outstanding publication has been processed by the
+     * message router. An outstanding publication whose TTL has passed is not waited for.
+     */
+    private void sendConflatedPublication(SubscriptionPublication publication,
+                                          PublicationInformation publicationInformation,
+                                          MessagingQos messagingQos) {
+        registerMessageProcessedListenerIfNecessary();
+        final String messageId = createUuidString();
+        synchronized (publicationInformation) {
+            if (publicationInformation.outstandingPublicationMessageId != null) {
+                long outstandingMs = System.currentTimeMillis() - publicationInformation.outstandingPublicationSentMs;
+                if (outstandingMs < messagingQos.getRoundTripTtl_ms()) {
+                    logger.trace("Conflating publication for subscription {}", publication.getSubscriptionId());
+                    publicationInformation.pendingPublication = publication;
+                    return;
+                }
+                outstandingConflatedPublications.remove(publicationInformation.outstandingPublicationMessageId);
+            }
+            publicationInformation.outstandingPublicationMessageId = messageId;
+            publicationInformation.outstandingPublicationSentMs = System.currentTimeMillis();
+            publicationInformation.pendingPublication = null;
+            outstandingConflatedPublications.put(messageId, publicationInformation);
+        }
+        try {
+            dispatcher.sendSubscriptionPublication(publicationInformation.providerParticipantId,
+                                                   publicationInformation.proxyParticipantId,
+                                                   publication,
+                                                   messagingQos,
+                                                   messageId);
+        } catch (RuntimeException e) {
+            messageProcessed(messageId);
+            throw e;
+        }
+        publicationInformation.getState().updateTimeOfLastPublication();
+    }
+
+    private void registerMessageProcessedListenerIfNecessary() {
+        if (!messageProcessedListenerRegistered) {
+            synchronized (outstandingConflatedPublications) {
+                if (!messageProcessedListenerRegistered) {
+                    messageRouter.registerMessageProcessedListener(this);
+                    messageProcessedListenerRegistered = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void messageProcessed(String messageId) {
+        PublicationInformation publicationInformation = outstandingConflatedPublications.remove(messageId);
+        if (publicationInformation == null) {
+            return;
+        }
+        SubscriptionPublication pendingPublication;
+        synchronized (publicationInformation) {
+            if (!messageId.equals(publicationInformation.outstandingPublicationMessageId)) {
+                return;
+            }
+            publicationInformation.outstandingPublicationMessageId = null;
+            pendingPublication = publicationInformation.pendingPublication;
+            publicationInformation.pendingPublication = null;
+        }
+        if (pendingPublication != null
+                && subscriptionId2PublicationInformation.get(publicationInformation.getSubscriptionId()) == publicationInformation) {
+            sendPublication(pendingPublication, publicationInformation);
+        }
+    }
+
     @Override
     public void multicastOccurred(String providerParticipantId,
                                   String multicastName,
@@ -878,13 +1115,16 @@ public class PublicationManagerImpl
 
     @Override
     public void entryRemoved(String providerParticipantId) {
-        synchronized (addRemoveLock) {
-            stopPublicationByProviderId(providerParticipantId);
-            ProviderContainer providerContainer = providerDirectory.get(providerParticipantId);
-            if (providerContainer != null) {
-                providerContainer.getSubscriptionPublisher()
-                                 .unregisterMulticastListener(multicastListeners.remove(providerParticipantId));
-            }
+        ProviderSubscriptions subscriptions = lockProviderSubscriptions(providerParticipantId);
+        try {
+            stopPublicationByProviderId(providerParticipantId, subscriptions);
+        } finally {
+            unlockProviderSubscriptions(providerParticipantId, subscriptions);
+        }
+        ProviderContainer providerContainer = getProviderContainer(providerParticipantId);
+        if (providerContainer != null) {
+            providerContainer.getSubscriptionPublisher()
+                             .unregisterMulticastListener(multicastListeners.remove(providerParticipantId));
         }
     }
 
@@ -898,5 +1138,8 @@ public class PublicationManagerImpl
             }
         }
         providerDirectory.removeListener(this);
+        if (messageProcessedListenerRegistered) {
+            messageRouter.unregisterMessageProcessedListener(this);
+        }
     }
 }
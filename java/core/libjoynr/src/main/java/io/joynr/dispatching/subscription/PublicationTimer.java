@@ -23,6 +23,9 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,8 +57,11 @@ public class PublicationTimer extends PubSubTimerBase {
     private final long publicationTtl;
     private final long minInterval;
     private final long period;
-    private boolean pendingPublication;
     private final PublicationManager publicationManager;
+    private final ScheduledExecutorService scheduler;
+    // latest publication which is deferred until minInterval has passed, guarded by this
+    private SubscriptionPublication pendingPublication;
+    private ScheduledFuture<?> pendingPublicationFuture;
 
     /**
      * Constructor for PublicationTimer object, see (@link PublicationTimer)
@@ -64,12 +70,14 @@ public class PublicationTimer extends PubSubTimerBase {
      * @param providerContainer request caller
      * @param publicationManager publication manager to send publication messages
      * @param attributePollInterpreter attribute poll interpreter to execute method
+     * @param scheduler scheduler to send publications which have to be deferred because of minInterval
      */
     public PublicationTimer(PublicationInformation publicationInformation,
                             Method method,
                             ProviderContainer providerContainer,
                             PublicationManager publicationManager,
-                            AttributePollInterpreter attributePollInterpreter) {
+                            AttributePollInterpreter attributePollInterpreter,
+                            ScheduledExecutorService scheduler) {
         super(publicationInformation.getQos().getExpiryDateMs(), publicationInformation.getState());
         this.publicationManager = publicationManager;
 
@@ -88,7 +96,7 @@ public class PublicationTimer extends PubSubTimerBase {
         this.providerContainer = providerContainer;
         this.attributePollInterpreter = attributePollInterpreter;
         this.method = method;
-        this.pendingPublication = false;
+        this.scheduler = scheduler;
     }
 
     class PublicationTask extends TimerTask {
@@ -161,52 +169,64 @@ public class PublicationTimer extends PubSubTimerBase {
     }
 
     protected void sendPublication(final SubscriptionPublication publication) {
-        long timeSinceLast = System.currentTimeMillis() - state.getTimeOfLastPublication();
-
-        if (timeSinceLast >= minInterval) {
-            // publish
-            logger.trace("Sending subscriptionreply");
-            try {
-                publicationManager.sendSubscriptionPublication(publication, publicationInformation);
-            } catch (IOException e) {
-                logger.error("SendPublication error.", e);
-            }
-            synchronized (PublicationTimer.this) {
-                if (pendingPublication) {
-                    pendingPublication = false;
-                    PublicationTimer.this.notify();
-                }
-            }
-            logger.trace("Sent subscriptionreply @{}", state.getTimeOfLastPublication());
-        } else {
-            synchronized (PublicationTimer.this) {
-                if (!pendingPublication) {
-                    pendingPublication = true;
+        synchronized (this) {
+            long timeSinceLast = System.currentTimeMillis() - state.getTimeOfLastPublication();
+
+            if (timeSinceLast < minInterval) {
+                // only the latest value is published once minInterval has passed
+                if (pendingPublication == null) {
                     final long timeToWait = minInterval - timeSinceLast;
                     logger.trace("TimeToWait for subscription {}: {}", publication.getSubscriptionId(), timeToWait);
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            synchronized (PublicationTimer.this) {
-                                try {
-                                    PublicationTimer.this.wait(timeToWait);
-                                    if (pendingPublication) {
-                                        sendPublication(publication);
-                                    }
-                                } catch (InterruptedException e) {
-                                    Thread.currentThread().interrupt();
-                                    logger.trace("DelayedPublicationThread interrupted. No publication is sent.");
-                                }
-                            }
-
-                        }
-                    }).start();
+                    pendingPublicationFuture = scheduler.schedule(this::sendPendingPublication,
+                                                                  timeToWait,
+                                                                  TimeUnit.MILLISECONDS);
                 } else {
-                    logger.trace("Ignored attribute change. Mininterval {} not yet reached since timeSinceLast: {}",
+                    logger.trace("Replaced pending publication. Mininterval {} not yet reached since timeSinceLast: {}",
                                  minInterval,
                                  timeSinceLast);
                 }
+                pendingPublication = publication;
+                return;
             }
+            cancelPendingPublication();
+        }
+
+        // publish
+        logger.trace("Sending subscriptionreply");
+        try {
+            publicationManager.sendSubscriptionPublication(publication, publicationInformation);
+        } catch (IOException e) {
+            logger.error("SendPublication error.", e);
+        }
+        logger.trace("Sent subscriptionreply @{}", state.getTimeOfLastPublication());
+    }
+
+    private void sendPendingPublication() {
+        SubscriptionPublication publication;
+        synchronized (this) {
+            publication = pendingPublication;
+            pendingPublication = null;
+            pendingPublicationFuture = null;
+        }
+        if (publication != null && !state.isStopped()) {
+            sendPublication(publication);
+        }
+    }
+
+    // requires lock of this
+    private void cancelPendingPublication() {
+        pendingPublication = null;
+        if (pendingPublicationFuture != null) {
+            pendingPublicationFuture.cancel(false);
+            pendingPublicationFuture = null;
+        }
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        synchronized (this) {
+            cancelPendingPublication();
         }
     }
 
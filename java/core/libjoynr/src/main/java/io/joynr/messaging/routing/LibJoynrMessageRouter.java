@@ -31,6 +31,7 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 
+import io.joynr.exceptions.JoynrRuntimeException;
 import io.joynr.messaging.ConfigurableMessagingSettings;
 import io.joynr.messaging.MessagingSkeletonFactory;
 import io.joynr.messaging.inprocess.InProcessAddress;
@@ -38,10 +39,16 @@ import io.joynr.runtime.ShutdownNotifier;
 import io.joynr.runtime.SystemServicesSettings;
 import joynr.ImmutableMessage;
 import joynr.Message;
+import joynr.MutableMessage;
+import joynr.Reply;
+import joynr.Request;
 import joynr.exceptions.ProviderRuntimeException;
 import joynr.system.RoutingProxy;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.BinderAddress;
+import joynr.system.RoutingTypes.ShmAddress;
+import joynr.system.RoutingTypes.UdsAddress;
+import joynr.system.RoutingTypes.UdsClientAddress;
 import joynr.system.RoutingTypes.WebSocketAddress;
 import joynr.system.RoutingTypes.WebSocketClientAddress;
 
@@ -71,6 +78,8 @@ public class LibJoynrMessageRouter extends AbstractMessageRouter {
     private Address incomingAddress;
     private Set<ParticipantIdAndIsGloballyVisibleHolder> deferredParentHopsParticipantIds = new HashSet<>();
     private Map<String, DeferrableRegistration> deferredMulticastRegistrations = new HashMap<>();
+    // references to routing entries of the parent router which have been taken without calling the parent router
+    private final Map<String, Integer> localParentReferences = new HashMap<>();
     private boolean ready = false;
 
     @Inject
@@ -118,6 +127,44 @@ public class LibJoynrMessageRouter extends AbstractMessageRouter {
         return result;
     }
 
+    /**
+     * Only requests which have been passed by reference are answered, the error reply is passed by reference to the
+     * proxy in this runtime as well.
+     */
+    @Override
+    protected ImmutableMessage createReplyMessageWithError(ImmutableMessage requestMessage,
+                                                           JoynrRuntimeException error) {
+        if (!(requestMessage.getPayloadObject() instanceof Request)) {
+            return null;
+        }
+        try {
+            String requestReplyId = ((Request) requestMessage.getPayloadObject()).getRequestReplyId();
+
+            MutableMessage replyMessage = new MutableMessage();
+            replyMessage.setType(Message.MessageType.VALUE_MESSAGE_TYPE_REPLY);
+            if (requestMessage.getEffort() != null) {
+                replyMessage.setEffort(requestMessage.getEffort());
+            }
+            replyMessage.setSender(requestMessage.getRecipient());
+            replyMessage.setRecipient(requestMessage.getSender());
+            replyMessage.setTtlAbsolute(true);
+            replyMessage.setTtlMs(requestMessage.getTtlMs());
+            replyMessage.setPayload(new byte[0]);
+            replyMessage.setPayloadObject(new Reply(requestReplyId, error));
+            Map<String, String> customHeaders = new HashMap<>();
+            customHeaders.put(Message.CUSTOM_HEADER_REQUEST_REPLY_ID, requestReplyId);
+            replyMessage.setCustomHeaders(customHeaders);
+            return replyMessage.getImmutableMessage();
+        } catch (Exception e) {
+            logger.error("Failed to prepare ReplyMessageWithError for msgId: {}. from: {} to: {}. Reason: {}",
+                         requestMessage.getId(),
+                         requestMessage.getSender(),
+                         requestMessage.getRecipient(),
+                         e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public void setToKnown(final String participantId) {
         logger.trace("SetToKnown called for participantId {}", participantId);
@@ -146,17 +193,51 @@ public class LibJoynrMessageRouter extends AbstractMessageRouter {
     @Override
     public void removeNextHop(final String participantId) {
         super.removeNextHop(participantId);
-        if (parentRouter != null) {
+        if (parentRouter != null && !releaseLocalParentReference(participantId)) {
             removeNextHopFromParent(participantId);
         }
     }
 
+    /**
+     * The parent router has no means to take an additional reference. The reference is counted locally instead and
+     * released without calling the parent router, so that the parent router keeps its routing entry until the
+     * reference taken by its discovery provider is released as well.
+     */
+    @Override
+    public void addNextHopReference(final String participantId) {
+        super.addNextHopReference(participantId);
+        synchronized (localParentReferences) {
+            localParentReferences.merge(participantId, 1, Integer::sum);
+        }
+    }
+
+    private boolean releaseLocalParentReference(String participantId) {
+        synchronized (localParentReferences) {
+            Integer referenceCount = localParentReferences.get(participantId);
+            if (referenceCount == null) {
+                return false;
+            }
+            if (referenceCount > 1) {
+                localParentReferences.put(participantId, referenceCount - 1);
+            } else {
+                localParentReferences.remove(participantId);
+            }
+            return true;
+        }
+    }
+
     private void addNextHopToParent(String participantId, boolean isGloballyVisible) {
         logger.trace("Adding next hop with participantId {} to parent router", participantId);
         if (incomingAddress instanceof WebSocketAddress) {
             parentRouter.addNextHop(participantId, (WebSocketAddress) incomingAddress, isGloballyVisible);
         } else if (incomingAddress instanceof WebSocketClientAddress) {
             parentRouter.addNextHop(participantId, (WebSocketClientAddress) incomingAddress, isGloballyVisible);
+        } else if (incomingAddress instanceof UdsAddress) {
+            parentRouter.addNextHop(participantId, (UdsAddress) incomingAddress, isGloballyVisible);
+        } else if (incomingAddress instanceof UdsClientAddress) {
+            parentRouter.addNextHop(participantId, (UdsClientAddress) incomingAddress, isGloballyVisible);
+        } else if (incomingAddress instanceof ShmAddress) {
+            parentRouter.addNextHop(participantId, (ShmAddress) incomingAddress, isGloballyVisible);
         } else if (incomingAddress instanceof BinderAddress) {
             parentRouter.addNextHop(participantId, (BinderAddress) incomingAddress, isGloballyVisible);
         } else {
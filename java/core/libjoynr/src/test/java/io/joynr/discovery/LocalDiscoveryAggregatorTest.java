@@ -37,6 +37,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -52,6 +53,7 @@ import io.joynr.proxy.Callback;
 import io.joynr.proxy.CallbackWithModeledError;
 import io.joynr.proxy.Future;
 import io.joynr.proxy.ProxyBuilder;
+import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.proxy.ProxyBuilderFactory;
 import joynr.system.Discovery;
 import joynr.system.DiscoveryProxy;
@@ -92,6 +94,8 @@ public class LocalDiscoveryAggregatorTest {
     @Mock
     ProxyBuilder<DiscoveryProxy> proxyBuilder;
     @Mock
+    MessageRouter messageRouter;
+    @Mock
     Callback<Void> callback;
     @Mock
     CallbackWithModeledError<Void, DiscoveryError> addCallbackWithModeledError;
@@ -99,6 +103,8 @@ public class LocalDiscoveryAggregatorTest {
     CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError> lookupCallbackWithModeledError;
     @Mock
     CallbackWithModeledError<DiscoveryEntryWithMetaInfo, DiscoveryError> lookupByParticipantIdCallbackWithModeledError;
+    @Captor
+    ArgumentCaptor<CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError>> lookupCallbackCaptor;
 
     private String[] gbids = { "joynrdefaultgbid", "testGbid2", "testGbid3" };
 
@@ -115,7 +121,8 @@ public class LocalDiscoveryAggregatorTest {
         localDiscoveryAggregator = new LocalDiscoveryAggregator(systemServicesDomain,
                                                                 discoveryProviderParticipantId,
                                                                 "routingProviderParticipantId",
-                                                                proxyBuilderFactory);
+                                                                proxyBuilderFactory,
+                                                                messageRouter);
         localDiscoveryAggregator.forceQueryOfDiscoveryProxy();
         ProviderQos providerQos = new ProviderQos();
         providerQos.setScope(ProviderScope.LOCAL);
@@ -402,6 +409,152 @@ public class LocalDiscoveryAggregatorTest {
                                any(MessagingQos.class));
     }
 
+    private void mockDiscoveryProxyLookup(DiscoveryEntryWithMetaInfo[] result) {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                Callback<DiscoveryEntryWithMetaInfo[]> callback = (Callback<DiscoveryEntryWithMetaInfo[]>) invocation.getArguments()[0];
+                callback.onSuccess(result);
+                return null;
+            }
+        }).when(discoveryProxyMock)
+          .lookup(Matchers.<CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError>> any(),
+                  any(String[].class),
+                  anyString(),
+                  any(DiscoveryQos.class),
+                  Mockito.<String[]> any(),
+                  any(MessagingQos.class));
+    }
+
+    private void verifyDiscoveryProxyLookupCalled(int times) {
+        verify(discoveryProxyMock,
+               times(times)).lookup(Matchers.<CallbackWithModeledError<DiscoveryEntryWithMetaInfo[], DiscoveryError>> any(),
+                                    eq(new String[]{ anotherDomain }),
+                                    eq(Discovery.INTERFACE_NAME),
+                                    any(DiscoveryQos.class),
+                                    eq(gbids),
+                                    any(MessagingQos.class));
+    }
+
+    private Future<DiscoveryEntryWithMetaInfo[]> lookupAnotherDomain(long cacheMaxAgeMs) {
+        DiscoveryQos discoveryQos = new DiscoveryQos();
+        discoveryQos.setCacheMaxAge(cacheMaxAgeMs);
+        return localDiscoveryAggregator.lookup(lookupCallbackWithModeledError,
+                                               new String[]{ anotherDomain },
+                                               Discovery.INTERFACE_NAME,
+                                               discoveryQos,
+                                               gbids.clone());
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheEnabled_returnsCachedResult() throws Exception {
+        localDiscoveryAggregator.setLookupCacheTtlMs(ONE_DAY_IN_MS);
+        mockDiscoveryProxyLookup(new DiscoveryEntryWithMetaInfo[]{ anotherDiscoveryProviderEntry });
+
+        DiscoveryEntryWithMetaInfo[] result1 = lookupAnotherDomain(ONE_DAY_IN_MS).get();
+        DiscoveryEntryWithMetaInfo[] result2 = lookupAnotherDomain(ONE_DAY_IN_MS).get();
+
+        verifyDiscoveryProxyLookupCalled(1);
+        assertEquals(1, result1.length);
+        assertEquals(anotherDiscoveryProviderEntry, result1[0]);
+        assertEquals(1, result2.length);
+        assertEquals(anotherDiscoveryProviderEntry, result2[0]);
+        // the cluster controller has taken the reference for the first lookup only
+        verify(messageRouter, times(1)).addNextHopReference(anotherDiscoveryProviderEntry.getParticipantId());
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheEnabled_honoursCacheMaxAge() throws Exception {
+        localDiscoveryAggregator.setLookupCacheTtlMs(ONE_DAY_IN_MS);
+        mockDiscoveryProxyLookup(new DiscoveryEntryWithMetaInfo[]{ anotherDiscoveryProviderEntry });
+
+        lookupAnotherDomain(ONE_DAY_IN_MS).get();
+        lookupAnotherDomain(0L).get();
+
+        verifyDiscoveryProxyLookupCalled(2);
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheDisabled_alwaysCallsProxy() throws Exception {
+        mockDiscoveryProxyLookup(new DiscoveryEntryWithMetaInfo[]{ anotherDiscoveryProviderEntry });
+
+        lookupAnotherDomain(ONE_DAY_IN_MS).get();
+        lookupAnotherDomain(ONE_DAY_IN_MS).get();
+
+        verifyDiscoveryProxyLookupCalled(2);
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheEnabled_doesNotCacheEmptyResult() throws Exception {
+        localDiscoveryAggregator.setLookupCacheTtlMs(ONE_DAY_IN_MS);
+        mockDiscoveryProxyLookup(new DiscoveryEntryWithMetaInfo[0]);
+
+        lookupAnotherDomain(ONE_DAY_IN_MS).get();
+        lookupAnotherDomain(ONE_DAY_IN_MS).get();
+
+        verifyDiscoveryProxyLookupCalled(2);
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheEnabled_concurrentLookupsShareOneProxyCall() throws Exception {
+        localDiscoveryAggregator.setLookupCacheTtlMs(ONE_DAY_IN_MS);
+
+        Future<DiscoveryEntryWithMetaInfo[]> future1 = lookupAnotherDomain(ONE_DAY_IN_MS);
+        Future<DiscoveryEntryWithMetaInfo[]> future2 = lookupAnotherDomain(ONE_DAY_IN_MS);
+
+        verify(discoveryProxyMock, times(1)).lookup(lookupCallbackCaptor.capture(),
+                                                    eq(new String[]{ anotherDomain }),
+                                                    eq(Discovery.INTERFACE_NAME),
+                                                    any(DiscoveryQos.class),
+                                                    eq(gbids),
+                                                    any(MessagingQos.class));
+        lookupCallbackCaptor.getValue().onSuccess(new DiscoveryEntryWithMetaInfo[]{ anotherDiscoveryProviderEntry });
+
+        assertEquals(anotherDiscoveryProviderEntry, future1.get()[0]);
+        assertEquals(anotherDiscoveryProviderEntry, future2.get()[0]);
+        verify(messageRouter, times(1)).addNextHopReference(anotherDiscoveryProviderEntry.getParticipantId());
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheEnabled_concurrentLookupsWithDifferentCacheMaxAgeDoNotShareProxyCall() {
+        localDiscoveryAggregator.setLookupCacheTtlMs(ONE_DAY_IN_MS);
+
+        lookupAnotherDomain(ONE_DAY_IN_MS);
+        lookupAnotherDomain(ONE_DAY_IN_MS - 1);
+
+        verifyDiscoveryProxyLookupCalled(2);
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheEnabled_concurrentLookupsWithDifferentTimeoutDoNotShareProxyCall() {
+        localDiscoveryAggregator.setLookupCacheTtlMs(ONE_DAY_IN_MS);
+        DiscoveryQos discoveryQos = new DiscoveryQos();
+        discoveryQos.setCacheMaxAge(ONE_DAY_IN_MS);
+        discoveryQos.setDiscoveryTimeout(1000L);
+
+        lookupAnotherDomain(ONE_DAY_IN_MS);
+        localDiscoveryAggregator.lookup(lookupCallbackWithModeledError,
+                                        new String[]{ anotherDomain },
+                                        Discovery.INTERFACE_NAME,
+                                        discoveryQos,
+                                        gbids.clone());
+
+        verifyDiscoveryProxyLookupCalled(2);
+    }
+
+    @Test
+    public void lookupByDomainInterface_lookupCacheEnabled_addClearsCache() throws Exception {
+        localDiscoveryAggregator.setLookupCacheTtlMs(ONE_DAY_IN_MS);
+        mockDiscoveryProxyLookup(new DiscoveryEntryWithMetaInfo[]{ anotherDiscoveryProviderEntry });
+
+        lookupAnotherDomain(ONE_DAY_IN_MS).get();
+        localDiscoveryAggregator.add(callback, anotherDiscoveryProviderEntry);
+        lookupAnotherDomain(ONE_DAY_IN_MS).get();
+
+        verifyDiscoveryProxyLookupCalled(2);
+    }
+
     @Test
     public void lookupByParticipantIdWithGbids() {
         DiscoveryQos discoveryQos = new DiscoveryQos();
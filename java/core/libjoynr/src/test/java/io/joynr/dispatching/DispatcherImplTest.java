@@ -24,6 +24,8 @@ import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
 import static io.joynr.util.JoynrUtil.createUuidString;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
@@ -279,6 +281,29 @@ public class DispatcherImplTest {
         assertEquals(TEST_CUSTOM_HEADER_VALUE, argument.getValue().getContext().get(TEST_CUSTOM_HEADER_KEY));
     }
 
+    @Test
+    public void testRequestPayloadObjectIsCopiedWithoutDeserialization() throws Exception {
+        Request request = new Request("method", new Object[]{ "param" }, new Class<?>[]{ String.class });
+        String toParticipantId = "toParticipantId";
+        MessagingQos messagingQos = new MessagingQos(1000L);
+        MutableMessage joynrMessage = messageFactory.createRequest("fromParticipantId",
+                                                                   toParticipantId,
+                                                                   request,
+                                                                   messagingQos,
+                                                                   true);
+
+        fixture.messageArrived(joynrMessage.getImmutableMessage());
+
+        ArgumentCaptor<Request> argument = ArgumentCaptor.forClass(Request.class);
+        verify(requestReplyManagerMock).handleRequest(anyObject(), anyString(), argument.capture(), anyLong());
+        assertNotSame(request, argument.getValue());
+        assertEquals(request, argument.getValue());
+        assertEquals(ImmutableMessage.DUMMY_CREATOR_USER_ID, argument.getValue().getCreatorUserId());
+        // the instance of the proxy side is not modified
+        assertNull(request.getCreatorUserId());
+        assertNull(request.getContext());
+    }
+
     @Test
     public void testSendMulticastMessage() {
         MutableMessageFactory messageFactoryMock = mock(MutableMessageFactory.class);
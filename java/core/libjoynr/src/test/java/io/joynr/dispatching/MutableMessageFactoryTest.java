@@ -20,6 +20,8 @@ package io.joynr.dispatching;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -162,6 +164,35 @@ public class MutableMessageFactoryTest {
         assertTrue(message.getPayload() != null);
     }
 
+    @Test
+    public void createRequestPassingPayloadObject() {
+        MutableMessageFactory factoryWithoutProcessors = new MutableMessageFactory(objectMapper,
+                                                                                   Collections.<JoynrMessageProcessor> emptySet());
+        MutableMessage message = factoryWithoutProcessors.createRequest(fromParticipantId,
+                                                                        toParticipantId,
+                                                                        request,
+                                                                        messagingQos,
+                                                                        true);
+        assertEquals(Message.MessageType.VALUE_MESSAGE_TYPE_REQUEST, message.getType());
+        assertEquals(0, message.getPayload().length);
+        assertSame(request, message.getPayloadObject());
+
+        ImmutableMessage immutableMessage = message.getImmutableMessage();
+        assertSame(request, immutableMessage.getPayloadObject());
+    }
+
+    @Test
+    public void createRequestPassingPayloadObject_messageProcessorBound_serializesPayload() throws Exception {
+        MutableMessage message = mutableMessageFactory.createRequest(fromParticipantId,
+                                                                     toParticipantId,
+                                                                     request,
+                                                                     messagingQos,
+                                                                     true);
+        assertNull(message.getPayloadObject());
+        assertEquals(request,
+                     objectMapper.readValue(new String(message.getPayload(), StandardCharsets.UTF_8), Request.class));
+    }
+
     @Test
     public void createRequestWithCustomEffort() {
         MessagingQos customMessagingQos = new MessagingQos();
@@ -22,6 +22,8 @@ import static io.joynr.runtime.JoynrInjectionConstants.JOYNR_SCHEDULER_CLEANUP;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -156,27 +158,7 @@ public class RequestReplyManagerTest {
         testSenderParticipantId = "testSenderParticipantId";
         testResponderUnregisteredParticipantId = "testResponderUnregisteredParticipantId";
 
-        Injector injector = Guice.createInjector(new AbstractModule() {
-
-            @Override
-            protected void configure() {
-                install(new JoynrMessageScopeModule());
-                bind(MessageSender.class).toInstance(messageSenderMock);
-                bind(MessageRouter.class).toInstance(messageRouterMock);
-                bind(RequestReplyManager.class).to(RequestReplyManagerImpl.class);
-                requestStaticInjection(RpcUtils.class, Request.class, JoynrMessagingConnectorFactory.class);
-
-                ThreadFactory namedThreadFactory = new JoynrThreadFactory("joynr.Cleanup");
-                ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(namedThreadFactory);
-                bind(ScheduledExecutorService.class).annotatedWith(Names.named(JOYNR_SCHEDULER_CLEANUP))
-                                                    .toInstance(cleanupExecutor);
-                bind(StatelessAsyncIdCalculator.class).to(DefaultStatelessAsyncIdCalculatorImpl.class);
-                bind(StatelessAsyncRequestReplyIdManager.class).to(DefaultStatelessAsyncRequestReplyIdManagerImpl.class);
-                bind(String.class).annotatedWith(Names.named(MessagingPropertyKeys.CHANNELID)).toInstance("channelId");
-                Multibinder.newSetBinder(binder(), new TypeLiteral<JoynrMessageProcessor>() {
-                });
-            }
-        });
+        Injector injector = createInjector(false);
 
         objectMapper = injector.getInstance(ObjectMapper.class);
         objectMapper.registerSubtypes(Request.class, OneWayRequest.class);
@@ -215,6 +197,32 @@ public class RequestReplyManagerTest {
                                     fireAndForgetMethod.getParameterTypes());
     }
 
+    private Injector createInjector(final boolean inProcessObjectPassing) {
+        return Guice.createInjector(new AbstractModule() {
+
+            @Override
+            protected void configure() {
+                install(new JoynrMessageScopeModule());
+                bind(MessageSender.class).toInstance(messageSenderMock);
+                bind(MessageRouter.class).toInstance(messageRouterMock);
+                bind(RequestReplyManager.class).to(RequestReplyManagerImpl.class);
+                requestStaticInjection(RpcUtils.class, Request.class, JoynrMessagingConnectorFactory.class);
+
+                ThreadFactory namedThreadFactory = new JoynrThreadFactory("joynr.Cleanup");
+                ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor(namedThreadFactory);
+                bind(ScheduledExecutorService.class).annotatedWith(Names.named(JOYNR_SCHEDULER_CLEANUP))
+                                                    .toInstance(cleanupExecutor);
+                bind(StatelessAsyncIdCalculator.class).to(DefaultStatelessAsyncIdCalculatorImpl.class);
+                bind(StatelessAsyncRequestReplyIdManager.class).to(DefaultStatelessAsyncRequestReplyIdManagerImpl.class);
+                bind(String.class).annotatedWith(Names.named(MessagingPropertyKeys.CHANNELID)).toInstance("channelId");
+                Multibinder.newSetBinder(binder(), new TypeLiteral<JoynrMessageProcessor>() {
+                });
+                bind(Boolean.class).annotatedWith(Names.named(MessagingPropertyKeys.PROPERTY_MESSAGING_INPROCESS_OBJECT_PASSING))
+                                   .toInstance(inProcessObjectPassing);
+            }
+        });
+    }
+
     @After
     public void tearDown() {
         providerDirectory.remove(testMessageResponderParticipantId);
@@ -253,6 +261,54 @@ public class RequestReplyManagerTest {
         assertFalse(messageCapture.getValue().isStatelessAsync());
     }
 
+    @Test
+    public void requestToProviderInSameRuntimeIsPassedByReferenceIfInProcessObjectPassingEnabled() throws Exception {
+        Injector injector = createInjector(true);
+        injector.getInstance(ProviderDirectory.class).add(testMessageResponderParticipantId, providerContainer);
+
+        injector.getInstance(RequestReplyManager.class).sendRequest(testSenderParticipantId,
+                                                                    testMessageResponderDiscoveryEntry,
+                                                                    request1,
+                                                                    new MessagingQos(TIME_TO_LIVE));
+
+        ArgumentCaptor<MutableMessage> messageCapture = ArgumentCaptor.forClass(MutableMessage.class);
+        verify(messageSenderMock).sendMessage(messageCapture.capture());
+        assertSame(request1, messageCapture.getValue().getPayloadObject());
+        assertEquals(0, messageCapture.getValue().getPayload().length);
+    }
+
+    @Test
+    public void requestToProviderInOtherRuntimeIsSerializedIfInProcessObjectPassingEnabled() throws Exception {
+        Injector injector = createInjector(true);
+
+        injector.getInstance(RequestReplyManager.class).sendRequest(testSenderParticipantId,
+                                                                    testMessageResponderDiscoveryEntry,
+                                                                    request1,
+                                                                    new MessagingQos(TIME_TO_LIVE));
+
+        ArgumentCaptor<MutableMessage> messageCapture = ArgumentCaptor.forClass(MutableMessage.class);
+        verify(messageSenderMock).sendMessage(messageCapture.capture());
+        assertNull(messageCapture.getValue().getPayloadObject());
+        assertEquals(new String(messageCapture.getValue().getPayload(), StandardCharsets.UTF_8),
+                     objectMapper.writeValueAsString(request1));
+    }
+
+    @Test
+    public void requestToProviderInSameRuntimeIsSerializedIfInProcessObjectPassingDisabled() throws Exception {
+        providerDirectory.add(testMessageResponderParticipantId, providerContainer);
+
+        requestReplyManager.sendRequest(testSenderParticipantId,
+                                        testMessageResponderDiscoveryEntry,
+                                        request1,
+                                        new MessagingQos(TIME_TO_LIVE));
+
+        ArgumentCaptor<MutableMessage> messageCapture = ArgumentCaptor.forClass(MutableMessage.class);
+        verify(messageSenderMock).sendMessage(messageCapture.capture());
+        assertNull(messageCapture.getValue().getPayloadObject());
+        assertEquals(new String(messageCapture.getValue().getPayload(), StandardCharsets.UTF_8),
+                     objectMapper.writeValueAsString(request1));
+    }
+
     @Test
     public void statelessAsyncFlagSetCorrectly() throws Exception {
         requestReplyManager.sendRequest(testSenderParticipantId,
@@ -350,6 +406,29 @@ public class RequestReplyManagerTest {
         testResponderUnregistered.assertReceivedPayloadsContains(payload2);
     }
 
+    @Test
+    public void queuedRequestsKeepTheirOwnReplyCallbacks() throws Exception {
+        ReplyCallback firstReplyCallbackMock = mock(ReplyCallback.class);
+        ReplyCallback secondReplyCallbackMock = mock(ReplyCallback.class);
+
+        requestReplyManager.handleRequest(firstReplyCallbackMock,
+                                          testResponderUnregisteredParticipantId,
+                                          request1,
+                                          ExpiryDate.fromRelativeTtl(TIME_TO_LIVE).getValue());
+        requestReplyManager.handleRequest(secondReplyCallbackMock,
+                                          testResponderUnregisteredParticipantId,
+                                          request1,
+                                          ExpiryDate.fromRelativeTtl(TIME_TO_LIVE).getValue());
+
+        when(providerContainer.getRequestCaller()).thenReturn(requestCallerFactory.create(new TestProvider(2)));
+        when(providerContainer.getSubscriptionPublisher()).thenReturn(subscriptionPublisherMock);
+        providerDirectory.add(testResponderUnregisteredParticipantId, providerContainer);
+
+        verify(firstReplyCallbackMock).onSuccess(any(Reply.class));
+        verify(secondReplyCallbackMock).onSuccess(any(Reply.class));
+        providerDirectory.remove(testResponderUnregisteredParticipantId);
+    }
+
     @Test
     public void requestReplyMessagesRemoveCallBackByTtl() throws Exception {
         TestProvider testResponder = new TestProvider(1);
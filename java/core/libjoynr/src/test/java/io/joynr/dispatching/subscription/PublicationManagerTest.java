@@ -21,6 +21,7 @@ package io.joynr.dispatching.subscription;
 import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -70,6 +71,7 @@ import io.joynr.dispatching.RequestCallerFactory;
 import io.joynr.dispatching.subscription.PublicationManagerImpl.PublicationInformation;
 import io.joynr.exceptions.JoynrIllegalStateException;
 import io.joynr.messaging.MessagingQos;
+import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.messaging.routing.RoutingTable;
 import io.joynr.provider.AbstractSubscriptionPublisher;
 import io.joynr.provider.Deferred;
@@ -329,6 +331,97 @@ public class PublicationManagerTest {
         assertFalse(onReceiveSemaphore.tryAcquire(1, Math.max(subscriptionLength, 200), TimeUnit.MILLISECONDS));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 4000)
+    public void deferredAttributePublicationContainsLatestValue() throws Exception {
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(200);
+        qos.setValidityMs(1000);
+        qos.setPublicationTtlMs(400);
+
+        String subscriptionId = "subscriptionId";
+        String proxyId = "proxyId";
+        String providerId = "providerId";
+
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(subscriptionId, "location", qos);
+        when(providerDirectory.get(eq(providerId))).thenReturn(providerContainer);
+
+        final Semaphore onReceiveSemaphore = new Semaphore(0);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                onReceiveSemaphore.release();
+                return null;
+            }
+        }).when(dispatcher)
+          .sendSubscriptionPublication(eq(providerId),
+                                       (Set<String>) argThat(contains(proxyId)),
+                                       any(SubscriptionPublication.class),
+                                       any(MessagingQos.class));
+
+        publicationManager.addSubscriptionRequest(proxyId, providerId, subscriptionRequest);
+        // initial publication
+        assertTrue(onReceiveSemaphore.tryAcquire(1, 1000, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 5; i++) {
+            publicationManager.attributeValueChanged(subscriptionId, i);
+        }
+
+        assertTrue(onReceiveSemaphore.tryAcquire(1, 1000, TimeUnit.MILLISECONDS));
+        assertFalse(onReceiveSemaphore.tryAcquire(1, 300, TimeUnit.MILLISECONDS));
+
+        ArgumentCaptor<SubscriptionPublication> publicationCaptor = ArgumentCaptor.forClass(SubscriptionPublication.class);
+        verify(dispatcher, times(2)).sendSubscriptionPublication(eq(providerId),
+                                                                 (Set<String>) argThat(contains(proxyId)),
+                                                                 publicationCaptor.capture(),
+                                                                 any(MessagingQos.class));
+        List<?> response = (List<?>) publicationCaptor.getAllValues().get(1).getResponse();
+        assertEquals(4, response.get(0));
+    }
+
+    @Test(timeout = 3000)
+    public void conflatedSubscriptionSendsLatestPendingPublicationWhenOutstandingOneIsProcessed() throws Exception {
+        MessageRouter messageRouter = mock(MessageRouter.class);
+        publicationManager.setMessageRouter(messageRouter);
+
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos().setMinIntervalMs(0)
+                                                                   .setValidityMs(3000)
+                                                                   .setPublicationTtlMs(1000)
+                                                                   .setConflatePublications(true);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(SUBSCRIPTION_ID, "location", qos);
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+
+        // the initial publication is outstanding
+        ArgumentCaptor<String> messageIdCaptor = ArgumentCaptor.forClass(String.class);
+        verify(dispatcher).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                       eq(PROXY_PARTICIPANT_ID),
+                                                       any(SubscriptionPublication.class),
+                                                       any(MessagingQos.class),
+                                                       messageIdCaptor.capture());
+        verify(messageRouter).registerMessageProcessedListener(publicationManager);
+
+        publicationManager.attributeValueChanged(SUBSCRIPTION_ID, 1);
+        publicationManager.attributeValueChanged(SUBSCRIPTION_ID, 2);
+        verify(dispatcher, times(1)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                 eq(PROXY_PARTICIPANT_ID),
+                                                                 any(SubscriptionPublication.class),
+                                                                 any(MessagingQos.class),
+                                                                 anyString());
+
+        publicationManager.messageProcessed(messageIdCaptor.getValue());
+
+        ArgumentCaptor<SubscriptionPublication> publicationCaptor = ArgumentCaptor.forClass(SubscriptionPublication.class);
+        verify(dispatcher, times(2)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                 eq(PROXY_PARTICIPANT_ID),
+                                                                 publicationCaptor.capture(),
+                                                                 any(MessagingQos.class),
+                                                                 anyString());
+        List<?> response = (List<?>) publicationCaptor.getValue().getResponse();
+        assertEquals(2, response.get(0));
+    }
+
     @SuppressWarnings("unchecked")
     @Test(timeout = 3000)
     public void addPublicationWithExpiryDate() throws Exception {
@@ -528,6 +621,124 @@ public class PublicationManagerTest {
                                                                   any(MessagingQos.class));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 3000)
+    public void stopAllPublicationsFromProviderKeepsPublicationsOfOtherProviders() throws Exception {
+        String otherProviderParticipantId = "otherProviderParticipantId";
+        String subscriptionId1 = "subscriptionid1";
+        String subscriptionId2 = "subscriptionid2";
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(0).setValidityMs(3000).setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest1 = new SubscriptionRequest(subscriptionId1, "location", qos);
+        SubscriptionRequest subscriptionRequest2 = new SubscriptionRequest(subscriptionId2, "location", qos);
+
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+        when(providerDirectory.get(eq(otherProviderParticipantId))).thenReturn(providerContainer);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest1);
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                  otherProviderParticipantId,
+                                                  subscriptionRequest2);
+
+        reset(dispatcher);
+        publicationManager.entryRemoved(PROVIDER_PARTICIPANT_ID);
+        verify(routingTable, times(1)).remove(PROXY_PARTICIPANT_ID);
+
+        publicationManager.attributeValueChanged(subscriptionId1, valueToPublish);
+        publicationManager.attributeValueChanged(subscriptionId2, valueToPublish);
+
+        verify(dispatcher, times(0)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                 any(Set.class),
+                                                                 any(SubscriptionPublication.class),
+                                                                 any(MessagingQos.class));
+        verify(dispatcher, times(1)).sendSubscriptionPublication(eq(otherProviderParticipantId),
+                                                                 (Set<String>) argThat(contains(PROXY_PARTICIPANT_ID)),
+                                                                 any(SubscriptionPublication.class),
+                                                                 any(MessagingQos.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(timeout = 3000)
+    public void updateOfSubscriptionForAnotherProviderMovesPublicationToThatProvider() throws Exception {
+        String otherProviderParticipantId = "otherProviderParticipantId";
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(0).setValidityMs(3000).setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(SUBSCRIPTION_ID, "location", qos);
+
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+        when(providerDirectory.get(eq(otherProviderParticipantId))).thenReturn(providerContainer);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                  otherProviderParticipantId,
+                                                  subscriptionRequest);
+        // the publication of the old provider has been removed under the lock of the old provider
+        verify(routingTable, times(1)).remove(PROXY_PARTICIPANT_ID);
+
+        reset(dispatcher);
+        publicationManager.entryRemoved(PROVIDER_PARTICIPANT_ID);
+        verify(routingTable, times(1)).remove(PROXY_PARTICIPANT_ID);
+
+        publicationManager.attributeValueChanged(SUBSCRIPTION_ID, valueToPublish);
+        verify(dispatcher, times(0)).sendSubscriptionPublication(eq(PROVIDER_PARTICIPANT_ID),
+                                                                 any(Set.class),
+                                                                 any(SubscriptionPublication.class),
+                                                                 any(MessagingQos.class));
+        verify(dispatcher, times(1)).sendSubscriptionPublication(eq(otherProviderParticipantId),
+                                                                 (Set<String>) argThat(contains(PROXY_PARTICIPANT_ID)),
+                                                                 any(SubscriptionPublication.class),
+                                                                 any(MessagingQos.class));
+    }
+
+    @Test(timeout = 3000)
+    public void providerDirectoryIsNotLockedWhileWaitingForBusyProvider() throws Exception {
+        String otherProxyParticipantId = "otherProxyParticipantId";
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos();
+        qos.setMinIntervalMs(0).setValidityMs(3000).setPublicationTtlMs(1000);
+        SubscriptionRequest subscriptionRequest = new SubscriptionRequest(SUBSCRIPTION_ID, "location", qos);
+        SubscriptionRequest otherSubscriptionRequest = new SubscriptionRequest("otherSubscriptionId", "location", qos);
+
+        final Semaphore providerLockHeld = new Semaphore(0);
+        final Semaphore releaseProviderLock = new Semaphore(0);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                providerLockHeld.release();
+                releaseProviderLock.acquire();
+                return null;
+            }
+        }).when(routingTable).incrementReferenceCount(PROXY_PARTICIPANT_ID);
+
+        Thread busyThread = new Thread(() -> publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID,
+                                                                                       PROVIDER_PARTICIPANT_ID,
+                                                                                       subscriptionRequest));
+        busyThread.start();
+        providerLockHeld.acquire();
+
+        Thread waitingThread = new Thread(() -> publicationManager.addSubscriptionRequest(otherProxyParticipantId,
+                                                                                          PROVIDER_PARTICIPANT_ID,
+                                                                                          otherSubscriptionRequest));
+        waitingThread.start();
+        while (waitingThread.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+
+        // the provider directory can be used, e.g. to register other providers, while the provider lock is busy
+        final Semaphore providerDirectoryLocked = new Semaphore(0);
+        Thread directoryThread = new Thread(() -> {
+            synchronized (providerDirectory) {
+                providerDirectoryLocked.release();
+            }
+        });
+        directoryThread.start();
+        assertTrue(providerDirectoryLocked.tryAcquire(1000, TimeUnit.MILLISECONDS));
+
+        releaseProviderLock.release();
+        busyThread.join();
+        waitingThread.join();
+        verify(routingTable).incrementReferenceCount(otherProxyParticipantId);
+    }
+
     @SuppressWarnings("unchecked")
     @Test(timeout = 3000)
     public void restoreQueuedPublications() throws Exception {
@@ -897,6 +1108,52 @@ public class PublicationManagerTest {
 
     }
 
+    @Test
+    public void broadcastFilterParametersAreCreatedOncePerSubscription() throws Exception {
+
+        publicationManager = new PublicationManagerImpl(attributePollInterpreter,
+                                                        dispatcher,
+                                                        providerDirectory,
+                                                        routingTable,
+                                                        cleanupScheduler,
+                                                        Mockito.mock(SubscriptionRequestStorage.class),
+                                                        shutdownNotifier,
+                                                        SUBSCRIPTIONSREQUEST_PERSISTENCY_ENABLED);
+
+        testBroadcastInterface.LocationUpdateSelectiveBroadcastFilterParameters filterParameters = new testBroadcastInterface.LocationUpdateSelectiveBroadcastFilterParameters();
+        filterParameters.setCountry("Germany");
+
+        OnChangeSubscriptionQos qos = new OnChangeSubscriptionQos().setMinIntervalMs(0)
+                                                                   .setExpiryDateMs(SubscriptionQos.NO_EXPIRY_DATE)
+                                                                   .setPublicationTtlMs(1000);
+
+        SubscriptionRequest subscriptionRequest = new BroadcastSubscriptionRequest(SUBSCRIPTION_ID,
+                                                                                   "subscribedToName",
+                                                                                   filterParameters,
+                                                                                   qos);
+
+        when(providerDirectory.get(eq(PROVIDER_PARTICIPANT_ID))).thenReturn(providerContainer);
+
+        publicationManager.addSubscriptionRequest(PROXY_PARTICIPANT_ID, PROVIDER_PARTICIPANT_ID, subscriptionRequest);
+
+        ArrayList<BroadcastFilter> filters = new ArrayList<BroadcastFilter>();
+        testLocationUpdateSelectiveBroadcastFilter filter = mock(testLocationUpdateSelectiveBroadcastFilter.class);
+        when(filter.filter(any(GpsLocation.class),
+                           any(testBroadcastInterface.LocationUpdateSelectiveBroadcastFilterParameters.class))).thenReturn(false);
+        filters.add(filter);
+
+        GpsLocation firstEventValue = new GpsLocation();
+        GpsLocation secondEventValue = new GpsLocation(1.0, 2.0, 3.0, GpsFixEnum.MODE2D, 4.0, 5.0, 6.0, 7.0, 9l, 10l, 11);
+        publicationManager.broadcastOccurred(subscriptionRequest.getSubscriptionId(), filters, firstEventValue);
+        publicationManager.broadcastOccurred(subscriptionRequest.getSubscriptionId(), filters, secondEventValue);
+
+        ArgumentCaptor<testBroadcastInterface.LocationUpdateSelectiveBroadcastFilterParameters> filterParametersCaptor = ArgumentCaptor.forClass(testBroadcastInterface.LocationUpdateSelectiveBroadcastFilterParameters.class);
+        verify(filter).filter(eq(firstEventValue), filterParametersCaptor.capture());
+        verify(filter).filter(eq(secondEventValue), filterParametersCaptor.capture());
+        assertEquals(filterParameters, filterParametersCaptor.getAllValues().get(0));
+        assertSame(filterParametersCaptor.getAllValues().get(0), filterParametersCaptor.getAllValues().get(1));
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void broadcastPublicationIsSentWhenFiltersPass() throws Exception {
@@ -21,6 +21,7 @@ package io.joynr.provider;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.HashSet;
 import java.util.List;
 
@@ -36,6 +37,7 @@ import io.joynr.pubsub.publication.MulticastListener;
 public abstract class AbstractSubscriptionPublisher implements SubscriptionPublisherObservable, SubscriptionPublisher {
     private static final Logger logger = LoggerFactory.getLogger(AbstractSubscriptionPublisher.class);
 
+    // listeners are kept in copy-on-write lists, so that notifications do not block (un)registration and vice versa
     ConcurrentHashMap<String, List<AttributeListener>> attributeListeners;
     ConcurrentHashMap<String, List<BroadcastListener>> broadcastListeners;
     private final HashSet<MulticastListener> multicastListeners;
@@ -60,14 +62,12 @@ public abstract class AbstractSubscriptionPublisher implements SubscriptionPubli
      * @param value         the new value of the changed attribute.
      */
     protected void onAttributeValueChanged(String attributeName, Object value) {
-        if (!attributeListeners.containsKey(attributeName)) {
+        List<AttributeListener> listeners = attributeListeners.get(attributeName);
+        if (listeners == null) {
             return;
         }
-        List<AttributeListener> listeners = attributeListeners.get(attributeName);
-        synchronized (listeners) {
-            for (AttributeListener listener : listeners) {
-                listener.attributeValueChanged(value);
-            }
+        for (AttributeListener listener : listeners) {
+            listener.attributeValueChanged(value);
         }
     }
 
@@ -84,14 +84,12 @@ public abstract class AbstractSubscriptionPublisher implements SubscriptionPubli
      * @param values           the broadcast arguments.
      */
     protected void fireBroadcast(String broadcastName, List<BroadcastFilter> broadcastFilters, Object... values) {
-        if (!broadcastListeners.containsKey(broadcastName)) {
+        List<BroadcastListener> listeners = broadcastListeners.get(broadcastName);
+        if (listeners == null) {
             return;
         }
-        List<BroadcastListener> listeners = broadcastListeners.get(broadcastName);
-        synchronized (listeners) {
-            for (BroadcastListener listener : listeners) {
-                listener.broadcastOccurred(broadcastFilters, values);
-            }
+        for (BroadcastListener listener : listeners) {
+            listener.broadcastOccurred(broadcastFilters, values);
         }
     }
 
@@ -127,11 +125,8 @@ public abstract class AbstractSubscriptionPublisher implements SubscriptionPubli
      */
     @Override
     public void registerAttributeListener(String attributeName, AttributeListener attributeListener) {
-        attributeListeners.putIfAbsent(attributeName, new ArrayList<AttributeListener>());
-        List<AttributeListener> listeners = attributeListeners.get(attributeName);
-        synchronized (listeners) {
-            listeners.add(attributeListener);
-        }
+        attributeListeners.computeIfAbsent(attributeName, k -> new CopyOnWriteArrayList<AttributeListener>())
+                          .add(attributeListener);
     }
 
     /**
@@ -149,13 +144,11 @@ public abstract class AbstractSubscriptionPublisher implements SubscriptionPubli
                     + "\" that was never registered");
             return;
         }
-        synchronized (listeners) {
-            boolean success = listeners.remove(attributeListener);
-            if (!success) {
-                logger.error("trying to unregister an attribute listener for attribute \"" + attributeName
-                        + "\" that was never registered");
-                return;
-            }
+        boolean success = listeners.remove(attributeListener);
+        if (!success) {
+            logger.error("trying to unregister an attribute listener for attribute \"" + attributeName
+                    + "\" that was never registered");
+            return;
         }
     }
 
@@ -169,11 +162,8 @@ public abstract class AbstractSubscriptionPublisher implements SubscriptionPubli
      */
     @Override
     public void registerBroadcastListener(String broadcastName, BroadcastListener broadcastListener) {
-        broadcastListeners.putIfAbsent(broadcastName, new ArrayList<BroadcastListener>());
-        List<BroadcastListener> listeners = broadcastListeners.get(broadcastName);
-        synchronized (listeners) {
-            listeners.add(broadcastListener);
-        }
+        broadcastListeners.computeIfAbsent(broadcastName, k -> new CopyOnWriteArrayList<BroadcastListener>())
+                          .add(broadcastListener);
     }
 
     /**
@@ -191,13 +181,11 @@ public abstract class AbstractSubscriptionPublisher implements SubscriptionPubli
                     + "\" that was never registered");
             return;
         }
-        synchronized (listeners) {
-            boolean success = listeners.remove(broadcastListener);
-            if (!success) {
-                logger.error("trying to unregister a listener for broadcast \"" + broadcastName
-                        + "\" that was never registered");
-                return;
-            }
+        boolean success = listeners.remove(broadcastListener);
+        if (!success) {
+            logger.error("trying to unregister a listener for broadcast \"" + broadcastName
+                    + "\" that was never registered");
+            return;
         }
     }
 
@@ -21,6 +21,8 @@ package joynr;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * Class representing the quality of service settings for subscriptions
  * based on changes.
@@ -32,6 +34,8 @@ import org.slf4j.LoggerFactory;
  * were received for alertAfterInterval, publicationMissed will be called.
  * <br>
  * minInterval can be used to prevent too many messages being sent.
+ * conflatePublications can be used to prevent a slow subscriber from
+ * accumulating obsolete publications.
  */
 public class OnChangeSubscriptionQos extends UnicastSubscriptionQos {
     private static final Logger logger = LoggerFactory.getLogger(OnChangeSubscriptionQos.class);
@@ -42,6 +46,9 @@ public class OnChangeSubscriptionQos extends UnicastSubscriptionQos {
     private static final long MAX_MIN_INTERVAL_MS = 2592000000L; // 30 days;
 
     private long minIntervalMs = DEFAULT_MIN_INTERVAL_MS;
+    // only serialized if set, so that providers which do not know the flag are not affected
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean conflatePublications = false;
 
     /**
      * Default Constructor
@@ -91,6 +98,36 @@ public class OnChangeSubscriptionQos extends UnicastSubscriptionQos {
         return setMinIntervalMsInternal(minIntervalMs);
     }
 
+    /**
+     * Get whether publications are conflated.
+     *
+     * @return true if the provider keeps at most one outstanding publication
+     *         for this subscription, see {@link #setConflatePublications(boolean)}
+     */
+    public boolean getConflatePublications() {
+        return conflatePublications;
+    }
+
+    /**
+     * Enable or disable conflation of publications.
+     * <br>
+     * If enabled, the provider keeps at most one publication of this
+     * subscription in its outgoing message queue. A publication which is
+     * created while the previous one has not yet been transmitted replaces any
+     * other publication waiting for transmission, i.e. a slow subscriber
+     * receives the latest value instead of the full history of changes.
+     * Providers which do not support conflation ignore this setting.
+     *
+     * @param conflatePublications
+     *            true to conflate publications, false (default) to send every
+     *            publication.
+     * @return this (fluent interface).
+     */
+    public OnChangeSubscriptionQos setConflatePublications(final boolean conflatePublications) {
+        this.conflatePublications = conflatePublications;
+        return this;
+    }
+
     @Override
     public OnChangeSubscriptionQos setExpiryDateMs(long expiryDateMs) {
         return (OnChangeSubscriptionQos) super.setExpiryDateMs(expiryDateMs);
@@ -116,6 +153,7 @@ public class OnChangeSubscriptionQos extends UnicastSubscriptionQos {
         final int prime = 31;
         int result = super.hashCode();
         result = prime * result + (int) (minIntervalMs ^ (minIntervalMs >>> 32));
+        result = prime * result + (conflatePublications ? 1231 : 1237);
         return result;
     }
 
@@ -143,6 +181,9 @@ public class OnChangeSubscriptionQos extends UnicastSubscriptionQos {
         if (minIntervalMs != other.minIntervalMs) {
             return false;
         }
+        if (conflatePublications != other.conflatePublications) {
+            return false;
+        }
         return true;
     }
 
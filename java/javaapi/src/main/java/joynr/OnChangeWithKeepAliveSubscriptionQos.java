@@ -212,6 +212,11 @@ public class OnChangeWithKeepAliveSubscriptionQos extends OnChangeSubscriptionQo
         return setMaxIntervalMs(maxIntervalMs);
     }
 
+    @Override
+    public OnChangeWithKeepAliveSubscriptionQos setConflatePublications(boolean conflatePublications) {
+        return (OnChangeWithKeepAliveSubscriptionQos) super.setConflatePublications(conflatePublications);
+    }
+
     @Override
     public OnChangeWithKeepAliveSubscriptionQos setPublicationTtlMs(long publicationTtlMs) {
         return (OnChangeWithKeepAliveSubscriptionQos) super.setPublicationTtlMs(publicationTtlMs);
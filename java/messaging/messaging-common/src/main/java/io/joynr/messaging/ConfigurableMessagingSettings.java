@@ -37,6 +37,7 @@ public class ConfigurableMessagingSettings implements MessagingSettings {
     public static final String PROPERTY_DISCOVERY_DEFAULT_RETRY_INTERVAL_MS = "joynr.discovery.defaultretryintervalms";
     public static final String PROPERTY_DISCOVERY_MINIMUM_RETRY_INTERVAL_MS = "joynr.discovery.minimumretryintervalms";
     public static final String PROPERTY_DISCOVERY_PROVIDER_DEFAULT_EXPIRY_TIME_MS = "joynr.discovery.provider.defaultexpirytimems";
+    public static final String PROPERTY_DISCOVERY_LOOKUP_CACHE_TTL_MS = "joynr.discovery.lookupcachettlms";
 
     public static final String PROPERTY_SEND_MSG_RETRY_INTERVAL_MS = "joynr.messaging.sendmsgretryintervalms";
     public static final String PROPERTY_PARTICIPANTIDS_PERSISTENCE_FILE = "joynr.discovery.participantids_persistence_file";
@@ -57,6 +58,8 @@ public class ConfigurableMessagingSettings implements MessagingSettings {
     public static final long DEFAULT_ROUTING_MAX_RETRY_COUNT = -1;
     public static final String PROPERTY_MAX_DELAY_WITH_EXPONENTIAL_BACKOFF_MS = "joynr.messaging.maxDelayWithExponentialBackoffMs";
     public static final long DEFAULT_MAX_DELAY_WITH_EXPONENTIAL_BACKOFF = -1;
+    public static final String PROPERTY_ROUTING_MAX_IN_FLIGHT_MESSAGES_PER_ADDRESS = "joynr.messaging.routingmaxinflightmessagesperaddress";
+    public static final int DEFAULT_ROUTING_MAX_IN_FLIGHT_MESSAGES_PER_ADDRESS = 0;
 
     public static final String PROPERTY_GBIDS = "joynr.messaging.gbids";
 
@@ -32,6 +32,7 @@ public final class MessagingPropertyKeys {
 
     public static final String PROPERTY_MESSAGING_PRIMARYGLOBALTRANSPORT = "joynr.messaging.primaryglobaltransport";
     public static final String PROPERTY_MESSAGING_COMPRESS_REPLIES = "joynr.messaging.compressreplies";
+    public static final String PROPERTY_MESSAGING_INPROCESS_OBJECT_PASSING = "joynr.messaging.inprocessobjectpassing";
 
     public static final String MQTT_TOPIC_PREFIX_REPLYTO = "joynr.messaging.mqtt.topicprefix.sharedsubscriptionsreplyto";
     public static final String MQTT_TOPIC_PREFIX_UNICAST = "joynr.messaging.mqtt.topicprefix.unicast";
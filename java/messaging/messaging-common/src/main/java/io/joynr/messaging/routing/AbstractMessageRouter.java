@@ -31,6 +31,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -77,6 +78,7 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
                                                                                                         Message.MessageType.VALUE_MESSAGE_TYPE_SUBSCRIPTION_REPLY));
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractMessageRouter.class);
+    private static final int MAX_BACKOFF_EXPONENT = 30;
     private final SimpleDateFormat dateFormatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss:sss z");
     protected final RoutingTable routingTable;
     private ScheduledExecutorService scheduler;
@@ -94,8 +96,9 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
     protected final MulticastReceiverRegistry multicastReceiverRegistry;
 
     private final MessageQueue messageQueue;
+    private final MessageLanes messageLanes;
 
-    private List<MessageProcessedListener> messageProcessedListeners;
+    private final List<MessageProcessedListener> messageProcessedListeners;
     private List<MessageWorker> messageWorkers;
 
     protected static class ProxyInformation {
@@ -141,12 +144,15 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
         this.addressManager = addressManager;
         this.multicastReceiverRegistry = multicastReceiverRegistry;
         this.messageQueue = messageQueue;
+        this.messageLanes = new MessageLanes(messageQueue,
+                                             ConfigurableMessagingSettings.DEFAULT_ROUTING_MAX_IN_FLIGHT_MESSAGES_PER_ADDRESS);
         this.proxyMap = new ConcurrentHashMap<WeakReference<Object>, ProxyInformation>();
         this.proxyParticipantIdToProxyInformationMap = new ConcurrentHashMap<String, ProxyInformation>();
         this.garbageCollectedProxiesQueue = new ReferenceQueue<Object>();
         this.shutdownNotifier = shutdownNotifier;
         shutdownNotifier.registerForShutdown(this);
-        messageProcessedListeners = new ArrayList<MessageProcessedListener>();
+        // listeners are notified for every routed message, iterate a snapshot instead of locking the list
+        messageProcessedListeners = new CopyOnWriteArrayList<MessageProcessedListener>();
         startMessageWorkerThreads(maxParallelSends);
         startRoutingTableCleanupThread();
     }
@@ -165,6 +171,7 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
             @Override
             public void run() {
                 routingTable.purge();
+                messageLanes.releaseExpiredTransmissions();
 
                 // remove Routing table entries for proxies which have been garbage collected
                 Reference<? extends Object> r;
@@ -189,18 +196,19 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
         }, routingTableCleanupIntervalMs, routingTableCleanupIntervalMs, TimeUnit.MILLISECONDS);
     }
 
+    @Inject(optional = true)
+    void setMaxInFlightMessagesPerAddress(@Named(ConfigurableMessagingSettings.PROPERTY_ROUTING_MAX_IN_FLIGHT_MESSAGES_PER_ADDRESS) int maxInFlightMessagesPerAddress) {
+        messageLanes.setMaxInFlightMessagesPerAddress(maxInFlightMessagesPerAddress);
+    }
+
     @Override
     public void registerMessageProcessedListener(MessageProcessedListener messageProcessedListener) {
-        synchronized (messageProcessedListeners) {
-            messageProcessedListeners.add(messageProcessedListener);
-        }
+        messageProcessedListeners.add(messageProcessedListener);
     }
 
     @Override
     public void unregisterMessageProcessedListener(MessageProcessedListener messageProcessedListener) {
-        synchronized (messageProcessedListeners) {
-            messageProcessedListeners.remove(messageProcessedListener);
-        }
+        messageProcessedListeners.remove(messageProcessedListener);
     }
 
     @Override
@@ -208,6 +216,15 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
         routingTable.remove(participantId);
     }
 
+    @Override
+    public void addNextHopReference(String participantId) {
+        try {
+            routingTable.incrementReferenceCount(participantId);
+        } catch (JoynrIllegalStateException e) {
+            logger.debug("No routing entry found to reference for participantId {}", participantId);
+        }
+    }
+
     @Override
     public boolean resolveNextHop(String participantId) {
         return routingTable.containsKey(participantId);
@@ -321,6 +338,11 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
             finalizeMessageProcessing(message, false);
         }
 
+        if (Message.MessageType.VALUE_MESSAGE_TYPE_MULTICAST.equals(message.getType()) && recipients.size() > 1) {
+            scheduleMulticastOncePerAddress(message, delayMs, retriesCount, recipients);
+            return;
+        }
+
         for (String recipient : recipients) {
             DelayableImmutableMessage delayableMessage = new DelayableImmutableMessage(message,
                                                                                        delayMs,
@@ -330,7 +352,42 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
         }
     }
 
+    /**
+     * Schedules a multicast only once for all recipients which are reachable via the same address (i.e. via the
+     * same messaging stub). The receiving runtime dispatches a multicast to all of its local subscribers of the
+     * multicast id, so transmitting it once per address is sufficient.
+     * Recipients without a known address are scheduled individually to keep the usual error handling.
+     */
+    private void scheduleMulticastOncePerAddress(final ImmutableMessage message,
+                                                 long delayMs,
+                                                 final int retriesCount,
+                                                 Set<String> recipients) {
+        Set<Address> scheduledAddresses = new HashSet<>();
+        for (String recipient : recipients) {
+            DelayableImmutableMessage delayableMessage = new DelayableImmutableMessage(message,
+                                                                                       delayMs,
+                                                                                       recipient,
+                                                                                       retriesCount);
+            Optional<Address> optionalAddress = addressManager.getAddressForDelayableImmutableMessage(delayableMessage);
+            if (optionalAddress.isPresent() && !scheduledAddresses.add(optionalAddress.get())) {
+                logger.trace("Multicast {} for recipient {} is already scheduled for address {}",
+                             message.getId(),
+                             recipient,
+                             optionalAddress.get());
+                continue;
+            }
+            scheduleMessage(delayableMessage);
+        }
+    }
+
     private void scheduleMessage(final DelayableImmutableMessage delayableMessage) {
+        if (dropIfMaxRetryCountReached(delayableMessage)) {
+            return;
+        }
+        messageQueue.put(delayableMessage);
+    }
+
+    private boolean dropIfMaxRetryCountReached(final DelayableImmutableMessage delayableMessage) {
         final int retriesCount = delayableMessage.getRetriesCount();
         if (maxRetryCount > -1) {
             if (retriesCount > maxRetryCount) {
@@ -338,7 +395,7 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
                              maxRetryCount,
                              delayableMessage.getMessage().getTrackingInfo());
                 finalizeMessageProcessing(delayableMessage.getMessage(), false);
-                return;
+                return true;
             }
         }
         if (retriesCount > 0) {
@@ -347,7 +404,7 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
                          maxRetryCount,
                          delayableMessage.getMessage().getTrackingInfo());
         }
-        messageQueue.put(delayableMessage);
+        return false;
     }
 
     private boolean isExpired(final ImmutableMessage message) {
@@ -381,7 +438,8 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
         return null;
     }
 
-    private FailureAction createFailureAction(final DelayableImmutableMessage delayableMessage) {
+    private FailureAction createFailureAction(final DelayableImmutableMessage delayableMessage,
+                                              final MessageLanes.Transmission transmission) {
         final FailureAction failureAction = new FailureAction() {
             private final AtomicBoolean failureActionExecutedOnce = new AtomicBoolean(false);
 
@@ -395,11 +453,13 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
                     return;
                 }
                 if (error instanceof JoynrShutdownException) {
+                    finishTransmission(transmission);
                     logger.warn("Caught JoynrShutdownException while handling message {}:",
                                 messageNotSent.getTrackingInfo(),
                                 error);
                     return;
                 } else if (error instanceof JoynrMessageNotSentException) {
+                    finishTransmission(transmission);
                     logger.error("ERROR SENDING: Aborting send of message {}, Error:",
                                  messageNotSent.getTrackingInfo(),
                                  error);
@@ -437,7 +497,17 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
                             dateFormatter.format(delayableMessage.getMessage().getTtlMs()),
                             delayableMessage.getRetriesCount());
                 try {
-                    scheduleMessage(delayableMessage);
+                    if (transmission == null) {
+                        scheduleMessage(delayableMessage);
+                    } else if (dropIfMaxRetryCountReached(delayableMessage)) {
+                        transmission.failed(delayMs);
+                    } else if (!transmission.retry(delayMs)) {
+                        // the lane transmits the message again before the messages parked in the meantime unless it
+                        // has already released the transmission after the expiry of the message
+                        logger.warn("Transmission of message {} already released after its expiry, dropping it",
+                                    messageNotSent.getTrackingInfo());
+                        finalizeMessageProcessing(messageNotSent, false);
+                    }
                 } catch (Exception e) {
                     logger.warn("Rescheduling of message {} failed", messageNotSent.getTrackingInfo());
                     finalizeMessageProcessing(messageNotSent, false);
@@ -453,18 +523,24 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
         }
         message.messageProcessed();
         decreaseReferenceCountsForMessage(message, isMessageRoutingsuccessful);
-        synchronized (messageProcessedListeners) {
-            for (MessageProcessedListener messageProcessedListener : messageProcessedListeners) {
-                messageProcessedListener.messageProcessed(message.getId());
-            }
+        for (MessageProcessedListener messageProcessedListener : messageProcessedListeners) {
+            messageProcessedListener.messageProcessed(message.getId());
+        }
+    }
+
+    private void finishTransmission(final MessageLanes.Transmission transmission) {
+        if (transmission != null) {
+            transmission.finished();
         }
     }
 
-    private SuccessAction createMessageProcessedAction(final ImmutableMessage message) {
+    private SuccessAction createMessageProcessedAction(final ImmutableMessage message,
+                                                       final MessageLanes.Transmission transmission) {
         final SuccessAction successAction = new SuccessAction() {
 
             @Override
             public void execute() {
+                transmission.succeeded();
                 /* In case of a multicast, the listener is already called when the message is sent to the first recipient,
                  * i.e. the message is not fully processed if it has multiple recipients.
                  * This is not a problem because the MessageProcessedListener is part of the backpressure mechanism
@@ -540,7 +616,9 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
     }
 
     private long createDelayWithExponentialBackoff(long sendMsgRetryIntervalMs, int retries) {
-        long millis = sendMsgRetryIntervalMs + (long) ((2 ^ (retries)) * sendMsgRetryIntervalMs * Math.random());
+        // limit the exponent to avoid an overflow of the calculated delay
+        long backoffFactor = 1L << Math.min(retries, MAX_BACKOFF_EXPONENT);
+        long millis = sendMsgRetryIntervalMs + (long) (backoffFactor * sendMsgRetryIntervalMs * Math.random());
         if (maxDelayMs >= sendMsgRetryIntervalMs && millis > maxDelayMs) {
             millis = maxDelayMs;
         }
@@ -592,6 +670,7 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
             while (!stopped) {
                 DelayableImmutableMessage delayableMessage = null;
                 FailureAction failureAction = null;
+                boolean passedToLane = false;
 
                 try {
                     delayableMessage = messageQueue.poll(1000, TimeUnit.MILLISECONDS);
@@ -623,9 +702,24 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
                         continue;
                     }
 
-                    SuccessAction messageProcessedAction = createMessageProcessedAction(message);
-                    failureAction = createFailureAction(delayableMessage);
                     Address address = optionalAddress.get();
+                    if (message.getPayloadObject() != null && !(address instanceof InProcessAddress)) {
+                        // a request or reply passed by reference has no serialized payload and can only be delivered
+                        // within this runtime, e.g. its recipient has been unregistered in the meantime
+                        failureAction = createFailureAction(delayableMessage, null);
+                        failureAction.execute(new JoynrMessageNotSentException("Message passed by reference cannot be sent to address "
+                                + address));
+                        continue;
+                    }
+                    MessageLanes.Transmission transmission = messageLanes.startTransmission(address,
+                                                                                            delayableMessage);
+                    passedToLane = true;
+                    if (transmission == null) {
+                        logger.trace("Deferred message {} for address {}", message.getId(), address);
+                        continue;
+                    }
+                    SuccessAction messageProcessedAction = createMessageProcessedAction(message, transmission);
+                    failureAction = createFailureAction(delayableMessage, transmission);
                     logger.trace(">>>>> SEND message {} to address {}", message.getId(), address);
 
                     IMessagingStub messagingStub = messagingStubFactory.create(address);
@@ -642,9 +736,13 @@ abstract public class AbstractMessageRouter implements MessageRouter, MulticastR
                     }
                     logger.error("Error in scheduled message router thread:", error);
                     if (failureAction == null) {
-                        failureAction = createFailureAction(delayableMessage);
+                        failureAction = createFailureAction(delayableMessage, null);
                     }
                     failureAction.execute(error);
+                } finally {
+                    if (delayableMessage != null && !passedToLane) {
+                        messageLanes.abandon(delayableMessage);
+                    }
                 }
             }
             countDownLatch.countDown();
@@ -0,0 +1,354 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.routing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import joynr.system.RoutingTypes.Address;
+
+/**
+ * Per address lanes used by the message workers of the {@link AbstractMessageRouter}.
+ * <p>
+ * A lane limits the number of messages which are in flight for an address, i.e. which have been passed to a
+ * messaging stub whose success or failure action has not been called yet, and keeps the transmission state of
+ * the address:
+ * <ul>
+ * <li>{@link LaneState#ACTIVE}: messages are transmitted as long as the in-flight window is not exhausted.</li>
+ * <li>{@link LaneState#BACKING_OFF}: a transmission failed; no message is transmitted before the backoff delay
+ * has passed.</li>
+ * <li>{@link LaneState#PROBING}: the backoff delay has passed; a single message is transmitted. Its success
+ * switches the lane back to {@link LaneState#ACTIVE}, its failure to {@link LaneState#BACKING_OFF} again.</li>
+ * </ul>
+ * Messages which must not be transmitted yet are parked in a FIFO of the lane, so that a message worker never
+ * waits for a slow or unreachable address. Only the head of the FIFO is handed back to the workers via the
+ * {@link MessageQueue} (delayed until the end of the backoff, if any), and newer messages for the address are
+ * parked behind it until it has been started. Messages are therefore transmitted in the order they are routed;
+ * only messages which are in flight at the same time may be reordered by their retries.
+ * <p>
+ * Parked messages stay persisted and counted by the {@link MessageQueue}. An in-flight slot whose messaging stub
+ * never calls its success or failure action is released by {@link #releaseExpiredTransmissions()} after the TTL
+ * of the message.
+ */
+class MessageLanes {
+    private static final Logger logger = LoggerFactory.getLogger(MessageLanes.class);
+
+    enum LaneState {
+        ACTIVE, BACKING_OFF, PROBING
+    }
+
+    private final ConcurrentHashMap<Address, Lane> lanes = new ConcurrentHashMap<>();
+    // heads handed back to the message workers, identified by instance
+    private final Map<DelayableImmutableMessage, Lane> releasedHeads = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final MessageQueue messageQueue;
+    private volatile int maxInFlightMessagesPerAddress;
+
+    /**
+     * @param messageQueue the queue parked messages are handed back to
+     * @param maxInFlightMessagesPerAddress the maximum number of in-flight messages per address, a value
+     * smaller than 1 disables the limit
+     */
+    MessageLanes(MessageQueue messageQueue, int maxInFlightMessagesPerAddress) {
+        this.messageQueue = messageQueue;
+        this.maxInFlightMessagesPerAddress = maxInFlightMessagesPerAddress;
+    }
+
+    void setMaxInFlightMessagesPerAddress(int maxInFlightMessagesPerAddress) {
+        this.maxInFlightMessagesPerAddress = maxInFlightMessagesPerAddress;
+    }
+
+    /**
+     * Starts the transmission of a message to the given address if the lane of the address permits it.
+     *
+     * @param address the address the message is going to be transmitted to
+     * @param delayableMessage the message to be transmitted
+     * @return the started transmission which has to be completed by the success or failure action of the
+     * messaging stub, or <code>null</code> if the message has been parked by the lane.
+     */
+    Transmission startTransmission(Address address, DelayableImmutableMessage delayableMessage) {
+        Lane headLane = releasedHeads.remove(delayableMessage);
+        if (headLane != null && !headLane.address.equals(address)) {
+            // the address of the recipient has changed in the meantime
+            headLane.abandonHead(delayableMessage);
+            headLane = null;
+        }
+        while (true) {
+            Lane lane = headLane != null ? headLane : lanes.computeIfAbsent(address, Lane::new);
+            synchronized (lane) {
+                if (!lane.retired) {
+                    return lane.tryAcquire(delayableMessage, headLane != null);
+                }
+            }
+            headLane = null;
+        }
+    }
+
+    /**
+     * Has to be called for a message taken from the {@link MessageQueue} which is not passed to
+     * {@link #startTransmission(Address, DelayableImmutableMessage)}, e.g. because it is expired, so that the lane
+     * it has been released from hands over its next message.
+     *
+     * @param delayableMessage the message which is not transmitted
+     */
+    void abandon(DelayableImmutableMessage delayableMessage) {
+        Lane lane = releasedHeads.remove(delayableMessage);
+        if (lane != null) {
+            lane.abandonHead(delayableMessage);
+        }
+    }
+
+    /**
+     * Releases the in-flight slots of transmissions whose messages have expired without a call to the success or
+     * failure action of the messaging stub.
+     */
+    void releaseExpiredTransmissions() {
+        long now = System.currentTimeMillis();
+        for (Lane lane : lanes.values()) {
+            List<Transmission> expiredTransmissions = new ArrayList<>();
+            synchronized (lane) {
+                for (Transmission transmission : lane.inFlight) {
+                    if (transmission.expiryDateMs <= now) {
+                        expiredTransmissions.add(transmission);
+                    }
+                }
+            }
+            for (Transmission transmission : expiredTransmissions) {
+                logger.warn("Transmission of message {} to address {} not completed before its expiry, releasing it",
+                            transmission.delayableMessage.getMessage().getTrackingInfo(),
+                            lane.address);
+                transmission.finished();
+            }
+        }
+    }
+
+    LaneState getLaneState(Address address) {
+        Lane lane = lanes.get(address);
+        if (lane == null) {
+            return LaneState.ACTIVE;
+        }
+        synchronized (lane) {
+            return lane.state;
+        }
+    }
+
+    int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * A message handed over to a messaging stub. Exactly the first call to one of the completion methods is
+     * taken into account.
+     */
+    /**
+     * An in-flight message of a lane. It is completed exactly once, either by the success or failure action of the
+     * messaging stub or by {@link MessageLanes#releaseExpiredTransmissions()}. The completion methods return
+     * <code>false</code> if the transmission had already been completed, in that case the caller is responsible for
+     * the message.
+     */
+    class Transmission {
+        private final Lane lane;
+        private final DelayableImmutableMessage delayableMessage;
+        private final long expiryDateMs;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        private Transmission(Lane lane, DelayableImmutableMessage delayableMessage) {
+            this.lane = lane;
+            this.delayableMessage = delayableMessage;
+            this.expiryDateMs = delayableMessage.getMessage().getTtlMs();
+        }
+
+        /**
+         * The message has been transmitted successfully.
+         *
+         * @return true if this call completed the transmission
+         */
+        boolean succeeded() {
+            return complete(LaneState.ACTIVE, 0, false);
+        }
+
+        /**
+         * The message could not be transmitted because the address is not reachable (yet) and will not be
+         * transmitted again.
+         *
+         * @param delayMs the time to wait before the next message is transmitted to the address
+         * @return true if this call completed the transmission
+         */
+        boolean failed(long delayMs) {
+            return complete(LaneState.BACKING_OFF, delayMs, false);
+        }
+
+        /**
+         * The message could not be transmitted because the address is not reachable (yet). It is parked in front
+         * of the other messages of the lane and transmitted again after the backoff.
+         *
+         * @param delayMs the time to wait before the next message is transmitted to the address
+         * @return true if this call completed the transmission and the message has been parked, false if the
+         * transmission had already been completed and the message will not be transmitted again
+         */
+        boolean retry(long delayMs) {
+            return complete(LaneState.BACKING_OFF, delayMs, true);
+        }
+
+        /**
+         * The transmission finished without telling anything about the state of the address, e.g. because the
+         * message was discarded.
+         *
+         * @return true if this call completed the transmission
+         */
+        boolean finished() {
+            return complete(null, 0, false);
+        }
+
+        private boolean complete(LaneState newState, long delayMs, boolean parkAgain) {
+            if (!completed.compareAndSet(false, true)) {
+                return false;
+            }
+            lane.complete(this, newState, delayMs, parkAgain);
+            return true;
+        }
+    }
+
+    private class Lane {
+        private final Address address;
+        private final Deque<DelayableImmutableMessage> parkedMessages = new ArrayDeque<>();
+        private final Set<Transmission> inFlight = new HashSet<>();
+        private DelayableImmutableMessage releasedHead;
+        private LaneState state = LaneState.ACTIVE;
+        private long backoffUntilMs = 0;
+        private boolean retired = false;
+
+        Lane(Address address) {
+            this.address = address;
+        }
+
+        // must be called while holding the lane's monitor
+        private Transmission tryAcquire(DelayableImmutableMessage delayableMessage, boolean isReleasedHead) {
+            boolean isHead = isReleasedHead && releasedHead == delayableMessage;
+            if (isHead) {
+                releasedHead = null;
+            } else if (releasedHead != null || !parkedMessages.isEmpty()) {
+                // older messages of this lane have to be started first
+                park(delayableMessage, false);
+                return null;
+            }
+            if (state == LaneState.BACKING_OFF) {
+                if (System.currentTimeMillis() < backoffUntilMs) {
+                    park(delayableMessage, isHead);
+                    return null;
+                }
+                logger.debug("Backoff for address {} elapsed, probing with message {}",
+                             address,
+                             delayableMessage.getMessage().getTrackingInfo());
+                state = LaneState.PROBING;
+            }
+            if (inFlight.size() >= getWindow()) {
+                park(delayableMessage, isHead);
+                return null;
+            }
+            Transmission transmission = new Transmission(this, delayableMessage);
+            inFlight.add(transmission);
+            releaseHead();
+            return transmission;
+        }
+
+        private void park(DelayableImmutableMessage delayableMessage, boolean first) {
+            logger.trace("Parking message {} for address {}", delayableMessage.getMessage().getTrackingInfo(), address);
+            if (first) {
+                parkedMessages.addFirst(delayableMessage);
+            } else {
+                parkedMessages.addLast(delayableMessage);
+            }
+            messageQueue.park(delayableMessage);
+            releaseHead();
+        }
+
+        // hands the oldest parked message over to the message workers if it may be transmitted (after the backoff)
+        private void releaseHead() {
+            if (releasedHead != null || parkedMessages.isEmpty()) {
+                return;
+            }
+            long delayMs = 0;
+            if (state == LaneState.BACKING_OFF) {
+                delayMs = Math.max(0, backoffUntilMs - System.currentTimeMillis());
+            } else if (inFlight.size() >= getWindow()) {
+                return;
+            }
+            releasedHead = parkedMessages.poll();
+            releasedHeads.put(releasedHead, this);
+            releasedHead.setDelay(delayMs);
+            messageQueue.unpark(releasedHead);
+        }
+
+        private synchronized void abandonHead(DelayableImmutableMessage delayableMessage) {
+            if (releasedHead == delayableMessage) {
+                releasedHead = null;
+                releaseHead();
+                retireIfIdle();
+            }
+        }
+
+        private synchronized void complete(Transmission transmission, LaneState result, long delayMs, boolean retry) {
+            inFlight.remove(transmission);
+            if (result == LaneState.ACTIVE) {
+                if (state != LaneState.ACTIVE) {
+                    logger.debug("Address {} is reachable again", address);
+                }
+                state = LaneState.ACTIVE;
+            } else if (result == LaneState.BACKING_OFF) {
+                backoffUntilMs = Math.max(backoffUntilMs, System.currentTimeMillis() + delayMs);
+                if (state != LaneState.BACKING_OFF) {
+                    logger.debug("Transmission to address {} failed, backing off for {} ms", address, delayMs);
+                }
+                state = LaneState.BACKING_OFF;
+            }
+            if (retry) {
+                park(transmission.delayableMessage, true);
+            } else {
+                releaseHead();
+            }
+            retireIfIdle();
+        }
+
+        private void retireIfIdle() {
+            if (state == LaneState.ACTIVE && inFlight.isEmpty() && parkedMessages.isEmpty() && releasedHead == null) {
+                retired = true;
+                lanes.remove(address, this);
+            }
+        }
+
+        private int getWindow() {
+            if (state == LaneState.PROBING) {
+                return 1;
+            }
+            return maxInFlightMessagesPerAddress > 0 ? maxInFlightMessagesPerAddress : Integer.MAX_VALUE;
+        }
+    }
+}
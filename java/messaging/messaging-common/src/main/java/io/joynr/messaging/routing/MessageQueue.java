@@ -21,6 +21,7 @@ package io.joynr.messaging.routing;
 import java.util.Set;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,7 @@ public class MessageQueue {
     private final String messageQueueId;
     private final MessagePersister messagePersister;
     private final RoutingTable routingTable;
+    private final AtomicInteger parkedMessageCount = new AtomicInteger();
 
     /**
      * Helper class to enable constructor injection of an optionally configured timeout value.
@@ -122,12 +124,12 @@ public class MessageQueue {
      * the {@link #PROPERTY_MESSAGE_QUEUE_SHUTDOWN_MAX_TIMEOUT} property, which defaults to five seconds.
      */
     void waitForQueueToDrain() {
-        int remainingMessages = delayableImmutableMessages.size();
+        int remainingMessages = getSize();
         logger.info("Joynr message queue stopping. Contains {} remaining messages.", remainingMessages);
         if (remainingMessages > 0) {
             long shutdownStart = System.currentTimeMillis();
             while (System.currentTimeMillis() - shutdownStart < shutdownTimeoutMs) {
-                if (delayableImmutableMessages.size() == 0) {
+                if (getSize() == 0) {
                     break;
                 }
                 try {
@@ -138,7 +140,7 @@ public class MessageQueue {
                 }
             }
         }
-        remainingMessages = delayableImmutableMessages.size();
+        remainingMessages = getSize();
         if (remainingMessages == 0) {
             logger.info("Joynr message queue successfully emptied.");
         } else {
@@ -146,14 +148,56 @@ public class MessageQueue {
         }
     }
 
+    // parked messages have not been processed yet either
+    private int getSize() {
+        return delayableImmutableMessages.size() + parkedMessageCount.get();
+    }
+
     /**
      * Add the passed in message to the queue of messages to be processed.
-     * Also offer the message for persisting.
+     * Also offer the message for persisting unless its payload is passed by reference.
      *
      * @param delayableImmutableMessage the message to add.
      */
     public void put(DelayableImmutableMessage delayableImmutableMessage) {
-        if (messagePersister.persist(messageQueueId, delayableImmutableMessage)) {
+        persist(delayableImmutableMessage);
+        delayableImmutableMessages.put(delayableImmutableMessage);
+    }
+
+    /**
+     * Keeps a message which has been polled from the queue, but has to be held back outside of the queue, e.g. by
+     * the lane of its address. The message is offered for persisting again and counted when waiting for the queue
+     * to drain until it is {@link #unpark(DelayableImmutableMessage) unparked}.
+     *
+     * @param delayableImmutableMessage the message to park.
+     */
+    void park(DelayableImmutableMessage delayableImmutableMessage) {
+        parkedMessageCount.incrementAndGet();
+        try {
+            persist(delayableImmutableMessage);
+        } catch (RuntimeException e) {
+            logger.error("Parked message {} could not be persisted for messageQueueId {}",
+                         delayableImmutableMessage.getMessage().getTrackingInfo(),
+                         messageQueueId,
+                         e);
+        }
+    }
+
+    /**
+     * Adds a previously {@link #park(DelayableImmutableMessage) parked} message to the queue again without
+     * persisting it a second time.
+     *
+     * @param delayableImmutableMessage the message to add.
+     */
+    void unpark(DelayableImmutableMessage delayableImmutableMessage) {
+        delayableImmutableMessages.put(delayableImmutableMessage);
+        parkedMessageCount.decrementAndGet();
+    }
+
+    private void persist(DelayableImmutableMessage delayableImmutableMessage) {
+        // the payload object of an in-process message is not part of its serialization and cannot be restored
+        if (delayableImmutableMessage.getMessage().getPayloadObject() == null
+                && messagePersister.persist(messageQueueId, delayableImmutableMessage)) {
             logger.trace("Message {} was persisted for messageQueueId {}",
                          delayableImmutableMessage.getMessage(),
                          messageQueueId);
@@ -162,7 +206,6 @@ public class MessageQueue {
                          delayableImmutableMessage.getMessage(),
                          messageQueueId);
         }
-        delayableImmutableMessages.put(delayableImmutableMessage);
     }
 
     /**
@@ -38,6 +38,15 @@ public interface MessageRouter {
 
     public void removeNextHop(String participantId);
 
+    /**
+     * Takes one more reference to the routing entry of a provider which has been returned by a lookup without
+     * asking the discovery provider, e.g. from a lookup cache. The reference is released by
+     * {@link #removeNextHop(String)} like the reference taken by the discovery provider.
+     *
+     * @param participantId the participantId of the provider
+     */
+    public void addNextHopReference(String participantId);
+
     public boolean resolveNextHop(String participantId);
 
     void registerMessageProcessedListener(MessageProcessedListener messageProcessedListener);
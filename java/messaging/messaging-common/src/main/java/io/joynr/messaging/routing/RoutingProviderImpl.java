@@ -39,6 +39,7 @@ import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.BinderAddress;
 import joynr.system.RoutingTypes.MqttAddress;
 import joynr.system.RoutingTypes.RoutingTypesUtil;
+import joynr.system.RoutingTypes.ShmAddress;
 import joynr.system.RoutingTypes.UdsAddress;
 import joynr.system.RoutingTypes.UdsClientAddress;
 import joynr.system.RoutingTypes.WebSocketAddress;
@@ -158,6 +159,12 @@ public class RoutingProviderImpl extends RoutingAbstractProvider {
         return resolvedDeferred();
     }
 
+    @Override
+    public Promise<DeferredVoid> addNextHop(String participantId, ShmAddress address, Boolean isGloballyVisible) {
+        messageRouter.addNextHop(participantId, address, isGloballyVisible);
+        return resolvedDeferred();
+    }
+
     @Override
     public Promise<DeferredVoid> addNextHop(String participantId, UdsClientAddress address, Boolean isGloballyVisible) {
         final DeferredVoid deferred = new DeferredVoid();
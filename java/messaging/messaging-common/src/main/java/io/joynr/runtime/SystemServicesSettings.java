@@ -33,4 +33,10 @@ public class SystemServicesSettings {
     public static final String LIBJOYNR_MESSAGING_ADDRESS = "libjoynr_messaging_address";
 
     public static final String PROPERTY_CAPABILITIES_FRESHNESS_UPDATE_INTERVAL_MS = "joynr.capabilities.freshnessupdateintervalms";
+    public static final String PROPERTY_CAPABILITIES_MAX_IN_FLIGHT_GCD_TASKS = "joynr.capabilities.maxinflightgcdtasks";
+    public static final String PROPERTY_CAPABILITIES_MAX_GLOBAL_ADD_BATCH_SIZE = "joynr.capabilities.maxglobaladdbatchsize";
+    public static final String PROPERTY_CAPABILITIES_CC_LEVEL_FRESHNESS_UPDATE = "joynr.capabilities.cclevelfreshnessupdate";
+    public static final String PROPERTY_CAPABILITIES_CACHE_STALE_GRACE_PERIOD_MS = "joynr.capabilities.cachestalegraceperiodms";
+    public static final String PROPERTY_CAPABILITIES_CACHE_PUSH_UPDATES = "joynr.capabilities.cachepushupdates";
+    public static final String PROPERTY_CAPABILITIES_CACHE_PUSH_UPDATES_MAX_AGE_MS = "joynr.capabilities.cachepushupdatesmaxagems";
 }
@@ -21,6 +21,7 @@ package joynr;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -50,6 +51,10 @@ public class ImmutableMessage extends Message {
     private final MessageDeserializer messageDeserializer;
     private final byte[] serializedMessage;
     private transient Map<String, Serializable> context = new HashMap<String, Serializable>();
+    private transient Object payloadObject;
+    // parsed lazily, the serialized message can not change
+    private transient volatile Map<String, String> headers;
+    private transient volatile Map<String, String> customHeaders;
     private ObjectMapper objectMapper = null;
     public final static String DUMMY_CREATOR_USER_ID = "creatorUserId";
 
@@ -99,19 +104,48 @@ public class ImmutableMessage extends Message {
         return messageDeserializer.getUnencryptedBody();
     }
 
+    /**
+     * @return an unmodifiable view of all headers of the message
+     */
     public Map<String, String> getHeaders() {
-        return messageDeserializer.getHeaders();
+        Map<String, String> result = headers;
+        if (result == null) {
+            result = Collections.unmodifiableMap(new HashMap<>(messageDeserializer.getHeaders()));
+            headers = result;
+        }
+        return result;
     }
 
+    /**
+     * @return an unmodifiable view of the custom headers of the message, the keys do not contain
+     * the {@link Message#CUSTOM_HEADER_PREFIX}
+     */
     public Map<String, String> getCustomHeaders() {
-        Map<String, String> customHeaders = new HashMap<>();
-        for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
-            if (entry.getKey().startsWith(Message.CUSTOM_HEADER_PREFIX)) {
-                String key = entry.getKey().replaceFirst("^" + Message.CUSTOM_HEADER_PREFIX, "");
-                customHeaders.put(key, entry.getValue());
+        Map<String, String> result = customHeaders;
+        if (result == null) {
+            Map<String, String> parsedCustomHeaders = new HashMap<>();
+            for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
+                if (entry.getKey().startsWith(Message.CUSTOM_HEADER_PREFIX)) {
+                    String key = entry.getKey().substring(Message.CUSTOM_HEADER_PREFIX.length());
+                    parsedCustomHeaders.put(key, entry.getValue());
+                }
             }
+            result = Collections.unmodifiableMap(parsedCustomHeaders);
+            customHeaders = result;
         }
-        return customHeaders;
+        return result;
+    }
+
+    /**
+     * @return the unserialized payload if it is passed by reference within the same runtime, null otherwise
+     */
+    @JsonIgnore
+    public Object getPayloadObject() {
+        return payloadObject;
+    }
+
+    public void setPayloadObject(Object payloadObject) {
+        this.payloadObject = payloadObject;
     }
 
     public void setContext(HashMap<String, Serializable> context) {
@@ -48,6 +48,7 @@ public class MutableMessage extends Message {
 
     private transient boolean compressed = false;
     private transient boolean statelessAsync;
+    private transient Object payloadObject;
 
     public MutableMessage() {
         id = createUuidString();
@@ -65,7 +66,9 @@ public class MutableMessage extends Message {
         messageSerializer.setBody(payload);
         messageSerializer.setCompressed(compressed);
 
-        return new ImmutableMessage(messageSerializer.serialize());
+        ImmutableMessage immutableMessage = new ImmutableMessage(messageSerializer.serialize());
+        immutableMessage.setPayloadObject(payloadObject);
+        return immutableMessage;
     }
 
     private Map<String, String> createHeader() {
@@ -136,6 +139,15 @@ public class MutableMessage extends Message {
         return id;
     }
 
+    /**
+     * Replaces the generated message ID, e.g. if the ID has to be known before the message is routed.
+     *
+     * @param id the unique message ID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public byte[] getPayload() {
         return payload == null ? null : payload.clone();
     }
@@ -176,6 +188,21 @@ public class MutableMessage extends Message {
         return this.compressed;
     }
 
+    public Object getPayloadObject() {
+        return payloadObject;
+    }
+
+    /**
+     * Sets the unserialized payload which is passed by reference if the message is delivered within the same
+     * runtime. Only set by the {@code MutableMessageFactory} if the recipient is known to be
+     * in-process; the serialized payload of such a message is empty.
+     *
+     * @param payloadObject the payload object, e.g. a Request or Reply
+     */
+    public void setPayloadObject(Object payloadObject) {
+        this.payloadObject = payloadObject;
+    }
+
     public boolean isStatelessAsync() {
         return statelessAsync;
     }
@@ -23,15 +23,19 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentHashMap.KeySetView;
@@ -45,7 +49,9 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import io.joynr.exceptions.JoynrIllegalStateException;
 import io.joynr.exceptions.JoynrMessageExpiredException;
@@ -54,7 +60,11 @@ import io.joynr.messaging.routing.AbstractMessageRouter.ProxyInformation;
 import io.joynr.runtime.ShutdownListener;
 import io.joynr.runtime.ShutdownNotifier;
 
+import joynr.ImmutableMessage;
+import joynr.Message;
 import joynr.MutableMessage;
+import joynr.system.RoutingTypes.Address;
+import joynr.system.RoutingTypes.WebSocketClientAddress;
 
 @RunWith(MockitoJUnitRunner.class)
 public class AbstractMessageRouterTest {
@@ -578,4 +588,67 @@ public class AbstractMessageRouterTest {
 
         subject.route(message.getImmutableMessage());
     }
+
+    @Test
+    public void routeMulticast_schedulesMessageOncePerAddress() throws Exception {
+        final Address sharedAddress = new WebSocketClientAddress("sharedConnection");
+        final Address otherAddress = new WebSocketClientAddress("otherConnection");
+        Set<String> recipients = new HashSet<String>(Arrays.asList("receiver1", "receiver2", "receiver3"));
+        when(mockAddressManager.getParticipantIdsForImmutableMessage(any(ImmutableMessage.class))).thenReturn(recipients);
+        when(mockAddressManager.getAddressForDelayableImmutableMessage(any(DelayableImmutableMessage.class))).thenAnswer(new Answer<Optional<Address>>() {
+            @Override
+            public Optional<Address> answer(InvocationOnMock invocation) throws Throwable {
+                DelayableImmutableMessage delayableMessage = (DelayableImmutableMessage) invocation.getArguments()[0];
+                if ("receiver3".equals(delayableMessage.getRecipient())) {
+                    return Optional.of(otherAddress);
+                }
+                return Optional.of(sharedAddress);
+            }
+        });
+
+        MutableMessage message = new MutableMessage();
+        message.setType(Message.MessageType.VALUE_MESSAGE_TYPE_MULTICAST);
+        message.setSender("someSender");
+        message.setRecipient("someMulticastId");
+        message.setTtlAbsolute(true);
+        message.setTtlMs(System.currentTimeMillis() + 60000);
+        message.setPayload(new byte[]{ 0, 1, 2 });
+
+        subject.route(message.getImmutableMessage());
+
+        ArgumentCaptor<DelayableImmutableMessage> captor = ArgumentCaptor.forClass(DelayableImmutableMessage.class);
+        verify(mockMessageQueue, times(2)).put(captor.capture());
+        List<DelayableImmutableMessage> scheduledMessages = captor.getAllValues();
+        Set<String> scheduledRecipients = new HashSet<>();
+        for (DelayableImmutableMessage scheduledMessage : scheduledMessages) {
+            scheduledRecipients.add(scheduledMessage.getRecipient());
+        }
+        assertTrue(scheduledRecipients.contains("receiver3"));
+        assertTrue(scheduledRecipients.contains("receiver1") ^ scheduledRecipients.contains("receiver2"));
+    }
+
+    @Test
+    public void messageProcessedListenerCanUnregisterWhileBeingNotified() throws Exception {
+        MutableMessage message = new MutableMessage();
+        message.setSender("someSender");
+        message.setRecipient("someRecipient");
+        message.setTtlAbsolute(true);
+        message.setTtlMs(System.currentTimeMillis() + 60000);
+        message.setPayload(new byte[]{ 0, 1, 2 });
+        ImmutableMessage immutableMessage = message.getImmutableMessage();
+
+        MessageProcessedListener otherListener = Mockito.mock(MessageProcessedListener.class);
+        MessageProcessedListener unregisteringListener = new MessageProcessedListener() {
+            @Override
+            public void messageProcessed(String messageId) {
+                subject.unregisterMessageProcessedListener(this);
+            }
+        };
+        subject.registerMessageProcessedListener(unregisteringListener);
+        subject.registerMessageProcessedListener(otherListener);
+
+        subject.finalizeMessageProcessing(immutableMessage, true);
+
+        verify(otherListener).messageProcessed(immutableMessage.getId());
+    }
 }
@@ -0,0 +1,236 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import io.joynr.messaging.routing.MessageLanes.LaneState;
+import io.joynr.messaging.routing.MessageLanes.Transmission;
+import joynr.ImmutableMessage;
+import joynr.system.RoutingTypes.Address;
+import joynr.system.RoutingTypes.MqttAddress;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MessageLanesTest {
+
+    private static final int MAX_IN_FLIGHT_MESSAGES = 2;
+
+    @Mock
+    private MessageQueue messageQueue;
+
+    private final Address address = new MqttAddress("testBroker", "testTopic");
+    private final Address otherAddress = new MqttAddress("testBroker", "otherTestTopic");
+
+    private MessageLanes subject;
+
+    @Before
+    public void setUp() {
+        subject = new MessageLanes(messageQueue, MAX_IN_FLIGHT_MESSAGES);
+    }
+
+    private DelayableImmutableMessage createDelayableMessage() {
+        return createDelayableMessage(System.currentTimeMillis() + 60000);
+    }
+
+    private DelayableImmutableMessage createDelayableMessage(long ttlMs) {
+        // distinct messages, DelayableImmutableMessages created within the same millisecond are equal otherwise
+        ImmutableMessage message = mock(ImmutableMessage.class);
+        when(message.getTtlMs()).thenReturn(ttlMs);
+        return new DelayableImmutableMessage(message, 0, "recipient", 0);
+    }
+
+    @Test
+    public void parkedMessageIsReleasedWhenInFlightTransmissionCompletes() {
+        Transmission first = subject.startTransmission(address, createDelayableMessage());
+        assertNotNull(first);
+        assertNotNull(subject.startTransmission(address, createDelayableMessage()));
+
+        DelayableImmutableMessage parkedMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, parkedMessage));
+        verify(messageQueue).park(parkedMessage);
+        verify(messageQueue, never()).unpark(any(DelayableImmutableMessage.class));
+        assertNotNull(subject.startTransmission(otherAddress, createDelayableMessage()));
+
+        first.succeeded();
+        verify(messageQueue).unpark(parkedMessage);
+        verify(messageQueue, never()).put(any(DelayableImmutableMessage.class));
+    }
+
+    @Test
+    public void newerMessagesAreParkedBehindReleasedMessage() {
+        Transmission first = subject.startTransmission(address, createDelayableMessage());
+        Transmission second = subject.startTransmission(address, createDelayableMessage());
+        DelayableImmutableMessage firstParkedMessage = createDelayableMessage();
+        DelayableImmutableMessage secondParkedMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, firstParkedMessage));
+        assertNull(subject.startTransmission(address, secondParkedMessage));
+
+        first.succeeded();
+        verify(messageQueue).unpark(firstParkedMessage);
+        verify(messageQueue, never()).unpark(secondParkedMessage);
+
+        // the free slot is reserved for the released message
+        DelayableImmutableMessage newerMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, newerMessage));
+        assertNotNull(subject.startTransmission(address, firstParkedMessage));
+
+        second.succeeded();
+        verify(messageQueue).unpark(secondParkedMessage);
+        verify(messageQueue, never()).unpark(newerMessage);
+    }
+
+    @Test
+    public void abandonedReleasedMessageReleasesNextParkedMessage() {
+        Transmission first = subject.startTransmission(address, createDelayableMessage());
+        subject.startTransmission(address, createDelayableMessage());
+        DelayableImmutableMessage firstParkedMessage = createDelayableMessage();
+        DelayableImmutableMessage secondParkedMessage = createDelayableMessage();
+        subject.startTransmission(address, firstParkedMessage);
+        subject.startTransmission(address, secondParkedMessage);
+        first.succeeded();
+        verify(messageQueue).unpark(firstParkedMessage);
+
+        subject.abandon(firstParkedMessage);
+        verify(messageQueue).unpark(secondParkedMessage);
+    }
+
+    @Test
+    public void failedTransmissionParksMessagesUntilEndOfBackoff() {
+        Transmission transmission = subject.startTransmission(address, createDelayableMessage());
+        transmission.failed(10000);
+        assertEquals(LaneState.BACKING_OFF, subject.getLaneState(address));
+
+        DelayableImmutableMessage deferredMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, deferredMessage));
+        verify(messageQueue).park(deferredMessage);
+        // released as probe at the end of the backoff
+        verify(messageQueue).unpark(deferredMessage);
+        assertTrue(deferredMessage.getDelay(TimeUnit.MILLISECONDS) > 5000);
+
+        assertNull(subject.startTransmission(address, createDelayableMessage()));
+        assertNotNull(subject.startTransmission(otherAddress, createDelayableMessage()));
+        assertEquals(LaneState.ACTIVE, subject.getLaneState(otherAddress));
+    }
+
+    @Test
+    public void retriedMessageIsTransmittedBeforeParkedMessages() {
+        DelayableImmutableMessage failingMessage = createDelayableMessage();
+        subject.startTransmission(address, failingMessage).retry(0);
+        verify(messageQueue).park(failingMessage);
+        verify(messageQueue).unpark(failingMessage);
+
+        DelayableImmutableMessage newerMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, newerMessage));
+
+        Transmission probe = subject.startTransmission(address, failingMessage);
+        assertNotNull(probe);
+        assertEquals(LaneState.PROBING, subject.getLaneState(address));
+        verify(messageQueue, never()).unpark(newerMessage);
+
+        probe.succeeded();
+        verify(messageQueue).unpark(newerMessage);
+    }
+
+    @Test
+    public void laneProbesWithSingleMessageAfterBackoff() {
+        subject.startTransmission(address, createDelayableMessage()).failed(0);
+
+        Transmission probe = subject.startTransmission(address, createDelayableMessage());
+        assertNotNull(probe);
+        assertEquals(LaneState.PROBING, subject.getLaneState(address));
+        DelayableImmutableMessage parkedMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, parkedMessage));
+        verify(messageQueue, never()).unpark(parkedMessage);
+
+        probe.succeeded();
+        assertEquals(LaneState.ACTIVE, subject.getLaneState(address));
+        verify(messageQueue).unpark(parkedMessage);
+    }
+
+    @Test
+    public void expiredTransmissionIsReleased() {
+        long expiredTtlMs = System.currentTimeMillis() - 1;
+        subject.startTransmission(address, createDelayableMessage(expiredTtlMs));
+        subject.startTransmission(address, createDelayableMessage());
+        DelayableImmutableMessage parkedMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, parkedMessage));
+
+        subject.releaseExpiredTransmissions();
+        verify(messageQueue).unpark(parkedMessage);
+    }
+
+    @Test
+    public void unexpiredTransmissionIsNotReleased() {
+        subject.startTransmission(address, createDelayableMessage());
+        subject.startTransmission(address, createDelayableMessage());
+        DelayableImmutableMessage parkedMessage = createDelayableMessage();
+        assertNull(subject.startTransmission(address, parkedMessage));
+
+        subject.releaseExpiredTransmissions();
+        verify(messageQueue, never()).unpark(parkedMessage);
+    }
+
+    @Test
+    public void transmissionIsCompletedOnlyOnce() {
+        Transmission transmission = subject.startTransmission(address, createDelayableMessage());
+        assertTrue(transmission.succeeded());
+        assertFalse(transmission.failed(10000));
+        assertEquals(LaneState.ACTIVE, subject.getLaneState(address));
+    }
+
+    @Test
+    public void retryOfReleasedExpiredTransmissionReportsCompletion() {
+        DelayableImmutableMessage expiredMessage = createDelayableMessage(System.currentTimeMillis() - 1);
+        Transmission transmission = subject.startTransmission(address, expiredMessage);
+        subject.releaseExpiredTransmissions();
+
+        assertFalse(transmission.retry(0));
+        verify(messageQueue, never()).park(expiredMessage);
+        assertEquals(LaneState.ACTIVE, subject.getLaneState(address));
+    }
+
+    @Test
+    public void idleLaneIsRemoved() {
+        Transmission first = subject.startTransmission(address, createDelayableMessage());
+        Transmission second = subject.startTransmission(address, createDelayableMessage());
+        assertEquals(1, subject.getLaneCount());
+
+        first.succeeded();
+        assertEquals(1, subject.getLaneCount());
+        second.finished();
+        assertEquals(0, subject.getLaneCount());
+    }
+}
@@ -23,10 +23,12 @@ import static java.util.stream.Collectors.toSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -64,6 +66,9 @@ public class MessageQueueTest {
     @Mock
     private DelayableImmutableMessage mockMessage;
 
+    @Mock
+    private ImmutableMessage mockImmutableMessage;
+
     @Mock
     private DelayableImmutableMessage mockDelayableMessage2_multicast;
 
@@ -109,6 +114,7 @@ public class MessageQueueTest {
                                                               .collect(toSet());
         when(messagePersisterMock.fetchAll(eq(generatedMessageQueueId))).thenReturn(mockedMessages);
 
+        when(mockMessage.getMessage()).thenReturn(mockImmutableMessage);
         when(mockDelayableMessage2_multicast.getMessage()).thenReturn(mockImmutableMessage2_multicast);
         when(mockDelayableMessage3_request.getMessage()).thenReturn(mockImmutableMessage3_request);
 
@@ -245,6 +251,49 @@ public class MessageQueueTest {
         verify(delayQueue).put(eq(mockMessage));
     }
 
+    @Test
+    public void testMessagePersisterNotCalledForMessageWithPayloadObject() {
+        // Given a message whose payload is passed by reference
+        when(mockImmutableMessage.getPayloadObject()).thenReturn(new Object());
+
+        // When we add the message to the MessageQueue
+        subject.put(mockMessage);
+
+        // Then the message persister was not asked to persist it
+        verify(messagePersisterMock, never()).persist(anyString(), any(DelayableImmutableMessage.class));
+        // ... but the message was added to the in-memory queue
+        verify(delayQueue).put(eq(mockMessage));
+    }
+
+    @Test
+    public void testParkedMessageIsPersistedOnlyWhenParked() {
+        // Given a message which has been polled from the MessageQueue and is parked
+        subject.park(mockMessage);
+
+        // When the message is unparked
+        subject.unpark(mockMessage);
+
+        // Then the message persister was asked to persist it only once
+        verify(messagePersisterMock, times(1)).persist(eq(generatedMessageQueueId), eq(mockMessage));
+        // ... and the message was added to the in-memory queue
+        verify(delayQueue).put(eq(mockMessage));
+    }
+
+    @Test
+    public void testShutdownBlocksMaxTimeIfMessageParked() {
+        // Given a parked message, and a max shutdown of 50ms (see setup)
+        subject.park(mockMessage);
+
+        // When I stop the queue, but do NOT unpark the message
+        long beforeStop = System.currentTimeMillis();
+        subject.waitForQueueToDrain();
+        long timeTaken = System.currentTimeMillis() - beforeStop;
+
+        // Then the operation blocked for max just over shutdownMaxTimeout millis
+        assertTrue("Expected stop to block for maximum of around " + shutdownMaxTimeout + "ms. Actual: " + timeTaken,
+                   timeTaken >= shutdownMaxTimeout && timeTaken < shutdownMaxTimeout + 20);
+    }
+
     @Test
     public void testPollRemovesMessageFromDelayQueueAndMessagePersister() throws Exception {
         // Given the MessageQueue and a mock message
@@ -19,7 +19,17 @@
 package joynr;
 
 import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -59,4 +69,102 @@ public class ImmutableMessageTest {
 
         assertThat(logMessage, containsString(payload));
     }
+
+    @Test
+    public void headersOfPreviousMessageAreNotReused() throws Exception {
+        MutableMessage firstMessage = new MutableMessage();
+        firstMessage.setSender("firstSender");
+        firstMessage.setRecipient("firstRecipient");
+        firstMessage.setReplyTo("firstReplyTo");
+        firstMessage.setCustomHeaders(Collections.singletonMap("key", "value"));
+        firstMessage.setPayload(new byte[]{ 1, 2, 3 });
+        ImmutableMessage firstImmutableMessage = firstMessage.getImmutableMessage();
+
+        MutableMessage secondMessage = new MutableMessage();
+        secondMessage.setSender("secondSender");
+        secondMessage.setRecipient("secondRecipient");
+        secondMessage.setPayload(new byte[]{ 4 });
+        ImmutableMessage secondImmutableMessage = secondMessage.getImmutableMessage();
+
+        assertEquals("firstReplyTo", firstImmutableMessage.getReplyTo());
+        assertEquals("value", firstImmutableMessage.getCustomHeaders().get("key"));
+        assertArrayEquals(new byte[]{ 1, 2, 3 }, firstImmutableMessage.getUnencryptedBody());
+
+        assertEquals("secondSender", secondImmutableMessage.getSender());
+        assertEquals(secondMessage.getId(), secondImmutableMessage.getId());
+        assertNull(secondImmutableMessage.getReplyTo());
+        assertTrue(secondImmutableMessage.getCustomHeaders().isEmpty());
+        assertArrayEquals(new byte[]{ 4 }, secondImmutableMessage.getUnencryptedBody());
+    }
+
+    @Test
+    public void customHeadersAreParsedOnce() throws Exception {
+        MutableMessage message = new MutableMessage();
+        message.setSender("sender");
+        message.setRecipient("recipient");
+        message.setCustomHeaders(Collections.singletonMap("c-key", "value"));
+        message.setPayload(new byte[]{ 1 });
+        ImmutableMessage immutableMessage = message.getImmutableMessage();
+
+        Map<String, String> customHeaders = immutableMessage.getCustomHeaders();
+        // only the first prefix is stripped
+        assertEquals("value", customHeaders.get("c-key"));
+        assertEquals(1, customHeaders.size());
+        assertSame(customHeaders, immutableMessage.getCustomHeaders());
+        assertSame(immutableMessage.getHeaders(), immutableMessage.getHeaders());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void customHeadersAreUnmodifiable() throws Exception {
+        MutableMessage message = new MutableMessage();
+        message.setSender("sender");
+        message.setRecipient("recipient");
+        message.setPayload(new byte[]{ 1 });
+
+        message.getImmutableMessage().getCustomHeaders().put("key", "value");
+    }
+
+    @Test
+    public void serializerSettingsOfMessageOfOtherThreadAreOverwritten() throws Exception {
+        AtomicReference<ImmutableMessage> firstImmutableMessage = new AtomicReference<>();
+        AtomicReference<Exception> firstException = new AtomicReference<>();
+        // the messages are serialized by different threads one after the other
+        Thread otherThread = new Thread(() -> {
+            MutableMessage firstMessage = new MutableMessage();
+            firstMessage.setSender("firstSender");
+            firstMessage.setRecipient("firstRecipient");
+            firstMessage.setTtlMs(1000L);
+            firstMessage.setTtlAbsolute(true);
+            firstMessage.setCompressed(true);
+            firstMessage.setEffort("BEST_EFFORT");
+            firstMessage.setPayload(new byte[]{ 1, 2, 3 });
+            try {
+                firstImmutableMessage.set(firstMessage.getImmutableMessage());
+            } catch (Exception e) {
+                firstException.set(e);
+            }
+        });
+        otherThread.start();
+        otherThread.join();
+        assertNull(firstException.get());
+
+        MutableMessage secondMessage = new MutableMessage();
+        secondMessage.setSender("secondSender");
+        secondMessage.setRecipient("secondRecipient");
+        secondMessage.setTtlMs(5L);
+        secondMessage.setTtlAbsolute(false);
+        secondMessage.setPayload(new byte[]{ 4 });
+        ImmutableMessage secondImmutableMessage = secondMessage.getImmutableMessage();
+
+        assertTrue(firstImmutableMessage.get().isTtlAbsolute());
+        assertTrue(firstImmutableMessage.get().isCompressed());
+        assertEquals("BEST_EFFORT", firstImmutableMessage.get().getEffort());
+
+        assertEquals("secondRecipient", secondImmutableMessage.getRecipient());
+        assertEquals(5L, secondImmutableMessage.getTtlMs());
+        assertFalse(secondImmutableMessage.isTtlAbsolute());
+        assertFalse(secondImmutableMessage.isCompressed());
+        assertNull(secondImmutableMessage.getEffort());
+        assertArrayEquals(new byte[]{ 4 }, secondImmutableMessage.getUnencryptedBody());
+    }
 }
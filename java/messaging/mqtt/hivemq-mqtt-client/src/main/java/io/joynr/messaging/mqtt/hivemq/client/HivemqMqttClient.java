@@ -38,6 +38,7 @@ import com.hivemq.client.mqtt.exceptions.MqttSessionExpiredException;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientConfig;
 import com.hivemq.client.mqtt.mqtt5.Mqtt5RxClient;
 import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5ConnectBuilder;
 import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAckRestrictions;
 import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
 import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscribe;
@@ -52,14 +53,15 @@ import io.joynr.messaging.SuccessAction;
 import io.joynr.messaging.mqtt.IMqttMessagingSkeleton;
 import io.joynr.messaging.mqtt.JoynrMqttClient;
 import io.joynr.statusmetrics.ConnectionStatusMetricsImpl;
+import io.reactivex.Flowable;
 import io.reactivex.disposables.Disposable;
 
 /**
  * This implements the {@link JoynrMqttClient} using the HiveMQ MQTT Client library.
- *
- * TODO
- * - HiveMQ MQTT Client offers better backpressure handling via rxJava, hence revisit this issue to see how we can make
- *   use of this for our own backpressure handling
+ * <p>
+ * If a receiveMaximum greater than 0 is configured for a receiving client, it is sent as MQTT 5 Receive Maximum on
+ * connect and incoming publishes are acknowledged manually by the {@link IMqttMessagingSkeleton}. This limits the
+ * number of unacknowledged QoS 1 messages the broker sends to this client.
  */
 public class HivemqMqttClient implements JoynrMqttClient {
 
@@ -73,6 +75,8 @@ public class HivemqMqttClient implements JoynrMqttClient {
     private final int keepAliveTimeSeconds;
     private final int connectionTimeoutSec;
     private final int reconnectDelayMs;
+    private final int receiveMaximum;
+    private final boolean manualAcknowledgement;
     private final boolean isReceiver;
     private final boolean isSender;
     private final String clientInformation;
@@ -93,6 +97,7 @@ public class HivemqMqttClient implements JoynrMqttClient {
                             boolean cleanSession,
                             int connectionTimeoutSec,
                             int reconnectDelayMs,
+                            int receiveMaximum,
                             boolean isReceiver,
                             boolean isSender,
                             String gbid,
@@ -103,7 +108,9 @@ public class HivemqMqttClient implements JoynrMqttClient {
         this.cleanSession = cleanSession;
         this.connectionTimeoutSec = connectionTimeoutSec;
         this.reconnectDelayMs = reconnectDelayMs;
+        this.receiveMaximum = receiveMaximum;
         this.isReceiver = isReceiver;
+        this.manualAcknowledgement = isReceiver && receiveMaximum > 0;
         this.isSender = isSender;
         clientInformation = createClientInformationString(gbid);
         this.connectionStatusMetrics = connectionStatusMetrics;
@@ -115,25 +122,27 @@ public class HivemqMqttClient implements JoynrMqttClient {
         if (!isReceiver || publishesDisposable != null) {
             return;
         }
-        publishesDisposable = client.publishes(MqttGlobalPublishFilter.ALL)
-                                    .subscribe(this::handleIncomingMessage, throwable -> {
-                                        if (!cleanSession && throwable instanceof MqttSessionExpiredException) {
-                                            logger.warn("{}: MqttSessionExpiredException encountered in publish callback, trying to resubscribe.",
-                                                        clientInformation,
-                                                        throwable);
-                                        } else {
-                                            logger.error("{}: Error encountered in publish callback, trying to resubscribe.",
-                                                         clientInformation,
-                                                         throwable);
-                                        }
-                                        synchronized (this) {
-                                            if (publishesDisposable != null) {
-                                                publishesDisposable.dispose();
-                                                publishesDisposable = null;
-                                            }
-                                            registerPublishCallback();
-                                        }
-                                    });
+        Flowable<Mqtt5Publish> publishes = manualAcknowledgement
+                ? client.publishes(MqttGlobalPublishFilter.ALL, true)
+                : client.publishes(MqttGlobalPublishFilter.ALL);
+        publishesDisposable = publishes.subscribe(this::handleIncomingMessage, throwable -> {
+            if (!cleanSession && throwable instanceof MqttSessionExpiredException) {
+                logger.warn("{}: MqttSessionExpiredException encountered in publish callback, trying to resubscribe.",
+                            clientInformation,
+                            throwable);
+            } else {
+                logger.error("{}: Error encountered in publish callback, trying to resubscribe.",
+                             clientInformation,
+                             throwable);
+            }
+            synchronized (this) {
+                if (publishesDisposable != null) {
+                    publishesDisposable.dispose();
+                    publishesDisposable = null;
+                }
+                registerPublishCallback();
+            }
+        });
     }
 
     String getClientInformationString() {
@@ -171,11 +180,14 @@ public class HivemqMqttClient implements JoynrMqttClient {
         if (!client.getConfig().getState().isConnected()) {
             while (!client.getConfig().getState().isConnected()) {
                 logger.info("{}: Attempting to connect client, clean session={} ...", clientInformation, cleanSession);
-                Mqtt5Connect mqtt5Connect = Mqtt5Connect.builder()
-                                                        .cleanStart(cleanSession)
-                                                        .keepAlive(keepAliveTimeSeconds)
-                                                        .noSessionExpiry()
-                                                        .build();
+                Mqtt5ConnectBuilder mqtt5ConnectBuilder = Mqtt5Connect.builder()
+                                                                      .cleanStart(cleanSession)
+                                                                      .keepAlive(keepAliveTimeSeconds)
+                                                                      .noSessionExpiry();
+                if (manualAcknowledgement) {
+                    mqtt5ConnectBuilder.restrictions().receiveMaximum(receiveMaximum).applyRestrictions();
+                }
+                Mqtt5Connect mqtt5Connect = mqtt5ConnectBuilder.build();
                 try {
                     connectionStatusMetrics.increaseConnectionAttempts();
                     client.connect(mqtt5Connect)
@@ -440,13 +452,18 @@ public class HivemqMqttClient implements JoynrMqttClient {
                          mqtt5Publish.getMessageExpiryInterval().orElse(0));
         }
         connectionStatusMetrics.increaseReceivedMessages();
-        messagingSkeleton.transmit(mqtt5Publish.getPayloadAsBytes(), (throwable) -> {
+        FailureAction failureAction = (throwable) -> {
             if (throwable instanceof JoynrMessageExpiredException) {
                 logger.warn("{}: Unable to handle incoming {}", clientInformation, mqtt5Publish, throwable);
             } else {
                 logger.error("{}: Unable to handle incoming {}", clientInformation, mqtt5Publish, throwable);
             }
-        });
+        };
+        if (manualAcknowledgement) {
+            messagingSkeleton.transmit(mqtt5Publish.getPayloadAsBytes(), mqtt5Publish::acknowledge, failureAction);
+        } else {
+            messagingSkeleton.transmit(mqtt5Publish.getPayloadAsBytes(), failureAction);
+        }
     }
 
     // for testing
@@ -63,6 +63,8 @@ import io.joynr.messaging.mqtt.JoynrMqttClient;
 import io.joynr.messaging.mqtt.MqttClientFactory;
 import io.joynr.messaging.mqtt.MqttClientIdProvider;
 import io.joynr.messaging.mqtt.MqttModule;
+import io.joynr.messaging.mqtt.SharedSubscriptionsMqttMessagingSkeleton;
+import io.joynr.messaging.mqtt.settings.LimitAndBackpressureSettings;
 import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.runtime.ShutdownListener;
 import io.joynr.runtime.ShutdownNotifier;
@@ -80,9 +82,11 @@ import io.reactivex.schedulers.Schedulers;
 public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListener {
 
     private static final Logger logger = LoggerFactory.getLogger(HivemqMqttClientFactory.class);
+    private static final int MAX_RECEIVE_MAXIMUM = 65535;
 
     private HashMap<String, JoynrMqttClient> receivingMqttClients; // gbid to client
     private HashMap<String, JoynrMqttClient> sendingMqttClients; // gbid to client
+    private HashMap<String, JoynrMqttClient> requestReceivingMqttClients; // gbid to client
     private final boolean separateConnections;
     private final MqttClientIdProvider mqttClientIdProvider;
     private final ScheduledExecutorService scheduledExecutorService;
@@ -132,6 +136,22 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
     @Named(MqttModule.PROPERTY_KEY_MQTT_RECONNECT_SLEEP_MS)
     private int reconnectDelayMs;
 
+    @Inject(optional = true)
+    @Named(MqttModule.PROPERTY_KEY_MQTT_ENABLE_SHARED_SUBSCRIPTIONS)
+    private boolean sharedSubscriptionsEnabled = false;
+
+    @Inject(optional = true)
+    @Named(LimitAndBackpressureSettings.PROPERTY_BACKPRESSURE_ENABLED)
+    private boolean backpressureEnabled = false;
+
+    @Inject(optional = true)
+    @Named(LimitAndBackpressureSettings.PROPERTY_MAX_INCOMING_MQTT_REQUESTS)
+    private int maxIncomingMqttRequests = 0;
+
+    @Inject(optional = true)
+    @Named(LimitAndBackpressureSettings.PROPERTY_BACKPRESSURE_INCOMING_MQTT_REQUESTS_UPPER_THRESHOLD)
+    private int backpressureIncomingMqttRequestsUpperThreshold = 80;
+
     @Inject
     // CHECKSTYLE IGNORE ParameterNumber FOR NEXT 1 LINES
     public HivemqMqttClientFactory(@Named(MqttModule.PROPERTY_KEY_MQTT_SEPARATE_CONNECTIONS) boolean separateConnections,
@@ -151,6 +171,7 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
         this.mqttClientIdProvider = mqttClientIdProvider;
         sendingMqttClients = new HashMap<>(); // gbid to client
         receivingMqttClients = new HashMap<>(); // gbid to client
+        requestReceivingMqttClients = new HashMap<>(); // gbid to client
         this.cleanSession = cleanSession;
         this.joynrStatusMetricsReceiver = joynrStatusMetricsReceiver;
         shutdownNotifier.registerForShutdown(this);
@@ -162,7 +183,7 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
             if (separateConnections) {
                 logger.info("Creating sender MQTT client for gbid {}", gbid);
                 sendingMqttClients.put(gbid,
-                                       createClient(gbid, mqttClientIdProvider.getClientId() + "Pub", false, true));
+                                       createClient(gbid, mqttClientIdProvider.getClientId() + "Pub", false, true, 0));
                 logger.debug("Sender MQTT client for gbid {} now: {}", gbid, sendingMqttClients.get(gbid));
             } else {
                 createCombinedClient(gbid);
@@ -177,7 +198,7 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
             logger.info("Creating receiver MQTT client for gbid {}", gbid);
             if (separateConnections) {
                 receivingMqttClients.put(gbid,
-                                         createClient(gbid, mqttClientIdProvider.getClientId() + "Sub", true, false));
+                                         createClient(gbid, mqttClientIdProvider.getClientId() + "Sub", true, false, 0));
             } else {
                 createCombinedClient(gbid);
             }
@@ -186,8 +207,38 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
         return receivingMqttClients.get(gbid);
     }
 
+    /**
+     * With backpressure enabled for shared subscriptions, the requests of the shared subscription are received by a
+     * connection of their own which announces a Receive Maximum to the broker and acknowledges publishes manually.
+     * Replies and multicasts are still received and acknowledged automatically by the connection returned by
+     * {@link #createReceiver(String)}, so that they are never held back by deferred acknowledgements of requests.
+     */
+    @Override
+    public synchronized JoynrMqttClient createRequestReceiver(String gbid) {
+        int receiveMaximum = getReceiveMaximum();
+        if (receiveMaximum == 0) {
+            return createReceiver(gbid);
+        }
+        if (!requestReceivingMqttClients.containsKey(gbid)) {
+            logger.info("Creating request receiver MQTT client for gbid {}", gbid);
+            requestReceivingMqttClients.put(gbid,
+                                            createClient(gbid,
+                                                         mqttClientIdProvider.getClientId() + "Req",
+                                                         true,
+                                                         false,
+                                                         receiveMaximum));
+            logger.debug("Request receiver MQTT client for gbid {} now: {}",
+                         gbid,
+                         requestReceivingMqttClients.get(gbid));
+        }
+        return requestReceivingMqttClients.get(gbid);
+    }
+
     @Override
     public synchronized void prepareForShutdown() {
+        for (JoynrMqttClient client : requestReceivingMqttClients.values()) {
+            client.shutdown();
+        }
         if (separateConnections) {
             for (JoynrMqttClient client : receivingMqttClients.values()) {
                 client.shutdown();
@@ -198,6 +249,11 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
     @Override
     public synchronized void shutdown() {
         logger.debug("shutdown invoked");
+        for (JoynrMqttClient client : requestReceivingMqttClients.values()) {
+            if (!client.isShutdown()) {
+                client.shutdown();
+            }
+        }
         if (separateConnections) {
             for (JoynrMqttClient client : receivingMqttClients.values()) {
                 if (!client.isShutdown()) {
@@ -213,11 +269,15 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
     }
 
     private void createCombinedClient(String gbid) {
-        sendingMqttClients.put(gbid, createClient(gbid, mqttClientIdProvider.getClientId(), true, true));
+        sendingMqttClients.put(gbid, createClient(gbid, mqttClientIdProvider.getClientId(), true, true, 0));
         receivingMqttClients.put(gbid, sendingMqttClients.get(gbid));
     }
 
-    private JoynrMqttClient createClient(String gbid, String clientId, boolean isReceiver, boolean isSender) {
+    private JoynrMqttClient createClient(String gbid,
+                                         String clientId,
+                                         boolean isReceiver,
+                                         boolean isSender,
+                                         int receiveMaximum) {
         URI serverUri;
         try {
             serverUri = new URI(mqttGbidToBrokerUriMap.get(gbid));
@@ -268,6 +328,7 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
                                                        cleanSession,
                                                        mqttGbidToConnectionTimeoutSecMap.get(gbid),
                                                        reconnectDelayMs,
+                                                       receiveMaximum,
                                                        isReceiver,
                                                        isSender,
                                                        gbid,
@@ -282,6 +343,24 @@ public class HivemqMqttClientFactory implements MqttClientFactory, ShutdownListe
         return result;
     }
 
+    /**
+     * With backpressure enabled for shared subscriptions, the messaging skeleton acknowledges requests immediately
+     * until the upper threshold of unprocessed requests is reached and holds back all further acknowledgements. The
+     * broker may then send another Receive Maximum of requests on top of the acknowledged but unprocessed ones, so
+     * the Receive Maximum is the remainder up to the maximum of incoming MQTT requests. Otherwise, requests above
+     * that maximum would be dropped by the skeleton.
+     *
+     * @return the Receive Maximum to use for the request receiving clients, 0 if flow control is not used
+     */
+    int getReceiveMaximum() {
+        if (!sharedSubscriptionsEnabled || !backpressureEnabled || maxIncomingMqttRequests <= 0) {
+            return 0;
+        }
+        int deferAcknowledgementThreshold = SharedSubscriptionsMqttMessagingSkeleton.getDeferAcknowledgementThreshold(maxIncomingMqttRequests,
+                                                                                                                       backpressureIncomingMqttRequestsUpperThreshold);
+        return Math.min(Math.max(1, maxIncomingMqttRequests - deferAcknowledgementThreshold), MAX_RECEIVE_MAXIMUM);
+    }
+
     private void setupSslConfig(Mqtt5ClientBuilder clientBuilder) {
         MqttClientSslConfigBuilder.Nested<? extends Mqtt5ClientBuilder> sslConfig = clientBuilder.sslConfig();
         if (cipherSuiteList != null && cipherSuiteList.size() > 0) {
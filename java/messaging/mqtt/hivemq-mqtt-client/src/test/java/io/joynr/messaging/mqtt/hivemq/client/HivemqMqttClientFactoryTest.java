@@ -21,12 +21,14 @@ package io.joynr.messaging.mqtt.hivemq.client;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -106,6 +108,12 @@ public class HivemqMqttClientFactoryTest {
         }
     }
 
+    private void setFactoryField(String fieldName, Object value) throws Exception {
+        Field field = HivemqMqttClientFactory.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(factory, value);
+    }
+
     private void assertSendersAndReceiversAreDifferent() {
         for (int i = 0; i < receivers.size(); i++) {
             for (int j = 0; j < receivers.size(); j++) {
@@ -180,4 +188,47 @@ public class HivemqMqttClientFactoryTest {
         }
     }
 
+    @Test
+    public void getReceiveMaximum_zeroWithoutBackpressure() throws Exception {
+        createDefaultFactory(false);
+        setFactoryField("sharedSubscriptionsEnabled", true);
+        setFactoryField("maxIncomingMqttRequests", 20);
+        assertEquals(0, factory.getReceiveMaximum());
+    }
+
+    @Test
+    public void getReceiveMaximum_onlyAnnouncesRequestsAboveDeferThreshold() throws Exception {
+        createDefaultFactory(false);
+        setFactoryField("sharedSubscriptionsEnabled", true);
+        setFactoryField("backpressureEnabled", true);
+        setFactoryField("maxIncomingMqttRequests", 20);
+        setFactoryField("backpressureIncomingMqttRequestsUpperThreshold", 80);
+        assertEquals(4, factory.getReceiveMaximum());
+
+        setFactoryField("backpressureIncomingMqttRequestsUpperThreshold", 100);
+        assertEquals(1, factory.getReceiveMaximum());
+    }
+
+    @Test
+    public void createRequestReceiver_returnsReceiverWithoutBackpressure() {
+        createDefaultFactory(false);
+        HivemqMqttClient receiver = (HivemqMqttClient) factory.createReceiver(gbids[0]);
+        assertSame(receiver, factory.createRequestReceiver(gbids[0]));
+    }
+
+    @Test
+    public void createRequestReceiver_createsSeparateClientWithBackpressure() throws Exception {
+        createDefaultFactory(false);
+        setFactoryField("sharedSubscriptionsEnabled", true);
+        setFactoryField("backpressureEnabled", true);
+        setFactoryField("maxIncomingMqttRequests", 20);
+        HivemqMqttClient receiver = (HivemqMqttClient) factory.createReceiver(gbids[0]);
+        HivemqMqttClient requestReceiver = (HivemqMqttClient) factory.createRequestReceiver(gbids[0]);
+        assertNotEquals(receiver, requestReceiver);
+        assertSame(requestReceiver, factory.createRequestReceiver(gbids[0]));
+
+        factory.shutdown();
+        assertTrue(requestReceiver.isShutdown());
+    }
+
 }
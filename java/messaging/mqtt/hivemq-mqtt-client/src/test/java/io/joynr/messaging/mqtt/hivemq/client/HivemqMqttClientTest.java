@@ -134,6 +134,7 @@ public class HivemqMqttClientTest {
                                       defaultCleanSession,
                                       defaultConnectionTimeoutSec,
                                       defaultReconnectDelayMs,
+                                      0,
                                       true,
                                       true,
                                       defaultGbid,
@@ -317,6 +318,36 @@ public class HivemqMqttClientTest {
         verify(mockConnectionStatusMetrics, times(1)).increaseReceivedMessages();
     }
 
+    @Test
+    public void incomingMessageIsAcknowledgedBySkeletonIfReceiveMaximumIsSet() throws Exception {
+        client = new HivemqMqttClient(mockRxClient,
+                                      defaultKeepAliveTimerSec,
+                                      defaultCleanSession,
+                                      defaultConnectionTimeoutSec,
+                                      defaultReconnectDelayMs,
+                                      10,
+                                      true,
+                                      true,
+                                      defaultGbid,
+                                      mockConnectionStatusMetrics);
+        client.setMessageListener(mockSkeleton);
+
+        Mqtt5Publish mockPublish = mock(Mqtt5Publish.class);
+        byte[] payload = new byte[0];
+        doReturn(payload).when(mockPublish).getPayloadAsBytes();
+        Method handleIncomingMessage = client.getClass().getDeclaredMethod("handleIncomingMessage", Mqtt5Publish.class);
+        handleIncomingMessage.setAccessible(true);
+        handleIncomingMessage.invoke(client, mockPublish);
+
+        ArgumentCaptor<SuccessAction> acknowledgeActionCaptor = ArgumentCaptor.forClass(SuccessAction.class);
+        verify(mockSkeleton).transmit(eq(payload), acknowledgeActionCaptor.capture(), any(FailureAction.class));
+        verify(mockSkeleton, times(0)).transmit(any(byte[].class), any(FailureAction.class));
+        verify(mockPublish, times(0)).acknowledge();
+
+        acknowledgeActionCaptor.getValue().execute();
+        verify(mockPublish).acknowledge();
+    }
+
     @Test
     public void startIncreasesNumberOfConnectionAttempts() {
         doAnswer(new Answer<MqttClientState>() {
@@ -357,6 +388,7 @@ public class HivemqMqttClientTest {
                                       defaultCleanSession,
                                       defaultConnectionTimeoutSec,
                                       defaultReconnectDelayMs,
+                                      0,
                                       true,
                                       true,
                                       defaultGbid,
@@ -390,6 +422,7 @@ public class HivemqMqttClientTest {
                                       defaultCleanSession,
                                       defaultConnectionTimeoutSec,
                                       defaultReconnectDelayMs,
+                                      0,
                                       true,
                                       true,
                                       defaultGbid,
@@ -19,8 +19,28 @@
 package io.joynr.messaging.mqtt;
 
 import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.SuccessAction;
 
 public interface IMqttMessagingSkeleton {
 
     public void transmit(byte[] serializedMessage, FailureAction failureAction);
+
+    /**
+     * Variant of {@link #transmit(byte[], FailureAction)} for clients which acknowledge incoming QoS 1 messages
+     * manually. The skeleton has to execute the acknowledgeAction exactly once, but may defer it in order to apply
+     * backpressure via the MQTT 5 Receive Maximum of the connection.
+     *
+     * @param serializedMessage the received message
+     * @param acknowledgeAction action that acknowledges the message to the broker
+     * @param failureAction action executed in case the message cannot be handled
+     */
+    public default void transmit(byte[] serializedMessage,
+                                 SuccessAction acknowledgeAction,
+                                 FailureAction failureAction) {
+        try {
+            transmit(serializedMessage, failureAction);
+        } finally {
+            acknowledgeAction.execute();
+        }
+    }
 }
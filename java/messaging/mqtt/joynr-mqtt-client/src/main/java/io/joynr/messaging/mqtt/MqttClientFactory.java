@@ -23,4 +23,11 @@ public interface MqttClientFactory {
     JoynrMqttClient createSender(String gbid);
 
     JoynrMqttClient createReceiver(String gbid);
+
+    /**
+     * @param gbid the GBID of the broker
+     * @return the client which receives the requests of a shared subscription; this may be the client returned by
+     * {@link #createReceiver(String)}
+     */
+    JoynrMqttClient createRequestReceiver(String gbid);
 }
@@ -19,9 +19,7 @@
 package io.joynr.messaging.mqtt;
 
 import java.io.Serializable;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -35,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import io.joynr.messaging.FailureAction;
 import io.joynr.messaging.JoynrMessageProcessor;
 import io.joynr.messaging.RawMessagingPreprocessor;
+import io.joynr.messaging.SuccessAction;
 import io.joynr.statusmetrics.JoynrStatusMetricsReceiver;
 import io.joynr.messaging.routing.AbstractGlobalMessagingSkeleton;
 import io.joynr.messaging.routing.MessageProcessedListener;
@@ -85,7 +84,7 @@ public class MqttMessagingSkeleton extends AbstractGlobalMessagingSkeleton
         this.mqttTopicPrefixProvider = mqttTopicPrefixProvider;
         this.rawMessagingPreprocessor = rawMessagingPreprocessor;
         this.messageProcessors = messageProcessors;
-        this.incomingMqttRequests = Collections.synchronizedSet(new HashSet<String>());
+        this.incomingMqttRequests = ConcurrentHashMap.newKeySet();
         this.droppedMessagesCount = new AtomicLong();
         this.multicastSubscriptionCount = new ConcurrentHashMap<>();
         this.joynrStatusMetricsReceiver = joynrStatusMetricsReceiver;
@@ -149,6 +148,12 @@ public class MqttMessagingSkeleton extends AbstractGlobalMessagingSkeleton
 
     @Override
     public void transmit(byte[] serializedMessage, FailureAction failureAction) {
+        transmit(serializedMessage, SuccessAction.noAction, failureAction);
+    }
+
+    @Override
+    public void transmit(byte[] serializedMessage, SuccessAction acknowledgeAction, FailureAction failureAction) {
+        boolean acknowledgementDeferred = false;
         try {
             HashMap<String, Serializable> context = new HashMap<String, Serializable>();
             byte[] processedMessage = rawMessagingPreprocessor.process(serializedMessage, Optional.of(context));
@@ -178,6 +183,7 @@ public class MqttMessagingSkeleton extends AbstractGlobalMessagingSkeleton
 
             if (isRequestMessageTypeThatCanBeDropped(message.getType())) {
                 requestAccepted(message.getId());
+                acknowledgementDeferred = deferAcknowledgement(message.getId(), acknowledgeAction);
             }
 
             try {
@@ -194,6 +200,10 @@ public class MqttMessagingSkeleton extends AbstractGlobalMessagingSkeleton
         } catch (Exception e) {
             logger.error("Message \"{}\" could not be transmitted:", serializedMessage, e);
             failureAction.execute(e);
+        } finally {
+            if (!acknowledgementDeferred) {
+                acknowledgeAction.execute();
+            }
         }
     }
 
@@ -254,6 +264,19 @@ public class MqttMessagingSkeleton extends AbstractGlobalMessagingSkeleton
         incomingMqttRequests.add(messageId);
     }
 
+    /**
+     * Called for each accepted request before it is routed. Override this method in order to hold back the
+     * acknowledgement of the request to the broker. If <code>true</code> is returned, the skeleton takes over the
+     * responsibility to execute the acknowledgeAction exactly once later on.
+     *
+     * @param messageId the id of the accepted request
+     * @param acknowledgeAction action that acknowledges the request to the broker
+     * @return <code>true</code> if the acknowledgement is deferred, otherwise <code>false</code>
+     */
+    protected boolean deferAcknowledgement(String messageId, SuccessAction acknowledgeAction) {
+        return false;
+    }
+
     protected void requestProcessed(String messageId) {
         logger.debug("Request with messageId {} was processed and is removed from the MQTT skeleton tracking list",
                      messageId);
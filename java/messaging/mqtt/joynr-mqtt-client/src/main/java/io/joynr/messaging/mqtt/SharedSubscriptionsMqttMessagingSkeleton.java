@@ -23,14 +23,18 @@ import static io.joynr.messaging.mqtt.settings.LimitAndBackpressureSettings.PROP
 import static io.joynr.messaging.mqtt.settings.LimitAndBackpressureSettings.PROPERTY_MAX_INCOMING_MQTT_REQUESTS;
 import static java.lang.String.format;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.joynr.messaging.JoynrMessageProcessor;
 import io.joynr.messaging.RawMessagingPreprocessor;
+import io.joynr.messaging.SuccessAction;
 import io.joynr.statusmetrics.JoynrStatusMetricsReceiver;
 import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.messaging.routing.RoutingTable;
@@ -40,6 +44,14 @@ import io.joynr.messaging.routing.RoutingTable;
  * case where HiveMQ shared subscriptions are available.
  * <p>
  * It subscribes automatically to the replyTo topic and the shared topic when {@link #subscribe()} is called.
+ * <p>
+ * If backpressure is enabled, the acknowledgements of incoming requests are held back as soon as the count of
+ * unprocessed requests reaches the upper threshold and are released again when it drops below the lower threshold.
+ * Together with the MQTT 5 Receive Maximum of the connection (see
+ * {@link io.joynr.messaging.mqtt.settings.LimitAndBackpressureSettings}) this makes the broker hand further requests
+ * of the shared subscription to other instances without unsubscribing from the shared topic. The shared topic is
+ * then subscribed by the client returned by {@link MqttClientFactory#createRequestReceiver(String)}, so that replies
+ * and multicasts are not held back behind deferred acknowledgements of requests.
  *
  * @see io.joynr.messaging.mqtt.MqttModule#PROPERTY_KEY_MQTT_ENABLE_SHARED_SUBSCRIPTIONS
  */
@@ -49,13 +61,19 @@ public class SharedSubscriptionsMqttMessagingSkeleton extends MqttMessagingSkele
     private static final String NON_ALPHA_REGEX_PATTERN = "[^a-zA-Z]";
     private final String channelId;
     private final String sharedSubscriptionsTopic;
-    private final AtomicBoolean subscribedToSharedSubscriptionsTopic;
     private final String replyToTopic;
     private boolean backpressureEnabled;
     private final int backpressureIncomingMqttRequestsUpperThreshold;
     private final int backpressureIncomingMqttRequestsLowerThreshold;
-    private final int unsubscribeThreshold;
-    private final int resubscribeThreshold;
+    private final int deferAcknowledgementThreshold;
+    private final int releaseAcknowledgementThreshold;
+    // deferredAcknowledgementsLock makes the threshold check and the enqueueing of a deferred acknowledgement
+    // atomic with respect to the threshold check and the draining in requestProcessed, otherwise an acknowledgement
+    // which is deferred while the last unprocessed request completes would never be released
+    private final Object deferredAcknowledgementsLock = new Object();
+    private final Queue<SuccessAction> deferredAcknowledgements;
+    private final JoynrMqttClient requestClient;
+    private boolean requestClientStarted = false;
 
     // CHECKSTYLE IGNORE ParameterNumber FOR NEXT 1 LINES
     public SharedSubscriptionsMqttMessagingSkeleton(String ownTopic,
@@ -86,13 +104,26 @@ public class SharedSubscriptionsMqttMessagingSkeleton extends MqttMessagingSkele
         this.replyToTopic = replyToTopic;
         this.channelId = channelId;
         this.sharedSubscriptionsTopic = createSharedSubscriptionsTopic();
-        this.subscribedToSharedSubscriptionsTopic = new AtomicBoolean(false);
         this.backpressureEnabled = backpressureEnabled;
         this.backpressureIncomingMqttRequestsUpperThreshold = backpressureIncomingMqttRequestsUpperThreshold;
         this.backpressureIncomingMqttRequestsLowerThreshold = backpressureIncomingMqttRequestsLowerThreshold;
         validateBackpressureValues();
-        this.unsubscribeThreshold = (maxIncomingMqttRequests * backpressureIncomingMqttRequestsUpperThreshold) / 100;
-        this.resubscribeThreshold = (maxIncomingMqttRequests * backpressureIncomingMqttRequestsLowerThreshold) / 100;
+        this.deferAcknowledgementThreshold = getDeferAcknowledgementThreshold(maxIncomingMqttRequests,
+                                                                              backpressureIncomingMqttRequestsUpperThreshold);
+        this.releaseAcknowledgementThreshold = (maxIncomingMqttRequests
+                * backpressureIncomingMqttRequestsLowerThreshold) / 100;
+        this.deferredAcknowledgements = new ArrayDeque<>();
+        this.requestClient = this.backpressureEnabled ? mqttClientFactory.createRequestReceiver(ownGbid) : getClient();
+    }
+
+    /**
+     * @param maxIncomingMqttRequests the maximum number of unprocessed requests
+     * @param backpressureIncomingMqttRequestsUpperThreshold the upper threshold in percent of the maximum
+     * @return the number of unprocessed requests from which on acknowledgements are held back
+     */
+    public static int getDeferAcknowledgementThreshold(int maxIncomingMqttRequests,
+                                                       int backpressureIncomingMqttRequestsUpperThreshold) {
+        return (maxIncomingMqttRequests * backpressureIncomingMqttRequestsUpperThreshold) / 100;
     }
 
     private void validateBackpressureValues() {
@@ -154,38 +185,58 @@ public class SharedSubscriptionsMqttMessagingSkeleton extends MqttMessagingSkele
     }
 
     protected void subscribeToSharedTopic() {
+        startRequestClient();
         logger.info("Subscribing to shared topic: {}", sharedSubscriptionsTopic);
-        getClient().subscribe(sharedSubscriptionsTopic);
-        subscribedToSharedSubscriptionsTopic.set(true);
+        requestClient.subscribe(sharedSubscriptionsTopic);
     }
 
-    @Override
-    protected void requestAccepted(String messageId) {
-        super.requestAccepted(messageId);
+    private synchronized void startRequestClient() {
+        if (requestClient == getClient() || requestClientStarted) {
+            return;
+        }
+        requestClient.setMessageListener(this);
+        requestClient.start();
+        requestClientStarted = true;
+    }
 
-        if (backpressureEnabled && getCurrentCountOfUnprocessedMqttRequests() >= unsubscribeThreshold) {
-            // count of unprocessed requests bypasses upper threshold,
-            // try to stop further incoming requests
-            if (subscribedToSharedSubscriptionsTopic.compareAndSet(true, false)) {
-                getClient().unsubscribe(sharedSubscriptionsTopic);
-                logger.info("Unsubscribed from topic {} due to enabled backpressure mechanism "
-                        + "and passed upper threshold of unprocessed MQTT requests", sharedSubscriptionsTopic);
+    @Override
+    protected boolean deferAcknowledgement(String messageId, SuccessAction acknowledgeAction) {
+        if (!backpressureEnabled) {
+            return false;
+        }
+        synchronized (deferredAcknowledgementsLock) {
+            if (getCurrentCountOfUnprocessedMqttRequests() < deferAcknowledgementThreshold) {
+                return false;
             }
+            // count of unprocessed requests bypasses upper threshold,
+            // hold back the acknowledgement to stop further incoming requests
+            deferredAcknowledgements.add(acknowledgeAction);
         }
+        logger.debug("Acknowledgement of request with messageId {} deferred due to enabled backpressure mechanism "
+                + "and passed upper threshold of unprocessed MQTT requests", messageId);
+        return true;
     }
 
     @Override
     protected void requestProcessed(String messageId) {
         super.requestProcessed(messageId);
 
-        if (backpressureEnabled && getCurrentCountOfUnprocessedMqttRequests() < resubscribeThreshold) {
-            // count of unprocessed requests drops below lower threshold,
-            // try to get further incoming requests
-            if (subscribedToSharedSubscriptionsTopic.compareAndSet(false, true)) {
-                getClient().subscribe(sharedSubscriptionsTopic);
-                logger.info("Subscribed again to topic {} due to enabled backpressure mechanism "
-                        + "and passed lower threshold of unprocessed MQTT requests", sharedSubscriptionsTopic);
+        if (!backpressureEnabled) {
+            return;
+        }
+        List<SuccessAction> releasedAcknowledgements;
+        synchronized (deferredAcknowledgementsLock) {
+            if (deferredAcknowledgements.isEmpty()
+                    || getCurrentCountOfUnprocessedMqttRequests() >= releaseAcknowledgementThreshold) {
+                return;
             }
+            // count of unprocessed requests drops below lower threshold,
+            // acknowledge the held back requests to get further incoming requests
+            releasedAcknowledgements = new ArrayList<>(deferredAcknowledgements);
+            deferredAcknowledgements.clear();
+        }
+        for (SuccessAction acknowledgeAction : releasedAcknowledgements) {
+            acknowledgeAction.execute();
         }
     }
 
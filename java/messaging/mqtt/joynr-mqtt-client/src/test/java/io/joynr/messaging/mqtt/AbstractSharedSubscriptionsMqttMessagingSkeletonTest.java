@@ -20,25 +20,33 @@ package io.joynr.messaging.mqtt;
 
 import static io.joynr.messaging.mqtt.MqttMessagingSkeletonTestUtil.createTestMessage;
 import static io.joynr.messaging.mqtt.MqttMessagingSkeletonTestUtil.failIfCalledAction;
-import static io.joynr.messaging.mqtt.MqttMessagingSkeletonTestUtil.feedMqttSkeletonWithRequests;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import io.joynr.messaging.SuccessAction;
 import io.joynr.messaging.routing.MessageRouter;
 import io.joynr.messaging.routing.RoutingTable;
 import io.joynr.statusmetrics.JoynrStatusMetricsReceiver;
 import io.joynr.util.ObjectMapper;
+import joynr.ImmutableMessage;
 import joynr.Message;
 import joynr.system.RoutingTypes.RoutingTypesUtil;
 
@@ -71,6 +79,7 @@ public abstract class AbstractSharedSubscriptionsMqttMessagingSkeletonTest {
         objectMapperField.setAccessible(true);
         objectMapperField.set(RoutingTypesUtil.class, new ObjectMapper());
         when(mqttClientFactory.createReceiver(ownGbid)).thenReturn(mqttClient);
+        when(mqttClientFactory.createRequestReceiver(ownGbid)).thenReturn(mqttClient);
         when(mqttClientFactory.createSender(ownGbid)).thenReturn(mqttClient);
     }
 
@@ -83,33 +92,46 @@ public abstract class AbstractSharedSubscriptionsMqttMessagingSkeletonTest {
         initAndSubscribe();
     }
 
-    private void triggerAndVerifySharedSubscriptionsTopicUnsubscribeAndSubscribeCycle(String expectedChannelId,
-                                                                                      int expectedTotalUnsubscribeCallCount,
-                                                                                      int expectedTotalSubscribeCallCount) throws Exception {
-        final String expectedSharedSubscriptionsTopicPrefix = "$share/" + expectedChannelId + "/";
+    private List<String> feedSkeletonWithRequests(int numRequests, SuccessAction acknowledgeAction) throws Exception {
+        List<String> messageIds = new LinkedList<>();
+        for (int i = 0; i < numRequests; i++) {
+            ImmutableMessage message = createTestMessage(Message.MessageType.VALUE_MESSAGE_TYPE_REQUEST);
+            subject.transmit(message.getSerializedMessage(), acknowledgeAction, failIfCalledAction);
+            messageIds.add(message.getId());
+        }
+        return messageIds;
+    }
 
+    private void triggerAndVerifyDeferAndReleaseAcknowledgementCycle() throws Exception {
         final int mqttRequestsToHitUpperThreshold = (maxMqttMessagesInQueue
                 * backpressureIncomingMqttRequestsUpperThreshold) / 100;
         final int mqttRequestsToHitLowerThreshold = (maxMqttMessagesInQueue
                 * backpressureIncomingMqttRequestsLowerThreshold) / 100;
 
-        // fill up with requests and verify unsubscribe
-        List<String> messageIds = feedMqttSkeletonWithRequests(subject, mqttRequestsToHitUpperThreshold + 1);
-        verify(mqttClient,
-               times(expectedTotalUnsubscribeCallCount)).unsubscribe(startsWith(expectedSharedSubscriptionsTopicPrefix));
+        // fill up with requests until the upper threshold is hit, all of them are acknowledged immediately
+        SuccessAction immediateAcknowledgeAction = mock(SuccessAction.class);
+        List<String> messageIds = feedSkeletonWithRequests(mqttRequestsToHitUpperThreshold - 1,
+                                                           immediateAcknowledgeAction);
+        verify(immediateAcknowledgeAction, times(mqttRequestsToHitUpperThreshold - 1)).execute();
+
+        // further requests are not acknowledged
+        SuccessAction deferredAcknowledgeAction = mock(SuccessAction.class);
+        messageIds.addAll(feedSkeletonWithRequests(2, deferredAcknowledgeAction));
+        verify(deferredAcknowledgeAction, times(0)).execute();
 
-        // finish processing of as many requests needed to drop below lower threshold
-        final int numOfRequestsToProcess = mqttRequestsToHitUpperThreshold - mqttRequestsToHitLowerThreshold + 2;
+        // finish processing of requests until just before dropping below the lower threshold
+        final int numOfRequestsToProcess = messageIds.size() - mqttRequestsToHitLowerThreshold;
         for (int i = 0; i < numOfRequestsToProcess; i++) {
             subject.messageProcessed(messageIds.get(i));
         }
+        verify(deferredAcknowledgeAction, times(0)).execute();
 
-        // verify that now subscribe is triggered again
-        verify(mqttClient,
-               times(expectedTotalSubscribeCallCount)).subscribe(startsWith(expectedSharedSubscriptionsTopicPrefix));
+        // dropping below the lower threshold releases the deferred acknowledgements
+        subject.messageProcessed(messageIds.get(numOfRequestsToProcess));
+        verify(deferredAcknowledgeAction, times(2)).execute();
 
         // cleanup: process the rest of the messages in order to have 0 pending requests
-        for (int i = numOfRequestsToProcess; i < messageIds.size(); i++) {
+        for (int i = numOfRequestsToProcess + 1; i < messageIds.size(); i++) {
             subject.messageProcessed(messageIds.get(i));
         }
     }
@@ -200,57 +222,98 @@ public abstract class AbstractSharedSubscriptionsMqttMessagingSkeletonTest {
     }
 
     @Test
-    public void testBackpressureTriggersUnsubscribeWhenUpperThresholdHit() throws Exception {
+    public void testBackpressureDefersAcknowledgementWhenUpperThresholdHit() throws Exception {
         backpressureEnabled = true;
         createAndInitSkeleton("channelIdBackpressure");
 
         final int mqttRequestsToHitUpperThreshold = (maxMqttMessagesInQueue
                 * backpressureIncomingMqttRequestsUpperThreshold) / 100;
-        feedMqttSkeletonWithRequests(subject, mqttRequestsToHitUpperThreshold - 1);
+        SuccessAction acknowledgeAction = mock(SuccessAction.class);
+        feedSkeletonWithRequests(mqttRequestsToHitUpperThreshold - 1, acknowledgeAction);
 
-        // just below threshold, still no unsubscribe call expected
-        verify(mqttClient, times(0)).unsubscribe(any(String.class));
+        // just below threshold, all requests are acknowledged
+        verify(acknowledgeAction, times(mqttRequestsToHitUpperThreshold - 1)).execute();
 
-        // messages that are not of request type should not trigger unsubscribe as well
+        // messages that are not of request type are always acknowledged immediately
+        SuccessAction replyAcknowledgeAction = mock(SuccessAction.class);
         subject.transmit(createTestMessage(Message.MessageType.VALUE_MESSAGE_TYPE_REPLY).getSerializedMessage(),
+                         replyAcknowledgeAction,
                          failIfCalledAction);
         subject.transmit(createTestMessage(Message.MessageType.VALUE_MESSAGE_TYPE_MULTICAST).getSerializedMessage(),
+                         replyAcknowledgeAction,
                          failIfCalledAction);
+        verify(replyAcknowledgeAction, times(2)).execute();
+
+        // a further request hits the threshold value and its acknowledgement is deferred
+        SuccessAction deferredAcknowledgeAction = mock(SuccessAction.class);
+        feedSkeletonWithRequests(1, deferredAcknowledgeAction);
+        verify(deferredAcknowledgeAction, times(0)).execute();
+
+        // the shared topic subscription is kept
         verify(mqttClient, times(0)).unsubscribe(any(String.class));
+    }
 
-        // a further request should hit the threshold value and trigger an unsubscribe
-        subject.transmit(createTestMessage(Message.MessageType.VALUE_MESSAGE_TYPE_REQUEST).getSerializedMessage(),
-                         failIfCalledAction);
-        verify(mqttClient).unsubscribe(startsWith("$share/channelIdBackpressure/"));
+    @Test
+    public void testBackpressureDoesNotDeferAcknowledgementWhenDisabled() throws Exception {
+        createAndInitSkeleton("channelIdNoBackpressure");
+
+        SuccessAction acknowledgeAction = mock(SuccessAction.class);
+        feedSkeletonWithRequests(maxMqttMessagesInQueue - 1, acknowledgeAction);
+        verify(acknowledgeAction, times(maxMqttMessagesInQueue - 1)).execute();
     }
 
     @Test
-    public void testBackpressureTriggersResubscribeWhenDroppedBelowLowerThreshold() throws Exception {
+    public void testBackpressureReleasesAcknowledgementsWhenDroppedBelowLowerThreshold() throws Exception {
         backpressureEnabled = true;
-        final String channelId = "channelIdBackpressureOneCycle";
-        createAndInitSkeleton(channelId);
-
-        final int expectedTotalUnsubscribeCallCount = 1;
-        final int expectedTotalSubscribeCallCount = 2; // one call is from the init method of the skeleton
-        triggerAndVerifySharedSubscriptionsTopicUnsubscribeAndSubscribeCycle(channelId,
-                                                                             expectedTotalUnsubscribeCallCount,
-                                                                             expectedTotalSubscribeCallCount);
+        createAndInitSkeleton("channelIdBackpressureOneCycle");
+
+        triggerAndVerifyDeferAndReleaseAcknowledgementCycle();
+        verify(mqttClient, times(0)).unsubscribe(any(String.class));
     }
 
     @Test
-    public void testBackpressureTriggersUnsubscribeAndSubscribeRepeatedly() throws Exception {
+    public void testBackpressureDefersAndReleasesAcknowledgementsRepeatedly() throws Exception {
         backpressureEnabled = true;
-        final String channelId = "channelIdBackpressureMultipleCycles";
-        createAndInitSkeleton(channelId);
+        createAndInitSkeleton("channelIdBackpressureMultipleCycles");
 
         final int numCycles = 10;
         for (int i = 1; i <= numCycles; i++) {
-            final int expectedTotalUnsubscribeCallCount = i;
-            final int expectedTotalSubscribeCallCount = i + 1; // one call is from the init method of the skeleton
-            triggerAndVerifySharedSubscriptionsTopicUnsubscribeAndSubscribeCycle(channelId,
-                                                                                 expectedTotalUnsubscribeCallCount,
-                                                                                 expectedTotalSubscribeCallCount);
+            triggerAndVerifyDeferAndReleaseAcknowledgementCycle();
         }
+        verify(mqttClient, times(0)).unsubscribe(any(String.class));
+    }
+
+    @Test
+    public void testBackpressureReleasesAllAcknowledgementsWhenRequestsAreProcessedConcurrently() throws Exception {
+        backpressureEnabled = true;
+        createAndInitSkeleton("channelIdBackpressureConcurrent");
+
+        final int numRequests = 5000;
+        final AtomicInteger acknowledgedCount = new AtomicInteger();
+        final SuccessAction countingAcknowledgeAction = () -> acknowledgedCount.incrementAndGet();
+        final BlockingQueue<String> messageIdsToProcess = new LinkedBlockingQueue<>();
+        final String endOfRequests = "endOfRequests";
+
+        Thread processingThread = new Thread(() -> {
+            try {
+                String messageId;
+                while (!endOfRequests.equals(messageId = messageIdsToProcess.take())) {
+                    subject.messageProcessed(messageId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        processingThread.start();
+
+        for (int i = 0; i < numRequests; i++) {
+            messageIdsToProcess.addAll(feedSkeletonWithRequests(1, countingAcknowledgeAction));
+        }
+        messageIdsToProcess.add(endOfRequests);
+        processingThread.join(TimeUnit.SECONDS.toMillis(30));
+
+        // every request has either been acknowledged immediately or its deferred acknowledgement has been released
+        assertEquals(numRequests, acknowledgedCount.get());
     }
 
-}
\ No newline at end of file
+}
@@ -21,8 +21,11 @@ package io.joynr.messaging.mqtt;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.HashSet;
 
@@ -83,4 +86,22 @@ public class SharedSubscriptionsMqttMessagingSkeletonTest extends AbstractShared
         verify(mqttClient).subscribe(eq("$share/channelId/" + ownTopic + "/#"));
     }
 
+    @Test
+    public void backpressureEnabled_subscribesToSharedTopicWithRequestReceiver() {
+        JoynrMqttClient requestClient = mock(JoynrMqttClient.class);
+        when(mqttClientFactory.createRequestReceiver(ownGbid)).thenReturn(requestClient);
+        backpressureEnabled = true;
+        createSkeleton("channelId");
+
+        subject.init();
+
+        verify(requestClient).setMessageListener(subject);
+        verify(requestClient).start();
+        verify(requestClient).subscribe(eq("$share/channelId/" + ownTopic + "/#"));
+        // replies are received by the connection which acknowledges automatically
+        verify(mqttClient).subscribe(eq(replyToTopic + "/#"));
+        verify(mqttClient, never()).subscribe(startsWith("$share/"));
+        verify(requestClient, never()).subscribe(eq(replyToTopic + "/#"));
+    }
+
 }
@@ -0,0 +1,407 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.shm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+import io.joynr.exceptions.JoynrIllegalStateException;
+import io.joynr.exceptions.JoynrMessageExpiredException;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.SuccessAction;
+import joynr.system.RoutingTypes.ShmAddress;
+
+/**
+ * Pair of {@link ShmRingBuffer}s in a memory-mapped file which connects a libjoynr runtime and its cluster controller
+ * on the same host.
+ * <p>
+ * The cluster controller creates and initializes the file, the libjoynr runtime maps it as soon as it is available.
+ * The first ring buffer carries the messages from the libjoynr runtime to the cluster controller, the second one the
+ * messages in the opposite direction. Incoming messages are polled by a dedicated thread which spins for
+ * {@link ShmModule#PROPERTY_SHM_SPIN_COUNT} polls before it parks for {@link ShmModule#PROPERTY_SHM_PARK_NANOS}
+ * between further polls.
+ * <p>
+ * The file header is published with release semantics: the cluster controller invalidates the magic number, resets
+ * the ring buffers, increments the generation and finally sets the magic number again. The libjoynr runtime checks
+ * the magic number and the generation it has mapped before every poll and write, so it stops using the ring buffers
+ * when a restarted cluster controller re-initializes them and maps them again afterwards. A restarted libjoynr
+ * runtime increments the client generation and discards the messages which were sent to its predecessor.
+ */
+@Singleton
+public class ShmChannel {
+    private static final Logger logger = LoggerFactory.getLogger(ShmChannel.class);
+
+    static final int FILE_HEADER_SIZE = 128;
+    static final int MAGIC = 0x4a53484d; // "JSHM"
+    static final int VERSION = 2;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int CAPACITY_OFFSET = 8;
+    static final int GENERATION_OFFSET = 16;
+    static final int CLIENT_GENERATION_OFFSET = 24;
+    static final VarHandle HEADER_INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    static final VarHandle HEADER_LONG = MethodHandles.byteBufferViewVarHandle(long[].class,
+                                                                               ByteOrder.nativeOrder());
+    private static final long MAP_RETRY_DELAY_MS = 100;
+    private static final long RING_FULL_RETRY_DELAY_MS = 10;
+    // time for a libjoynr runtime which has checked the header just before it was invalidated to finish its poll or
+    // write before the ring buffers are reset
+    private static final long REINITIALIZATION_GRACE_PERIOD_MS = 100;
+
+    private final ShmAddress address;
+    private final boolean clusterController;
+    private final int ringCapacity;
+    private final int spinCount;
+    private final long parkNanos;
+    private final Object writeLock = new Object();
+
+    private IShmMessagingSkeleton messageListener;
+    private Thread readerThread;
+    private volatile Mapping mapping;
+    private boolean mappedBefore = false;
+    private volatile boolean shutdown = false;
+
+    @Inject
+    public ShmChannel(@Named(ShmModule.SHM_ADDRESS) ShmAddress address,
+                      @Named(ShmModule.SHM_IS_CLUSTER_CONTROLLER) boolean clusterController,
+                      @Named(ShmModule.PROPERTY_SHM_RING_CAPACITY) int ringCapacity,
+                      @Named(ShmModule.PROPERTY_SHM_SPIN_COUNT) int spinCount,
+                      @Named(ShmModule.PROPERTY_SHM_PARK_NANOS) long parkNanos) {
+        this.address = address;
+        this.clusterController = clusterController;
+        this.ringCapacity = ringCapacity;
+        this.spinCount = spinCount;
+        this.parkNanos = parkNanos;
+    }
+
+    public void setMessageListener(IShmMessagingSkeleton messageListener) {
+        this.messageListener = messageListener;
+    }
+
+    public synchronized void start() {
+        if (readerThread != null) {
+            return;
+        }
+        shutdown = false;
+        readerThread = new Thread(this::mapAndRead, "joynr.ShmChannel");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (readerThread != null) {
+            readerThread.interrupt();
+            readerThread = null;
+        }
+        if (mapping != null) {
+            unmap(mapping);
+        }
+    }
+
+    public void writeBytes(byte[] message, SuccessAction successAction, FailureAction failureAction) {
+        Mapping currentMapping = mapping;
+        if (currentMapping == null || !currentMapping.isCurrent()) {
+            throw new JoynrDelayMessageException(MAP_RETRY_DELAY_MS,
+                                                 "shared memory write failed: " + address.getPath() + " not mapped");
+        }
+        ShmRingBuffer ringBuffer = currentMapping.outbound;
+        if (message.length > ringBuffer.getMaxMessageSize()) {
+            throw new JoynrIllegalStateException("message of " + message.length + " bytes exceeds maximum of "
+                    + ringBuffer.getMaxMessageSize() + " bytes for shared memory transport");
+        }
+        boolean written = false;
+        synchronized (writeLock) {
+            for (int i = 0; i <= spinCount && !written; i++) {
+                written = ringBuffer.offer(message);
+                if (!written) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+        if (!written) {
+            failureAction.execute(new JoynrDelayMessageException(RING_FULL_RETRY_DELAY_MS,
+                                                                 "shared memory write failed: ring buffer full"));
+            return;
+        }
+        successAction.execute();
+    }
+
+    private void mapAndRead() {
+        while (!shutdown) {
+            Mapping currentMapping;
+            try {
+                while ((currentMapping = map()) == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    Thread.sleep(MAP_RETRY_DELAY_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (JoynrIllegalStateException e) {
+                logger.error("Unable to use shared memory file {}: ", address.getPath(), e);
+                return;
+            }
+            if (!readMessages(currentMapping)) {
+                return;
+            }
+            unmap(currentMapping);
+        }
+    }
+
+    /**
+     * @return the new mapping or null if the file is not (yet) initialized by the cluster controller
+     */
+    synchronized Mapping map() throws InterruptedException {
+        if (shutdown) {
+            return null;
+        }
+        File file = new File(address.getPath());
+        if (!clusterController && file.length() < FILE_HEADER_SIZE) {
+            return null;
+        }
+        FileChannel channel = null;
+        try {
+            channel = new RandomAccessFile(file, "rw").getChannel();
+            Mapping newMapping = clusterController ? initialize(channel) : attach(channel);
+            if (newMapping == null) {
+                channel.close();
+                return null;
+            }
+            mapping = newMapping;
+            mappedBefore = true;
+            logger.info("Mapped shared memory file {} with ring buffer capacity of {} bytes, generation {}",
+                        address.getPath(),
+                        newMapping.capacity,
+                        newMapping.generation);
+            return newMapping;
+        } catch (IOException | JoynrIllegalStateException e) {
+            closeChannel(channel);
+            if (e instanceof JoynrIllegalStateException) {
+                throw (JoynrIllegalStateException) e;
+            }
+            logger.debug("Mapping shared memory file {} failed, retrying in {} ms: {}",
+                         address.getPath(),
+                         MAP_RETRY_DELAY_MS,
+                         e.getMessage());
+            return null;
+        }
+    }
+
+    private Mapping initialize(FileChannel channel) throws IOException, InterruptedException {
+        int capacity = ringCapacity;
+        MappedByteBuffer mappedFile = channel.map(FileChannel.MapMode.READ_WRITE, 0, getFileSize(capacity));
+        ByteBuffer fileHeader = mappedFile.slice(0, FILE_HEADER_SIZE);
+        boolean initializedBefore = (int) HEADER_INT.getAcquire(fileHeader, MAGIC_OFFSET) == MAGIC;
+        long generation = (long) HEADER_LONG.getAcquire(fileHeader, GENERATION_OFFSET) + 1;
+        HEADER_INT.setVolatile(fileHeader, MAGIC_OFFSET, 0);
+        if (initializedBefore) {
+            Thread.sleep(REINITIALIZATION_GRACE_PERIOD_MS);
+        }
+        Mapping newMapping = new Mapping(channel, mappedFile, capacity, generation, true);
+        newMapping.inbound.reset();
+        newMapping.outbound.reset();
+        HEADER_INT.set(fileHeader, VERSION_OFFSET, VERSION);
+        HEADER_INT.set(fileHeader, CAPACITY_OFFSET, capacity);
+        HEADER_LONG.set(fileHeader, GENERATION_OFFSET, generation);
+        // publishes the header and the reset ring buffers
+        HEADER_INT.setRelease(fileHeader, MAGIC_OFFSET, MAGIC);
+        return newMapping;
+    }
+
+    private Mapping attach(FileChannel channel) throws IOException {
+        MappedByteBuffer headerOnly = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER_SIZE);
+        if ((int) HEADER_INT.getAcquire(headerOnly, MAGIC_OFFSET) != MAGIC) {
+            return null;
+        }
+        int version = (int) HEADER_INT.get(headerOnly, VERSION_OFFSET);
+        if (version != VERSION) {
+            throw new JoynrIllegalStateException("unsupported shared memory version " + version);
+        }
+        int capacity = (int) HEADER_INT.get(headerOnly, CAPACITY_OFFSET);
+        long generation = (long) HEADER_LONG.get(headerOnly, GENERATION_OFFSET);
+        MappedByteBuffer mappedFile = channel.map(FileChannel.MapMode.READ_WRITE, 0, getFileSize(capacity));
+        Mapping newMapping = new Mapping(channel, mappedFile, capacity, generation, false);
+        // the file might have been re-initialized while it was mapped
+        if (!newMapping.isCurrent() || (int) HEADER_INT.get(newMapping.fileHeader, CAPACITY_OFFSET) != capacity) {
+            return null;
+        }
+        if (!mappedBefore) {
+            long clientGeneration = (long) HEADER_LONG.getAcquire(newMapping.fileHeader, CLIENT_GENERATION_OFFSET) + 1;
+            HEADER_LONG.setRelease(newMapping.fileHeader, CLIENT_GENERATION_OFFSET, clientGeneration);
+            if (newMapping.inbound.discardPendingMessages()) {
+                logger.info("Discarded messages for a previous libjoynr runtime from shared memory file {}",
+                            address.getPath());
+            }
+        }
+        return newMapping;
+    }
+
+    private synchronized void unmap(Mapping oldMapping) {
+        if (mapping == oldMapping) {
+            mapping = null;
+        }
+        closeChannel(oldMapping.fileChannel);
+    }
+
+    private void closeChannel(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Error while closing shared memory file {}: {}", address.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return true if the file has to be mapped again because it has been re-initialized, false if reading has to
+     * be stopped
+     */
+    private boolean readMessages(Mapping currentMapping) {
+        ShmRingBuffer ringBuffer = currentMapping.inbound;
+        long clientGeneration = currentMapping.getClientGeneration();
+        int idlePolls = 0;
+        while (!shutdown) {
+            if (!currentMapping.isCurrent()) {
+                return handleReinitialization();
+            }
+            byte[] message;
+            try {
+                message = ringBuffer.poll();
+            } catch (JoynrIllegalStateException e) {
+                if (!currentMapping.isCurrent()) {
+                    return handleReinitialization();
+                }
+                logger.error("Stopped reading from shared memory file {}: ", address.getPath(), e);
+                return false;
+            }
+            if (message != null) {
+                if (!currentMapping.isCurrent()) {
+                    // the message might have been read while the ring buffer was reset
+                    return handleReinitialization();
+                }
+                idlePolls = 0;
+                messageListener.transmit(message, new FailureAction() {
+                    @Override
+                    public void execute(Throwable error) {
+                        if (error instanceof JoynrMessageExpiredException) {
+                            logger.warn("Shared memory message not processed: ", error);
+                        } else {
+                            logger.error("Shared memory message not processed: ", error);
+                        }
+                    }
+                });
+            } else if (idlePolls < spinCount) {
+                idlePolls++;
+                Thread.onSpinWait();
+            } else {
+                if (clusterController && currentMapping.getClientGeneration() != clientGeneration) {
+                    clientGeneration = currentMapping.getClientGeneration();
+                    logger.info("libjoynr runtime of shared memory file {} has been restarted, client generation {}",
+                                address.getPath(),
+                                clientGeneration);
+                }
+                LockSupport.parkNanos(parkNanos);
+            }
+        }
+        return false;
+    }
+
+    private boolean handleReinitialization() {
+        if (clusterController) {
+            logger.error("Shared memory file {} has been re-initialized by another cluster controller, stopped reading",
+                         address.getPath());
+            return false;
+        }
+        logger.info("Shared memory file {} has been re-initialized by the cluster controller, mapping it again",
+                    address.getPath());
+        return true;
+    }
+
+    static long getFileSize(int capacity) {
+        return FILE_HEADER_SIZE + 2L * ShmRingBuffer.getRegionSize(capacity);
+    }
+
+    private static ShmRingBuffer createRingBuffer(ByteBuffer mappedFile, int index, int capacity) {
+        int regionSize = ShmRingBuffer.getRegionSize(capacity);
+        return new ShmRingBuffer(mappedFile.slice(FILE_HEADER_SIZE + index * regionSize, regionSize));
+    }
+
+    /**
+     * Ring buffers of one initialization of the file, identified by its generation.
+     */
+    static final class Mapping {
+        private final FileChannel fileChannel;
+        private final ByteBuffer fileHeader;
+        private final int capacity;
+        private final long generation;
+        private final ShmRingBuffer inbound;
+        private final ShmRingBuffer outbound;
+
+        private Mapping(FileChannel fileChannel,
+                        ByteBuffer mappedFile,
+                        int capacity,
+                        long generation,
+                        boolean clusterController) {
+            this.fileChannel = fileChannel;
+            this.fileHeader = mappedFile.slice(0, FILE_HEADER_SIZE);
+            this.capacity = capacity;
+            this.generation = generation;
+            ShmRingBuffer libjoynrToClusterController = createRingBuffer(mappedFile, 0, capacity);
+            ShmRingBuffer clusterControllerToLibjoynr = createRingBuffer(mappedFile, 1, capacity);
+            this.inbound = clusterController ? libjoynrToClusterController : clusterControllerToLibjoynr;
+            this.outbound = clusterController ? clusterControllerToLibjoynr : libjoynrToClusterController;
+        }
+
+        /**
+         * @return false if the file is being or has been re-initialized since it has been mapped
+         */
+        boolean isCurrent() {
+            return (int) HEADER_INT.getAcquire(fileHeader, MAGIC_OFFSET) == MAGIC
+                    && (long) HEADER_LONG.getAcquire(fileHeader, GENERATION_OFFSET) == generation;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+
+        long getClientGeneration() {
+            return (long) HEADER_LONG.getAcquire(fileHeader, CLIENT_GENERATION_OFFSET);
+        }
+    }
+}
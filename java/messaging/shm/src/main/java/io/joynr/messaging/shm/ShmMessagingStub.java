@@ -0,0 +1,53 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.shm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.IMessagingStub;
+import io.joynr.messaging.SuccessAction;
+import joynr.ImmutableMessage;
+
+public class ShmMessagingStub implements IMessagingStub {
+    private static final Logger logger = LoggerFactory.getLogger(ShmMessagingStub.class);
+
+    private final ShmChannel shmChannel;
+
+    public ShmMessagingStub(ShmChannel shmChannel) {
+        this.shmChannel = shmChannel;
+    }
+
+    @Override
+    public void transmit(ImmutableMessage message, SuccessAction successAction, FailureAction failureAction) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(">>> OUTGOING >>> {}", message);
+        } else {
+            logger.debug(">>> OUTGOING >>> {}", message.getTrackingInfo());
+        }
+
+        if (!message.isTtlAbsolute()) {
+            throw new JoynrRuntimeException("Relative TTL not supported");
+        }
+
+        shmChannel.writeBytes(message.getSerializedMessage(), successAction, failureAction);
+    }
+}
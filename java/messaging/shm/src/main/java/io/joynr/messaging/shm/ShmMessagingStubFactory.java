@@ -0,0 +1,49 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.shm;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+import io.joynr.exceptions.JoynrIllegalStateException;
+import io.joynr.messaging.AbstractMiddlewareMessagingStubFactory;
+import joynr.system.RoutingTypes.ShmAddress;
+
+@Singleton
+public class ShmMessagingStubFactory extends AbstractMiddlewareMessagingStubFactory<ShmMessagingStub, ShmAddress> {
+
+    private ShmAddress ownAddress;
+    private ShmChannel shmChannel;
+
+    @Inject
+    public ShmMessagingStubFactory(@Named(ShmModule.SHM_ADDRESS) ShmAddress ownAddress, ShmChannel shmChannel) {
+        this.ownAddress = ownAddress;
+        this.shmChannel = shmChannel;
+    }
+
+    @Override
+    protected ShmMessagingStub createInternal(ShmAddress address) {
+        if (!ownAddress.equals(address)) {
+            throw new JoynrIllegalStateException("shared memory address " + address
+                    + " does not match the configured address " + ownAddress);
+        }
+        return new ShmMessagingStub(shmChannel);
+    }
+}
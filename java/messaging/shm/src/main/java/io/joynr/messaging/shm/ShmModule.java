@@ -0,0 +1,52 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.shm;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+import joynr.system.RoutingTypes.ShmAddress;
+
+/**
+ * Configures the shared memory transport between a libjoynr runtime and a cluster controller on the same host.
+ * The runtime module which installs it has to bind {@link #SHM_IS_CLUSTER_CONTROLLER}.
+ */
+public class ShmModule extends AbstractModule {
+
+    public static final String PROPERTY_SHM_PATH = "joynr.messaging.shm.path";
+    public static final String PROPERTY_SHM_RING_CAPACITY = "joynr.messaging.shm.ringcapacity";
+    public static final String PROPERTY_SHM_SPIN_COUNT = "joynr.messaging.shm.spincount";
+    public static final String PROPERTY_SHM_PARK_NANOS = "joynr.messaging.shm.parknanos";
+
+    public static final String SHM_ADDRESS = "shm_address";
+    public static final String SHM_IS_CLUSTER_CONTROLLER = "shm_is_cluster_controller";
+
+    @Override
+    protected void configure() {
+    }
+
+    @Provides
+    @Singleton
+    @Named(SHM_ADDRESS)
+    public ShmAddress provideShmAddress(@Named(PROPERTY_SHM_PATH) String path) {
+        return new ShmAddress(path);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.shm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import io.joynr.exceptions.JoynrIllegalStateException;
+
+/**
+ * Single-producer, single-consumer ring buffer of serialized messages in a region of a memory-mapped file.
+ * <p>
+ * The region starts with the read position (only written by the consumer) and the write position (only written by
+ * the producer), each on its own cache line, followed by the data area. Both positions grow monotonically and are
+ * published with release semantics, so a record is completely written before the consumer can see it and its space
+ * is not reused before the consumer has copied it. Every record consists of the message length as 4 byte integer
+ * followed by the message and is aligned to 8 bytes. A record which does not fit before the end of the data area is
+ * preceded by a padding record which fills the remainder of the data area.
+ */
+public final class ShmRingBuffer {
+
+    public static final int HEADER_SIZE = 128;
+
+    private static final int READ_POSITION_OFFSET = 0;
+    private static final int WRITE_POSITION_OFFSET = 64;
+    private static final int LENGTH_SIZE = 4;
+    private static final int ALIGNMENT = 8;
+    private static final int PADDING_RECORD = -1;
+    private static final VarHandle POSITION = MethodHandles.byteBufferViewVarHandle(long[].class,
+                                                                                     ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * @param region buffer of {@link #HEADER_SIZE} plus a power of two bytes, starting at an address aligned to 8
+     *            bytes
+     */
+    public ShmRingBuffer(ByteBuffer region) {
+        this.buffer = region.slice().order(ByteOrder.nativeOrder());
+        this.capacity = buffer.capacity() - HEADER_SIZE;
+        if (capacity < 2 * ALIGNMENT || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("ring buffer capacity must be a power of two, but is " + capacity);
+        }
+        this.mask = capacity - 1;
+    }
+
+    public static int getRegionSize(int capacity) {
+        return HEADER_SIZE + capacity;
+    }
+
+    /**
+     * @return the maximum message size which is guaranteed to fit into the empty ring buffer
+     */
+    public int getMaxMessageSize() {
+        return capacity / 2 - LENGTH_SIZE;
+    }
+
+    public void reset() {
+        POSITION.setRelease(buffer, READ_POSITION_OFFSET, 0L);
+        POSITION.setRelease(buffer, WRITE_POSITION_OFFSET, 0L);
+    }
+
+    /**
+     * Appends a message. Must only be called by the producer.
+     *
+     * @param message the message, at most {@link #getMaxMessageSize()} bytes
+     * @return false if there is currently not enough free space for the message
+     */
+    public boolean offer(byte[] message) {
+        if (message.length > getMaxMessageSize()) {
+            throw new IllegalArgumentException("message of " + message.length
+                    + " bytes exceeds maximum ring buffer message size of " + getMaxMessageSize() + " bytes");
+        }
+        int recordSize = align(LENGTH_SIZE + message.length);
+        long writePosition = (long) POSITION.get(buffer, WRITE_POSITION_OFFSET);
+        long readPosition = (long) POSITION.getAcquire(buffer, READ_POSITION_OFFSET);
+        int offset = (int) (writePosition & mask);
+        int padding = capacity - offset < recordSize ? capacity - offset : 0;
+        if (writePosition + padding + recordSize - readPosition > capacity) {
+            return false;
+        }
+        if (padding > 0) {
+            buffer.putInt(HEADER_SIZE + offset, PADDING_RECORD);
+            offset = 0;
+        }
+        buffer.putInt(HEADER_SIZE + offset, message.length);
+        buffer.put(HEADER_SIZE + offset + LENGTH_SIZE, message);
+        POSITION.setRelease(buffer, WRITE_POSITION_OFFSET, writePosition + padding + recordSize);
+        return true;
+    }
+
+    /**
+     * Removes the oldest message. Must only be called by the consumer.
+     *
+     * @return the message or null if the ring buffer is empty
+     */
+    public byte[] poll() {
+        long readPosition = (long) POSITION.get(buffer, READ_POSITION_OFFSET);
+        long writePosition = (long) POSITION.getAcquire(buffer, WRITE_POSITION_OFFSET);
+        if (readPosition == writePosition) {
+            return null;
+        }
+        int offset = (int) (readPosition & mask);
+        int length = buffer.getInt(HEADER_SIZE + offset);
+        if (length == PADDING_RECORD) {
+            readPosition += capacity - offset;
+            offset = 0;
+            length = buffer.getInt(HEADER_SIZE);
+        }
+        if (length < 0 || length > getMaxMessageSize()) {
+            throw new JoynrIllegalStateException("Invalid message length " + length + " in shared memory ring buffer");
+        }
+        byte[] message = new byte[length];
+        buffer.get(HEADER_SIZE + offset + LENGTH_SIZE, message);
+        POSITION.setRelease(buffer, READ_POSITION_OFFSET, readPosition + align(LENGTH_SIZE + length));
+        return message;
+    }
+
+    /**
+     * Removes all messages which have been written so far. Must only be called by the consumer.
+     *
+     * @return true if there were messages to discard
+     */
+    public boolean discardPendingMessages() {
+        long readPosition = (long) POSITION.get(buffer, READ_POSITION_OFFSET);
+        long writePosition = (long) POSITION.getAcquire(buffer, WRITE_POSITION_OFFSET);
+        POSITION.setRelease(buffer, READ_POSITION_OFFSET, writePosition);
+        return readPosition != writePosition;
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
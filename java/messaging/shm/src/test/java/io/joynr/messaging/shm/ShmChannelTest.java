@@ -0,0 +1,175 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.shm;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+import io.joynr.messaging.FailureAction;
+import joynr.system.RoutingTypes.ShmAddress;
+
+/**
+ * Tests a cluster controller and a libjoynr {@link ShmChannel} which share one temporary file.
+ */
+public class ShmChannelTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    private static final int RING_CAPACITY = 1024;
+    private static final int SPIN_COUNT = 100;
+    private static final long PARK_NANOS = 1000000;
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+
+    private Path shmDirectory;
+    private ShmAddress address;
+    private List<ShmChannel> channels;
+
+    @Before
+    public void setUp() throws IOException {
+        shmDirectory = Files.createTempDirectory("joynr-shm-test");
+        address = new ShmAddress(shmDirectory.resolve("cc.shm").toString());
+        channels = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (ShmChannel channel : channels) {
+            channel.shutdown();
+        }
+        Files.deleteIfExists(shmDirectory.resolve("cc.shm"));
+        Files.deleteIfExists(shmDirectory);
+    }
+
+    private ShmChannel startChannel(boolean clusterController, BlockingQueue<byte[]> receivedMessages) {
+        ShmChannel channel = new ShmChannel(address, clusterController, RING_CAPACITY, SPIN_COUNT, PARK_NANOS);
+        channel.setMessageListener(new IShmMessagingSkeleton() {
+            @Override
+            public void transmit(byte[] serializedMessage, FailureAction failureAction) {
+                receivedMessages.add(serializedMessage);
+            }
+
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+        channels.add(channel);
+        channel.start();
+        return channel;
+    }
+
+    /**
+     * The channel accepts writes only while it has mapped the current initialization of the file, wait until it is
+     * ready.
+     */
+    private static void writeWhenMapped(ShmChannel channel, String message) throws InterruptedException {
+        while (true) {
+            try {
+                channel.writeBytes(message.getBytes(StandardCharsets.UTF_8), () -> {
+                }, error -> {
+                    throw new AssertionError("unexpected write failure", error);
+                });
+                return;
+            } catch (JoynrDelayMessageException e) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static void assertReceived(String expectedMessage,
+                                       BlockingQueue<byte[]> receivedMessages) throws InterruptedException {
+        assertArrayEquals(expectedMessage.getBytes(StandardCharsets.UTF_8),
+                          receivedMessages.poll(RECEIVE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void messagesAreTransmittedInBothDirections() throws Exception {
+        BlockingQueue<byte[]> receivedByClusterController = new LinkedBlockingQueue<>();
+        BlockingQueue<byte[]> receivedByLibjoynr = new LinkedBlockingQueue<>();
+        ShmChannel clusterController = startChannel(true, receivedByClusterController);
+        ShmChannel libjoynr = startChannel(false, receivedByLibjoynr);
+
+        writeWhenMapped(libjoynr, "toClusterController");
+        assertReceived("toClusterController", receivedByClusterController);
+
+        writeWhenMapped(clusterController, "toLibjoynr");
+        assertReceived("toLibjoynr", receivedByLibjoynr);
+    }
+
+    @Test
+    public void clusterControllerRestarted_libjoynrMapsFileAgain() throws Exception {
+        BlockingQueue<byte[]> receivedByClusterController = new LinkedBlockingQueue<>();
+        BlockingQueue<byte[]> receivedByLibjoynr = new LinkedBlockingQueue<>();
+        ShmChannel firstClusterController = startChannel(true, receivedByClusterController);
+        ShmChannel libjoynr = startChannel(false, receivedByLibjoynr);
+        writeWhenMapped(libjoynr, "beforeRestart");
+        assertReceived("beforeRestart", receivedByClusterController);
+
+        firstClusterController.shutdown();
+        BlockingQueue<byte[]> receivedByRestartedClusterController = new LinkedBlockingQueue<>();
+        ShmChannel restartedClusterController = startChannel(true, receivedByRestartedClusterController);
+
+        // succeeds only after the file has been initialized again
+        writeWhenMapped(restartedClusterController, "toLibjoynrAfterRestart");
+        assertReceived("toLibjoynrAfterRestart", receivedByLibjoynr);
+
+        writeWhenMapped(libjoynr, "toClusterControllerAfterRestart");
+        assertReceived("toClusterControllerAfterRestart", receivedByRestartedClusterController);
+    }
+
+    @Test
+    public void libjoynrRestarted_doesNotReceiveMessagesForPreviousRuntime() throws Exception {
+        BlockingQueue<byte[]> receivedByClusterController = new LinkedBlockingQueue<>();
+        ShmChannel clusterController = startChannel(true, receivedByClusterController);
+        ShmChannel firstLibjoynr = startChannel(false, new LinkedBlockingQueue<>());
+        writeWhenMapped(firstLibjoynr, "beforeRestart");
+        assertReceived("beforeRestart", receivedByClusterController);
+
+        firstLibjoynr.shutdown();
+        writeWhenMapped(clusterController, "stale");
+
+        BlockingQueue<byte[]> receivedByRestartedLibjoynr = new LinkedBlockingQueue<>();
+        ShmChannel restartedLibjoynr = startChannel(false, receivedByRestartedLibjoynr);
+        // succeeds only after the restarted runtime has mapped the file
+        writeWhenMapped(restartedLibjoynr, "afterRestart");
+        assertReceived("afterRestart", receivedByClusterController);
+
+        writeWhenMapped(clusterController, "fresh");
+        assertReceived("fresh", receivedByRestartedLibjoynr);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.shm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShmRingBufferTest {
+
+    private static final int CAPACITY = 64;
+
+    private ShmRingBuffer ringBuffer;
+
+    @Before
+    public void setUp() {
+        ringBuffer = new ShmRingBuffer(ByteBuffer.allocateDirect(ShmRingBuffer.getRegionSize(CAPACITY)));
+    }
+
+    @Test
+    public void pollReturnsNullIfEmpty() {
+        assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    public void messagesArePolledInOrder() {
+        byte[] first = new byte[]{ 1, 2, 3 };
+        byte[] second = new byte[0];
+        byte[] third = new byte[]{ 4, 5, 6, 7, 8 };
+
+        assertTrue(ringBuffer.offer(first));
+        assertTrue(ringBuffer.offer(second));
+        assertTrue(ringBuffer.offer(third));
+
+        assertArrayEquals(first, ringBuffer.poll());
+        assertArrayEquals(second, ringBuffer.poll());
+        assertArrayEquals(third, ringBuffer.poll());
+        assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    public void offerReturnsFalseIfFull() {
+        byte[] message = new byte[ringBuffer.getMaxMessageSize()];
+        assertTrue(ringBuffer.offer(message));
+        assertTrue(ringBuffer.offer(message));
+        assertFalse(ringBuffer.offer(new byte[0]));
+
+        assertArrayEquals(message, ringBuffer.poll());
+        assertTrue(ringBuffer.offer(new byte[0]));
+    }
+
+    @Test
+    public void messagesWrapAroundEndOfDataArea() {
+        for (int i = 0; i < 100; i++) {
+            byte[] message = new byte[i % (ringBuffer.getMaxMessageSize() + 1)];
+            message = fill(message, (byte) i);
+            assertTrue(ringBuffer.offer(message));
+            assertArrayEquals(message, ringBuffer.poll());
+        }
+        assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    public void messageIsPaddedToStartOfDataAreaIfItDoesNotFitBeforeEnd() {
+        assertTrue(ringBuffer.offer(new byte[20]));
+        assertTrue(ringBuffer.offer(new byte[20]));
+        assertEquals(20, ringBuffer.poll().length);
+        assertEquals(20, ringBuffer.poll().length);
+
+        byte[] message = fill(new byte[ringBuffer.getMaxMessageSize()], (byte) 42);
+        assertTrue(ringBuffer.offer(message));
+        assertArrayEquals(message, ringBuffer.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void offerThrowsIfMessageExceedsMaximumSize() {
+        ringBuffer.offer(new byte[ringBuffer.getMaxMessageSize() + 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBeAPowerOfTwo() {
+        new ShmRingBuffer(ByteBuffer.allocateDirect(ShmRingBuffer.getRegionSize(48)));
+    }
+
+    private static byte[] fill(byte[] message, byte value) {
+        for (int i = 0; i < message.length; i++) {
+            message[i] = value;
+        }
+        return message;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+import io.joynr.exceptions.JoynrIllegalStateException;
+import io.joynr.exceptions.JoynrMessageExpiredException;
+import io.joynr.messaging.ConfigurableMessagingSettings;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.SuccessAction;
+import io.joynr.util.ObjectMapper;
+import joynr.system.RoutingTypes.UdsAddress;
+import joynr.system.RoutingTypes.UdsClientAddress;
+
+/**
+ * Connection of a libjoynr runtime to the Unix domain socket server of its cluster controller.
+ * <p>
+ * After connecting, the client sends an init frame with its own {@link UdsClientAddress} and then exchanges
+ * message frames (see {@link UdsFrame}) with the server. Incoming frames are read by a dedicated thread and passed to
+ * the {@link IUdsMessagingSkeleton}. Lost connections are re-established after the configured reconnect delay.
+ */
+@Singleton
+public class UdsClient {
+    private static final Logger logger = LoggerFactory.getLogger(UdsClient.class);
+
+    private final UdsAddress serverAddress;
+    private final UdsClientAddress ownAddress;
+    private final int maxMessageSize;
+    private final long reconnectDelayMs;
+    private final ObjectMapper objectMapper;
+    private final Object writeLock = new Object();
+
+    private IUdsMessagingSkeleton messageListener;
+    private Thread readerThread;
+    private volatile SocketChannel channel;
+    private volatile boolean shutdown = false;
+
+    @Inject
+    public UdsClient(@Named(UdsModule.UDS_SERVER_ADDRESS) UdsAddress serverAddress,
+                     @Named(UdsModule.UDS_CLIENT_ADDRESS) UdsClientAddress ownAddress,
+                     @Named(ConfigurableMessagingSettings.PROPERTY_MAX_MESSAGE_SIZE) int maxMessageSize,
+                     @Named(UdsModule.PROPERTY_UDS_RECONNECT_DELAY_MS) long reconnectDelayMs,
+                     ObjectMapper objectMapper) {
+        this.serverAddress = serverAddress;
+        this.ownAddress = ownAddress;
+        this.maxMessageSize = maxMessageSize;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.objectMapper = objectMapper;
+    }
+
+    public void setMessageListener(IUdsMessagingSkeleton messageListener) {
+        this.messageListener = messageListener;
+    }
+
+    public synchronized void start() {
+        if (readerThread != null) {
+            return;
+        }
+        shutdown = false;
+        readerThread = new Thread(this::connectAndRead, "joynr.UdsClient-" + ownAddress.getId());
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        closeChannel();
+        if (readerThread != null) {
+            readerThread.interrupt();
+            readerThread = null;
+        }
+    }
+
+    public void writeBytes(byte[] message, SuccessAction successAction, FailureAction failureAction) {
+        SocketChannel currentChannel = channel;
+        if (currentChannel == null) {
+            throw new JoynrDelayMessageException(reconnectDelayMs,
+                                                 "UDS write failed: not connected to " + serverAddress.getPath());
+        }
+        try {
+            synchronized (writeLock) {
+                writeFully(currentChannel, UdsFrame.createMessageFrame(message));
+            }
+        } catch (IOException e) {
+            logger.debug("UDS write to {} failed: {}", serverAddress.getPath(), e.getMessage());
+            closeChannel();
+            failureAction.execute(new JoynrDelayMessageException(reconnectDelayMs,
+                                                                 "UDS write failed: " + e.getMessage()));
+            return;
+        }
+        successAction.execute();
+    }
+
+    private void connectAndRead() {
+        byte[] serializedOwnAddress = serializeOwnAddress();
+        while (!shutdown) {
+            try (SocketChannel socketChannel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+                socketChannel.connect(UnixDomainSocketAddress.of(serverAddress.getPath()));
+                synchronized (writeLock) {
+                    writeFully(socketChannel, UdsFrame.createInitFrame(serializedOwnAddress));
+                }
+                logger.info("Connected to UDS server {} as {}", serverAddress.getPath(), ownAddress.getId());
+                channel = socketChannel;
+                readFrames(socketChannel);
+            } catch (IOException | JoynrIllegalStateException e) {
+                if (!shutdown) {
+                    logger.warn("Connection to UDS server {} failed or lost, reconnecting in {} ms: {}",
+                                serverAddress.getPath(),
+                                reconnectDelayMs,
+                                e.getMessage());
+                }
+            } finally {
+                channel = null;
+            }
+            if (!shutdown) {
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void readFrames(SocketChannel socketChannel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(UdsFrame.HEADER_SIZE);
+        while (!shutdown) {
+            header.clear();
+            readFully(socketChannel, header);
+            header.flip();
+            int bodyLength = UdsFrame.readBodyLength(header, UdsFrame.MESSAGE_MAGIC_COOKIE, maxMessageSize);
+            ByteBuffer body = ByteBuffer.allocate(bodyLength);
+            readFully(socketChannel, body);
+            messageListener.transmit(body.array(), new FailureAction() {
+                @Override
+                public void execute(Throwable error) {
+                    if (error instanceof JoynrMessageExpiredException) {
+                        logger.warn("UDS message not processed: ", error);
+                    } else {
+                        logger.error("UDS message not processed: ", error);
+                    }
+                }
+            });
+        }
+    }
+
+    private byte[] serializeOwnAddress() {
+        try {
+            return objectMapper.writeValueAsString(ownAddress).getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new JoynrIllegalStateException("unable to serialize UDS client address: " + ownAddress, e);
+        }
+    }
+
+    private void closeChannel() {
+        SocketChannel currentChannel = channel;
+        channel = null;
+        if (currentChannel != null) {
+            try {
+                currentChannel.close();
+            } catch (IOException e) {
+                logger.debug("Error while closing UDS connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void readFully(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (socketChannel.read(buffer) < 0) {
+                throw new EOFException("UDS connection closed by peer");
+            }
+        }
+    }
+
+    private static void writeFully(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            socketChannel.write(buffer);
+        }
+    }
+}
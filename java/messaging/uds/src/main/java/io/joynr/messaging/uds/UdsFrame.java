@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import io.joynr.exceptions.JoynrIllegalStateException;
+
+/**
+ * Frame format version 1 of the joynr Unix domain socket transport, compatible with the C++ cluster controller.
+ * <p>
+ * Every frame consists of a 4 byte magic cookie ({@link #INIT_MAGIC_COOKIE} for the init frame which carries the
+ * serialized UdsClientAddress, {@link #MESSAGE_MAGIC_COOKIE} for frames carrying a serialized message), followed by
+ * the body length as 4 byte unsigned integer in network byte order and the body itself.
+ */
+public final class UdsFrame {
+
+    static final byte[] INIT_MAGIC_COOKIE = new byte[]{ 'M', 'J', 'I', '1' };
+    static final byte[] MESSAGE_MAGIC_COOKIE = new byte[]{ 'M', 'J', 'M', '1' };
+    static final int HEADER_SIZE = 8;
+    private static final int MAGIC_COOKIE_SIZE = 4;
+
+    private UdsFrame() {
+    }
+
+    public static ByteBuffer createInitFrame(byte[] serializedClientAddress) {
+        return createFrame(INIT_MAGIC_COOKIE, serializedClientAddress);
+    }
+
+    public static ByteBuffer createMessageFrame(byte[] serializedMessage) {
+        return createFrame(MESSAGE_MAGIC_COOKIE, serializedMessage);
+    }
+
+    private static ByteBuffer createFrame(byte[] magicCookie, byte[] body) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        frame.put(magicCookie);
+        frame.putInt(body.length);
+        frame.put(body);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Reads the body length from a complete frame header and checks the magic cookie.
+     *
+     * @param header buffer positioned at the start of a header with at least {@link #HEADER_SIZE} bytes remaining
+     * @param expectedMagicCookie the expected magic cookie
+     * @param maxBodyLength maximum accepted body length
+     * @return the body length
+     */
+    public static int readBodyLength(ByteBuffer header, byte[] expectedMagicCookie, int maxBodyLength) {
+        byte[] magicCookie = new byte[MAGIC_COOKIE_SIZE];
+        header.get(magicCookie);
+        if (!Arrays.equals(magicCookie, expectedMagicCookie)) {
+            throw new JoynrIllegalStateException("UDS frame header does not start with '"
+                    + new String(expectedMagicCookie) + "' magic cookie.");
+        }
+        long bodyLength = Integer.toUnsignedLong(header.getInt());
+        if (bodyLength > maxBodyLength) {
+            throw new JoynrIllegalStateException("UDS frame body length " + bodyLength + " exceeds maximum of "
+                    + maxBodyLength + " bytes.");
+        }
+        return (int) bodyLength;
+    }
+}
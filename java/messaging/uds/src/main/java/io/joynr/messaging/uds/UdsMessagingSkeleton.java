@@ -0,0 +1,100 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.JoynrMessageProcessor;
+import io.joynr.messaging.routing.MessageRouter;
+import joynr.ImmutableMessage;
+import joynr.Message;
+
+/**
+ * Receives the messages which the cluster controller sends to this libjoynr runtime via Unix domain socket.
+ * The UDS connection is always the main transport of the runtime, hence multicasts are marked as received from
+ * global like it is done for the WebSocket transport of a libjoynr runtime.
+ */
+public class UdsMessagingSkeleton implements IUdsMessagingSkeleton {
+    private static final Logger logger = LoggerFactory.getLogger(UdsMessagingSkeleton.class);
+
+    private static final List<Message.MessageType> MESSAGE_TYPE_REQUESTS = Collections.unmodifiableList(Arrays.asList(Message.MessageType.VALUE_MESSAGE_TYPE_REQUEST,
+                                                                                                                       Message.MessageType.VALUE_MESSAGE_TYPE_SUBSCRIPTION_REQUEST,
+                                                                                                                       Message.MessageType.VALUE_MESSAGE_TYPE_BROADCAST_SUBSCRIPTION_REQUEST,
+                                                                                                                       Message.MessageType.VALUE_MESSAGE_TYPE_MULTICAST_SUBSCRIPTION_REQUEST));
+
+    private final UdsClient udsClient;
+    private final MessageRouter messageRouter;
+    private final Set<JoynrMessageProcessor> messageProcessors;
+
+    public UdsMessagingSkeleton(UdsClient udsClient,
+                                MessageRouter messageRouter,
+                                Set<JoynrMessageProcessor> messageProcessors) {
+        this.udsClient = udsClient;
+        this.messageRouter = messageRouter;
+        this.messageProcessors = messageProcessors;
+    }
+
+    @Override
+    public void init() {
+        logger.debug("Initializing UDS skeleton ...");
+        udsClient.setMessageListener(this);
+        udsClient.start();
+    }
+
+    @Override
+    public void transmit(byte[] serializedMessage, FailureAction failureAction) {
+        try {
+            ImmutableMessage message = new ImmutableMessage(serializedMessage);
+
+            if (logger.isTraceEnabled()) {
+                logger.trace("<<< INCOMING <<< {}", message);
+            } else {
+                logger.debug("<<< INCOMING <<< {}", message.getTrackingInfo());
+            }
+
+            if (messageProcessors != null) {
+                for (JoynrMessageProcessor processor : messageProcessors) {
+                    message = processor.processIncoming(message);
+                }
+            }
+
+            if (Message.MessageType.VALUE_MESSAGE_TYPE_MULTICAST.equals(message.getType())) {
+                message.setReceivedFromGlobal(true);
+            } else if (MESSAGE_TYPE_REQUESTS.contains(message.getType())) {
+                messageRouter.setToKnown(message.getSender());
+            }
+
+            messageRouter.route(message);
+        } catch (Exception error) {
+            failureAction.execute(error);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        udsClient.shutdown();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import java.util.Set;
+
+import com.google.inject.Inject;
+
+import io.joynr.messaging.AbstractMessagingSkeletonFactory;
+import io.joynr.messaging.JoynrMessageProcessor;
+import io.joynr.messaging.routing.MessageRouter;
+
+public class UdsMessagingSkeletonFactory extends AbstractMessagingSkeletonFactory {
+
+    @Inject
+    public UdsMessagingSkeletonFactory(UdsClient udsClient,
+                                       MessageRouter messageRouter,
+                                       Set<JoynrMessageProcessor> messageProcessors) {
+        super();
+        messagingSkeletonList.add(new UdsMessagingSkeleton(udsClient, messageRouter, messageProcessors));
+    }
+}
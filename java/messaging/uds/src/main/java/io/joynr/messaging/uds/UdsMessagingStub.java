@@ -0,0 +1,53 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.joynr.exceptions.JoynrRuntimeException;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.IMessagingStub;
+import io.joynr.messaging.SuccessAction;
+import joynr.ImmutableMessage;
+
+public class UdsMessagingStub implements IMessagingStub {
+    private static final Logger logger = LoggerFactory.getLogger(UdsMessagingStub.class);
+
+    private final UdsClient udsClient;
+
+    public UdsMessagingStub(UdsClient udsClient) {
+        this.udsClient = udsClient;
+    }
+
+    @Override
+    public void transmit(ImmutableMessage message, SuccessAction successAction, FailureAction failureAction) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(">>> OUTGOING >>> {}", message);
+        } else {
+            logger.debug(">>> OUTGOING >>> {}", message.getTrackingInfo());
+        }
+
+        if (!message.isTtlAbsolute()) {
+            throw new JoynrRuntimeException("Relative TTL not supported");
+        }
+
+        udsClient.writeBytes(message.getSerializedMessage(), successAction, failureAction);
+    }
+}
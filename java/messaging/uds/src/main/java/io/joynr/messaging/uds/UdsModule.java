@@ -0,0 +1,72 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import static io.joynr.util.JoynrUtil.createUuidString;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+
+import io.joynr.runtime.SystemServicesSettings;
+import joynr.system.RoutingTypes.Address;
+import joynr.system.RoutingTypes.UdsAddress;
+import joynr.system.RoutingTypes.UdsClientAddress;
+
+/**
+ * Configures the Unix domain socket transport of a libjoynr runtime which connects to a cluster controller on the
+ * same host.
+ */
+public class UdsModule extends AbstractModule {
+
+    public static final String PROPERTY_UDS_SOCKET_PATH = "joynr.messaging.uds.socketpath";
+    public static final String PROPERTY_UDS_CLIENT_ID = "joynr.messaging.uds.clientid";
+    public static final String PROPERTY_UDS_RECONNECT_DELAY_MS = "joynr.messaging.uds.reconnectdelayms";
+
+    public static final String UDS_SERVER_ADDRESS = "uds_server_address";
+    public static final String UDS_CLIENT_ADDRESS = "uds_client_address";
+
+    @Override
+    protected void configure() {
+    }
+
+    @Provides
+    @Singleton
+    @Named(UDS_SERVER_ADDRESS)
+    public UdsAddress provideUdsServerAddress(@Named(PROPERTY_UDS_SOCKET_PATH) String socketPath) {
+        return new UdsAddress(socketPath);
+    }
+
+    @Provides
+    @Singleton
+    @Named(UDS_CLIENT_ADDRESS)
+    public UdsClientAddress provideUdsClientAddress(@Named(PROPERTY_UDS_CLIENT_ID) String clientId) {
+        if (clientId == null || clientId.isEmpty()) {
+            return new UdsClientAddress("libjoynr.messaging.participantid_" + createUuidString().replace("-", ""));
+        }
+        return new UdsClientAddress(clientId);
+    }
+
+    @Provides
+    @Named(SystemServicesSettings.LIBJOYNR_MESSAGING_ADDRESS)
+    Address getLibjoynrMessagingAddress(@Named(UDS_CLIENT_ADDRESS) UdsClientAddress udsClientAddress) {
+        return udsClientAddress;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.SuccessAction;
+import io.joynr.util.ObjectMapper;
+import joynr.system.RoutingTypes.UdsAddress;
+import joynr.system.RoutingTypes.UdsClientAddress;
+
+/**
+ * Round trip tests of the {@link UdsClient} against a Unix domain socket server of the test.
+ */
+public class UdsClientTest {
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    private static final String CLIENT_ID = "testClientId";
+    private static final int MAX_MESSAGE_SIZE = 1024;
+    private static final long RECONNECT_DELAY_MS = 50;
+    private static final long RECEIVE_TIMEOUT_MS = 5000;
+
+    private Path socketDirectory;
+    private Path socketPath;
+    private ServerSocketChannel server;
+    private UdsClientAddress ownAddress;
+    private UdsClient subject;
+    private BlockingQueue<byte[]> receivedMessages;
+    private AtomicInteger successCount;
+    private BlockingQueue<Throwable> failures;
+    private SuccessAction successAction;
+    private FailureAction failureAction;
+
+    @Before
+    public void setUp() throws IOException {
+        socketDirectory = Files.createTempDirectory("joynr-uds-test");
+        socketPath = socketDirectory.resolve("cc.sock");
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+
+        receivedMessages = new LinkedBlockingQueue<>();
+        IUdsMessagingSkeleton messageListener = new IUdsMessagingSkeleton() {
+            @Override
+            public void transmit(byte[] serializedMessage, FailureAction failureAction) {
+                receivedMessages.add(serializedMessage);
+            }
+
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        successCount = new AtomicInteger();
+        failures = new LinkedBlockingQueue<>();
+        successAction = successCount::incrementAndGet;
+        failureAction = failures::add;
+
+        ownAddress = new UdsClientAddress(CLIENT_ID);
+        subject = new UdsClient(new UdsAddress(socketPath.toString()),
+                                ownAddress,
+                                MAX_MESSAGE_SIZE,
+                                RECONNECT_DELAY_MS,
+                                new ObjectMapper());
+        subject.setMessageListener(messageListener);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        subject.shutdown();
+        server.close();
+        Files.deleteIfExists(socketPath);
+        Files.deleteIfExists(socketDirectory);
+    }
+
+    private static byte[] readFrame(SocketChannel socketChannel, byte[] expectedMagicCookie) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(UdsFrame.HEADER_SIZE);
+        readFully(socketChannel, header);
+        header.flip();
+        ByteBuffer body = ByteBuffer.allocate(UdsFrame.readBodyLength(header, expectedMagicCookie, MAX_MESSAGE_SIZE));
+        readFully(socketChannel, body);
+        return body.array();
+    }
+
+    private static void readFully(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (socketChannel.read(buffer) < 0) {
+                throw new EOFException("UDS connection closed by client");
+            }
+        }
+    }
+
+    private static void writeFully(SocketChannel socketChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            socketChannel.write(buffer);
+        }
+    }
+
+    private byte[] getExpectedInitFrameBody() throws IOException {
+        return new ObjectMapper().writeValueAsString(ownAddress).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private SocketChannel acceptAndCheckInitFrame() throws IOException {
+        SocketChannel clientConnection = server.accept();
+        assertArrayEquals(getExpectedInitFrameBody(), readFrame(clientConnection, UdsFrame.INIT_MAGIC_COOKIE));
+        return clientConnection;
+    }
+
+    /**
+     * The client accepts writes only after it has sent its init frame, wait until it is ready.
+     */
+    private void writeWhenConnected(byte[] message) throws InterruptedException {
+        while (true) {
+            try {
+                subject.writeBytes(message, successAction, failureAction);
+                return;
+            } catch (JoynrDelayMessageException e) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test(expected = JoynrDelayMessageException.class)
+    public void writeBytes_notConnected_throwsJoynrDelayMessageException() {
+        subject.writeBytes(new byte[]{ 1 }, successAction, failureAction);
+    }
+
+    @Test
+    public void start_sendsInitFrameWithOwnAddress() throws IOException {
+        subject.start();
+        acceptAndCheckInitFrame().close();
+    }
+
+    @Test
+    public void writeBytes_sendsMessageFrame() throws Exception {
+        byte[] message = "message".getBytes(StandardCharsets.UTF_8);
+        subject.start();
+        try (SocketChannel clientConnection = acceptAndCheckInitFrame()) {
+            writeWhenConnected(message);
+
+            assertArrayEquals(message, readFrame(clientConnection, UdsFrame.MESSAGE_MAGIC_COOKIE));
+            assertEquals(1, successCount.get());
+            assertEquals(0, failures.size());
+        }
+    }
+
+    @Test
+    public void receivedMessageFrames_arePassedToMessageListener() throws Exception {
+        byte[] message1 = "message1".getBytes(StandardCharsets.UTF_8);
+        byte[] message2 = "message2".getBytes(StandardCharsets.UTF_8);
+        subject.start();
+        try (SocketChannel clientConnection = acceptAndCheckInitFrame()) {
+            ByteBuffer frame1 = UdsFrame.createMessageFrame(message1);
+            ByteBuffer frame2 = UdsFrame.createMessageFrame(message2);
+            // both frames in one write, the client has to split them
+            ByteBuffer frames = ByteBuffer.allocate(frame1.remaining() + frame2.remaining());
+            frames.put(frame1).put(frame2).flip();
+            writeFully(clientConnection, frames);
+
+            assertArrayEquals(message1, receivedMessages.poll(RECEIVE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            assertArrayEquals(message2, receivedMessages.poll(RECEIVE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void connectionClosedByServer_reconnectsWithInitFrame() throws Exception {
+        byte[] message = "message".getBytes(StandardCharsets.UTF_8);
+        subject.start();
+        SocketChannel firstConnection = acceptAndCheckInitFrame();
+        firstConnection.close();
+
+        try (SocketChannel secondConnection = acceptAndCheckInitFrame()) {
+            writeWhenConnected(message);
+            assertArrayEquals(message, readFrame(secondConnection, UdsFrame.MESSAGE_MAGIC_COOKIE));
+
+            writeFully(secondConnection, UdsFrame.createMessageFrame(message));
+            assertArrayEquals(message, receivedMessages.poll(RECEIVE_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void invalidFrameFromServer_reconnectsWithInitFrame() throws Exception {
+        subject.start();
+        try (SocketChannel firstConnection = acceptAndCheckInitFrame()) {
+            writeFully(firstConnection, UdsFrame.createInitFrame(new byte[]{ 1 }));
+
+            try (SocketChannel secondConnection = acceptAndCheckInitFrame()) {
+                assertEquals(0, receivedMessages.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.uds;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import io.joynr.exceptions.JoynrIllegalStateException;
+
+public class UdsFrameTest {
+
+    @Test
+    public void messageFrameContainsCookieLengthAndBody() {
+        byte[] body = new byte[]{ 1, 2, 3 };
+        ByteBuffer frame = UdsFrame.createMessageFrame(body);
+        assertEquals(UdsFrame.HEADER_SIZE + body.length, frame.remaining());
+
+        assertEquals(body.length, UdsFrame.readBodyLength(frame, UdsFrame.MESSAGE_MAGIC_COOKIE, 10));
+        byte[] readBody = new byte[body.length];
+        frame.get(readBody);
+        assertArrayEquals(body, readBody);
+    }
+
+    @Test
+    public void initFrameStartsWithInitCookie() {
+        ByteBuffer frame = UdsFrame.createInitFrame(new byte[]{ 4 });
+        byte[] magicCookie = new byte[4];
+        frame.get(magicCookie);
+        assertArrayEquals(new byte[]{ 'M', 'J', 'I', '1' }, magicCookie);
+        assertEquals(1, frame.getInt());
+    }
+
+    @Test(expected = JoynrIllegalStateException.class)
+    public void readBodyLengthThrowsOnUnexpectedCookie() {
+        ByteBuffer frame = UdsFrame.createInitFrame(new byte[]{ 4 });
+        UdsFrame.readBodyLength(frame, UdsFrame.MESSAGE_MAGIC_COOKIE, 10);
+    }
+
+    @Test(expected = JoynrIllegalStateException.class)
+    public void readBodyLengthThrowsIfBodyExceedsMaximum() {
+        ByteBuffer frame = UdsFrame.createMessageFrame(new byte[11]);
+        UdsFrame.readBodyLength(frame, UdsFrame.MESSAGE_MAGIC_COOKIE, 10);
+    }
+
+    @Test(expected = JoynrIllegalStateException.class)
+    public void readBodyLengthThrowsOnNegativeLength() {
+        ByteBuffer header = ByteBuffer.allocate(UdsFrame.HEADER_SIZE);
+        header.put(UdsFrame.MESSAGE_MAGIC_COOKIE).putInt(-1).flip();
+        UdsFrame.readBodyLength(header, UdsFrame.MESSAGE_MAGIC_COOKIE, Integer.MAX_VALUE);
+    }
+}
@@ -21,9 +21,13 @@ package io.joynr.messaging.websocket.jetty.client;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -34,6 +38,7 @@ import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
 import org.eclipse.jetty.websocket.api.WebSocketException;
 import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
 import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,11 +54,23 @@ import io.joynr.messaging.FailureAction;
 import io.joynr.messaging.SuccessAction;
 import io.joynr.messaging.websocket.IWebSocketMessagingSkeleton;
 import io.joynr.messaging.websocket.JoynrWebSocketEndpoint;
+import io.joynr.messaging.websocket.WebSocketMessageEnvelope;
 import io.joynr.util.ObjectMapper;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.WebSocketAddress;
 import joynr.system.RoutingTypes.WebSocketClientAddress;
 
+/**
+ * WebSocket client endpoint of a libjoynr runtime connecting to the cluster controller.
+ * <p>
+ * Outgoing messages are put into a bounded write queue which is drained by at most one pending asynchronous write
+ * at a time. If coalescing is enabled and the server accepts the {@link WebSocketMessageEnvelope#SUBPROTOCOL}
+ * during the handshake, all messages queued while the previous write was in progress are sent together in one
+ * binary frame. Queued messages are only written to the current session, i.e. after its initialization message
+ * has been sent, so messages which are queued while the connection is being re-established are sent to the new
+ * session. When a session is closed or cannot be established, the messages still queued for it are failed with a
+ * {@link JoynrDelayMessageException} so that they are retried, on shutdown with a {@link JoynrShutdownException}.
+ */
 public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSocketEndpoint {
     private static final Logger logger = LoggerFactory.getLogger(WebSocketJettyClient.class);
 
@@ -65,24 +82,35 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
     private int maxMessageSize;
     private long websocketIdleTimeout;
     Future<Session> sessionFuture;
+    private volatile Session currentSession;
     private WebSocketAddress serverAddress;
     private IWebSocketMessagingSkeleton messageListener;
     private ObjectMapper objectMapper;
     private WebSocketClientAddress ownAddress;
 
-    private boolean shutdown = false;
+    private volatile boolean shutdown = false;
+
+    private final boolean coalesceWrites;
+    private volatile boolean coalescingAccepted = false;
+    private final BlockingQueue<PendingWrite> writeQueue;
+    private final AtomicBoolean writeInProgress = new AtomicBoolean(false);
 
+    // CHECKSTYLE IGNORE ParameterNumber FOR NEXT 1 LINES
     public WebSocketJettyClient(WebSocketAddress serverAddress,
                                 WebSocketClientAddress ownAddress,
                                 int maxMessageSize,
                                 long reconnectDelay,
                                 long websocketIdleTimeout,
+                                boolean coalesceWrites,
+                                int writeQueueSize,
                                 ObjectMapper objectMapper) {
         this.serverAddress = serverAddress;
         this.ownAddress = ownAddress;
         this.maxMessageSize = maxMessageSize;
         this.reconnectDelay = reconnectDelay;
         this.websocketIdleTimeout = websocketIdleTimeout;
+        this.coalesceWrites = coalesceWrites;
+        this.writeQueue = new ArrayBlockingQueue<>(writeQueueSize);
         this.objectMapper = objectMapper;
     }
 
@@ -97,7 +125,11 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
 
         try {
             jettyClient.start();
-            sessionFuture = jettyClient.connect(this, toUrl(serverAddress));
+            ClientUpgradeRequest upgradeRequest = new ClientUpgradeRequest();
+            if (coalesceWrites) {
+                upgradeRequest.setSubProtocols(WebSocketMessageEnvelope.SUBPROTOCOL);
+            }
+            sessionFuture = jettyClient.connect(this, toUrl(serverAddress), upgradeRequest);
             sendInitializationMessage();
         } catch (JoynrShutdownException | JoynrIllegalStateException e) {
             logger.error("Unrecoverable error starting WebSocket client: {}", e);
@@ -108,6 +140,7 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
             // TODO which exceptions are recoverable? Only catch those ones
             // JoynrCommunicationExeption is thrown if the initialization message could not be sent
             logger.debug("Error starting WebSocket client. Will retry", e);
+            failQueuedWrites();
             if (shutdown) {
                 return;
             }
@@ -133,14 +166,26 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
         }
 
         try {
-            sessionFuture.get(30, TimeUnit.SECONDS)
-                         .getRemote()
-                         .sendBytes(ByteBuffer.wrap(serializedAddress.getBytes(CHARSET)));
+            Session session = sessionFuture.get(30, TimeUnit.SECONDS);
+            session.getRemote().sendBytes(ByteBuffer.wrap(serializedAddress.getBytes(CHARSET)));
+            sessionInitialized(session);
         } catch (IOException | ExecutionException | TimeoutException e) {
             throw new JoynrCommunicationException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Makes the given session, whose initialization message has been sent, the target of the queued messages and
+     * flushes the messages which have been queued in the meantime.
+     */
+    void sessionInitialized(Session session) {
+        coalescingAccepted = WebSocketMessageEnvelope.SUBPROTOCOL.equals(session.getUpgradeResponse()
+                                                                                .getAcceptedSubProtocol());
+        logger.debug("Connected to {}, coalescing of writes: {}", serverAddress, coalescingAccepted);
+        currentSession = session;
+        flushWriteQueue();
+    }
+
     private URI toUrl(WebSocketAddress address) {
         try {
             return URI.create(address.getProtocol() + "://" + address.getHost() + ":" + address.getPort() + ""
@@ -170,6 +215,7 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
     }
 
     private void closeSession() {
+        currentSession = null;
         try {
             if (sessionFuture != null) {
                 Session session = sessionFuture.get();
@@ -183,6 +229,29 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
         } catch (Exception e) {
             logger.error("Error: ", e);
         }
+        failQueuedWrites();
+    }
+
+    /**
+     * Fails the messages which are still queued for a session which has been closed or could not be established.
+     */
+    private void failQueuedWrites() {
+        List<PendingWrite> queuedWrites = new ArrayList<>();
+        synchronized (writeQueue) {
+            writeQueue.drainTo(queuedWrites);
+        }
+        if (queuedWrites.isEmpty()) {
+            return;
+        }
+        logger.debug("Failing {} queued messages, WebSocket connection to {} closed",
+                     queuedWrites.size(),
+                     serverAddress);
+        if (shutdown) {
+            failBatch(queuedWrites, new JoynrShutdownException("WebSocket client is shut down"));
+        } else {
+            failBatch(queuedWrites,
+                      new JoynrDelayMessageException(reconnectDelay, "WebSocket connection closed. Will try later"));
+        }
     }
 
     @Override
@@ -225,50 +294,169 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
     }
 
     @Override
-    public synchronized void writeBytes(Address to,
-                                        byte[] message,
-                                        long timeout,
-                                        TimeUnit unit,
-                                        final SuccessAction successAction,
-                                        final FailureAction failureAction) {
+    public void writeBytes(Address to,
+                           byte[] message,
+                           long timeout,
+                           TimeUnit unit,
+                           final SuccessAction successAction,
+                           final FailureAction failureAction) {
         if (messageListener == null) {
             throw new JoynrDelayMessageException(20, "WebSocket write failed: receiver has not been set yet");
         }
 
-        if (sessionFuture == null) {
+        Future<Session> currentSessionFuture = sessionFuture;
+        if (currentSessionFuture == null) {
             try {
                 reconnect();
             } catch (Exception e) {
                 throw new JoynrDelayMessageException(10, "WebSocket reconnect failed. Will try later", e);
             }
+            currentSessionFuture = sessionFuture;
+            if (currentSessionFuture == null) {
+                throw new JoynrDelayMessageException(10, "WebSocket reconnect failed. Will try later");
+            }
         }
 
         try {
-            Session session = sessionFuture.get(timeout, unit);
-            session.getRemote().sendBytes(ByteBuffer.wrap(message), new WriteCallback() {
+            currentSessionFuture.get(timeout, unit);
+            if (!writeQueue.offer(new PendingWrite(message, successAction, failureAction))) {
+                throw new JoynrDelayMessageException("WebSocket write queue is full");
+            }
+            if (shutdown) {
+                // queued after shutdown has failed the queued messages
+                failQueuedWrites();
+                return;
+            }
+            flushWriteQueue();
+        } catch (WebSocketException | ExecutionException e) {
+            reconnect();
+            throw new JoynrDelayMessageException(10, "WebSocket write timed out", e);
+        } catch (TimeoutException e) {
+            throw new JoynrDelayMessageException("WebSocket write timed out", e);
+        } catch (InterruptedException e) {
+            failureAction.execute(new JoynrDelayMessageException(10, "WebSocket write interrupted", e));
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the queued messages to the current session, at most one write is pending at a time. If a write
+     * completes synchronously, flushing is continued by the loop, otherwise by the completion callback. Hence the
+     * stack does not grow with the number of queued messages.
+     */
+    private void flushWriteQueue() {
+        while (writeInProgress.compareAndSet(false, true)) {
+            Session session = currentSession;
+            boolean coalescing = coalescingAccepted;
+            List<PendingWrite> batch = isOpen(session) ? pollBatch(coalescing) : new ArrayList<PendingWrite>();
+            if (batch.isEmpty()) {
+                writeInProgress.set(false);
+                // a write might have been queued or the session might have been initialized after polling but before
+                // resetting the flag
+                if (writeQueue.isEmpty() || !isOpen(currentSession)) {
+                    return;
+                }
+            } else if (!sendBatch(session, batch, coalescing)) {
+                // the completion callback of the pending write continues flushing the queue
+                return;
+            }
+        }
+    }
+
+    private static boolean isOpen(Session session) {
+        return session != null && session.isOpen();
+    }
+
+    /**
+     * @return true if the write has already been completed and the caller has to continue flushing the queue,
+     * false if the completion callback continues flushing the queue
+     */
+    private boolean sendBatch(Session session, List<PendingWrite> batch, boolean coalescing) {
+        ByteBuffer frame;
+        if (coalescing) {
+            List<byte[]> messages = new ArrayList<>(batch.size());
+            for (PendingWrite pendingWrite : batch) {
+                messages.add(pendingWrite.message);
+            }
+            frame = WebSocketMessageEnvelope.encode(messages);
+        } else {
+            frame = ByteBuffer.wrap(batch.get(0).message);
+        }
+
+        // set by whoever comes first: the completion callback or this method after sendBytes has returned
+        final AtomicBoolean sendReturnedOrCompleted = new AtomicBoolean(false);
+        try {
+            session.getRemote().sendBytes(frame, new WriteCallback() {
 
                 @Override
                 public void writeSuccess() {
-                    successAction.execute();
+                    for (PendingWrite pendingWrite : batch) {
+                        pendingWrite.successAction.execute();
+                    }
+                    writeCompleted(sendReturnedOrCompleted);
                 }
 
                 @Override
                 public void writeFailed(Throwable error) {
                     if (error instanceof WebSocketException) {
                         reconnect();
-                        failureAction.execute(new JoynrDelayMessageException(reconnectDelay, error.getMessage()));
+                        failBatch(batch, new JoynrDelayMessageException(reconnectDelay, error.getMessage()));
                     } else {
-                        failureAction.execute(error);
+                        failBatch(batch, error);
                     }
+                    writeCompleted(sendReturnedOrCompleted);
                 }
             });
-        } catch (WebSocketException | ExecutionException e) {
+        } catch (WebSocketException e) {
+            writeInProgress.set(false);
             reconnect();
-            throw new JoynrDelayMessageException(10, "WebSocket write timed out", e);
-        } catch (TimeoutException e) {
-            throw new JoynrDelayMessageException("WebSocket write timed out", e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            failBatch(batch, new JoynrDelayMessageException(10, "WebSocket write failed: " + e.getMessage()));
+            return true;
+        }
+        if (sendReturnedOrCompleted.compareAndSet(false, true)) {
+            return false;
+        }
+        writeInProgress.set(false);
+        return true;
+    }
+
+    private List<PendingWrite> pollBatch(boolean coalescing) {
+        List<PendingWrite> batch = new ArrayList<>();
+        if (!coalescing) {
+            PendingWrite pendingWrite = writeQueue.poll();
+            if (pendingWrite != null) {
+                batch.add(pendingWrite);
+            }
+            return batch;
+        }
+        int batchSize = 0;
+        PendingWrite next;
+        // entries are only removed by this method, which is never executed concurrently, and by failQueuedWrites
+        synchronized (writeQueue) {
+            while ((next = writeQueue.peek()) != null) {
+                int encodedSize = WebSocketMessageEnvelope.getEncodedSize(next.message);
+                if (!batch.isEmpty() && batchSize + encodedSize > maxMessageSize) {
+                    break;
+                }
+                batch.add(writeQueue.poll());
+                batchSize += encodedSize;
+            }
+        }
+        return batch;
+    }
+
+    private void writeCompleted(AtomicBoolean sendReturnedOrCompleted) {
+        if (sendReturnedOrCompleted.compareAndSet(false, true)) {
+            // completed synchronously within sendBytes, sendBatch continues flushing the queue
+            return;
+        }
+        writeInProgress.set(false);
+        flushWriteQueue();
+    }
+
+    private void failBatch(List<PendingWrite> batch, Throwable error) {
+        for (PendingWrite pendingWrite : batch) {
+            pendingWrite.failureAction.execute(error);
         }
     }
 
@@ -280,4 +468,16 @@ public class WebSocketJettyClient extends WebSocketAdapter implements JoynrWebSo
             reconnect();
         }
     }
+
+    private static class PendingWrite {
+        private final byte[] message;
+        private final SuccessAction successAction;
+        private final FailureAction failureAction;
+
+        PendingWrite(byte[] message, SuccessAction successAction, FailureAction failureAction) {
+            this.message = message;
+            this.successAction = successAction;
+            this.failureAction = failureAction;
+        }
+    }
 }
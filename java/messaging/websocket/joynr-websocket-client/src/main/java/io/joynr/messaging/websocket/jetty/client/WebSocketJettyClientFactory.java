@@ -43,6 +43,14 @@ public class WebSocketJettyClientFactory implements WebSocketEndpointFactory {
     private Map<WebSocketAddress, JoynrWebSocketEndpoint> jettyClientsMap = new HashMap<WebSocketAddress, JoynrWebSocketEndpoint>();
     private ObjectMapper objectMapper;
 
+    @Inject(optional = true)
+    @Named(WebsocketModule.PROPERTY_WEBSOCKET_MESSAGING_COALESCE_WRITES)
+    private boolean coalesceWrites = true;
+
+    @Inject(optional = true)
+    @Named(WebsocketModule.PROPERTY_WEBSOCKET_MESSAGING_WRITE_QUEUE_SIZE)
+    private int writeQueueSize = 1000;
+
     @Inject
     public WebSocketJettyClientFactory(@Named(WebsocketModule.WEBSOCKET_CLIENT_ADDRESS) WebSocketClientAddress ownAddress,
                                        @Named(ConfigurableMessagingSettings.PROPERTY_MAX_MESSAGE_SIZE) int maxMessageSize,
@@ -64,6 +72,8 @@ public class WebSocketJettyClientFactory implements WebSocketEndpointFactory {
                                                                           maxMessageSize,
                                                                           reconnectDelay,
                                                                           websocketIdleTimeout,
+                                                                          coalesceWrites,
+                                                                          writeQueueSize,
                                                                           objectMapper);
             jettyClientsMap.put(serverAddress, jettyClient);
         }
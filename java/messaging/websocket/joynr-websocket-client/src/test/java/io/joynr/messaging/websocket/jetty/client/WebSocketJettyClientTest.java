@@ -0,0 +1,371 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.websocket.jetty.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeResponse;
+import org.eclipse.jetty.websocket.api.WebSocketException;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import io.joynr.exceptions.JoynrDelayMessageException;
+import io.joynr.exceptions.JoynrShutdownException;
+import io.joynr.messaging.FailureAction;
+import io.joynr.messaging.SuccessAction;
+import io.joynr.messaging.websocket.IWebSocketMessagingSkeleton;
+import io.joynr.messaging.websocket.WebSocketMessageEnvelope;
+import io.joynr.util.ObjectMapper;
+import joynr.system.RoutingTypes.WebSocketAddress;
+import joynr.system.RoutingTypes.WebSocketClientAddress;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WebSocketJettyClientTest {
+    private static final int MAX_MESSAGE_SIZE = 1024;
+    private static final int WRITE_QUEUE_SIZE = 1000;
+
+    @Mock
+    private IWebSocketMessagingSkeleton messageListener;
+    @Mock
+    private SuccessAction successAction;
+    @Mock
+    private FailureAction failureAction;
+
+    private WebSocketAddress serverAddress;
+
+    @Before
+    public void setUp() {
+        serverAddress = new WebSocketAddress();
+    }
+
+    /**
+     * Session whose RemoteEndpoint records the written frames. Writes are completed by the test unless
+     * completeSynchronously is set, in which case the callback is invoked within sendBytes.
+     */
+    private static class FakeSession {
+        final Session session = mock(Session.class);
+        final List<byte[]> frames = new ArrayList<>();
+        final List<WriteCallback> pendingCallbacks = new ArrayList<>();
+        final List<Integer> stackDepths = new ArrayList<>();
+        volatile boolean completeSynchronously = false;
+        volatile boolean throwOnNextWrite = false;
+
+        FakeSession(String acceptedSubProtocol) {
+            UpgradeResponse upgradeResponse = mock(UpgradeResponse.class);
+            RemoteEndpoint remote = mock(RemoteEndpoint.class);
+            doReturn(acceptedSubProtocol).when(upgradeResponse).getAcceptedSubProtocol();
+            doReturn(upgradeResponse).when(session).getUpgradeResponse();
+            doReturn(remote).when(session).getRemote();
+            doReturn(true).when(session).isOpen();
+            doAnswer(invocation -> {
+                if (throwOnNextWrite) {
+                    throwOnNextWrite = false;
+                    throw new WebSocketException("test exception");
+                }
+                ByteBuffer frame = (ByteBuffer) invocation.getArguments()[0];
+                byte[] bytes = new byte[frame.remaining()];
+                frame.duplicate().get(bytes);
+                frames.add(bytes);
+                stackDepths.add(Thread.currentThread().getStackTrace().length);
+                WriteCallback callback = (WriteCallback) invocation.getArguments()[1];
+                if (completeSynchronously) {
+                    callback.writeSuccess();
+                } else {
+                    pendingCallbacks.add(callback);
+                }
+                return null;
+            }).when(remote).sendBytes(any(ByteBuffer.class), any(WriteCallback.class));
+        }
+
+        void completePendingWrite() {
+            pendingCallbacks.remove(0).writeSuccess();
+        }
+    }
+
+    private WebSocketJettyClient createConnectedClient(boolean coalesceWrites, FakeSession fakeSession) {
+        WebSocketJettyClient client = new WebSocketJettyClient(serverAddress,
+                                                               new WebSocketClientAddress(),
+                                                               MAX_MESSAGE_SIZE,
+                                                               1000L,
+                                                               30000L,
+                                                               coalesceWrites,
+                                                               WRITE_QUEUE_SIZE,
+                                                               new ObjectMapper());
+        client.setMessageListener(messageListener);
+        connect(client, fakeSession);
+        return client;
+    }
+
+    private void connect(WebSocketJettyClient client, FakeSession fakeSession) {
+        client.sessionFuture = CompletableFuture.completedFuture(fakeSession.session);
+        client.sessionInitialized(fakeSession.session);
+    }
+
+    private void write(WebSocketJettyClient client, byte[] message) {
+        client.writeBytes(serverAddress, message, 1000L, TimeUnit.MILLISECONDS, successAction, failureAction);
+    }
+
+    private static byte[] createMessage(int index, int size) {
+        byte[] message = new byte[size];
+        Arrays.fill(message, (byte) index);
+        return message;
+    }
+
+    private static List<byte[]> decode(byte[] frame) {
+        return WebSocketMessageEnvelope.decode(frame, 0, frame.length);
+    }
+
+    @Test
+    public void writeBytes_writeInProgress_messagesAreQueuedAndSentInOrder() {
+        FakeSession fakeSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(false, fakeSession);
+        byte[] message1 = createMessage(1, 10);
+        byte[] message2 = createMessage(2, 10);
+        byte[] message3 = createMessage(3, 10);
+
+        write(client, message1);
+        write(client, message2);
+        write(client, message3);
+        assertEquals(1, fakeSession.frames.size());
+        verify(successAction, never()).execute();
+
+        fakeSession.completePendingWrite();
+        assertEquals(2, fakeSession.frames.size());
+        verify(successAction, times(1)).execute();
+
+        fakeSession.completePendingWrite();
+        fakeSession.completePendingWrite();
+        assertEquals(3, fakeSession.frames.size());
+        assertArrayEquals(message1, fakeSession.frames.get(0));
+        assertArrayEquals(message2, fakeSession.frames.get(1));
+        assertArrayEquals(message3, fakeSession.frames.get(2));
+        verify(successAction, times(3)).execute();
+        verify(failureAction, never()).execute(any(Throwable.class));
+    }
+
+    @Test
+    public void writeBytes_writesCompleteSynchronously_stackDoesNotGrowWithQueuedMessages() {
+        final int numberOfQueuedMessages = 100;
+        FakeSession fakeSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(false, fakeSession);
+
+        write(client, createMessage(0, 10));
+        for (int i = 1; i <= numberOfQueuedMessages; i++) {
+            write(client, createMessage(i, 10));
+        }
+        fakeSession.completeSynchronously = true;
+        fakeSession.completePendingWrite();
+
+        assertEquals(numberOfQueuedMessages + 1, fakeSession.frames.size());
+        int stackDepthOfFirstQueuedMessage = fakeSession.stackDepths.get(1);
+        for (int i = 2; i <= numberOfQueuedMessages; i++) {
+            assertEquals(stackDepthOfFirstQueuedMessage, (int) fakeSession.stackDepths.get(i));
+        }
+        verify(successAction, times(numberOfQueuedMessages + 1)).execute();
+    }
+
+    @Test
+    public void writeBytes_coalescingAccepted_queuedMessagesAreSentInOneFrame() {
+        FakeSession fakeSession = new FakeSession(WebSocketMessageEnvelope.SUBPROTOCOL);
+        WebSocketJettyClient client = createConnectedClient(true, fakeSession);
+        byte[] message1 = createMessage(1, 10);
+        byte[] message2 = createMessage(2, 10);
+        byte[] message3 = createMessage(3, 10);
+
+        write(client, message1);
+        write(client, message2);
+        write(client, message3);
+        fakeSession.completePendingWrite();
+        fakeSession.completePendingWrite();
+
+        assertEquals(2, fakeSession.frames.size());
+        List<byte[]> firstFrame = decode(fakeSession.frames.get(0));
+        assertEquals(1, firstFrame.size());
+        assertArrayEquals(message1, firstFrame.get(0));
+        List<byte[]> secondFrame = decode(fakeSession.frames.get(1));
+        assertEquals(2, secondFrame.size());
+        assertArrayEquals(message2, secondFrame.get(0));
+        assertArrayEquals(message3, secondFrame.get(1));
+        verify(successAction, times(3)).execute();
+    }
+
+    @Test
+    public void writeBytes_coalescingAccepted_frameIsLimitedByMaxMessageSize() {
+        final int messageSize = MAX_MESSAGE_SIZE * 2 / 5;
+        FakeSession fakeSession = new FakeSession(WebSocketMessageEnvelope.SUBPROTOCOL);
+        WebSocketJettyClient client = createConnectedClient(true, fakeSession);
+
+        write(client, createMessage(0, messageSize));
+        for (int i = 1; i <= 3; i++) {
+            write(client, createMessage(i, messageSize));
+        }
+        fakeSession.completeSynchronously = true;
+        fakeSession.completePendingWrite();
+
+        assertEquals(3, fakeSession.frames.size());
+        assertEquals(2, decode(fakeSession.frames.get(1)).size());
+        assertEquals(1, decode(fakeSession.frames.get(2)).size());
+        for (byte[] frame : fakeSession.frames) {
+            assertTrue(frame.length <= MAX_MESSAGE_SIZE);
+        }
+        verify(successAction, times(4)).execute();
+    }
+
+    @Test
+    public void writeBytes_coalescingNotAccepted_messagesAreSentInSeparateFrames() {
+        FakeSession fakeSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(true, fakeSession);
+        byte[] message1 = createMessage(1, 10);
+        byte[] message2 = createMessage(2, 10);
+
+        write(client, message1);
+        write(client, message2);
+        fakeSession.completePendingWrite();
+
+        assertEquals(2, fakeSession.frames.size());
+        assertArrayEquals(message1, fakeSession.frames.get(0));
+        assertArrayEquals(message2, fakeSession.frames.get(1));
+    }
+
+    @Test
+    public void sessionInitialized_whileWriteToPreviousSessionIsPending_queuedMessagesAreSentToNewSession() {
+        FakeSession previousSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(false, previousSession);
+        byte[] message1 = createMessage(1, 10);
+        byte[] message2 = createMessage(2, 10);
+        byte[] message3 = createMessage(3, 10);
+
+        write(client, message1);
+        write(client, message2);
+
+        FakeSession newSession = new FakeSession(null);
+        doReturn(false).when(previousSession.session).isOpen();
+        connect(client, newSession);
+        write(client, message3);
+        // the pending write to the previous session still blocks the queue
+        assertEquals(0, newSession.frames.size());
+
+        previousSession.completePendingWrite();
+        newSession.completePendingWrite();
+
+        assertEquals(1, previousSession.frames.size());
+        assertEquals(2, newSession.frames.size());
+        assertArrayEquals(message2, newSession.frames.get(0));
+        assertArrayEquals(message3, newSession.frames.get(1));
+        verify(successAction, times(2)).execute();
+    }
+
+    @Test
+    public void writeBytes_sendBytesThrows_failsBatchAndSendsRemainingMessages() {
+        FakeSession fakeSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(false, fakeSession);
+        byte[] message1 = createMessage(1, 10);
+        byte[] message2 = createMessage(2, 10);
+        byte[] message3 = createMessage(3, 10);
+
+        write(client, message1);
+        write(client, message2);
+        write(client, message3);
+        fakeSession.throwOnNextWrite = true;
+        fakeSession.completePendingWrite();
+
+        ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(failureAction).execute(errorCaptor.capture());
+        assertTrue(errorCaptor.getValue() instanceof JoynrDelayMessageException);
+        assertEquals(2, fakeSession.frames.size());
+        assertArrayEquals(message1, fakeSession.frames.get(0));
+        assertArrayEquals(message3, fakeSession.frames.get(1));
+
+        fakeSession.completePendingWrite();
+        verify(successAction, times(2)).execute();
+    }
+
+    @Test
+    public void shutdown_queuedMessagesAreFailedWithShutdownException() {
+        FakeSession fakeSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(false, fakeSession);
+
+        write(client, createMessage(1, 10));
+        write(client, createMessage(2, 10));
+        write(client, createMessage(3, 10));
+        client.shutdown();
+
+        ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(failureAction, times(2)).execute(errorCaptor.capture());
+        for (Throwable error : errorCaptor.getAllValues()) {
+            assertTrue(error instanceof JoynrShutdownException);
+        }
+        verify(fakeSession.session).close();
+        assertEquals(1, fakeSession.frames.size());
+    }
+
+    @Test
+    public void writeBytes_afterShutdown_messageIsFailedWithShutdownException() {
+        FakeSession fakeSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(false, fakeSession);
+        client.shutdown();
+        client.sessionFuture = CompletableFuture.completedFuture(fakeSession.session);
+
+        write(client, createMessage(1, 10));
+
+        ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(failureAction).execute(errorCaptor.capture());
+        assertTrue(errorCaptor.getValue() instanceof JoynrShutdownException);
+        assertEquals(0, fakeSession.frames.size());
+    }
+
+    @Test
+    public void writeBytes_interrupted_failureActionIsCalledAndInterruptIsRestored() {
+        FakeSession fakeSession = new FakeSession(null);
+        WebSocketJettyClient client = createConnectedClient(false, fakeSession);
+        client.sessionFuture = new CompletableFuture<Session>();
+
+        Thread.currentThread().interrupt();
+        write(client, createMessage(1, 10));
+
+        assertTrue(Thread.interrupted());
+        ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(failureAction).execute(errorCaptor.capture());
+        assertTrue(errorCaptor.getValue() instanceof JoynrDelayMessageException);
+        verify(successAction, never()).execute();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.joynr.exceptions.JoynrIllegalStateException;
+
+/**
+ * Length-prefixed envelope which carries several serialized joynr messages in a single WebSocket binary frame.
+ * <p>
+ * Each message is prefixed by its length as 4 byte big-endian integer. The envelope is only used on connections
+ * where both sides agreed on the {@link #SUBPROTOCOL} during the WebSocket handshake.
+ */
+public final class WebSocketMessageEnvelope {
+
+    public static final String SUBPROTOCOL = "joynr-smrf-envelope";
+
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    private WebSocketMessageEnvelope() {
+    }
+
+    public static int getEncodedSize(byte[] message) {
+        return LENGTH_PREFIX_SIZE + message.length;
+    }
+
+    public static ByteBuffer encode(List<byte[]> messages) {
+        int size = 0;
+        for (byte[] message : messages) {
+            size += getEncodedSize(message);
+        }
+        ByteBuffer envelope = ByteBuffer.allocate(size);
+        for (byte[] message : messages) {
+            envelope.putInt(message.length);
+            envelope.put(message);
+        }
+        envelope.flip();
+        return envelope;
+    }
+
+    public static List<byte[]> decode(byte[] payload, int offset, int length) {
+        List<byte[]> messages = new ArrayList<>();
+        ByteBuffer envelope = ByteBuffer.wrap(payload, offset, length);
+        while (envelope.hasRemaining()) {
+            if (envelope.remaining() < LENGTH_PREFIX_SIZE) {
+                throw new JoynrIllegalStateException("Truncated length prefix in WebSocket message envelope");
+            }
+            int messageLength = envelope.getInt();
+            if (messageLength < 0 || messageLength > envelope.remaining()) {
+                throw new JoynrIllegalStateException("Invalid message length " + messageLength
+                        + " in WebSocket message envelope");
+            }
+            byte[] message = new byte[messageLength];
+            envelope.get(message);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
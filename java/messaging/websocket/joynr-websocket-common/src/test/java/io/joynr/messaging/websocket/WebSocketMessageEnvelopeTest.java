@@ -0,0 +1,66 @@
+/*
+ * #%L
+ * %%
+ * Copyright (C) 2021 BMW Car IT GmbH
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.joynr.messaging.websocket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.joynr.exceptions.JoynrIllegalStateException;
+
+public class WebSocketMessageEnvelopeTest {
+
+    @Test
+    public void decodeReturnsEncodedMessages() {
+        byte[] first = new byte[]{ 1, 2, 3 };
+        byte[] second = new byte[0];
+        byte[] third = new byte[]{ 4 };
+
+        ByteBuffer envelope = WebSocketMessageEnvelope.encode(Arrays.asList(first, second, third));
+        assertEquals(WebSocketMessageEnvelope.getEncodedSize(first) + WebSocketMessageEnvelope.getEncodedSize(second)
+                + WebSocketMessageEnvelope.getEncodedSize(third), envelope.remaining());
+
+        byte[] payload = new byte[envelope.remaining() + 2];
+        envelope.get(payload, 1, payload.length - 2);
+        List<byte[]> messages = WebSocketMessageEnvelope.decode(payload, 1, payload.length - 2);
+
+        assertEquals(3, messages.size());
+        assertArrayEquals(first, messages.get(0));
+        assertArrayEquals(second, messages.get(1));
+        assertArrayEquals(third, messages.get(2));
+    }
+
+    @Test(expected = JoynrIllegalStateException.class)
+    public void decodeThrowsOnTruncatedMessage() {
+        ByteBuffer envelope = WebSocketMessageEnvelope.encode(Arrays.asList(new byte[]{ 1, 2, 3 }));
+        byte[] payload = new byte[envelope.remaining()];
+        envelope.get(payload);
+        WebSocketMessageEnvelope.decode(payload, 0, payload.length - 1);
+    }
+
+    @Test(expected = JoynrIllegalStateException.class)
+    public void decodeThrowsOnTruncatedLengthPrefix() {
+        WebSocketMessageEnvelope.decode(new byte[]{ 0, 0 }, 0, 2);
+    }
+}
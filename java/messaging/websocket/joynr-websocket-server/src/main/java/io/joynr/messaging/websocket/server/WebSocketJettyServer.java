@@ -51,6 +51,7 @@ import io.joynr.messaging.FailureAction;
 import io.joynr.messaging.SuccessAction;
 import io.joynr.messaging.websocket.IWebSocketMessagingSkeleton;
 import io.joynr.messaging.websocket.JoynrWebSocketEndpoint;
+import io.joynr.messaging.websocket.WebSocketMessageEnvelope;
 import io.joynr.util.ObjectMapper;
 import joynr.system.RoutingTypes.Address;
 import joynr.system.RoutingTypes.WebSocketAddress;
@@ -124,7 +125,13 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
                     @Override
                     public Object createWebSocket(ServletUpgradeRequest servletUpgradeRequest,
                                                   ServletUpgradeResponse servletUpgradeResponse) {
-                        CCWebSocketMessagingSkeletonSocket socket = new CCWebSocketMessagingSkeletonSocket(WebSocketJettyServer.this);
+                        boolean messageEnvelopeAccepted = servletUpgradeRequest.getSubProtocols()
+                                                                               .contains(WebSocketMessageEnvelope.SUBPROTOCOL);
+                        if (messageEnvelopeAccepted) {
+                            servletUpgradeResponse.setAcceptedSubProtocol(WebSocketMessageEnvelope.SUBPROTOCOL);
+                        }
+                        CCWebSocketMessagingSkeletonSocket socket = new CCWebSocketMessagingSkeletonSocket(WebSocketJettyServer.this,
+                                                                                                           messageEnvelopeAccepted);
                         openSockets.add(socket);
                         return socket;
                     }
@@ -216,9 +223,12 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
     private class CCWebSocketMessagingSkeletonSocket extends WebSocketAdapter {
 
         private WebSocketMessageArrivedListener messageArrivedListener;
+        private final boolean messageEnvelopeAccepted;
 
-        public CCWebSocketMessagingSkeletonSocket(WebSocketMessageArrivedListener messageArrivedListener) {
+        public CCWebSocketMessagingSkeletonSocket(WebSocketMessageArrivedListener messageArrivedListener,
+                                                  boolean messageEnvelopeAccepted) {
             this.messageArrivedListener = messageArrivedListener;
+            this.messageEnvelopeAccepted = messageEnvelopeAccepted;
         }
 
         @Override
@@ -233,6 +243,17 @@ public class WebSocketJettyServer implements JoynrWebSocketEndpoint, WebSocketMe
                 } catch (IOException e) {
                     logger.error("Error parsing WebSocketClientAddress: ", e);
                 }
+            } else if (messageEnvelopeAccepted) {
+                List<byte[]> messages;
+                try {
+                    messages = WebSocketMessageEnvelope.decode(payload, offset, len);
+                } catch (JoynrIllegalStateException e) {
+                    logger.error("Error parsing WebSocket message envelope: ", e);
+                    return;
+                }
+                for (byte[] message : messages) {
+                    messageArrivedListener.messageArrived(message);
+                }
             } else {
                 messageArrivedListener.messageArrived(payload);
             }